@@ -0,0 +1,122 @@
+package info.jab.pml.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * PML inputs shared by the benchmarks: the schema module samples plus synthetic prompts scaled
+ * up to stress the rendering path.
+ */
+final class BenchmarkPrompts {
+
+    /**
+     * Small prompt from the schema samples.
+     */
+    static final String HELLO_WORLD = "pml-hello-world";
+
+    /**
+     * Largest prompt from the schema samples, with steps, examples and code blocks.
+     */
+    static final String TDD_EXAMPLE = "pml-tdd-example";
+
+    /**
+     * Synthetic prompt with {@value #STEP_COUNT} steps.
+     */
+    static final String MANY_STEPS = "steps-10k";
+
+    /**
+     * Synthetic prompt whose example carries a code block of {@value #CODE_BLOCK_BYTES} bytes.
+     */
+    static final String LARGE_CODE_BLOCK = "code-block-1mb";
+
+    /**
+     * Text searched by the template benchmarks; every synthetic step contains it.
+     */
+    static final String TEMPLATE_PLACEHOLDER = "MESSAGE";
+
+    static final int STEP_COUNT = 10_000;
+    static final int CODE_BLOCK_BYTES = 1024 * 1024;
+
+    private BenchmarkPrompts() {
+        // Utility class
+    }
+
+    /**
+     * Returns the PML content of the named prompt.
+     *
+     * @param name one of the prompt names declared in this class
+     * @return the PML XML content
+     */
+    static String load(String name) {
+        return switch (name) {
+            case MANY_STEPS -> manySteps(STEP_COUNT);
+            case LARGE_CODE_BLOCK -> largeCodeBlock(CODE_BLOCK_BYTES);
+            default -> sample(name);
+        };
+    }
+
+    private static String sample(String name) {
+        String resource = "/samples/pml/" + name + ".xml";
+        try (InputStream input = BenchmarkPrompts.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalStateException("Could not find " + resource + " in resources");
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String manySteps(int steps) {
+        StringBuilder pml = header("Synthetic prompt with many steps");
+        pml.append("  <steps>\n");
+        for (int i = 1; i <= steps; i++) {
+            pml.append("    <step number=\"").append(i).append("\">\n")
+                .append("      <step-title>Step ").append(i).append("</step-title>\n")
+                .append("      <step-content>\n")
+                .append("        Print the ").append(TEMPLATE_PLACEHOLDER).append(" for item ").append(i).append(".\n")
+                .append("        Keep the output on a single line.\n")
+                .append("      </step-content>\n")
+                .append("    </step>\n");
+        }
+        pml.append("  </steps>\n");
+        return pml.append("</prompt>\n").toString();
+    }
+
+    private static String largeCodeBlock(int bytes) {
+        StringBuilder pml = header("Synthetic prompt with a large code block");
+        pml.append("  <examples>\n")
+            .append("    <example number=\"1\">\n")
+            .append("      <example-header>\n")
+            .append("        <example-title>Large code block</example-title>\n")
+            .append("      </example-header>\n")
+            .append("      <code-examples>\n")
+            .append("        <good-example>\n")
+            .append("          <code-block language=\"java\">\n");
+        // Lines of about 1 KB: the stylesheet trims code blocks recursively, one call per line,
+        // and overflows the stack on a megabyte of short lines
+        String line = "        log(\"" + (TEMPLATE_PLACEHOLDER + " ").repeat(125) + "\");    \n";
+        for (int written = 0; written < bytes; written += line.length()) {
+            pml.append(line);
+        }
+        pml.append("          </code-block>\n")
+            .append("        </good-example>\n")
+            .append("      </code-examples>\n")
+            .append("    </example>\n")
+            .append("  </examples>\n");
+        return pml.append("</prompt>\n").toString();
+    }
+
+    private static StringBuilder header(String title) {
+        return new StringBuilder()
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+            .append("<prompt>\n")
+            .append("  <title>").append(title).append("</title>\n")
+            .append("  <role>You are a benchmark prompt</role>\n")
+            .append("  <goal>\n")
+            .append("    Render ").append(TEMPLATE_PLACEHOLDER).append(" as fast as possible.\n")
+            .append("  </goal>\n");
+    }
+}
@@ -0,0 +1,85 @@
+package info.jab.pml.benchmarks;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Benchmarks the {@link PmlUtils} operations used by the CLI: validation, template replacement
+ * and XSLT conversion of in-memory content, and rendering of compiled templates.
+ *
+ * <p>Run with {@code java -jar benchmarks/target/benchmarks.jar PmlUtilsBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PmlUtilsBenchmark {
+
+    private final PmlUtils pmlUtils = new PmlUtils();
+    private final Map<String, String> templates = Map.of(
+        "title", "Benchmarked title",
+        BenchmarkPrompts.TEMPLATE_PLACEHOLDER, "Hello World");
+    private final PrintStream discard = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+
+    @Benchmark
+    public boolean validateFile(PromptState state) {
+        return pmlUtils.validate(state.file);
+    }
+
+    @Benchmark
+    public boolean validateString(PromptState state) {
+        return pmlUtils.validate(state.content);
+    }
+
+    @Benchmark
+    public String applyTemplatesString(PromptState state) throws Exception {
+        return pmlUtils.applyTemplates(state.content, templates);
+    }
+
+    @Benchmark
+    public Document applyTemplatesDocument(PromptState state) throws IOException, SAXException {
+        // Templates modify the document in place, so every invocation works on a fresh parse
+        Document document = pmlUtils.parse(new ByteArrayInputStream(state.content.getBytes(StandardCharsets.UTF_8)));
+        pmlUtils.applyTemplates(document, templates);
+        return document;
+    }
+
+    @Benchmark
+    public boolean convertToMarkdown(PromptState state) {
+        return pmlUtils.convertToMarkdown(state.content, discard);
+    }
+
+    @Benchmark
+    public boolean templateAndConvert(PromptState state) throws IOException, SAXException {
+        // What convert --template does for every set of values
+        Document document = pmlUtils.parse(new ByteArrayInputStream(state.content.getBytes(StandardCharsets.UTF_8)));
+        pmlUtils.applyTemplates(document, templates);
+        return pmlUtils.validate(document) && pmlUtils.convertToMarkdown(document, discard, RenderEngine.XSLT);
+    }
+
+    @Benchmark
+    public String renderCompiledTemplate(PromptState state) {
+        // What convert --template-values does for every row once the prompt is compiled
+        return state.compiledTemplate.render(templates);
+    }
+}
@@ -0,0 +1,156 @@
+package info.jab.pml.benchmarks;
+
+import info.jab.pml.model.CodeBlock;
+import info.jab.pml.model.CodeExamples;
+import info.jab.pml.model.Example;
+import info.jab.pml.model.ExampleHeader;
+import info.jab.pml.model.Examples;
+import info.jab.pml.model.Goal;
+import info.jab.pml.model.GoodExample;
+import info.jab.pml.model.Prompt;
+import info.jab.pml.model.PromptBuilder;
+import info.jab.pml.model.PromptCodec;
+import info.jab.pml.model.PromptMarkdownRenderer;
+import info.jab.pml.model.Step;
+import info.jab.pml.model.StepContent;
+import info.jab.pml.model.Steps;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLStreamException;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks building a {@link Prompt} with {@link PromptBuilder} and reading and writing it as
+ * XML, with JAXB and with the StAX based {@link PromptCodec}, and rendering it to Markdown with
+ * {@link PromptMarkdownRenderer}.
+ *
+ * <p>Run with {@code java -jar benchmarks/target/benchmarks.jar PromptModelBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptModelBenchmark {
+
+    @Param({"10", "10000"})
+    public int steps;
+
+    @Param({"0", "1048576"})
+    public int codeBlockBytes;
+
+    private JAXBContext context;
+    private Goal goal;
+    private Steps promptSteps;
+    private @Nullable Examples examples;
+    private byte[] document;
+
+    @Setup
+    public void setUp() throws JAXBException {
+        context = JAXBContext.newInstance(Prompt.class);
+
+        goal = new Goal();
+        goal.getContent().add("Render the prompt as fast as possible.");
+
+        promptSteps = new Steps();
+        for (int i = 1; i <= steps; i++) {
+            StepContent content = new StepContent();
+            content.getContent().add("Print the message for item " + i + ".");
+            Step step = new Step();
+            step.setNumber(String.valueOf(i));
+            step.setStepTitle("Step " + i);
+            step.setStepContent(content);
+            promptSteps.getStep().add(step);
+        }
+
+        examples = null;
+        if (codeBlockBytes > 0) {
+            String line = "System.out.println(\"Hello World\");\n";
+            CodeBlock codeBlock = new CodeBlock();
+            codeBlock.setLanguage("java");
+            codeBlock.setValue(line.repeat(codeBlockBytes / line.length()));
+            GoodExample goodExample = new GoodExample();
+            goodExample.setCodeBlock(codeBlock);
+            CodeExamples codeExamples = new CodeExamples();
+            codeExamples.getGoodExample().add(goodExample);
+            ExampleHeader header = new ExampleHeader();
+            header.setExampleTitle("Large code block");
+            Example example = new Example();
+            example.setNumber("1");
+            example.setExampleHeader(header);
+            example.setCodeExamples(codeExamples);
+            examples = new Examples();
+            examples.getExample().add(example);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        context.createMarshaller().marshal(newPrompt(), output);
+        document = output.toByteArray();
+    }
+
+    @Benchmark
+    public Prompt build() {
+        return newPrompt();
+    }
+
+    @Benchmark
+    public Prompt buildAndMarshal() throws JAXBException {
+        Prompt prompt = newPrompt();
+        // Marshallers are cheap but not thread-safe; create one per call as callers would
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.marshal(prompt, OutputStream.nullOutputStream());
+        return prompt;
+    }
+
+    @Benchmark
+    public Prompt buildAndWrite() throws XMLStreamException {
+        Prompt prompt = newPrompt();
+        PromptCodec.write(prompt, OutputStream.nullOutputStream());
+        return prompt;
+    }
+
+    @Benchmark
+    public Prompt unmarshal() throws JAXBException {
+        return (Prompt) context.createUnmarshaller().unmarshal(new ByteArrayInputStream(document));
+    }
+
+    @Benchmark
+    public Prompt read() throws XMLStreamException {
+        return PromptCodec.read(new ByteArrayInputStream(document));
+    }
+
+    @Benchmark
+    public Prompt buildAndRender() throws IOException {
+        Prompt prompt = newPrompt();
+        PromptMarkdownRenderer.render(prompt, Writer.nullWriter());
+        return prompt;
+    }
+
+    private Prompt newPrompt() {
+        return PromptBuilder.create()
+            .withRole("You are a benchmark prompt")
+            .withGoal(goal)
+            .withSteps(promptSteps)
+            .withExamples(examples)
+            .build();
+    }
+}
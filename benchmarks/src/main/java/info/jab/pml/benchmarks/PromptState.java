@@ -0,0 +1,60 @@
+package info.jab.pml.benchmarks;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.xml.CompiledTemplate;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Prompt under benchmark, available as a string, as a file, as a parsed document and as a
+ * template compiled with the variables of the template benchmarks.
+ */
+@State(Scope.Benchmark)
+public class PromptState {
+
+    @Param({
+        BenchmarkPrompts.HELLO_WORLD,
+        BenchmarkPrompts.TDD_EXAMPLE,
+        BenchmarkPrompts.MANY_STEPS,
+        BenchmarkPrompts.LARGE_CODE_BLOCK})
+    @SuppressWarnings("NullAway.Init")
+    public String prompt;
+
+    String content;
+    Path file;
+    Document document;
+    CompiledTemplate compiledTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SAXException {
+        PmlUtils pmlUtils = new PmlUtils();
+        content = BenchmarkPrompts.load(prompt);
+        file = Files.createTempFile("pml-benchmark-" + prompt, ".xml");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        if (!pmlUtils.validate(file)) {
+            throw new IllegalStateException("Benchmark prompt " + prompt + " is not valid PML");
+        }
+        document = pmlUtils.parse(file);
+        compiledTemplate = Objects.requireNonNull(pmlUtils.compileTemplate(pmlUtils.parse(file), Map.of(),
+            List.of("title", BenchmarkPrompts.TEMPLATE_PLACEHOLDER), RenderEngine.XSLT));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
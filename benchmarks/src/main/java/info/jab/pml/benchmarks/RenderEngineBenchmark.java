@@ -0,0 +1,46 @@
+package info.jab.pml.benchmarks;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the XSLT and StAX Markdown engines, from a parsed document and straight from a file.
+ *
+ * <p>Run with {@code java -jar benchmarks/target/benchmarks.jar RenderEngineBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderEngineBenchmark {
+
+    @Param({"XSLT", "STAX"})
+    @SuppressWarnings("NullAway.Init")
+    public RenderEngine engine;
+
+    private final PmlUtils pmlUtils = new PmlUtils();
+
+    @Benchmark
+    public boolean convertDocument(PromptState state) {
+        return pmlUtils.convertToMarkdown(state.document, OutputStream.nullOutputStream(), engine);
+    }
+
+    @Benchmark
+    public boolean convertFile(PromptState state) {
+        return pmlUtils.convertToMarkdown(state.file, OutputStream.nullOutputStream(), engine);
+    }
+}
@@ -0,0 +1,65 @@
+package info.jab.pml.benchmarks;
+
+import info.jab.pml.cli.xml.SchemaCache;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+/**
+ * Measures what {@link SchemaCache} saves: compiling {@code pml.xsd} for every validation, as
+ * the CLI used to, against reusing the compiled schema and the per-thread validator.
+ *
+ * <p>Run with {@code java -jar benchmarks/target/benchmarks.jar SchemaValidationBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaValidationBenchmark {
+
+    private URL schemaResource;
+    private String pmlContent;
+
+    @Setup
+    public void setUp() {
+        URL resource = SchemaValidationBenchmark.class.getClassLoader().getResource(SchemaCache.PML_SCHEMA);
+        if (resource == null) {
+            throw new IllegalStateException("Could not find " + SchemaCache.PML_SCHEMA + " schema file in resources");
+        }
+        schemaResource = resource;
+        pmlContent = BenchmarkPrompts.load(BenchmarkPrompts.HELLO_WORLD);
+    }
+
+    @Benchmark
+    public Validator compileAndValidate() throws SAXException, IOException {
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        Validator validator = factory.newSchema(schemaResource).newValidator();
+        validator.validate(new StreamSource(new StringReader(pmlContent)));
+        return validator;
+    }
+
+    @Benchmark
+    public Validator cachedValidate() throws SAXException, IOException {
+        Validator validator = SchemaCache.validator(SchemaCache.PML_SCHEMA);
+        validator.validate(new StreamSource(new StringReader(pmlContent)));
+        return validator;
+    }
+}
@@ -1,14 +1,16 @@
 package info.jab.pml.cli;
 
 import info.jab.pml.cli.command.ConvertCommand;
+import info.jab.pml.cli.command.ServeCommand;
 import info.jab.pml.cli.command.ValidateCommand;
+import info.jab.pml.cli.command.WorkflowCommand;
 import org.jspecify.annotations.Nullable;
 import picocli.CommandLine;
 
 @CommandLine.Command(
     name = "pml",
     description = "PML (Prompt Markup Language) CLI tool",
-    subcommands = {ValidateCommand.class, ConvertCommand.class},
+    subcommands = {ValidateCommand.class, ConvertCommand.class, ServeCommand.class, WorkflowCommand.class},
     mixinStandardHelpOptions = true,
     usageHelpAutoWidth = true
 )
@@ -18,7 +20,9 @@ public class PmlCli implements Runnable {
     CommandLine.Model.@Nullable CommandSpec spec;
 
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new PmlCli()).execute(args);
+        int exitCode = new CommandLine(new PmlCli())
+            .setCaseInsensitiveEnumValuesAllowed(true)
+            .execute(args);
         System.exit(exitCode);
     }
 
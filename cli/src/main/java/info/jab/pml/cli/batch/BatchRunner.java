@@ -0,0 +1,129 @@
+package info.jab.pml.cli.batch;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Processes many PML files concurrently on a bounded pool of worker threads.
+ *
+ * <p>Workers are long-lived platform threads, so the per-thread parsers and validators and
+ * the JVM-wide compiled schema and stylesheet are reused across every file of the batch.</p>
+ */
+public final class BatchRunner {
+
+    /**
+     * The work to perform on a single file.
+     */
+    @FunctionalInterface
+    public interface FileTask {
+
+        /**
+         * Processes one file.
+         *
+         * @param file the file to process
+         * @return true if the file was processed successfully, false otherwise
+         * @throws Exception if processing fails; its message is reported as the reason for the file
+         */
+        boolean process(InputFile file) throws Exception;
+    }
+
+    /**
+     * The outcome of processing a single file.
+     *
+     * @param file the processed file
+     * @param success whether processing succeeded
+     * @param message the failure reason, if any
+     * @param elapsedNanos the time spent on the file
+     */
+    public record FileResult(InputFile file, boolean success, @Nullable String message, long elapsedNanos) {
+    }
+
+    /**
+     * The outcome of a batch run, in input order.
+     *
+     * @param results the per-file results
+     * @param elapsedNanos the wall time of the whole run
+     */
+    public record Summary(List<FileResult> results, long elapsedNanos) {
+
+        public boolean hasFailures() {
+            return results.stream().anyMatch(result -> !result.success());
+        }
+
+        /**
+         * Prints one line per file followed by the totals.
+         *
+         * @param out the stream to print to
+         */
+        public void print(PrintStream out) {
+            long failed = results.stream().filter(result -> !result.success()).count();
+            for (FileResult result : results) {
+                if (result.success()) {
+                    out.printf("OK      %s (%d ms)%n", result.file().source(), toMillis(result.elapsedNanos()));
+                } else if (result.message() != null) {
+                    out.printf("FAILED  %s: %s%n", result.file().source(), result.message());
+                } else {
+                    out.printf("FAILED  %s%n", result.file().source());
+                }
+            }
+            out.printf("Processed %d files in %d ms: %d succeeded, %d failed%n",
+                results.size(), toMillis(elapsedNanos), results.size() - failed, failed);
+        }
+
+        private static long toMillis(long nanos) {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+    }
+
+    private final int workers;
+
+    /**
+     * Creates a runner using at most the given number of worker threads.
+     *
+     * @param workers the maximum number of files processed concurrently
+     */
+    public BatchRunner(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Processes all files and waits for completion.
+     *
+     * @param files the files to process
+     * @param task the work to perform on each file
+     * @return the per-file results in input order
+     */
+    public Summary run(List<InputFile> files, FileTask task) {
+        long start = System.nanoTime();
+        List<Future<FileResult>> futures = new ArrayList<>(files.size());
+        int poolSize = Math.min(workers, Math.max(1, files.size()));
+        try (ExecutorService executor = Executors.newFixedThreadPool(
+            poolSize, Thread.ofPlatform().name("pml-worker-", 0).factory())) {
+            for (InputFile file : files) {
+                futures.add(executor.submit(() -> process(file, task)));
+            }
+        }
+        List<FileResult> results = new ArrayList<>(futures.size());
+        for (Future<FileResult> future : futures) {
+            results.add(future.resultNow());
+        }
+        return new Summary(List.copyOf(results), System.nanoTime() - start);
+    }
+
+    private static FileResult process(InputFile file, FileTask task) {
+        long start = System.nanoTime();
+        try {
+            boolean success = task.process(file);
+            return new FileResult(file, success, null, System.nanoTime() - start);
+        } catch (Exception e) {
+            String message = e.getMessage();
+            return new FileResult(file, false, message != null ? message : e.toString(), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package info.jab.pml.cli.batch;
+
+import info.jab.pml.cli.xml.FragmentCache;
+import info.jab.pml.cli.xml.ResourceVersion;
+import info.jab.pml.cli.xml.XIncludeParsers;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jspecify.annotations.Nullable;
+import org.xml.sax.SAXException;
+
+/**
+ * On-disk record of the PML files processed by a previous run, used to skip the files that did
+ * not change since.
+ *
+ * <p>Each entry stores a fingerprint of the source file, of every file it includes through
+ * {@code xi:include} (transitively) and of the run context: the {@link ResourceVersion} of the
+ * CLI (its build, bundled schema and stylesheet and XSLT engine) plus the settings the caller
+ * passes to {@link #context(String...)}, such as the rendering engine and the templates. When the
+ * entry also records an output, the output must still exist with the content that was written. A
+ * file is up to date only when all of these match, so upgrading the CLI processes every file
+ * again.</p>
+ *
+ * <p>Paths are stored relative to the directory of the manifest, so a manifest kept next to the
+ * sources or outputs stays valid when the checkout is moved. Instances are thread-safe; changes
+ * are only written by {@link #save()}.</p>
+ */
+public final class BuildManifest {
+
+    /**
+     * Conventional manifest file name, used when the manifest is kept in an output directory.
+     */
+    public static final String FILE_NAME = ".pml-manifest";
+
+    private static final String HEADER = "# PML build manifest v1";
+    private static final String SOURCE_PREFIX = "source ";
+    private static final String INCLUDE_PREFIX = "include ";
+    private static final String NONE = "-";
+
+    private final Path file;
+    private final Path baseDir;
+    private final String context;
+    private final FragmentCache fragmentCache;
+    private final ConcurrentMap<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(String fingerprint, String outputHash, List<Path> includes) {
+    }
+
+    private BuildManifest(Path file, String context, FragmentCache fragmentCache) {
+        this.file = file.toAbsolutePath().normalize();
+        Path parent = this.file.getParent();
+        this.baseDir = parent != null ? parent : this.file;
+        this.context = context;
+        this.fragmentCache = fragmentCache;
+    }
+
+    /**
+     * Reads a manifest, or starts an empty one if the file does not exist yet.
+     *
+     * @param file the manifest file
+     * @param context the run context, see {@link #context(String...)}
+     * @return the manifest
+     * @throws IOException if the file exists but cannot be read
+     */
+    public static BuildManifest load(Path file, String context) throws IOException {
+        BuildManifest manifest = new BuildManifest(file, context, FragmentCache.shared());
+        manifest.read();
+        return manifest;
+    }
+
+    /**
+     * Computes the context of a run: the {@link ResourceVersion#current() running build} of the
+     * CLI and the given settings. Entries recorded under a different context, for instance by
+     * another version of the CLI, are never up to date.
+     *
+     * @param settings anything else that affects the result, such as the engine and templates
+     * @return the context hash
+     */
+    public static String context(String... settings) {
+        return context(ResourceVersion.current(), settings);
+    }
+
+    static String context(ResourceVersion version, String... settings) {
+        MessageDigest digest = sha256();
+        digest.update(HEADER.getBytes(StandardCharsets.UTF_8));
+        version.update(digest);
+        for (String setting : settings) {
+            digest.update((byte) 0);
+            digest.update(setting.getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the location of the manifest.
+     *
+     * @return the absolute path of the manifest file
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Tells whether a source file, its includes and its output are unchanged since they were
+     * {@link #record recorded}.
+     *
+     * @param source the PML file
+     * @param output the file rendered from it, or {@code null} if nothing is written
+     * @return true if the source does not need to be processed again
+     * @throws IOException if a file cannot be read
+     */
+    public boolean isUpToDate(Path source, @Nullable Path output) throws IOException {
+        Entry entry = entries.get(absolute(source));
+        if (entry == null || !Files.isRegularFile(source)) {
+            return false;
+        }
+        if (!entry.outputHash().equals(output == null ? NONE : hashIfExists(output))) {
+            return false;
+        }
+        return entry.fingerprint().equals(fingerprint(source, entry.includes()));
+    }
+
+    /**
+     * Records a source file that was processed successfully, with its current includes and output.
+     *
+     * @param source the PML file
+     * @param output the file rendered from it, or {@code null} if nothing is written
+     * @throws IOException if a file cannot be read
+     * @throws SAXException if the source or an included file is not well-formed XML
+     */
+    public void record(Path source, @Nullable Path output) throws IOException, SAXException {
+        List<Path> includes = XIncludeParsers.includedFiles(source, fragmentCache);
+        String outputHash = output == null ? NONE : hashIfExists(output);
+        entries.put(absolute(source), new Entry(fingerprint(source, includes), outputHash, includes));
+    }
+
+    /**
+     * Drops the entry of a source file, so that it is processed again on the next run.
+     *
+     * @param source the PML file
+     */
+    public void forget(Path source) {
+        entries.remove(absolute(source));
+    }
+
+    /**
+     * Writes the manifest, replacing the previous file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void save() throws IOException {
+        Files.createDirectories(baseDir);
+        Path temporary = Files.createTempFile(baseDir, FILE_NAME, ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                // Sorted, so that an unchanged build writes an identical file
+                Map<String, Entry> sorted = new TreeMap<>();
+                entries.forEach((source, entry) -> sorted.put(relative(source), entry));
+                for (Map.Entry<String, Entry> source : sorted.entrySet()) {
+                    Entry entry = source.getValue();
+                    writer.write(SOURCE_PREFIX + entry.fingerprint() + " " + entry.outputHash() + " " + source.getKey());
+                    writer.newLine();
+                    for (Path include : entry.includes()) {
+                        writer.write(INCLUDE_PREFIX + relative(include));
+                        writer.newLine();
+                    }
+                }
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void read() throws IOException {
+        List<String> lines;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            lines = reader.lines().toList();
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (lines.isEmpty() || !HEADER.equals(lines.getFirst())) {
+            // Unknown format: start over rather than trusting it
+            return;
+        }
+        @Nullable Path source = null;
+        String fingerprint = "";
+        String outputHash = "";
+        List<Path> includes = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.startsWith(SOURCE_PREFIX)) {
+                if (source != null) {
+                    entries.put(source, new Entry(fingerprint, outputHash, List.copyOf(includes)));
+                }
+                int fingerprintEnd = line.indexOf(' ', SOURCE_PREFIX.length());
+                int outputHashEnd = fingerprintEnd < 0 ? -1 : line.indexOf(' ', fingerprintEnd + 1);
+                if (outputHashEnd < 0) {
+                    entries.clear();
+                    return;
+                }
+                fingerprint = line.substring(SOURCE_PREFIX.length(), fingerprintEnd);
+                outputHash = line.substring(fingerprintEnd + 1, outputHashEnd);
+                source = baseDir.resolve(line.substring(outputHashEnd + 1)).normalize();
+                includes = new ArrayList<>();
+            } else if (line.startsWith(INCLUDE_PREFIX) && source != null) {
+                includes.add(baseDir.resolve(line.substring(INCLUDE_PREFIX.length())).normalize());
+            }
+        }
+        if (source != null) {
+            entries.put(source, new Entry(fingerprint, outputHash, List.copyOf(includes)));
+        }
+    }
+
+    private String fingerprint(Path source, List<Path> includes) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(context.getBytes(StandardCharsets.UTF_8));
+        digest.update(hash(source).getBytes(StandardCharsets.UTF_8));
+        for (Path include : includes) {
+            // Missing files are part of the fingerprint: creating one changes the result
+            String includeHash = Files.isRegularFile(include) ? fragmentCache.get(include).hash() : NONE;
+            digest.update((relative(include) + "=" + includeHash).getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String hashIfExists(Path file) throws IOException {
+        return Files.isRegularFile(file) ? hash(file) : NONE;
+    }
+
+    private static String hash(Path file) throws IOException {
+        // Sources and outputs are streamed, they can be much larger than the included fragments
+        MessageDigest digest = sha256();
+        try (InputStream content = new DigestInputStream(Files.newInputStream(file), digest)) {
+            content.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Path absolute(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private String relative(Path path) {
+        Path absolute = absolute(path);
+        try {
+            return baseDir.relativize(absolute).toString();
+        } catch (IllegalArgumentException e) {
+            // Different roots, for example another drive
+            return absolute.toString();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package info.jab.pml.cli.batch;
+
+import java.nio.file.Path;
+
+/**
+ * A PML file selected for processing.
+ *
+ * @param source the path of the file to read
+ * @param relativePath the path relative to the directory or glob base it was found in,
+ *                     used to mirror the input layout in an output directory
+ */
+public record InputFile(Path source, Path relativePath) {
+
+    /**
+     * Returns the path of the Markdown rendered from this file, relative to an output directory:
+     * the relative path with its {@code .xml} extension replaced by {@code .md}.
+     *
+     * @return the relative path of the Markdown file
+     */
+    public Path markdownPath() {
+        String fileName = relativePath.toString();
+        String markdownName = fileName.endsWith(".xml")
+            ? fileName.substring(0, fileName.length() - ".xml".length()) + ".md"
+            : fileName + ".md";
+        return Path.of(markdownName);
+    }
+}
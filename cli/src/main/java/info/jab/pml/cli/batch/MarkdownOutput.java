@@ -0,0 +1,56 @@
+package info.jab.pml.cli.batch;
+
+import info.jab.pml.cli.output.AtomicFile;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+import org.xml.sax.SAXException;
+
+/**
+ * Writes the Markdown of PML files into an output directory that mirrors the input layout, as
+ * {@code convert --output-dir} and the {@code render} goal of the Maven plugin do.
+ *
+ * <p>Each file is written once it rendered completely, so a file that fails leaves the Markdown of
+ * its previous run in place. With a manifest, files that did not change are skipped, and the
+ * outcome of the others is recorded.</p>
+ */
+public final class MarkdownOutput {
+
+    private MarkdownOutput() {
+    }
+
+    /**
+     * Renders a file into the output directory, at its {@link InputFile#markdownPath()}.
+     *
+     * @param <E> the exception thrown when the file cannot be rendered
+     * @param file the file to render
+     * @param outputDirectory the directory the Markdown is written to
+     * @param manifest the manifest of an incremental run, or {@code null}
+     * @param skipped incremented when the file is up to date
+     * @param renderer writes the Markdown of the file
+     * @throws IOException if a file cannot be read or written
+     * @throws SAXException if an included file is not well-formed XML
+     * @throws E if the file cannot be rendered
+     */
+    public static <E extends Exception> void write(
+        InputFile file, Path outputDirectory, @Nullable BuildManifest manifest, LongAdder skipped,
+        AtomicFile.Content<E> renderer) throws IOException, SAXException, E {
+        Path target = outputDirectory.resolve(file.markdownPath());
+        if (manifest != null && manifest.isUpToDate(file.source(), target)) {
+            skipped.increment();
+            return;
+        }
+        try {
+            AtomicFile.write(target, renderer);
+        } catch (Exception e) {
+            if (manifest != null) {
+                manifest.forget(file.source());
+            }
+            throw e;
+        }
+        if (manifest != null) {
+            manifest.record(file.source(), target);
+        }
+    }
+}
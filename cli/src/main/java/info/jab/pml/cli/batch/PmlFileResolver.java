@@ -0,0 +1,109 @@
+package info.jab.pml.cli.batch;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Expands command line inputs into the list of PML files to process.
+ *
+ * <p>Each input may be a single file, a directory (searched recursively for {@code *.xml}
+ * files) or a glob pattern such as {@code "prompts/*.xml"}. Files reached through
+ * more than one input are only returned once, in the order they were first found.</p>
+ */
+public final class PmlFileResolver {
+
+    private static final String PML_EXTENSION = ".xml";
+
+    private PmlFileResolver() {
+        // Utility class
+    }
+
+    /**
+     * Resolves the given inputs to PML files.
+     *
+     * @param inputs file paths, directories or glob patterns
+     * @return the files to process, without duplicates
+     * @throws NoSuchFileException if an input does not exist or a glob matches no file
+     * @throws IOException if a directory cannot be traversed
+     */
+    public static List<InputFile> resolve(List<String> inputs) throws IOException {
+        Map<Path, InputFile> files = new LinkedHashMap<>();
+        for (String input : inputs) {
+            for (InputFile file : resolve(input)) {
+                files.putIfAbsent(file.source().toAbsolutePath().normalize(), file);
+            }
+        }
+        return List.copyOf(files.values());
+    }
+
+    private static List<InputFile> resolve(String input) throws IOException {
+        if (isGlob(input)) {
+            return resolveGlob(input);
+        }
+        Path path = Paths.get(input);
+        if (Files.isDirectory(path)) {
+            return walk(path, PmlFileResolver::isPmlFile);
+        }
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException(input);
+        }
+        Path fileName = path.getFileName();
+        return List.of(new InputFile(path, fileName != null ? fileName : path));
+    }
+
+    private static List<InputFile> resolveGlob(String pattern) throws IOException {
+        Path base = globBase(pattern);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        List<InputFile> files = Files.isDirectory(base) ? walk(base, matcher) : List.of();
+        if (files.isEmpty()) {
+            throw new NoSuchFileException(pattern);
+        }
+        return files;
+    }
+
+    private static List<InputFile> walk(Path root, PathMatcher matcher) throws IOException {
+        List<InputFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.filter(Files::isRegularFile)
+                .filter(matcher::matches)
+                .sorted()
+                .forEach(path -> files.add(new InputFile(path, root.relativize(path))));
+        }
+        return files;
+    }
+
+    private static Path globBase(String pattern) {
+        // The base directory is the leading part of the pattern before the first glob character
+        int firstGlob = indexOfGlob(pattern);
+        int lastSeparator = Math.max(pattern.lastIndexOf('/', firstGlob), pattern.lastIndexOf('\\', firstGlob));
+        return lastSeparator < 0 ? Paths.get("") : Paths.get(pattern.substring(0, lastSeparator + 1));
+    }
+
+    private static boolean isPmlFile(Path path) {
+        return path.toString().endsWith(PML_EXTENSION);
+    }
+
+    private static boolean isGlob(String input) {
+        return indexOfGlob(input) >= 0;
+    }
+
+    private static int indexOfGlob(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
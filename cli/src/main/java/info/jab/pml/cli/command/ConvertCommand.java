@@ -1,36 +1,94 @@
 package info.jab.pml.cli.command;
 
+import info.jab.pml.cli.batch.BatchRunner;
+import info.jab.pml.cli.batch.BuildManifest;
+import info.jab.pml.cli.batch.InputFile;
+import info.jab.pml.cli.batch.MarkdownOutput;
+import info.jab.pml.cli.batch.PmlFileResolver;
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.metrics.PhaseStatistics;
+import info.jab.pml.cli.output.OutputBundle;
+import info.jab.pml.cli.output.OutputTarget;
+import info.jab.pml.cli.xml.CompiledTemplate;
 import info.jab.pml.cli.xml.PmlUtils;
+import info.jab.pml.cli.xml.RenderCache;
+import info.jab.pml.cli.xml.RenderException;
+import info.jab.pml.cli.xml.TemplateValues;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
 import org.jspecify.annotations.Nullable;
+import org.xml.sax.SAXException;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 @Command(
     name = "convert",
-    description = "Converts a PML file to Markdown using XSLT and outputs the result to stdout",
+    description = {
+        "Converts a PML file to Markdown using XSLT and outputs the result to stdout",
+        "Several files, directories or glob patterns can be converted concurrently into --output-dir,",
+        "or into a single file with --output, in input order",
+        "Use --engine STAX to render in a single streaming pass instead of the XSLT stylesheet",
+        "Use --manifest to only convert the files that changed since the previous run",
+        "Use --template-values to compile a file once and render it for every row of variable values",
+        "Use --cache-dir to reuse the Markdown rendered by previous runs for unchanged inputs and templates",
+        "Use --stats to print where the time went: parse, template, validate and transform phases, and the slowest files"},
     mixinStandardHelpOptions = true,
     usageHelpAutoWidth = true)
 public class ConvertCommand implements Callable<Integer> {
 
-    private final PmlUtils pmlUtils;
+    private static final int SLOWEST_FILES = 5;
 
-    @Parameters(index = "0", description = "Path to the PML file to convert")
+    // Replaced by utils that also record phase statistics when --stats is given
+    private PmlUtils pmlUtils;
+    private @Nullable RenderCache renderCache;
+
+    @Parameters(arity = "1..*", description = "Paths to the PML files, directories or glob patterns to convert")
     @SuppressWarnings("NullAway.Init")
-    private String filePath;
+    private List<String> filePaths;
 
     @Option(names = "--template", arity = "2..*", description = "Template replacement: FIELD VALUE [FIELD VALUE ...] (e.g., --template goal \"New goal\" role \"assistant\")")
     private @Nullable List<String> templatePairs = new ArrayList<>();
 
+    @Option(names = "--template-values", description = "Tab-separated file whose header names template variables and whose rows hold their values: the PML file is validated and rendered once, then filled in for every row (documents are concatenated)")
+    private @Nullable Path templateValuesFile;
+
+    @Option(names = "--output-dir", description = "Directory where one Markdown file per input is written, mirroring the input layout")
+    private @Nullable Path outputDir;
+
+    @Option(names = {"-o", "--output"}, description = "File the Markdown is written to, or - for stdout (default). With several inputs, the documents are concatenated in input order")
+    private @Nullable String output;
+
+    @Option(names = {"-j", "--jobs"}, description = "Number of files converted concurrently (default: number of CPUs)")
+    private int jobs = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = "--engine", description = "Rendering engine: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private RenderEngine engine = RenderEngine.defaultEngine();
+
+    @Option(names = "--cache-dir", description = "Directory of the render cache: Markdown is stored by hash of the input, its includes, the templates, the engine and the bundled schema and stylesheet, and reused while they are unchanged")
+    private @Nullable Path cacheDir;
+
+    @Option(names = "--stats", description = "Print a breakdown of time, bytes and errors per phase, and the slowest files, to stderr")
+    private boolean stats;
+
+    @Option(names = "--manifest", description = "Incremental mode: skip files whose sources, includes and outputs are unchanged since they were recorded in this manifest file (requires --output-dir)")
+    private @Nullable Path manifestFile;
+
     /**
      * Default constructor for normal usage.
      */
@@ -49,16 +107,28 @@ public class ConvertCommand implements Callable<Integer> {
 
     @Override
     public Integer call() throws Exception {
+        if (!stats) {
+            return run();
+        }
+        PhaseStatistics statistics = new PhaseStatistics();
+        pmlUtils = pmlUtils.withMetrics(pmlUtils.metrics().and(statistics));
         try {
-            Path pmlFile = Paths.get(filePath);
-            if (!Files.exists(pmlFile)) {
-                System.err.println("Error: File not found: " + filePath);
+            return run();
+        } finally {
+            System.err.print(statistics.format(SLOWEST_FILES));
+        }
+    }
+
+    private int run() {
+        try {
+            List<InputFile> files;
+            try {
+                files = PmlFileResolver.resolve(filePaths);
+            } catch (NoSuchFileException e) {
+                System.err.println("Error: File not found: " + e.getFile());
                 return 1;
             }
 
-            // Read PML file into string
-            String pmlContent = Files.readString(pmlFile, StandardCharsets.UTF_8);
-
             // Parse template pairs into a map
             Map<String, String> templateMap = parseTemplatePairs();
             if (templateMap == null) {
@@ -66,28 +136,149 @@ public class ConvertCommand implements Callable<Integer> {
                 return 1;
             }
 
-            // Apply template replacements if templates are provided
-            String processedPml = pmlUtils.applyTemplates(pmlContent, templateMap);
+            if (cacheDir != null) {
+                renderCache = new RenderCache(RenderCache.DEFAULT_MAX_BYTES, cacheDir);
+            }
 
-            // Validate the processed XML string
-            if (!pmlUtils.validate(processedPml)) {
-                System.err.println("Error: The processed PML file is not valid");
+            Path targetDir = outputDir;
+            if (targetDir != null && output != null) {
+                System.err.println("Error: --output and --output-dir cannot be used together");
                 return 1;
             }
+            if (targetDir == null) {
+                if (manifestFile != null) {
+                    System.err.println("Error: --output-dir is required with --manifest");
+                    return 1;
+                }
+                if (output == null && files.size() > 1) {
+                    System.err.println("Error: --output-dir is required when converting more than one file (or use --output to concatenate them)");
+                    return 1;
+                }
+                OutputTarget target = output != null ? OutputTarget.of(output) : OutputTarget.stdout();
+                if (templateValuesFile != null) {
+                    if (files.size() > 1) {
+                        System.err.println("Error: --template-values requires a single PML file");
+                        return 1;
+                    }
+                    return renderTemplateValues(files.getFirst().source(), templateMap, templateValuesFile, target);
+                }
+                if (files.size() == 1) {
+                    try {
+                        target.write(stream -> convert(files.getFirst().source(), templateMap, stream));
+                    } catch (RenderException e) {
+                        System.err.println("Error: " + e.getMessage());
+                        return 1;
+                    }
+                    return 0;
+                }
+                return convertToBundle(files, templateMap, target);
+            }
 
-            // Convert to Markdown
-            if (pmlUtils.convertToMarkdown(processedPml, System.out)) {
-                return 0;
-            } else {
-                System.err.println("Error: Conversion failed");
+            if (templateValuesFile != null) {
+                System.err.println("Error: --template-values cannot be used with --output-dir");
                 return 1;
             }
+            BuildManifest manifest = manifestFile == null ? null : BuildManifest.load(manifestFile,
+                BuildManifest.context("convert", engine.name(), new TreeMap<>(templateMap).toString()));
+            LongAdder skipped = new LongAdder();
+            BatchRunner.Summary summary = new BatchRunner(jobs)
+                .run(files, file -> convertToFile(file, templateMap, targetDir, manifest, skipped));
+            summary.print(System.out);
+            printCacheStatistics(System.out);
+            if (manifest != null) {
+                manifest.save();
+                System.out.printf("Skipped %d unchanged files (manifest: %s)%n", skipped.sum(), manifest.file());
+            }
+            return summary.hasFailures() ? 1 : 0;
         } catch (Exception e) {
             System.err.println("Conversion failed: " + e.getMessage());
             return 1;
         }
     }
 
+    private void convert(Path pmlFile, Map<String, String> templateMap, OutputStream output) throws Exception {
+        RenderCache cache = renderCache;
+        if (cache == null) {
+            pmlUtils.render(pmlFile, templateMap, engine, output);
+            return;
+        }
+        byte[] markdown = cache.get(pmlUtils.renderKey(pmlFile, templateMap, engine), () -> {
+            ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+            pmlUtils.render(pmlFile, templateMap, engine, rendered);
+            return rendered.toByteArray();
+        });
+        output.write(Objects.requireNonNull(markdown));
+    }
+
+    private int renderTemplateValues(Path pmlFile, Map<String, String> templateMap, Path valuesFile,
+                                     OutputTarget target) throws IOException, SAXException {
+        try (TemplateValues values = TemplateValues.open(valuesFile)) {
+            // Template, validate and render once; every row is then a fill of the compiled slots
+            CompiledTemplate template = pmlUtils.compileTemplate(
+                pmlUtils.parse(pmlFile), templateMap, values.variables(), engine);
+            if (template == null) {
+                System.err.println("Error: The processed PML file is not valid");
+                return 1;
+            }
+            LongAdder rendered = new LongAdder();
+            target.write(stream -> {
+                Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+                for (Map<String, String> row = values.nextRow(); row != null; row = values.nextRow()) {
+                    if (rendered.sum() > 0) {
+                        writer.write('\n');
+                    }
+                    template.render(row, writer);
+                    rendered.increment();
+                }
+                writer.flush();
+            });
+            // The documents own stdout when they are written to it
+            PrintStream log = target.isStdout() ? System.err : System.out;
+            log.printf("Rendered %d documents from %s%n", rendered.sum(), valuesFile);
+            return 0;
+        }
+    }
+
+    private int convertToBundle(List<InputFile> files, Map<String, String> templateMap, OutputTarget target)
+        throws IOException {
+        Map<InputFile, Integer> indexes = new HashMap<>();
+        for (int index = 0; index < files.size(); index++) {
+            indexes.put(files.get(index), index);
+        }
+        // The documents own stdout when they are written to it
+        PrintStream log = target.isStdout() ? System.err : System.out;
+        try (OutputBundle bundle = OutputBundle.create(target, files.size())) {
+            BatchRunner.Summary summary = new BatchRunner(jobs).run(files, file -> {
+                int index = Objects.requireNonNull(indexes.get(file));
+                try (OutputStream stream = bundle.part(index)) {
+                    convert(file.source(), templateMap, stream);
+                } catch (Exception e) {
+                    bundle.discard(index);
+                    throw e;
+                }
+                return true;
+            });
+            int written = bundle.write();
+            summary.print(log);
+            printCacheStatistics(log);
+            log.printf("Wrote %d documents to %s%n", written, target);
+            return summary.hasFailures() ? 1 : 0;
+        }
+    }
+
+    private void printCacheStatistics(PrintStream log) {
+        RenderCache cache = renderCache;
+        if (cache != null) {
+            log.print(cache.format());
+        }
+    }
+
+    private boolean convertToFile(InputFile file, Map<String, String> templateMap, Path targetDir,
+                                  @Nullable BuildManifest manifest, LongAdder skipped) throws Exception {
+        MarkdownOutput.write(file, targetDir, manifest, skipped, output -> convert(file.source(), templateMap, output));
+        return true;
+    }
+
     private @Nullable Map<String, String> parseTemplatePairs() {
         Map<String, String> templateMap = new HashMap<>();
         if (templatePairs == null || templatePairs.isEmpty()) {
@@ -0,0 +1,81 @@
+package info.jab.pml.cli.command;
+
+import info.jab.pml.cli.server.PmlServer;
+import info.jab.pml.cli.xml.PmlUtils;
+import info.jab.pml.cli.xml.RenderCache;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import org.jspecify.annotations.Nullable;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(
+    name = "serve",
+    description = {
+        "Starts a resident server that validates and converts PML files over HTTP on the loopback interface",
+        "Endpoints: POST /validate, POST /convert?engine=XSLT|STAX&template.FIELD=VALUE, GET /metrics, GET /health",
+        "Converted Markdown is cached by hash of the document, templates and engine; see --cache-size and --cache-dir"},
+    mixinStandardHelpOptions = true,
+    usageHelpAutoWidth = true)
+public class ServeCommand implements Callable<Integer> {
+
+    private final PmlUtils pmlUtils;
+
+    @Option(names = {"-p", "--port"}, description = "Port to listen on (default: ${DEFAULT-VALUE}, 0 for any free port)")
+    private int port = 7878;
+
+    @Option(names = "--cache-size", description = "Bytes of converted Markdown kept in memory, least recently used evicted first (default: ${DEFAULT-VALUE}, 0 to disable)")
+    private long cacheSize = RenderCache.DEFAULT_MAX_BYTES;
+
+    @Option(names = "--cache-dir", description = "Directory where converted Markdown is also stored, so a restarted server starts warm")
+    private @Nullable Path cacheDir;
+
+    /**
+     * Default constructor for normal usage.
+     */
+    public ServeCommand() {
+        this(new PmlUtils());
+    }
+
+    /**
+     * Constructor for testing purposes, allowing injection of a PmlUtils.
+     *
+     * @param pmlUtils the utils instance to use
+     */
+    public ServeCommand(PmlUtils pmlUtils) {
+        this.pmlUtils = pmlUtils;
+    }
+
+    @Override
+    public Integer call() {
+        if (cacheSize < 0) {
+            System.err.println("Error: --cache-size must not be negative");
+            return 1;
+        }
+        PmlServer server;
+        try {
+            server = new PmlServer(port, pmlUtils, new RenderCache(cacheSize, cacheDir));
+        } catch (IOException e) {
+            System.err.println("Error: Could not listen on port " + port + ": " + e.getMessage());
+            return 1;
+        }
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            stopped.countDown();
+        }, "pml-serve-shutdown"));
+
+        server.start();
+        System.out.println("PML server listening on http://localhost:" + server.port());
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.close();
+        }
+        return 0;
+    }
+}
@@ -1,25 +1,59 @@
 package info.jab.pml.cli.command;
 
+import info.jab.pml.cli.batch.BatchRunner;
+import info.jab.pml.cli.batch.BuildManifest;
+import info.jab.pml.cli.batch.InputFile;
+import info.jab.pml.cli.batch.PmlFileResolver;
+import info.jab.pml.cli.report.ReportFormat;
+import info.jab.pml.cli.report.ValidationReportWriter;
 import info.jab.pml.cli.xml.PmlUtils;
-import java.nio.file.Files;
+import info.jab.pml.cli.xml.ValidationReport;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+import org.xml.sax.SAXException;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 @Command(
     name = "validate",
-    description = "Validates a PML file against the XSD schema",
+    description = {
+        "Validates a PML file against the XSD schema",
+        "Several files, directories or glob patterns can be validated concurrently, use --jobs to set how many at once",
+        "Use --manifest to only validate the files that changed since the previous run",
+        "Every error of a file is reported in a single pass, up to --max-errors",
+        "Use --format JSON or SARIF to write a machine-readable report to stdout"},
     mixinStandardHelpOptions = true,
     usageHelpAutoWidth = true)
 public class ValidateCommand implements Callable<Integer> {
 
+    private static final int DEFAULT_MAX_ERRORS = 100;
+
     private final PmlUtils pmlUtils;
 
-    @Parameters(index = "0", description = "Path to the PML file to validate")
+    @Parameters(arity = "1..*", description = "Paths to the PML files, directories or glob patterns to validate")
     @SuppressWarnings("NullAway.Init")
-    private String filePath;
+    private List<String> filePaths;
+
+    @Option(names = {"-j", "--jobs"}, description = "Number of files validated concurrently (default: number of CPUs)")
+    private int jobs = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = "--manifest", description = "Incremental mode: skip files whose sources and includes are unchanged since they were recorded as valid in this manifest file")
+    private @Nullable Path manifestFile;
+
+    @Option(names = "--max-errors", description = "Stop validating a file after this many errors, 0 for no limit (default: ${DEFAULT-VALUE})")
+    private int maxErrors = DEFAULT_MAX_ERRORS;
+
+    @Option(names = "--format", description = "Report format: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private ReportFormat format = ReportFormat.TEXT;
 
     /**
      * Default constructor for normal usage.
@@ -39,16 +73,83 @@ public class ValidateCommand implements Callable<Integer> {
 
     @Override
     public Integer call() {
-        Path pmlFile = Paths.get(filePath);
-        if (!Files.exists(pmlFile)) {
-            System.err.println("Error: File not found: " + filePath);
+        List<InputFile> files;
+        try {
+            files = PmlFileResolver.resolve(filePaths);
+        } catch (NoSuchFileException e) {
+            System.err.println("Error: File not found: " + e.getFile());
+            return 1;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
             return 1;
         }
 
-        if (pmlUtils.validate(pmlFile)) {
-            return 0;
-        } else {
+        ValidationReportWriter writer = new ValidationReportWriter();
+        if (format == ReportFormat.TEXT && manifestFile == null && files.size() == 1) {
+            ValidationReport report = pmlUtils.validationReport(files.getFirst().source(), maxErrors);
+            writer.write(List.of(report), ReportFormat.TEXT, System.err);
+            return report.valid() ? 0 : 1;
+        }
+
+        BuildManifest manifest;
+        try {
+            manifest = manifestFile == null ? null : BuildManifest.load(manifestFile, BuildManifest.context("validate"));
+        } catch (IOException e) {
+            System.err.println("Error: Could not read manifest: " + e.getMessage());
             return 1;
         }
+        LongAdder skipped = new LongAdder();
+        ConcurrentMap<InputFile, ValidationReport> reports = new ConcurrentHashMap<>();
+        BatchRunner.Summary summary = new BatchRunner(jobs)
+            .run(files, file -> validate(file, manifest, skipped, reports));
+        List<ValidationReport> orderedReports = summary.results().stream()
+            .map(result -> reports.getOrDefault(result.file(), failedReport(result)))
+            .toList();
+
+        // Machine-readable reports own stdout; everything else goes to stderr
+        PrintStream log = format == ReportFormat.TEXT ? System.out : System.err;
+        if (format == ReportFormat.TEXT) {
+            writer.write(orderedReports, ReportFormat.TEXT, System.err);
+            summary.print(System.out);
+        } else {
+            writer.write(orderedReports, format, System.out);
+        }
+        if (manifest != null) {
+            try {
+                manifest.save();
+            } catch (IOException e) {
+                System.err.println("Error: Could not write manifest: " + e.getMessage());
+                return 1;
+            }
+            log.printf("Skipped %d unchanged files (manifest: %s)%n", skipped.sum(), manifest.file());
+        }
+        return summary.hasFailures() ? 1 : 0;
+    }
+
+    private boolean validate(InputFile file, @Nullable BuildManifest manifest, LongAdder skipped,
+                             ConcurrentMap<InputFile, ValidationReport> reports)
+        throws IOException, SAXException {
+        if (manifest != null && manifest.isUpToDate(file.source(), null)) {
+            skipped.increment();
+            reports.put(file, new ValidationReport(file.source(), List.of(), false));
+            return true;
+        }
+        ValidationReport report = pmlUtils.validationReport(file.source(), maxErrors);
+        reports.put(file, report);
+        if (manifest != null) {
+            if (report.valid()) {
+                manifest.record(file.source(), null);
+            } else {
+                manifest.forget(file.source());
+            }
+        }
+        return report.valid();
+    }
+
+    private static ValidationReport failedReport(BatchRunner.FileResult result) {
+        String message = result.message();
+        ValidationReport.Problem problem = new ValidationReport.Problem(ValidationReport.Severity.FATAL, null, -1, -1,
+            message != null ? message : "Validation failed");
+        return new ValidationReport(result.file().source(), List.of(problem), false);
     }
 }
@@ -0,0 +1,24 @@
+package info.jab.pml.cli.command;
+
+import org.jspecify.annotations.Nullable;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+@Command(
+    name = "workflow",
+    description = "Works with PML workflow files",
+    subcommands = {WorkflowRunCommand.class, WorkflowValidateCommand.class, WorkflowPlanCommand.class},
+    mixinStandardHelpOptions = true,
+    usageHelpAutoWidth = true)
+public class WorkflowCommand implements Runnable {
+
+    @CommandLine.Spec
+    CommandLine.Model.@Nullable CommandSpec spec;
+
+    @Override
+    public void run() {
+        if (spec != null) {
+            spec.commandLine().usage(System.out);
+        }
+    }
+}
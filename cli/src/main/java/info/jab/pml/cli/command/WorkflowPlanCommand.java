@@ -0,0 +1,56 @@
+package info.jab.pml.cli.command;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.workflow.WorkflowPlan;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(
+    name = "plan",
+    description = {
+        "Validates a PML workflow file and every prompt it references, then prints its model calls",
+        "The critical path is the longest chain of model calls that must run one after the other"},
+    mixinStandardHelpOptions = true,
+    usageHelpAutoWidth = true)
+public class WorkflowPlanCommand implements Callable<Integer> {
+
+    private final PmlUtils pmlUtils;
+
+    @Parameters(index = "0", description = "Path to the PML workflow file to plan")
+    @SuppressWarnings("NullAway.Init")
+    private Path workflowFile;
+
+    @Option(names = "--engine", description = "Rendering engine for PML prompts: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private RenderEngine engine = RenderEngine.defaultEngine();
+
+    /**
+     * Default constructor for normal usage.
+     */
+    public WorkflowPlanCommand() {
+        this(new PmlUtils());
+    }
+
+    /**
+     * Constructor for testing purposes, allowing injection of a PmlUtils.
+     *
+     * @param pmlUtils the utils instance to use
+     */
+    public WorkflowPlanCommand(PmlUtils pmlUtils) {
+        this.pmlUtils = pmlUtils;
+    }
+
+    @Override
+    public Integer call() {
+        WorkflowPlan plan = WorkflowValidateCommand.plan(pmlUtils, workflowFile, engine);
+        if (plan == null) {
+            return 1;
+        }
+        plan.printPrompts(System.out);
+        plan.printPlan(System.out);
+        return plan.valid() ? 0 : 1;
+    }
+}
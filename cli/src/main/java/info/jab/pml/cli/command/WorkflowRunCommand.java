@@ -0,0 +1,179 @@
+package info.jab.pml.cli.command;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.workflow.ModelCache;
+import info.jab.pml.cli.workflow.ModelClient;
+import info.jab.pml.cli.workflow.ModelScheduler;
+import info.jab.pml.cli.workflow.PromptRenderer;
+import info.jab.pml.cli.workflow.PromptResult;
+import info.jab.pml.cli.workflow.Workflow;
+import info.jab.pml.cli.workflow.WorkflowEngine;
+import info.jab.pml.cli.workflow.WorkflowException;
+import info.jab.pml.cli.workflow.WorkflowJournal;
+import info.jab.pml.cli.workflow.WorkflowParser;
+import info.jab.pml.cli.xml.PmlUtils;
+import info.jab.pml.cli.xml.RenderCache;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import org.jspecify.annotations.Nullable;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(
+    name = "run",
+    description = {
+        "Runs a PML workflow file, rendering every referenced prompt and sending it to the model",
+        "Parallel branches run concurrently; sequences honour their timeout and fallback-src",
+        "Without a configured model client, every prompt is answered with its own rendered text",
+        "With --journal, answers are recorded so that a failed run resumes without repeating them",
+        "Answers are cached by hash of the model and rendered prompt; see --cache-size and --cache-dir",
+        "Calls to each model can be limited in concurrency and rate; waiting calls are served in arrival order"},
+    mixinStandardHelpOptions = true,
+    usageHelpAutoWidth = true)
+public class WorkflowRunCommand implements Callable<Integer> {
+
+    private final PmlUtils pmlUtils;
+    private final ModelClient modelClient;
+
+    @Parameters(index = "0", description = "Path to the PML workflow file to run")
+    @SuppressWarnings("NullAway.Init")
+    private Path workflowFile;
+
+    @Option(names = "--engine", description = "Rendering engine for PML prompts: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private RenderEngine engine = RenderEngine.defaultEngine();
+
+    @Option(names = "--journal", description = "Record every answer in this file and answer the prompts already recorded from it, so that a run resumes where a previous one stopped")
+    private @Nullable Path journalFile;
+
+    @Option(names = "--cache-size", description = "Bytes of model answers kept in memory, least recently used evicted first (default: ${DEFAULT-VALUE}, 0 to disable)")
+    private long cacheSize = RenderCache.DEFAULT_MAX_BYTES;
+
+    @Option(names = "--cache-dir", description = "Directory where model answers are also stored, so later runs answer the same prompts at once")
+    private @Nullable Path cacheDir;
+
+    @Option(names = "--max-concurrency", description = "Largest number of calls in flight to each model (default: ${DEFAULT-VALUE}, 0 for no limit)")
+    private int maxConcurrency;
+
+    @Option(names = "--rate-limit", description = "Largest number of calls per second to each model, with bursts of up to one second of calls (default: ${DEFAULT-VALUE}, 0 for no limit)")
+    private double rateLimit;
+
+    @Option(names = "--model-concurrency", paramLabel = "MODEL=N", description = "--max-concurrency for one model, e.g. --model-concurrency local=2")
+    private Map<String, Integer> modelConcurrency = new LinkedHashMap<>();
+
+    @Option(names = "--model-rate-limit", paramLabel = "MODEL=N", description = "--rate-limit for one model, e.g. --model-rate-limit remote=0.5")
+    private Map<String, Double> modelRateLimit = new LinkedHashMap<>();
+
+    /**
+     * Default constructor for normal usage.
+     */
+    public WorkflowRunCommand() {
+        this(new PmlUtils(), ModelClient.echo());
+    }
+
+    /**
+     * Constructor for testing purposes, allowing injection of a PmlUtils and a model client.
+     *
+     * @param pmlUtils the utils instance to use
+     * @param modelClient the client that answers the prompts
+     */
+    public WorkflowRunCommand(PmlUtils pmlUtils, ModelClient modelClient) {
+        this.pmlUtils = pmlUtils;
+        this.modelClient = modelClient;
+    }
+
+    @Override
+    public Integer call() {
+        if (!Files.exists(workflowFile)) {
+            System.err.println("Error: File not found: " + workflowFile);
+            return 1;
+        }
+        if (cacheSize < 0) {
+            System.err.println("Error: --cache-size must not be negative");
+            return 1;
+        }
+
+        ModelScheduler scheduler;
+        try {
+            scheduler = scheduler();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+
+        ModelCache cache = new ModelCache(cacheSize, cacheDir);
+        List<PromptResult> results;
+        WorkflowJournal journal = null;
+        boolean journalClosed = true;
+        try {
+            Workflow workflow = new WorkflowParser(pmlUtils).parse(workflowFile);
+            // Cached and journaled answers return without waiting for the model limits
+            ModelClient client = cache.cached(scheduler.scheduled(modelClient));
+            if (journalFile != null) {
+                journal = WorkflowJournal.open(journalFile);
+                client = journal.journaled(client);
+            }
+            results = new WorkflowEngine(client, new PromptRenderer(pmlUtils, engine)).run(workflow);
+        } catch (IOException | WorkflowException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Error: Workflow interrupted");
+            return 1;
+        } finally {
+            System.err.print(cache.format());
+            if (scheduler.limited()) {
+                System.err.print(scheduler.format());
+            }
+            if (journal != null) {
+                journalClosed = close(journal);
+            }
+        }
+        if (!journalClosed) {
+            return 1;
+        }
+
+        for (PromptResult result : results) {
+            StringBuilder header = new StringBuilder("==> ").append(result.src());
+            if (result.input() != null) {
+                header.append(" [").append(result.input()).append(']');
+            }
+            header.append(" (model: ").append(result.model()).append(result.fallback() ? ", fallback" : "").append(')');
+            System.out.println(header);
+            System.out.println(result.response());
+        }
+        return 0;
+    }
+
+    private ModelScheduler scheduler() {
+        ModelScheduler.Limits defaultLimits = new ModelScheduler.Limits(maxConcurrency, rateLimit);
+        Set<String> models = new LinkedHashSet<>(modelConcurrency.keySet());
+        models.addAll(modelRateLimit.keySet());
+        Map<String, ModelScheduler.Limits> limits = new LinkedHashMap<>();
+        for (String model : models) {
+            limits.put(model, new ModelScheduler.Limits(
+                modelConcurrency.getOrDefault(model, maxConcurrency), modelRateLimit.getOrDefault(model, rateLimit)));
+        }
+        return new ModelScheduler(defaultLimits, limits);
+    }
+
+    private static boolean close(WorkflowJournal journal) {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error: Could not write journal: " + e.getMessage());
+            return false;
+        }
+        System.err.printf("Replayed %d prompts and recorded %d answers (journal: %s)%n",
+            journal.replayed(), journal.recorded(), journal.file());
+        return true;
+    }
+}
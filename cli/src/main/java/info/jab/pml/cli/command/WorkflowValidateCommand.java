@@ -0,0 +1,89 @@
+package info.jab.pml.cli.command;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.workflow.PromptRenderer;
+import info.jab.pml.cli.workflow.Workflow;
+import info.jab.pml.cli.workflow.WorkflowException;
+import info.jab.pml.cli.workflow.WorkflowParser;
+import info.jab.pml.cli.workflow.WorkflowPlan;
+import info.jab.pml.cli.workflow.WorkflowPlanner;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import org.jspecify.annotations.Nullable;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(
+    name = "validate",
+    description = {
+        "Validates a PML workflow file against the workflow XSD schema, then every prompt it references",
+        "Distinct prompt files are validated and rendered once, concurrently; no model is called"},
+    mixinStandardHelpOptions = true,
+    usageHelpAutoWidth = true)
+public class WorkflowValidateCommand implements Callable<Integer> {
+
+    private final PmlUtils pmlUtils;
+
+    @Parameters(index = "0", description = "Path to the PML workflow file to validate")
+    @SuppressWarnings("NullAway.Init")
+    private Path workflowFile;
+
+    @Option(names = "--engine", description = "Rendering engine for PML prompts: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private RenderEngine engine = RenderEngine.defaultEngine();
+
+    /**
+     * Default constructor for normal usage.
+     */
+    public WorkflowValidateCommand() {
+        this(new PmlUtils());
+    }
+
+    /**
+     * Constructor for testing purposes, allowing injection of a PmlUtils.
+     *
+     * @param pmlUtils the utils instance to use
+     */
+    public WorkflowValidateCommand(PmlUtils pmlUtils) {
+        this.pmlUtils = pmlUtils;
+    }
+
+    @Override
+    public Integer call() {
+        WorkflowPlan plan = plan(pmlUtils, workflowFile, engine);
+        if (plan == null) {
+            return 1;
+        }
+        plan.printPrompts(System.out);
+        return plan.valid() ? 0 : 1;
+    }
+
+    /**
+     * Parses a workflow file and plans it, reporting failures to stderr.
+     *
+     * @param pmlUtils the utils instance used to parse the workflow file
+     * @param workflowFile the workflow file
+     * @param engine the engine used to render PML prompts
+     * @return the plan, or {@code null} if the workflow file is missing or invalid
+     */
+    static @Nullable WorkflowPlan plan(PmlUtils pmlUtils, Path workflowFile, RenderEngine engine) {
+        if (!Files.exists(workflowFile)) {
+            System.err.println("Error: File not found: " + workflowFile);
+            return null;
+        }
+        try {
+            Workflow workflow = new WorkflowParser(pmlUtils).parse(workflowFile);
+            return new WorkflowPlanner(new PromptRenderer(pmlUtils, engine)).plan(workflow);
+        } catch (IOException | WorkflowException e) {
+            System.err.println("Error: " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Error: Workflow interrupted");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package info.jab.pml.cli.markdown;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Event driven equivalent of {@code xslt/pml-to-md.xsl}.
+ *
+ * <p>The writer receives the document as a flat sequence of start element, text and end element
+ * events and only keeps the text of the element currently being captured plus the section being
+ * built. Sections that the stylesheet emits before their position in the document (the header
+ * and the examples table of contents) are assembled first; everything else is written as soon
+ * as the header is complete. It relies on the element order enforced by {@code pml.xsd}, so
+ * documents must be validated before they are rendered.</p>
+ */
+final class MarkdownEventWriter {
+
+    private static final String PROMPT = "prompt";
+
+    /**
+     * Looks up an attribute of the current element, returning {@code null} if it is absent.
+     */
+    @FunctionalInterface
+    interface Attributes {
+        @Nullable String get(String name);
+    }
+
+    private enum Capture {
+        AUTHOR, VERSION, METADATA_TITLE, TITLE, ROLE, TONE, GOAL,
+        CONSTRAINTS_DESCRIPTION, CONSTRAINT,
+        EXAMPLE_TITLE, EXAMPLE_SUBTITLE, EXAMPLE_DESCRIPTION, GOOD_CODE, BAD_CODE,
+        STEP_TITLE, STEP_CONTENT, STEP_CONSTRAINT,
+        LIST_ITEM
+    }
+
+    private final Writer out;
+    private final List<String> path = new ArrayList<>();
+    private boolean inPrompt;
+
+    // Text of the element being captured
+    private final StringBuilder captured = new StringBuilder();
+    private @Nullable Capture capture;
+    private int captureDepth;
+
+    // Header: written once every element it depends on has been seen
+    private @Nullable String author;
+    private @Nullable String version;
+    private @Nullable String metadataTitle;
+    private @Nullable String title;
+    private @Nullable String role;
+    private final StringBuilder tones = new StringBuilder();
+    private final StringBuilder goals = new StringBuilder();
+    private final StringBuilder constraints = new StringBuilder();
+    private final StringBuilder instructions = new StringBuilder();
+    private final StringBuilder tableOfContents = new StringBuilder();
+    private boolean tableOfContentsEnabled;
+    private boolean headerWritten;
+    private final StringBuilder pendingBody = new StringBuilder();
+
+    // Section of the prompt currently being built
+    private final StringBuilder section = new StringBuilder();
+    private final StringBuilder items = new StringBuilder();
+    private @Nullable String constraintsDescription;
+    private boolean hasList;
+    private final StringBuilder directText = new StringBuilder();
+    private @Nullable String firstDirectText;
+
+    // Example currently being built
+    private int exampleCount;
+    private String exampleNumber = "";
+    private @Nullable String exampleTitle;
+    private @Nullable String exampleSubtitle;
+    private @Nullable String exampleDescription;
+    private boolean hasGoodExample;
+    private boolean goodLastItem;
+    private @Nullable String goodLanguage;
+    private @Nullable String goodCode;
+    private boolean hasBadExample;
+    private boolean badLastItem;
+    private @Nullable String badLanguage;
+    private @Nullable String badCode;
+
+    // Step currently being built
+    private int stepDepth;
+    private @Nullable String stepNumber;
+    private @Nullable String stepTitle;
+    private @Nullable String stepContent;
+    private boolean hasStepConstraints;
+    private final StringBuilder stepConstraints = new StringBuilder();
+
+    MarkdownEventWriter(Writer out) {
+        this.out = out;
+    }
+
+    void startElement(String name, Attributes attributes) throws IOException {
+        int depth = path.size();
+        if (depth == 0) {
+            inPrompt = PROMPT.equals(name);
+        }
+        if (isListSection() && depth == 2) {
+            endDirectText();
+        }
+        path.add(name);
+        if (!inPrompt || capture != null) {
+            return;
+        }
+        switch (depth) {
+            case 0 -> {
+                // The prompt element itself
+            }
+            case 1 -> startSection(name);
+            case 2 -> startSectionChild(name, attributes);
+            default -> startNested(depth, name, attributes);
+        }
+    }
+
+    void characters(CharSequence text) {
+        if (capture != null) {
+            captured.append(text);
+        } else if (inPrompt && path.size() == 2 && isListSection()) {
+            directText.append(text);
+        }
+    }
+
+    /**
+     * Called for comments and processing instructions, which split XPath text nodes.
+     */
+    void textBoundary() {
+        if (capture == null && inPrompt && path.size() == 2 && isListSection()) {
+            endDirectText();
+        }
+    }
+
+    void endElement() throws IOException {
+        int depth = path.size() - 1;
+        if (capture != null) {
+            if (depth == captureDepth) {
+                endCapture(capture, captured.toString());
+                capture = null;
+            }
+            path.removeLast();
+            return;
+        }
+        if (inPrompt) {
+            if (depth == 1) {
+                endSection(path.get(1));
+            } else if (depth == 2 && "example".equals(path.get(2)) && "examples".equals(path.get(1))) {
+                endExample();
+            } else if (depth == stepDepth && "step".equals(path.get(depth))) {
+                endStep();
+            } else if (depth == 0) {
+                writeHeader();
+            }
+        }
+        path.removeLast();
+    }
+
+    void endDocument() throws IOException {
+        out.flush();
+    }
+
+    private void startSection(String name) throws IOException {
+        switch (name) {
+            case "title" -> startCapture(Capture.TITLE, title == null);
+            case "role" -> startCapture(Capture.ROLE, role == null);
+            case "tone" -> startCapture(Capture.TONE, true);
+            case "goal" -> startCapture(Capture.GOAL, true);
+            case "constraints" -> {
+                resetSection();
+                constraintsDescription = null;
+            }
+            case "instructions" -> {
+                resetSection();
+                section.append("\n## Instructions\n\n");
+            }
+            case "steps" -> {
+                resetSection();
+                section.append("\n## Steps\n\n");
+            }
+            case "examples" -> {
+                resetSection();
+                exampleCount = 0;
+            }
+            case "output-format", "safeguards", "acceptance-criteria", "references" -> {
+                // Nothing after this point can change the header or the table of contents
+                writeHeader();
+                resetSection();
+                hasList = false;
+                firstDirectText = null;
+                directText.setLength(0);
+            }
+            default -> {
+                // Not rendered
+            }
+        }
+    }
+
+    private void startSectionChild(String name, Attributes attributes) {
+        String parent = path.get(1);
+        switch (parent) {
+            case "metadata" -> {
+                switch (name) {
+                    case "author" -> startCapture(Capture.AUTHOR, author == null);
+                    case "version" -> startCapture(Capture.VERSION, version == null);
+                    case "title" -> startCapture(Capture.METADATA_TITLE, metadataTitle == null);
+                    default -> {
+                        // Not rendered
+                    }
+                }
+            }
+            case "constraints" -> {
+                if ("constraints-description".equals(name)) {
+                    startCapture(Capture.CONSTRAINTS_DESCRIPTION, constraintsDescription == null);
+                }
+            }
+            case "examples" -> {
+                if ("toc".equals(name) && "true".equals(attributes.get("auto-generate"))) {
+                    tableOfContentsEnabled = true;
+                } else if ("example".equals(name)) {
+                    startExample(attributes);
+                }
+            }
+            case "steps" -> {
+                if ("step".equals(name)) {
+                    startStep(2, attributes);
+                }
+            }
+            case "output-format" -> hasList |= "output-format-list".equals(name);
+            case "safeguards" -> hasList |= "safeguards-list".equals(name);
+            default -> {
+                // Not rendered
+            }
+        }
+    }
+
+    private void startNested(int depth, String name, Attributes attributes) {
+        String section = path.get(1);
+        String parent = path.get(depth - 1);
+        if (stepDepth > 0 && depth == stepDepth + 1) {
+            switch (name) {
+                case "step-title" -> startCapture(Capture.STEP_TITLE, stepTitle == null);
+                case "step-content" -> startCapture(Capture.STEP_CONTENT, stepContent == null);
+                case "step-constraints" -> hasStepConstraints = true;
+                default -> {
+                    // Not rendered
+                }
+            }
+            return;
+        }
+        if (stepDepth > 0 && depth == stepDepth + 3) {
+            if ("step-constraint".equals(name) && "step-constraint-list".equals(parent)
+                && "step-constraints".equals(path.get(depth - 2))) {
+                startCapture(Capture.STEP_CONSTRAINT, true);
+            }
+            return;
+        }
+        switch (section) {
+            case "instructions" -> {
+                if (depth == 3 && "step".equals(name) && "steps".equals(parent)) {
+                    startStep(3, attributes);
+                }
+            }
+            case "constraints" -> {
+                if (depth == 3 && "constraint".equals(name) && "constraint-list".equals(parent)) {
+                    startCapture(Capture.CONSTRAINT, true);
+                }
+            }
+            case "examples" -> startExampleChild(depth, name, parent, attributes);
+            case "output-format" -> startListItem(depth, name, parent, "output-format-list", "output-format-item");
+            case "safeguards" -> startListItem(depth, name, parent, "safeguards-list", "safeguards-item");
+            case "acceptance-criteria" ->
+                startListItem(depth, name, parent, "acceptance-criteria-list", "acceptance-criteria-item");
+            default -> {
+                // Not rendered
+            }
+        }
+    }
+
+    private void startExampleChild(int depth, String name, String parent, Attributes attributes) {
+        if (!"example".equals(path.get(2))) {
+            return;
+        }
+        if (depth == 3) {
+            if ("example-description".equals(name)) {
+                startCapture(Capture.EXAMPLE_DESCRIPTION, exampleDescription == null);
+            }
+        } else if (depth == 4 && "example-header".equals(parent)) {
+            if ("example-title".equals(name)) {
+                startCapture(Capture.EXAMPLE_TITLE, exampleTitle == null);
+            } else if ("example-subtitle".equals(name)) {
+                startCapture(Capture.EXAMPLE_SUBTITLE, exampleSubtitle == null);
+            }
+        } else if (depth == 4 && "code-examples".equals(parent)) {
+            boolean lastItem = "true".equals(attributes.get("last-item"));
+            if ("good-example".equals(name)) {
+                hasGoodExample = true;
+                goodLastItem |= lastItem;
+            } else if ("bad-example".equals(name)) {
+                hasBadExample = true;
+                badLastItem |= lastItem;
+            }
+        } else if (depth == 5 && "code-block".equals(name) && "code-examples".equals(path.get(3))) {
+            String language = attributes.get("language");
+            if ("good-example".equals(parent)) {
+                if (goodLanguage == null) {
+                    goodLanguage = language;
+                }
+                startCapture(Capture.GOOD_CODE, goodCode == null);
+            } else if ("bad-example".equals(parent)) {
+                if (badLanguage == null) {
+                    badLanguage = language;
+                }
+                startCapture(Capture.BAD_CODE, badCode == null);
+            }
+        }
+    }
+
+    private void startListItem(int depth, String name, String parent, String listName, String itemName) {
+        if (depth == 3 && itemName.equals(name) && listName.equals(parent)) {
+            startCapture(Capture.LIST_ITEM, true);
+        }
+    }
+
+    private void startCapture(Capture target, boolean enabled) {
+        if (enabled) {
+            capture = target;
+            captureDepth = path.size() - 1;
+            captured.setLength(0);
+        }
+    }
+
+    private void endCapture(Capture target, String text) {
+        switch (target) {
+            case AUTHOR -> author = text;
+            case VERSION -> version = text;
+            case METADATA_TITLE -> metadataTitle = text;
+            case TITLE -> title = text;
+            case ROLE -> role = text;
+            case TONE -> tones.append("\n\n## Tone\n\n").append(MarkdownText.normalizeSpace(text));
+            case GOAL -> {
+                goals.append("\n\n## Goal\n\n");
+                MarkdownText.appendGoal(goals, text);
+                goals.append('\n');
+            }
+            case CONSTRAINTS_DESCRIPTION -> constraintsDescription = text;
+            case CONSTRAINT, LIST_ITEM -> appendItem(items, text);
+            case EXAMPLE_TITLE -> exampleTitle = text;
+            case EXAMPLE_SUBTITLE -> exampleSubtitle = text;
+            case EXAMPLE_DESCRIPTION -> exampleDescription = text;
+            case GOOD_CODE -> goodCode = text;
+            case BAD_CODE -> badCode = text;
+            case STEP_TITLE -> stepTitle = text;
+            case STEP_CONTENT -> stepContent = text;
+            case STEP_CONSTRAINT -> appendItem(stepConstraints, text);
+        }
+    }
+
+    private void endSection(String name) throws IOException {
+        switch (name) {
+            case "constraints" -> {
+                constraints.append("\n## Constraints\n\n");
+                if (constraintsDescription != null) {
+                    constraints.append(MarkdownText.normalizeSpace(constraintsDescription)).append("\n\n");
+                }
+                constraints.append(items);
+            }
+            case "instructions" -> instructions.append(section);
+            case "steps" -> writeBody(section);
+            case "examples" -> {
+                writeBody(section);
+                writeHeader();
+            }
+            case "output-format" -> writeListSection("\n## Output Format\n\n");
+            case "safeguards" -> writeListSection("\n## Safeguards\n\n");
+            case "acceptance-criteria" -> {
+                section.append("\n## Acceptance Criteria\n\n")
+                    .append("The goal will be achieved if the following criteria are met:\n\n")
+                    .append(items);
+                writeBody(section);
+            }
+            default -> {
+                // Not rendered
+            }
+        }
+    }
+
+    private void writeListSection(String heading) throws IOException {
+        endDirectText();
+        section.append(heading);
+        if (hasList) {
+            section.append(items);
+        } else {
+            section.append(MarkdownText.normalizeSpace(firstDirectText != null ? firstDirectText : "")).append('\n');
+        }
+        writeBody(section);
+    }
+
+    private void endDirectText() {
+        // Whitespace-only text nodes are stripped from output-format but not from safeguards
+        boolean stripped = "output-format".equals(path.get(1)) && MarkdownText.isBlank(directText);
+        if (firstDirectText == null && !directText.isEmpty() && !stripped) {
+            firstDirectText = directText.toString();
+        }
+        directText.setLength(0);
+    }
+
+    private void startExample(Attributes attributes) {
+        String number = attributes.get("number");
+        exampleNumber = number != null ? number : "";
+        exampleTitle = null;
+        exampleSubtitle = null;
+        exampleDescription = null;
+        hasGoodExample = false;
+        goodLastItem = false;
+        goodLanguage = null;
+        goodCode = null;
+        hasBadExample = false;
+        badLastItem = false;
+        badLanguage = null;
+        badCode = null;
+    }
+
+    private void endExample() {
+        String normalizedTitle = normalize(exampleTitle);
+        tableOfContents.append("- Example ").append(exampleNumber).append(": ").append(normalizedTitle).append('\n');
+
+        if (exampleCount++ > 0) {
+            // The stylesheet separates every example from the next one
+            section.append('\n');
+        }
+        section.append("\n### Example ").append(exampleNumber).append(": ").append(normalizedTitle)
+            .append("\n\nTitle: ").append(normalize(exampleSubtitle))
+            .append("\nDescription: ").append(normalize(exampleDescription));
+        if (hasGoodExample) {
+            appendCodeExample("\n\n**Good example:**\n\n```", goodLanguage, goodCode, goodLastItem);
+        }
+        if (hasBadExample) {
+            appendCodeExample("\n\n**Bad example:**\n\n```", badLanguage, badCode, badLastItem);
+        }
+    }
+
+    private void appendCodeExample(String heading, @Nullable String language, @Nullable String code, boolean lastItem) {
+        section.append(heading);
+        if (language != null) {
+            section.append(language);
+        }
+        section.append('\n');
+        MarkdownText.appendCodeBlock(section, code != null ? code : "");
+        section.append("\n```");
+        if (lastItem) {
+            section.append('\n');
+        }
+    }
+
+    private void startStep(int depth, Attributes attributes) {
+        stepDepth = depth;
+        stepNumber = attributes.get("number");
+        stepTitle = null;
+        stepContent = null;
+        hasStepConstraints = false;
+        stepConstraints.setLength(0);
+    }
+
+    private void endStep() {
+        section.append("### Step ");
+        if (stepNumber != null) {
+            section.append(stepNumber).append(": ");
+        }
+        section.append(normalize(stepTitle)).append("\n\n");
+        MarkdownText.appendStepContent(section, stepContent != null ? stepContent : "");
+        if (hasStepConstraints) {
+            section.append("\n#### Step Constraints\n\n").append(stepConstraints).append('\n');
+        }
+        stepDepth = 0;
+    }
+
+    private void writeHeader() throws IOException {
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        StringBuilder header = new StringBuilder();
+        String normalizedAuthor = normalize(author);
+        String normalizedVersion = normalize(version);
+        if (!normalizedAuthor.isEmpty() || !normalizedVersion.isEmpty()) {
+            header.append("---");
+            if (!normalizedAuthor.isEmpty()) {
+                header.append("\nauthor: ").append(normalizedAuthor);
+            }
+            if (!normalizedVersion.isEmpty()) {
+                header.append("\nversion: ").append(normalizedVersion);
+            }
+            header.append("\n---\n");
+        }
+        String normalizedTitle = normalize(metadataTitle);
+        if (normalizedTitle.isEmpty()) {
+            normalizedTitle = normalize(title);
+        }
+        if (!normalizedTitle.isEmpty()) {
+            header.append("# ").append(normalizedTitle).append("\n\n");
+        }
+        String normalizedRole = normalize(role);
+        if (!normalizedRole.isEmpty()) {
+            header.append("## Role\n\n").append(normalizedRole);
+        }
+        header.append(tones).append(goals).append(constraints).append(instructions);
+        if (tableOfContentsEnabled) {
+            header.append("\n## Examples\n\n### Table of contents\n\n").append(tableOfContents);
+        }
+        out.append(header).append(pendingBody);
+        pendingBody.setLength(0);
+    }
+
+    private void writeBody(CharSequence text) throws IOException {
+        if (headerWritten) {
+            out.append(text);
+        } else {
+            pendingBody.append(text);
+        }
+    }
+
+    private void resetSection() {
+        section.setLength(0);
+        items.setLength(0);
+    }
+
+    private boolean isListSection() {
+        if (path.size() < 2) {
+            return false;
+        }
+        String name = path.get(1);
+        return "output-format".equals(name) || "safeguards".equals(name);
+    }
+
+    private static void appendItem(StringBuilder target, String text) {
+        target.append("- ").append(MarkdownText.normalizeSpace(text)).append('\n');
+    }
+
+    private static String normalize(@Nullable String text) {
+        return text != null ? MarkdownText.normalizeSpace(text) : "";
+    }
+}
@@ -0,0 +1,121 @@
+package info.jab.pml.cli.markdown;
+
+/**
+ * Text rules of {@code xslt/pml-to-md.xsl} implemented as single linear passes.
+ *
+ * <p>The stylesheet rebuilds strings one character or one line at a time through recursive
+ * named templates; these helpers produce the same output without the quadratic copying.</p>
+ */
+final class MarkdownText {
+
+    private static final String CODE_FENCE = "```";
+
+    private MarkdownText() {
+        // Utility class
+    }
+
+    /**
+     * XPath {@code normalize-space()}: trims and collapses runs of XML whitespace to one space.
+     */
+    static String normalizeSpace(CharSequence text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isXmlWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!isXmlWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Template {@code trim-goal-content}: drops one leading and one trailing newline and the
+     * leading spaces of every line.
+     */
+    static void appendGoal(StringBuilder out, String content) {
+        appendWithoutIndentation(out, trimNewlines(content));
+    }
+
+    /**
+     * Template {@code trim-step-content}: like {@link #appendGoal} unless the content contains a
+     * code fence, in which case the indentation is preserved and the newlines are trimmed again
+     * by {@code preserve-indentation}.
+     */
+    static void appendStepContent(StringBuilder out, String content) {
+        String trimmed = trimNewlines(content);
+        if (trimmed.contains(CODE_FENCE)) {
+            out.append(trimNewlines(trimmed));
+        } else {
+            appendWithoutIndentation(out, trimmed);
+        }
+    }
+
+    /**
+     * Template {@code trim-code-block}: drops one leading and one trailing newline and the
+     * trailing spaces of every line.
+     */
+    static void appendCodeBlock(StringBuilder out, String content) {
+        String trimmed = trimNewlines(content);
+        int lineStart = 0;
+        while (true) {
+            int lineEnd = trimmed.indexOf('\n', lineStart);
+            int end = lineEnd < 0 ? trimmed.length() : lineEnd;
+            int contentEnd = end;
+            while (contentEnd > lineStart && trimmed.charAt(contentEnd - 1) == ' ') {
+                contentEnd--;
+            }
+            out.append(trimmed, lineStart, contentEnd);
+            if (lineEnd < 0) {
+                return;
+            }
+            out.append('\n');
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static void appendWithoutIndentation(StringBuilder out, String text) {
+        int lineStart = 0;
+        while (true) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            int end = lineEnd < 0 ? text.length() : lineEnd;
+            int contentStart = lineStart;
+            while (contentStart < end && text.charAt(contentStart) == ' ') {
+                contentStart++;
+            }
+            out.append(text, contentStart, end);
+            if (lineEnd < 0) {
+                return;
+            }
+            out.append('\n');
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static String trimNewlines(String content) {
+        int start = content.startsWith("\n") ? 1 : 0;
+        int end = content.length() > start && content.charAt(content.length() - 1) == '\n'
+            ? content.length() - 1
+            : content.length();
+        return content.substring(start, end);
+    }
+
+    private static boolean isXmlWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
@@ -0,0 +1,29 @@
+package info.jab.pml.cli.markdown;
+
+/**
+ * Engines available to render PML as Markdown.
+ */
+public enum RenderEngine {
+
+    /**
+     * The reference {@code xslt/pml-to-md.xsl} stylesheet.
+     */
+    XSLT,
+
+    /**
+     * The single pass {@link StaxMarkdownRenderer}.
+     */
+    STAX;
+
+    /**
+     * Returns the engine used when none is requested.
+     *
+     * <p>Inside a GraalVM native image the XSLT compiler cannot define its translet classes at
+     * run time, so the native executable renders with {@link #STAX}.</p>
+     *
+     * @return {@link #STAX} in a native image, {@link #XSLT} on the JVM
+     */
+    public static RenderEngine defaultEngine() {
+        return "runtime".equals(System.getProperty("org.graalvm.nativeimage.imagecode")) ? STAX : XSLT;
+    }
+}
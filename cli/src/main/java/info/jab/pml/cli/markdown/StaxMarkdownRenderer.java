@@ -0,0 +1,278 @@
+package info.jab.pml.cli.markdown;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Renders PML to Markdown in a single streaming pass, producing the same output as
+ * {@code xslt/pml-to-md.xsl} without building a DOM or running the XSLT processor.
+ *
+ * <p>No tree of the document is built, but memory use is not constant: the stylesheet writes the
+ * examples table of contents in the header, so the Markdown of every section up to the end of
+ * the examples, the examples included, is kept until the header is complete, and each later
+ * section is kept until it ends. Memory grows with the Markdown of those sections rather than
+ * with a DOM of the whole document. Documents are expected to be valid against
+ * {@code pml.xsd}.</p>
+ */
+public final class StaxMarkdownRenderer {
+
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORIES =
+        ThreadLocal.withInitial(StaxMarkdownRenderer::newInputFactory);
+
+    /**
+     * Renders PML read from a stream. The input stream is not closed, and {@code xi:include}
+     * elements are not resolved.
+     *
+     * @param pmlContent the PML XML content
+     * @param output the stream to write the UTF-8 Markdown output to
+     * @throws XMLStreamException if the content is not well-formed XML
+     * @throws IOException if the output cannot be written
+     */
+    public void render(InputStream pmlContent, OutputStream output) throws XMLStreamException, IOException {
+        XMLStreamReader reader = INPUT_FACTORIES.get().createXMLStreamReader(pmlContent);
+        try {
+            render(reader, output);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Renders PML read by a SAX parser, for example one that resolves {@code xi:include}
+     * elements. The handlers of the reader are replaced.
+     *
+     * @param reader the parser to read the content with
+     * @param pmlContent the PML XML content
+     * @param output the stream to write the UTF-8 Markdown output to
+     * @throws SAXException if the content is not well-formed XML
+     * @throws IOException if the content cannot be read or the output cannot be written
+     */
+    public void render(XMLReader reader, InputSource pmlContent, OutputStream output) throws SAXException, IOException {
+        MarkdownEventWriter writer = new MarkdownEventWriter(newWriter(output));
+        SaxEvents events = new SaxEvents(writer);
+        reader.setContentHandler(events);
+        reader.setProperty(LEXICAL_HANDLER, events);
+        try {
+            reader.parse(pmlContent);
+        } catch (SAXException e) {
+            if (e.getException() instanceof IOException writeFailure) {
+                throw writeFailure;
+            }
+            throw e;
+        }
+        writer.endDocument();
+    }
+
+    /**
+     * Renders an already parsed PML document, for example after template replacements.
+     *
+     * @param pmlDocument the document to render
+     * @param output the stream to write the UTF-8 Markdown output to
+     * @throws IOException if the output cannot be written
+     */
+    public void render(Document pmlDocument, OutputStream output) throws IOException {
+        MarkdownEventWriter writer = new MarkdownEventWriter(newWriter(output));
+        walk(pmlDocument.getDocumentElement(), writer);
+        writer.endDocument();
+    }
+
+    private static void render(XMLStreamReader reader, OutputStream output) throws XMLStreamException, IOException {
+        MarkdownEventWriter writer = new MarkdownEventWriter(newWriter(output));
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT ->
+                    writer.startElement(name(reader.getNamespaceURI(), reader.getLocalName()),
+                        attribute -> reader.getAttributeValue(XMLConstants.NULL_NS_URI, attribute));
+                case XMLStreamConstants.END_ELEMENT -> writer.endElement();
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                    writer.characters(new CharArraySequence(
+                        reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength()));
+                case XMLStreamConstants.COMMENT, XMLStreamConstants.PROCESSING_INSTRUCTION -> writer.textBoundary();
+                default -> {
+                    // Document boundaries and DTD events carry no content
+                }
+            }
+        }
+        writer.endDocument();
+    }
+
+    private static void walk(Node node, MarkdownEventWriter writer) throws IOException {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE -> {
+                Element element = (Element) node;
+                String localName = element.getLocalName() != null ? element.getLocalName() : element.getTagName();
+                writer.startElement(name(element.getNamespaceURI(), localName), attribute ->
+                    element.hasAttributeNS(null, attribute) ? element.getAttributeNS(null, attribute) : null);
+                for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    walk(child, writer);
+                }
+                writer.endElement();
+            }
+            case Node.TEXT_NODE, Node.CDATA_SECTION_NODE -> writer.characters(node.getNodeValue());
+            case Node.COMMENT_NODE, Node.PROCESSING_INSTRUCTION_NODE -> writer.textBoundary();
+            case Node.ENTITY_REFERENCE_NODE -> {
+                for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    walk(child, writer);
+                }
+            }
+            default -> {
+                // Not part of the rendered content
+            }
+        }
+    }
+
+    private static String name(@Nullable String namespaceUri, String localName) {
+        // Qualified elements never match the stylesheet's unqualified patterns
+        return namespaceUri == null || namespaceUri.isEmpty() ? localName : "{" + namespaceUri + "}" + localName;
+    }
+
+    private static Writer newWriter(OutputStream output) {
+        return new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+        return factory;
+    }
+
+    /**
+     * Forwards SAX events to the writer. Write failures travel as the cause of a SAXException.
+     */
+    private static final class SaxEvents extends DefaultHandler implements LexicalHandler {
+
+        private final MarkdownEventWriter writer;
+
+        SaxEvents(MarkdownEventWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            try {
+                writer.startElement(name(uri, localName), attribute -> attributes.getValue(XMLConstants.NULL_NS_URI, attribute));
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            try {
+                writer.endElement();
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            writer.characters(new CharArraySequence(ch, start, length));
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            writer.characters(new CharArraySequence(ch, start, length));
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) {
+            writer.textBoundary();
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) {
+            writer.textBoundary();
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) {
+            // Not part of the rendered content
+        }
+
+        @Override
+        public void endDTD() {
+            // Not part of the rendered content
+        }
+
+        @Override
+        public void startEntity(String name) {
+            // Entity content is reported as regular characters
+        }
+
+        @Override
+        public void endEntity(String name) {
+            // Entity content is reported as regular characters
+        }
+
+        @Override
+        public void startCDATA() {
+            // CDATA content is reported as regular characters
+        }
+
+        @Override
+        public void endCDATA() {
+            // CDATA content is reported as regular characters
+        }
+    }
+
+    /**
+     * View over the parser's character buffer, avoiding a copy per text event.
+     */
+    private static final class CharArraySequence implements CharSequence {
+
+        private final char[] chars;
+        private final int start;
+        private final int length;
+
+        CharArraySequence(char[] chars, int start, int length) {
+            this.chars = chars;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new CharArraySequence(chars, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, length);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package info.jab.pml.cli.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits one JFR event per phase. Recordings are started with
+ * {@code -XX:StartFlightRecording} or {@code jcmd <pid> JFR.start} and read with
+ * {@code jfr print --events info.jab.pml.Phase}.
+ */
+final class JfrPhaseMetrics implements PhaseMetrics {
+
+    static final JfrPhaseMetrics INSTANCE = new JfrPhaseMetrics();
+
+    private static final Span DISABLED = (bytes, success) -> {
+        // No recording is running
+    };
+
+    private JfrPhaseMetrics() {
+        // Singleton
+    }
+
+    @Override
+    public Span start(Phase phase, String source) {
+        PhaseEvent event = new PhaseEvent();
+        if (!event.isEnabled()) {
+            return DISABLED;
+        }
+        event.begin();
+        return (bytes, success) -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.label();
+                event.source = source;
+                event.bytes = bytes;
+                event.success = success;
+                event.commit();
+            }
+        };
+    }
+
+    @Name("info.jab.pml.Phase")
+    @Label("PML Phase")
+    @Category({"PML", "Conversion"})
+    @Description("A parse, template, validate or transform phase of a PML document")
+    @StackTrace(false)
+    static final class PhaseEvent extends Event {
+
+        @Label("Phase")
+        String phase = "";
+
+        @Label("Source")
+        String source = "";
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Success")
+        boolean success;
+    }
+}
@@ -0,0 +1,38 @@
+package info.jab.pml.cli.metrics;
+
+import java.util.Locale;
+
+/**
+ * The steps a PML document goes through on its way to Markdown.
+ */
+public enum Phase {
+
+    /**
+     * Reading the XML into a document, including {@code xi:include} resolution.
+     */
+    PARSE,
+
+    /**
+     * Applying template replacements to a parsed document.
+     */
+    TEMPLATE,
+
+    /**
+     * Validating against the XSD schema.
+     */
+    VALIDATE,
+
+    /**
+     * Rendering Markdown with the XSLT stylesheet or the STAX engine.
+     */
+    TRANSFORM;
+
+    /**
+     * Returns the name used in reports and recorded events.
+     *
+     * @return the lowercase phase name
+     */
+    public String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,74 @@
+package info.jab.pml.cli.metrics;
+
+/**
+ * Receives the duration, size and outcome of every {@link Phase} run by
+ * {@link info.jab.pml.cli.xml.PmlUtils}.
+ *
+ * <p>Implementations must be thread-safe: phases of different documents are recorded
+ * concurrently by batch workers and server requests. The default, {@link #jfr()}, emits JDK
+ * Flight Recorder events, which cost next to nothing while no recording is running.</p>
+ */
+public interface PhaseMetrics {
+
+    /**
+     * A phase in progress.
+     */
+    @FunctionalInterface
+    interface Span {
+
+        /**
+         * Ends the phase.
+         *
+         * @param bytes the bytes read or written by the phase, or 0 if not known
+         * @param success whether the phase succeeded
+         */
+        void end(long bytes, boolean success);
+    }
+
+    /**
+     * Starts timing a phase.
+     *
+     * @param phase the phase
+     * @param source the file or document the phase works on
+     * @return the span to end when the phase completes
+     */
+    Span start(Phase phase, String source);
+
+    /**
+     * Returns metrics that record to both this and another instance.
+     *
+     * @param other the other metrics
+     * @return the combined metrics
+     */
+    default PhaseMetrics and(PhaseMetrics other) {
+        PhaseMetrics self = this;
+        return (phase, source) -> {
+            Span first = self.start(phase, source);
+            Span second = other.start(phase, source);
+            return (bytes, success) -> {
+                second.end(bytes, success);
+                first.end(bytes, success);
+            };
+        };
+    }
+
+    /**
+     * Returns metrics that emit a {@code info.jab.pml.Phase} JFR event per phase.
+     *
+     * @return the JFR metrics
+     */
+    static PhaseMetrics jfr() {
+        return JfrPhaseMetrics.INSTANCE;
+    }
+
+    /**
+     * Returns metrics that record nothing.
+     *
+     * @return the no-op metrics
+     */
+    static PhaseMetrics none() {
+        return (phase, source) -> (bytes, success) -> {
+            // Nothing to record
+        };
+    }
+}
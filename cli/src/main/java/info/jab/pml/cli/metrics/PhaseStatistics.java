@@ -0,0 +1,147 @@
+package info.jab.pml.cli.metrics;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Phase metrics aggregated in memory: count, errors, time and bytes per phase, and the total
+ * time spent on each document so that the slowest ones can be reported.
+ */
+public final class PhaseStatistics implements PhaseMetrics {
+
+    private final Map<Phase, Totals> totals = new EnumMap<>(Phase.class);
+    private final ConcurrentMap<String, LongAdder> nanosPerSource = new ConcurrentHashMap<>();
+
+    /**
+     * Creates empty statistics.
+     */
+    public PhaseStatistics() {
+        for (Phase phase : Phase.values()) {
+            totals.put(phase, new Totals());
+        }
+    }
+
+    @Override
+    public Span start(Phase phase, String source) {
+        long start = System.nanoTime();
+        return (bytes, success) -> record(phase, source, System.nanoTime() - start, bytes, success);
+    }
+
+    /**
+     * Records a completed phase.
+     *
+     * @param phase the phase
+     * @param source the file or document the phase worked on
+     * @param elapsedNanos the time spent in the phase
+     * @param bytes the bytes read or written by the phase, or 0 if not known
+     * @param success whether the phase succeeded
+     */
+    public void record(Phase phase, String source, long elapsedNanos, long bytes, boolean success) {
+        totals(phase).record(elapsedNanos, bytes, success);
+        nanosPerSource.computeIfAbsent(source, ignored -> new LongAdder()).add(elapsedNanos);
+    }
+
+    /**
+     * Returns the number of times a phase ran.
+     *
+     * @param phase the phase
+     * @return the count, successful or not
+     */
+    public long count(Phase phase) {
+        return totals(phase).count.sum();
+    }
+
+    /**
+     * Returns the number of times a phase failed.
+     *
+     * @param phase the phase
+     * @return the error count
+     */
+    public long errors(Phase phase) {
+        return totals(phase).errors.sum();
+    }
+
+    /**
+     * Returns the bytes read or written by a phase.
+     *
+     * @param phase the phase
+     * @return the byte count
+     */
+    public long bytes(Phase phase) {
+        return totals(phase).bytes.sum();
+    }
+
+    /**
+     * Renders one line per phase, then the documents that took the longest.
+     *
+     * @param slowest the number of documents to list
+     * @return the formatted breakdown
+     */
+    public String format(int slowest) {
+        long allNanos = 0;
+        for (Phase phase : Phase.values()) {
+            allNanos += totals(phase).nanos.sum();
+        }
+        StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+            "%-10s %8s %7s %11s %9s %9s %6s %12s%n",
+            "phase", "count", "errors", "total ms", "mean ms", "max ms", "share", "bytes"));
+        for (Phase phase : Phase.values()) {
+            Totals phaseTotals = totals(phase);
+            long count = phaseTotals.count.sum();
+            long nanos = phaseTotals.nanos.sum();
+            text.append(String.format(Locale.ROOT, "%-10s %8d %7d %11.3f %9.3f %9.3f %5.1f%% %12d%n",
+                phase.label(),
+                count,
+                phaseTotals.errors.sum(),
+                nanos / 1_000_000.0,
+                count == 0 ? 0.0 : nanos / 1_000_000.0 / count,
+                phaseTotals.maxNanos.get() / 1_000_000.0,
+                allNanos == 0 ? 0.0 : 100.0 * nanos / allNanos,
+                phaseTotals.bytes.sum()));
+        }
+        List<Map.Entry<String, Long>> sources = new ArrayList<>();
+        nanosPerSource.forEach((source, nanos) -> sources.add(Map.entry(source, nanos.sum())));
+        sources.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        if (slowest > 0 && !sources.isEmpty()) {
+            text.append("slowest documents:").append(System.lineSeparator());
+            for (Map.Entry<String, Long> source : sources.subList(0, Math.min(slowest, sources.size()))) {
+                text.append(String.format(Locale.ROOT, "%11.3f ms  %s%n", source.getValue() / 1_000_000.0, source.getKey()));
+            }
+        }
+        return text.toString();
+    }
+
+    private Totals totals(Phase phase) {
+        Totals phaseTotals = totals.get(phase);
+        if (phaseTotals == null) {
+            throw new IllegalStateException("No totals for phase " + phase);
+        }
+        return phaseTotals;
+    }
+
+    private static final class Totals {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long elapsedNanos, long byteCount, boolean success) {
+            count.increment();
+            if (!success) {
+                errors.increment();
+            }
+            nanos.add(elapsedNanos);
+            bytes.add(byteCount);
+            maxNanos.accumulate(elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package info.jab.pml.cli.output;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes a file so that it is only replaced once its new content is complete.
+ *
+ * <p>The content is written to a temporary file in the same directory, which is then moved over
+ * the file. If writing fails, the temporary file is deleted and the previous version of the file,
+ * if any, is left as it was instead of being emptied or half written.</p>
+ */
+public final class AtomicFile {
+
+    /**
+     * Writes the content of a file.
+     *
+     * @param <E> the exception thrown when the content cannot be produced
+     */
+    @FunctionalInterface
+    public interface Content<E extends Exception> {
+
+        /**
+         * Writes the content.
+         *
+         * @param output the stream to write to, closed by the caller
+         * @throws IOException if the content cannot be written
+         * @throws E if the content cannot be produced
+         */
+        void writeTo(OutputStream output) throws IOException, E;
+    }
+
+    private AtomicFile() {
+    }
+
+    /**
+     * Replaces a file with new content, creating its parent directories.
+     *
+     * @param <E> the exception thrown when the content cannot be produced
+     * @param file the file to write
+     * @param content writes the new content
+     * @throws IOException if the file cannot be written
+     * @throws E if the content cannot be produced, in which case the file is unchanged
+     */
+    public static <E extends Exception> void write(Path file, Content<E> content) throws IOException, E {
+        Path target = file.toAbsolutePath();
+        Path directory = target.getParent();
+        if (directory == null) {
+            throw new IOException("Not a file: " + file);
+        }
+        Files.createDirectories(directory);
+        // Created like the file itself, so it keeps the usual permissions once moved into place
+        Path temporary = directory.resolve("." + target.getFileName() + "."
+            + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temporary,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), OutputTarget.BUFFER_SIZE)) {
+                content.writeTo(output);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
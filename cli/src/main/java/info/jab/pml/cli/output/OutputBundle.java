@@ -0,0 +1,152 @@
+package info.jab.pml.cli.output;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the Markdown of several documents to a single {@link OutputTarget} in input order,
+ * while the documents are rendered concurrently.
+ *
+ * <p>Each document is rendered into its own temporary part file, next to the target when it is a
+ * file. {@link #write()} then appends the parts in order, separated by a line break. File targets
+ * receive them through {@link FileChannel#transferTo}, which lets the operating system copy the
+ * bytes without moving them through the heap.</p>
+ */
+public final class OutputBundle implements Closeable {
+
+    private static final byte[] SEPARATOR = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final OutputTarget target;
+    private final int size;
+    private final Path directory;
+
+    private OutputBundle(OutputTarget target, int size, Path directory) {
+        this.target = target;
+        this.size = size;
+        this.directory = directory;
+    }
+
+    /**
+     * Creates a bundle of documents.
+     *
+     * @param target where the documents are written by {@link #write()}
+     * @param size the number of documents
+     * @return the bundle
+     * @throws IOException if the directory of the parts cannot be created
+     */
+    public static OutputBundle create(OutputTarget target, int size) throws IOException {
+        Path file = target.file();
+        Path parent = file == null ? null : file.toAbsolutePath().getParent();
+        Path directory;
+        if (parent != null) {
+            // Same file system as the target, so parts can be copied without leaving the kernel
+            Files.createDirectories(parent);
+            directory = Files.createTempDirectory(parent, ".pml-output");
+        } else {
+            directory = Files.createTempDirectory("pml-output");
+        }
+        return new OutputBundle(target, size, directory);
+    }
+
+    /**
+     * Opens the stream of one document. Each document may be rendered on its own thread.
+     *
+     * @param index the position of the document, from 0
+     * @return a buffered stream writing the part of the document
+     * @throws IOException if the part cannot be created
+     */
+    public OutputStream part(int index) throws IOException {
+        FileChannel channel = FileChannel.open(partFile(index),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new BufferedOutputStream(Channels.newOutputStream(channel), OutputTarget.BUFFER_SIZE);
+    }
+
+    /**
+     * Leaves a document out of the bundle, for example because it failed to render.
+     *
+     * @param index the position of the document
+     * @throws IOException if the part cannot be deleted
+     */
+    public void discard(int index) throws IOException {
+        Files.deleteIfExists(partFile(index));
+    }
+
+    /**
+     * Writes every document that was rendered and not discarded to the target, in order.
+     *
+     * @return the number of documents written
+     * @throws IOException if a part cannot be read or the target cannot be written
+     */
+    public int write() throws IOException {
+        int written = 0;
+        if (target.isStdout()) {
+            try (OutputStream out = target.open()) {
+                for (int index = 0; index < size; index++) {
+                    Path part = partFile(index);
+                    if (!Files.exists(part)) {
+                        continue;
+                    }
+                    if (written++ > 0) {
+                        out.write(SEPARATOR);
+                    }
+                    Files.copy(part, out);
+                }
+            }
+            return written;
+        }
+        try (FileChannel out = target.openChannel()) {
+            for (int index = 0; index < size; index++) {
+                Path part = partFile(index);
+                if (!Files.exists(part)) {
+                    continue;
+                }
+                if (written++ > 0) {
+                    ByteBuffer separator = ByteBuffer.wrap(SEPARATOR);
+                    while (separator.hasRemaining()) {
+                        out.write(separator);
+                    }
+                }
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long position = 0;
+                    long length = in.size();
+                    while (position < length) {
+                        position += in.transferTo(position, length - position, out);
+                    }
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Deletes the parts.
+     *
+     * @throws IOException if a part cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Path partFile(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return directory.resolve(index + ".md");
+    }
+}
@@ -0,0 +1,176 @@
+package info.jab.pml.cli.output;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Destination of rendered Markdown: a file, or the standard output.
+ *
+ * <p>Streams opened on a target are buffered with a large buffer and are only flushed when the
+ * buffer is full or the stream is closed, rather than on every line like {@link System#out}. File
+ * targets are written through a {@link FileChannel}.</p>
+ */
+public final class OutputTarget {
+
+    /**
+     * The value of {@code --output} that selects the standard output.
+     */
+    public static final String STDOUT = "-";
+
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    private final @Nullable Path file;
+
+    private OutputTarget(@Nullable Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Parses the value of an {@code --output} option.
+     *
+     * @param target a file path, or {@link #STDOUT}
+     * @return the target
+     */
+    public static OutputTarget of(String target) {
+        return STDOUT.equals(target) ? stdout() : file(Paths.get(target));
+    }
+
+    /**
+     * Returns the standard output target.
+     *
+     * @return the target writing to {@link System#out}
+     */
+    public static OutputTarget stdout() {
+        return new OutputTarget(null);
+    }
+
+    /**
+     * Returns a file target. The file is replaced when the target is opened.
+     *
+     * @param file the file to write
+     * @return the target
+     */
+    public static OutputTarget file(Path file) {
+        return new OutputTarget(file);
+    }
+
+    /**
+     * Returns the file written by this target.
+     *
+     * @return the file, or {@code null} for the standard output
+     */
+    public @Nullable Path file() {
+        return file;
+    }
+
+    /**
+     * Tells whether this target is the standard output, so that logs should go elsewhere.
+     *
+     * @return true for the standard output
+     */
+    public boolean isStdout() {
+        return file == null;
+    }
+
+    /**
+     * Opens a buffered stream on the target. Closing the stream flushes it; the standard output
+     * itself is left open.
+     *
+     * @return the stream
+     * @throws IOException if the file cannot be created
+     */
+    public OutputStream open() throws IOException {
+        if (file == null) {
+            // System.out is looked up on every call so that System.setOut is honoured
+            return new BufferedOutputStream(new StdoutStream(System.out), BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(Channels.newOutputStream(openChannel()), BUFFER_SIZE);
+    }
+
+    /**
+     * Writes a whole document to the target. A file target is only replaced once the content is
+     * complete, through {@link AtomicFile}, so a document that fails leaves the previous file as
+     * it was.
+     *
+     * @param <E> the exception thrown when the content cannot be produced
+     * @param content writes the document
+     * @throws IOException if the target cannot be written
+     * @throws E if the content cannot be produced
+     */
+    public <E extends Exception> void write(AtomicFile.Content<E> content) throws IOException, E {
+        if (file != null) {
+            AtomicFile.write(file, content);
+            return;
+        }
+        try (OutputStream output = open()) {
+            content.writeTo(output);
+        }
+    }
+
+    /**
+     * Opens the channel of a file target, creating its parent directories.
+     *
+     * @return the channel, positioned at the start of the emptied file
+     * @throws IOException if the file cannot be created
+     */
+    FileChannel openChannel() throws IOException {
+        if (file == null) {
+            throw new IllegalStateException("The standard output has no file channel");
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public String toString() {
+        return file == null ? "stdout" : file.toString();
+    }
+
+    /**
+     * Passes whole buffers to a {@link PrintStream} and reports its write errors on close, which
+     * the print stream would otherwise swallow.
+     */
+    private static final class StdoutStream extends OutputStream {
+
+        private final PrintStream out;
+
+        StdoutStream(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out.checkError()) {
+                throw new IOException("Could not write to the standard output");
+            }
+        }
+    }
+}
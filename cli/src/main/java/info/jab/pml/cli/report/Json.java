@@ -0,0 +1,41 @@
+package info.jab.pml.cli.report;
+
+import java.util.Locale;
+
+/**
+ * Minimal JSON encoding helpers for the reports and responses written by the CLI.
+ */
+public final class Json {
+
+    private Json() {
+        // Utility class
+    }
+
+    /**
+     * Encodes a string as a quoted JSON string literal.
+     *
+     * @param text the text to encode
+     * @return the JSON string, including the surrounding quotes
+     */
+    public static String quote(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+}
@@ -0,0 +1,22 @@
+package info.jab.pml.cli.report;
+
+/**
+ * Formats of the validation report.
+ */
+public enum ReportFormat {
+
+    /**
+     * One {@code file:line:column: severity: message} line per problem, for people and editors.
+     */
+    TEXT,
+
+    /**
+     * A JSON document with one entry per file.
+     */
+    JSON,
+
+    /**
+     * A SARIF 2.1.0 log, understood by code scanning tools and CI annotations.
+     */
+    SARIF
+}
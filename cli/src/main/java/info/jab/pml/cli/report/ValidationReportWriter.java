@@ -0,0 +1,205 @@
+package info.jab.pml.cli.report;
+
+import info.jab.pml.cli.xml.ValidationReport;
+import info.jab.pml.cli.xml.ValidationReport.Problem;
+import info.jab.pml.cli.xml.ValidationReport.Severity;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Writes validation reports as text, JSON or SARIF.
+ *
+ * <p>File locations are written relative to the working directory when they are inside it, so
+ * SARIF results line up with the repository checked out by CI.</p>
+ */
+public final class ValidationReportWriter {
+
+    private static final String SARIF_SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+    private static final String INFORMATION_URI = "https://github.com/jabrena/pml";
+
+    private static final String RULE_SCHEMA = "pml-schema";
+    private static final String RULE_XML = "pml-xml";
+    private static final String RULE_WARNING = "pml-parser-warning";
+    private static final String RULE_MAX_ERRORS = "pml-max-errors";
+
+    private final Path workingDirectory;
+
+    /**
+     * Creates a writer resolving locations against the current working directory.
+     */
+    public ValidationReportWriter() {
+        this(Paths.get("").toAbsolutePath());
+    }
+
+    /**
+     * Creates a writer resolving locations against the given directory.
+     *
+     * @param workingDirectory the directory locations are made relative to
+     */
+    public ValidationReportWriter(Path workingDirectory) {
+        this.workingDirectory = workingDirectory.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Writes the reports of a run.
+     *
+     * @param reports the reports, one per validated file
+     * @param format the format to write
+     * @param out the stream to write to
+     */
+    public void write(List<ValidationReport> reports, ReportFormat format, PrintStream out) {
+        switch (format) {
+            case TEXT -> writeText(reports, out);
+            case JSON -> writeJson(reports, out);
+            case SARIF -> writeSarif(reports, out);
+        }
+    }
+
+    private void writeText(List<ValidationReport> reports, PrintStream out) {
+        for (ValidationReport report : reports) {
+            if (report.problems().isEmpty() && !report.truncated()) {
+                continue;
+            }
+            if (!report.valid()) {
+                out.printf("Validation failed: %s (%d errors)%n", display(report.source()), report.errorCount());
+            }
+            for (Problem problem : report.problems()) {
+                String position = problem.line() > 0 ? ":" + problem.line() + ":" + problem.column() : "";
+                out.printf("%s%s: %s: %s%n", location(report, problem), position,
+                    problem.severity().name().toLowerCase(Locale.ROOT), problem.message());
+            }
+            if (report.truncated()) {
+                out.printf("%s: note: %s%n", display(report.source()), truncationMessage(report));
+            }
+        }
+    }
+
+    private void writeJson(List<ValidationReport> reports, PrintStream out) {
+        StringBuilder json = new StringBuilder("{\"valid\":")
+            .append(reports.stream().allMatch(ValidationReport::valid))
+            .append(",\"files\":[");
+        for (int i = 0; i < reports.size(); i++) {
+            ValidationReport report = reports.get(i);
+            json.append(i == 0 ? "" : ",")
+                .append("{\"file\":").append(Json.quote(display(report.source())))
+                .append(",\"valid\":").append(report.valid())
+                .append(",\"truncated\":").append(report.truncated())
+                .append(",\"problems\":[");
+            for (int j = 0; j < report.problems().size(); j++) {
+                Problem problem = report.problems().get(j);
+                json.append(j == 0 ? "" : ",")
+                    .append("{\"severity\":").append(Json.quote(problem.severity().name().toLowerCase(Locale.ROOT)))
+                    .append(",\"file\":").append(Json.quote(location(report, problem)))
+                    .append(",\"line\":").append(problem.line())
+                    .append(",\"column\":").append(problem.column())
+                    .append(",\"message\":").append(Json.quote(problem.message()))
+                    .append('}');
+            }
+            json.append("]}");
+        }
+        out.println(json.append("]}"));
+    }
+
+    private void writeSarif(List<ValidationReport> reports, PrintStream out) {
+        StringBuilder sarif = new StringBuilder()
+            .append("{\"$schema\":").append(Json.quote(SARIF_SCHEMA))
+            .append(",\"version\":\"2.1.0\",\"runs\":[{\"tool\":{\"driver\":{\"name\":\"pml\"")
+            .append(",\"informationUri\":").append(Json.quote(INFORMATION_URI))
+            .append(",\"rules\":[")
+            .append(rule(RULE_SCHEMA, "The document must conform to pml.xsd")).append(',')
+            .append(rule(RULE_XML, "The document must be readable, well-formed XML")).append(',')
+            .append(rule(RULE_WARNING, "The parser reported a warning")).append(',')
+            .append(rule(RULE_MAX_ERRORS, "Validation stopped after the maximum number of errors"))
+            .append("]}},\"results\":[");
+        boolean first = true;
+        for (ValidationReport report : reports) {
+            for (Problem problem : report.problems()) {
+                sarif.append(first ? "" : ",");
+                first = false;
+                sarif.append(result(ruleId(problem.severity()), level(problem.severity()), problem.message(),
+                    sarifUri(file(report, problem)), problem.line(), problem.column()));
+            }
+            if (report.truncated()) {
+                sarif.append(first ? "" : ",");
+                first = false;
+                sarif.append(result(RULE_MAX_ERRORS, "note", truncationMessage(report), sarifUri(report.source()), -1, -1));
+            }
+        }
+        out.println(sarif.append("]}]}"));
+    }
+
+    private static String rule(String id, String description) {
+        return "{\"id\":" + Json.quote(id) + ",\"shortDescription\":{\"text\":" + Json.quote(description) + "}}";
+    }
+
+    private static String result(String ruleId, String level, String message, String uri, int line, int column) {
+        StringBuilder result = new StringBuilder()
+            .append("{\"ruleId\":").append(Json.quote(ruleId))
+            .append(",\"level\":").append(Json.quote(level))
+            .append(",\"message\":{\"text\":").append(Json.quote(message)).append('}')
+            .append(",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":").append(Json.quote(uri)).append('}');
+        if (line > 0) {
+            result.append(",\"region\":{\"startLine\":").append(line);
+            if (column > 0) {
+                result.append(",\"startColumn\":").append(column);
+            }
+            result.append('}');
+        }
+        return result.append("}}]}").toString();
+    }
+
+    private static String ruleId(Severity severity) {
+        return switch (severity) {
+            case WARNING -> RULE_WARNING;
+            case ERROR -> RULE_SCHEMA;
+            case FATAL -> RULE_XML;
+        };
+    }
+
+    private static String level(Severity severity) {
+        return severity == Severity.WARNING ? "warning" : "error";
+    }
+
+    private static String truncationMessage(ValidationReport report) {
+        return "validation stopped after " + report.errorCount() + " errors, the file has more (see --max-errors)";
+    }
+
+    private String location(ValidationReport report, Problem problem) {
+        return display(file(report, problem));
+    }
+
+    private static Path file(ValidationReport report, Problem problem) {
+        Path file = toPath(problem.location());
+        return file != null ? file : report.source();
+    }
+
+    private String sarifUri(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        return absolute.startsWith(workingDirectory) ? display(absolute) : absolute.toUri().toString();
+    }
+
+    private String display(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        if (absolute.startsWith(workingDirectory)) {
+            // Forward slashes on every platform, as in SARIF URIs
+            return workingDirectory.relativize(absolute).toString().replace('\\', '/');
+        }
+        return file.toString();
+    }
+
+    private static @Nullable Path toPath(@Nullable String location) {
+        if (location == null || !location.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return Paths.get(URI.create(location));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
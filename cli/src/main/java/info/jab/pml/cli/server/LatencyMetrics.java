@@ -0,0 +1,103 @@
+package info.jab.pml.cli.server;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters and latency histograms per endpoint.
+ *
+ * <p>Latencies are recorded lock-free into power-of-two microsecond buckets, so recording is
+ * cheap enough for every request and percentiles are accurate to within a factor of two.</p>
+ */
+public final class LatencyMetrics {
+
+    private static final int BUCKETS = 40;
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Records a completed request.
+     *
+     * @param endpoint the endpoint that served the request
+     * @param elapsedNanos the time spent serving it
+     * @param success whether the request succeeded
+     */
+    public void record(String endpoint, long elapsedNanos, boolean success) {
+        endpoints.computeIfAbsent(endpoint, name -> new Endpoint()).record(elapsedNanos, success);
+    }
+
+    /**
+     * Returns the number of requests recorded for an endpoint.
+     *
+     * @param endpoint the endpoint name
+     * @return the number of requests, successful or not
+     */
+    public long count(String endpoint) {
+        Endpoint metrics = endpoints.get(endpoint);
+        return metrics != null ? metrics.count.sum() : 0;
+    }
+
+    /**
+     * Renders the metrics as plain text, one line per endpoint.
+     *
+     * @return the formatted metrics
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            Endpoint metrics = entry.getValue();
+            text.append(String.format(Locale.ROOT,
+                "%s count=%d errors=%d p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms%n",
+                entry.getKey(),
+                metrics.count.sum(),
+                metrics.errors.sum(),
+                metrics.percentileMillis(0.50),
+                metrics.percentileMillis(0.90),
+                metrics.percentileMillis(0.99),
+                metrics.maxNanos.get() / 1_000_000.0));
+        }
+        return text.toString();
+    }
+
+    private static final class Endpoint {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        void record(long elapsedNanos, boolean success) {
+            count.increment();
+            if (!success) {
+                errors.increment();
+            }
+            maxNanos.accumulate(elapsedNanos);
+            long micros = Math.max(1, elapsedNanos / 1_000);
+            int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+            histogram.incrementAndGet(bucket);
+        }
+
+        double percentileMillis(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += histogram.get(i);
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram.get(i);
+                if (seen >= rank && seen > 0) {
+                    // Upper bound of the bucket, never above the slowest request seen
+                    return Math.min(1L << (i + 1), maxNanos.get() / 1_000.0) / 1_000.0;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package info.jab.pml.cli.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.markdown.StaxMarkdownRenderer;
+import info.jab.pml.cli.report.Json;
+import info.jab.pml.cli.xml.PmlUtils;
+import info.jab.pml.cli.xml.RenderCache;
+import info.jab.pml.cli.xml.SchemaCache;
+import info.jab.pml.cli.xml.StylesheetCache;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Long-running HTTP server that keeps the schema, the stylesheet and the JIT-compiled code warm
+ * between requests, so editors and hooks do not pay JVM startup on every call.
+ *
+ * <p>The server only listens on the loopback interface and serves every request on its own
+ * virtual thread. Endpoints:</p>
+ * <ul>
+ *   <li>{@code POST /validate}: validates the PML request body.</li>
+ *   <li>{@code POST /convert}: converts the PML request body to Markdown. Query parameters
+ *       {@code engine=XSLT|STAX} and {@code template.FIELD=VALUE} mirror the convert command.</li>
+ *   <li>{@code GET /metrics}: request counts and latency percentiles per endpoint, and render
+ *       cache statistics.</li>
+ *   <li>{@code GET /health}: liveness probe.</li>
+ * </ul>
+ *
+ * <p>Converted Markdown is kept in a {@link RenderCache}, so a prompt converted again with the
+ * same engine and templates is served without being rendered, and identical concurrent requests
+ * are rendered once.</p>
+ */
+public final class PmlServer implements AutoCloseable {
+
+    /**
+     * Largest request body accepted, in bytes.
+     */
+    public static final int MAX_REQUEST_BYTES = 16 * 1024 * 1024;
+
+    private static final String TEMPLATE_PREFIX = "template.";
+
+    private final PmlUtils pmlUtils;
+    private final RenderCache renderCache;
+    private final LatencyMetrics metrics = new LatencyMetrics();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Binds the server to a loopback port, with an in-memory render cache of
+     * {@value RenderCache#DEFAULT_MAX_BYTES} bytes. Requests are not served until {@link #start()}.
+     *
+     * @param port the port to listen on, or 0 for an ephemeral port
+     * @param pmlUtils the utils instance used to validate and convert
+     * @throws IOException if the port cannot be bound
+     */
+    public PmlServer(int port, PmlUtils pmlUtils) throws IOException {
+        this(port, pmlUtils, new RenderCache(RenderCache.DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * Binds the server to a loopback port. Requests are not served until {@link #start()}.
+     *
+     * @param port the port to listen on, or 0 for an ephemeral port
+     * @param pmlUtils the utils instance used to validate and convert
+     * @param renderCache the cache converted Markdown is kept in
+     * @throws IOException if the port cannot be bound
+     */
+    public PmlServer(int port, PmlUtils pmlUtils, RenderCache renderCache) throws IOException {
+        this.pmlUtils = pmlUtils;
+        this.renderCache = renderCache;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/validate", exchange -> handle("validate", exchange, this::validate));
+        server.createContext("/convert", exchange -> handle("convert", exchange, this::convert));
+        server.createContext("/metrics", exchange -> handle("metrics", exchange, ignored ->
+            Response.text(200, metrics.format() + renderCache.format())));
+        server.createContext("/health", exchange -> handle("health", exchange, ignored -> Response.text(200, "OK\n")));
+    }
+
+    /**
+     * Compiles the schema and the stylesheet, then starts serving requests.
+     */
+    public void start() {
+        SchemaCache.schema(SchemaCache.PML_SCHEMA);
+        StylesheetCache.templates(StylesheetCache.PML_TO_MARKDOWN);
+        server.start();
+    }
+
+    /**
+     * Returns the bound port, useful when the server was created with port 0.
+     *
+     * @return the port the server listens on
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the metrics recorded by this server.
+     *
+     * @return the request metrics
+     */
+    public LatencyMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the cache converted Markdown is kept in.
+     *
+     * @return the render cache
+     */
+    public RenderCache renderCache() {
+        return renderCache;
+    }
+
+    /**
+     * Stops accepting requests and waits up to one second for in-flight requests to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws Exception;
+    }
+
+    private record Response(int status, String contentType, byte[] body) {
+
+        static Response text(int status, String text) {
+            return new Response(status, "text/plain; charset=utf-8", text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Response json(int status, String json) {
+            return new Response(status, "application/json", json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void handle(String endpoint, HttpExchange exchange, Handler handler) throws IOException {
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = handler.handle(exchange);
+        } catch (RequestTooLargeException e) {
+            response = Response.text(413, "Request body exceeds " + MAX_REQUEST_BYTES + " bytes\n");
+        } catch (Exception e) {
+            response = Response.text(500, "Internal error: " + e.getMessage() + "\n");
+        }
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", response.contentType());
+            exchange.sendResponseHeaders(response.status(), response.body().length == 0 ? -1 : response.body().length);
+            if (response.body().length > 0) {
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(response.body());
+                }
+            }
+        } finally {
+            metrics.record(endpoint, System.nanoTime() - start, response.status() < 500);
+        }
+    }
+
+    private Response validate(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            return Response.text(405, "Use POST with the PML document as the request body\n");
+        }
+        byte[] pml = readBody(exchange);
+        String error = validationError(new StreamSource(new ByteArrayInputStream(pml)));
+        return error == null
+            ? Response.json(200, "{\"valid\":true}")
+            : Response.json(422, "{\"valid\":false,\"error\":" + Json.quote(error) + "}");
+    }
+
+    private Response convert(HttpExchange exchange) throws Exception {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            return Response.text(405, "Use POST with the PML document as the request body\n");
+        }
+        Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        RenderEngine engine;
+        try {
+            String name = parameters.getOrDefault("engine", RenderEngine.defaultEngine().name());
+            engine = RenderEngine.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Response.text(400, "Unknown engine: " + parameters.get("engine") + "\n");
+        }
+        Map<String, String> templateMap = new LinkedHashMap<>();
+        parameters.forEach((name, value) -> {
+            if (name.startsWith(TEMPLATE_PREFIX)) {
+                templateMap.put(name.substring(TEMPLATE_PREFIX.length()), value);
+            }
+        });
+
+        byte[] pml = readBody(exchange);
+        AtomicReference<Response> failure = new AtomicReference<>();
+        byte[] markdown = renderCache.get(RenderCache.key(pml, templateMap, engine),
+            () -> render(pml, templateMap, engine, failure));
+        if (markdown == null) {
+            return Objects.requireNonNull(failure.get());
+        }
+        return new Response(200, "text/markdown; charset=utf-8", markdown);
+    }
+
+    private byte @Nullable [] render(byte[] pml, Map<String, String> templateMap, RenderEngine engine,
+                                     AtomicReference<Response> failure) throws IOException, XMLStreamException {
+        ByteArrayOutputStream markdown = new ByteArrayOutputStream();
+        if (engine == RenderEngine.STAX && templateMap.isEmpty()) {
+            // Nothing to rewrite: validate and render straight from the request body
+            String error = validationError(new StreamSource(new ByteArrayInputStream(pml)));
+            if (error != null) {
+                failure.set(Response.text(422, "The PML document is not valid: " + error + "\n"));
+                return null;
+            }
+            new StaxMarkdownRenderer().render(new ByteArrayInputStream(pml), markdown);
+        } else {
+            Document pmlDocument;
+            try {
+                pmlDocument = pmlUtils.parse(new ByteArrayInputStream(pml));
+            } catch (SAXException e) {
+                failure.set(Response.text(422, "The PML document is not well-formed: " + e.getMessage() + "\n"));
+                return null;
+            }
+            pmlUtils.applyTemplates(pmlDocument, templateMap);
+            String error = validationError(new DOMSource(pmlDocument));
+            if (error != null) {
+                failure.set(Response.text(422, "The processed PML document is not valid: " + error + "\n"));
+                return null;
+            }
+            if (!pmlUtils.convertToMarkdown(pmlDocument, markdown, engine)) {
+                failure.set(Response.text(500, "Conversion failed\n"));
+                return null;
+            }
+        }
+        return markdown.toByteArray();
+    }
+
+    private static @Nullable String validationError(Source source) throws IOException {
+        try {
+            SchemaCache.validator(SchemaCache.PML_SCHEMA).validate(source);
+            return null;
+        } catch (SAXException e) {
+            String message = e.getMessage();
+            return message != null ? message : e.toString();
+        }
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] content = body.readNBytes(MAX_REQUEST_BYTES + 1);
+            if (content.length > MAX_REQUEST_BYTES) {
+                throw new RequestTooLargeException();
+            }
+            return content;
+        }
+    }
+
+    private static Map<String, String> parseQuery(@Nullable String rawQuery) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        int start = 0;
+        while (start <= rawQuery.length()) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = rawQuery.length();
+            }
+            String pair = rawQuery.substring(start, end);
+            if (!pair.isEmpty()) {
+                int separator = pair.indexOf('=');
+                String name = separator < 0 ? pair : pair.substring(0, separator);
+                String value = separator < 0 ? "" : pair.substring(separator + 1);
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+            start = end + 1;
+        }
+        return parameters;
+    }
+
+    private static final class RequestTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+    }
+}
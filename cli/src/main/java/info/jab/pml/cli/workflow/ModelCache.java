@@ -0,0 +1,90 @@
+package info.jab.pml.cli.workflow;
+
+import info.jab.pml.cli.xml.RenderCache;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Content-addressed cache of model answers, so that the same rendered prompt sent to the same
+ * model again, by another branch of a parallel block or by a later run, is answered at once.
+ *
+ * <p>Answers are keyed by the same input hash as the {@link WorkflowJournal journal}: the model,
+ * the repository and the rendered prompt with its bound item. They are kept in a
+ * {@link RenderCache}, which provides the bounded in-memory tier, the optional on-disk tier and
+ * the coalescing of concurrent identical calls into one: the callers waiting for a call share its
+ * answer or its failure, and return as soon as they are interrupted, for example by a sequence
+ * timeout. Failed calls are not cached. Instances are thread-safe.</p>
+ */
+public final class ModelCache {
+
+    private final RenderCache answers;
+
+    /**
+     * Creates a cache that only keeps answers in memory.
+     *
+     * @param maxBytes the largest total size of answers cached in memory, in bytes
+     */
+    public ModelCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /**
+     * Creates a cache that also keeps every answer in a directory.
+     *
+     * @param maxBytes the largest total size of answers cached in memory, in bytes
+     * @param directory the directory of the on-disk tier, created if needed, or {@code null} for none
+     */
+    public ModelCache(long maxBytes, @Nullable Path directory) {
+        this.answers = new RenderCache(maxBytes, directory);
+    }
+
+    /**
+     * Wraps a model client so that cached answers are returned without calling it.
+     *
+     * @param modelClient the client that answers the calls missing from the cache
+     * @return the cached client
+     */
+    public ModelClient cached(ModelClient modelClient) {
+        return (model, repository, prompt) -> {
+            byte[] answer = answers.getShared(WorkflowJournal.key(model, repository, prompt),
+                () -> modelClient.complete(model, repository, prompt).getBytes(StandardCharsets.UTF_8));
+            return new String(answer, StandardCharsets.UTF_8);
+        };
+    }
+
+    /**
+     * Returns the number of calls answered from the cache, in memory or on disk, or by waiting
+     * for a concurrent identical call.
+     *
+     * @return the cache hits
+     */
+    public long hits() {
+        return answers.hits() + answers.diskHits() + answers.coalesced();
+    }
+
+    /**
+     * Returns the number of calls sent to the model.
+     *
+     * @return the cache misses
+     */
+    public long misses() {
+        return answers.misses();
+    }
+
+    /**
+     * Renders the statistics as one line of plain text, with the share of calls answered from
+     * the cache.
+     *
+     * @return the formatted statistics
+     */
+    public String format() {
+        long hits = hits();
+        long calls = hits + misses();
+        return String.format(Locale.ROOT,
+            "model-cache calls=%d hits=%d (memory=%d disk=%d coalesced=%d) misses=%d hit-rate=%.1f%%%n",
+            calls, hits, answers.hits(), answers.diskHits(), answers.coalesced(), misses(),
+            calls == 0 ? 0.0 : 100.0 * hits / calls);
+    }
+}
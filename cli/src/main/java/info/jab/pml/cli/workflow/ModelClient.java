@@ -0,0 +1,34 @@
+package info.jab.pml.cli.workflow;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Sends a rendered prompt to a language model.
+ *
+ * <p>Implementations are called concurrently from virtual threads and should return promptly
+ * when interrupted, which is how workflow timeouts cancel a call in flight.</p>
+ */
+@FunctionalInterface
+public interface ModelClient {
+
+    /**
+     * Sends a prompt and waits for the answer.
+     *
+     * @param model the model declared by the sequence
+     * @param repository the repository declared by the sequence, if any
+     * @param prompt the rendered prompt
+     * @return the model answer
+     * @throws Exception if the call fails or is interrupted
+     */
+    String complete(String model, @Nullable String repository, String prompt) throws Exception;
+
+    /**
+     * Returns a local stub that answers every prompt with the prompt itself, useful to dry-run a
+     * workflow without a model.
+     *
+     * @return the echo client
+     */
+    static ModelClient echo() {
+        return (model, repository, prompt) -> prompt;
+    }
+}
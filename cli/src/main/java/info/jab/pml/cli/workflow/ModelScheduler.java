@@ -0,0 +1,261 @@
+package info.jab.pml.cli.workflow;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Limits the calls a workflow makes to every model, so that parallel branches fanning out to a
+ * local inference server do not overload it.
+ *
+ * <p>Each model has its own lane: a number of concurrent calls and a rate of calls per second,
+ * enforced with a token bucket that allows bursts of up to one second of calls. Callers beyond
+ * the limits wait on their virtual thread, first for a concurrency permit and then for a token,
+ * and are served in arrival order, so no branch starves while others keep calling. Every lane
+ * reports its queue depth and the time its callers waited. Instances are thread-safe.</p>
+ */
+public final class ModelScheduler {
+
+    private final Limits defaultLimits;
+    private final Map<String, Limits> modelLimits;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * The limits of the calls to one model.
+     *
+     * @param maxConcurrency the largest number of calls in flight, or 0 for no limit
+     * @param callsPerSecond the largest sustained rate of calls, or 0 for no limit
+     */
+    public record Limits(int maxConcurrency, double callsPerSecond) {
+
+        /**
+         * No limit on concurrency nor rate.
+         */
+        public static final Limits UNLIMITED = new Limits(0, 0);
+
+        public Limits {
+            if (maxConcurrency < 0) {
+                throw new IllegalArgumentException("maxConcurrency must not be negative: " + maxConcurrency);
+            }
+            if (!(callsPerSecond >= 0) || Double.isInfinite(callsPerSecond)) {
+                throw new IllegalArgumentException("callsPerSecond must be a non-negative number: " + callsPerSecond);
+            }
+        }
+
+        /**
+         * Tells whether any limit is set.
+         *
+         * @return true if calls can be delayed
+         */
+        public boolean limited() {
+            return maxConcurrency > 0 || callsPerSecond > 0;
+        }
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param defaultLimits the limits of the models without limits of their own
+     * @param modelLimits the limits by model name
+     */
+    public ModelScheduler(Limits defaultLimits, Map<String, Limits> modelLimits) {
+        this.defaultLimits = defaultLimits;
+        this.modelLimits = Map.copyOf(modelLimits);
+    }
+
+    /**
+     * Wraps a model client so that its calls wait for the limits of their model.
+     *
+     * @param modelClient the client that answers the calls
+     * @return the scheduled client
+     */
+    public ModelClient scheduled(ModelClient modelClient) {
+        return (model, repository, prompt) -> {
+            Lane lane = lane(model);
+            lane.acquire();
+            try {
+                return modelClient.complete(model, repository, prompt);
+            } finally {
+                lane.release();
+            }
+        };
+    }
+
+    /**
+     * Returns whether any model has a limit.
+     *
+     * @return true if calls can be delayed
+     */
+    public boolean limited() {
+        return defaultLimits.limited() || modelLimits.values().stream().anyMatch(Limits::limited);
+    }
+
+    /**
+     * Returns the number of calls made to a model.
+     *
+     * @param model the model name
+     * @return the call count
+     */
+    public long calls(String model) {
+        Lane lane = lanes.get(model);
+        return lane != null ? lane.calls.sum() : 0;
+    }
+
+    /**
+     * Returns the number of calls currently waiting for a model.
+     *
+     * @param model the model name
+     * @return the queue depth
+     */
+    public int queueDepth(String model) {
+        Lane lane = lanes.get(model);
+        return lane != null ? lane.queued.get() : 0;
+    }
+
+    /**
+     * Returns the largest number of calls that waited for a model at the same time.
+     *
+     * @param model the model name
+     * @return the largest queue depth
+     */
+    public long maxQueueDepth(String model) {
+        Lane lane = lanes.get(model);
+        return lane != null ? lane.maxQueued.get() : 0;
+    }
+
+    /**
+     * Returns the total time calls waited for a model.
+     *
+     * @param model the model name
+     * @return the wait time, in nanoseconds
+     */
+    public long waitNanos(String model) {
+        Lane lane = lanes.get(model);
+        return lane != null ? lane.waitNanos.sum() : 0;
+    }
+
+    /**
+     * Renders one line of statistics per model called so far, in name order.
+     *
+     * @return the formatted statistics
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        new TreeMap<>(lanes).forEach((model, lane) -> {
+            long calls = lane.calls.sum();
+            double waitMillis = lane.waitNanos.sum() / 1_000_000.0;
+            text.append(String.format(Locale.ROOT,
+                "model-scheduler model=%s max-concurrency=%d calls-per-second=%.2f calls=%d queued=%d max-queued=%d "
+                    + "wait-ms=%.3f mean-wait-ms=%.3f max-wait-ms=%.3f%n",
+                model, lane.limits.maxConcurrency(), lane.limits.callsPerSecond(), calls, lane.queued.get(),
+                lane.maxQueued.get(), waitMillis, calls == 0 ? 0.0 : waitMillis / calls,
+                lane.maxWaitNanos.get() / 1_000_000.0));
+        });
+        return text.toString();
+    }
+
+    private Lane lane(String model) {
+        return lanes.computeIfAbsent(model, name -> new Lane(modelLimits.getOrDefault(name, defaultLimits)));
+    }
+
+    private static final class Lane {
+
+        private final Limits limits;
+        private final @Nullable Semaphore permits;
+        private final @Nullable TokenBucket tokens;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final LongAccumulator maxQueued = new LongAccumulator(Math::max, 0);
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+        Lane(Limits limits) {
+            this.limits = limits;
+            // Fair, so that waiting calls are served in arrival order
+            this.permits = limits.maxConcurrency() > 0 ? new Semaphore(limits.maxConcurrency(), true) : null;
+            this.tokens = limits.callsPerSecond() > 0 ? new TokenBucket(limits.callsPerSecond()) : null;
+        }
+
+        void acquire() throws InterruptedException {
+            long start = System.nanoTime();
+            boolean waiting = false;
+            boolean permitted = false;
+            try {
+                // A timed tryAcquire honours fairness, unlike the untimed one
+                if (permits != null && !permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                    waiting = enqueue();
+                    permits.acquire();
+                }
+                permitted = true;
+                long delay = tokens != null ? tokens.reserve() : 0;
+                if (delay > 0) {
+                    waiting = waiting || enqueue();
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+            } catch (InterruptedException e) {
+                if (permitted) {
+                    release();
+                }
+                throw e;
+            } finally {
+                if (waiting) {
+                    queued.decrementAndGet();
+                }
+                long waited = System.nanoTime() - start;
+                waitNanos.add(waited);
+                maxWaitNanos.accumulate(waited);
+            }
+            calls.increment();
+        }
+
+        private boolean enqueue() {
+            maxQueued.accumulate(queued.incrementAndGet());
+            return true;
+        }
+
+        void release() {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Hands out one token per call at a sustained rate, with a burst of up to one second of calls.
+     * Tokens are reserved ahead, so callers that arrive while the bucket is empty wait in turn.
+     */
+    private static final class TokenBucket {
+
+        private final double tokensPerNano;
+        private final double capacity;
+        private double available;
+        private long refilledAt = System.nanoTime();
+
+        TokenBucket(double callsPerSecond) {
+            this.tokensPerNano = callsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1.0, callsPerSecond);
+            this.available = capacity;
+        }
+
+        /**
+         * Takes a token.
+         *
+         * @return the time to wait before the token may be used, in nanoseconds
+         */
+        synchronized long reserve() {
+            long now = System.nanoTime();
+            available = Math.min(capacity, available + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            available -= 1;
+            return available >= 0 ? 0 : (long) Math.ceil(-available / tokensPerNano);
+        }
+    }
+}
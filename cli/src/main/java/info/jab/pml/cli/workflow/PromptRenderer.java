@@ -0,0 +1,81 @@
+package info.jab.pml.cli.workflow;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.xml.PmlUtils;
+import info.jab.pml.cli.xml.RenderException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+import org.xml.sax.SAXException;
+
+/**
+ * Turns the prompt files referenced by a workflow into the text sent to the model.
+ *
+ * <p>PML prompts ({@code .xml} and {@code .pml}) are validated and converted to Markdown by
+ * {@link PmlUtils#render}, like {@code convert} does, so their phases show up in the same
+ * metrics; any other file is sent as it is. A bound item replaces {@link Workflow#INPUT_PLACEHOLDER} in the
+ * rendered text, so it also reaches placeholders inside CDATA sections.</p>
+ */
+public final class PromptRenderer {
+
+    private final PmlUtils pmlUtils;
+    private final RenderEngine engine;
+
+    /**
+     * Creates a renderer with default {@link PmlUtils}.
+     *
+     * @param engine the engine used to convert PML prompts
+     */
+    public PromptRenderer(RenderEngine engine) {
+        this(new PmlUtils(), engine);
+    }
+
+    /**
+     * Creates a renderer.
+     *
+     * @param pmlUtils the utils PML prompts are rendered with
+     * @param engine the engine used to convert PML prompts
+     */
+    public PromptRenderer(PmlUtils pmlUtils, RenderEngine engine) {
+        this.pmlUtils = pmlUtils;
+        this.engine = engine;
+    }
+
+    /**
+     * Renders a prompt file.
+     *
+     * @param promptFile the prompt file
+     * @param input the bound item, or {@code null} if the prompt does not bind one
+     * @return the prompt text
+     * @throws IOException if the file cannot be read
+     * @throws WorkflowException if a PML prompt is invalid or cannot be converted
+     */
+    public String render(Path promptFile, @Nullable String input) throws IOException, WorkflowException {
+        String text = isPml(promptFile)
+            ? renderPml(promptFile)
+            : Files.readString(promptFile, StandardCharsets.UTF_8);
+        return input != null ? text.replace(Workflow.INPUT_PLACEHOLDER, input) : text;
+    }
+
+    private String renderPml(Path promptFile) throws IOException, WorkflowException {
+        ByteArrayOutputStream markdown = new ByteArrayOutputStream();
+        try {
+            pmlUtils.render(promptFile, Map.of(), engine, markdown);
+        } catch (SAXException e) {
+            throw new WorkflowException("Invalid PML prompt " + promptFile + ": " + e.getMessage(), e);
+        } catch (RenderException e) {
+            throw new WorkflowException("Could not convert PML prompt " + promptFile + ": " + e.getMessage(), e);
+        }
+        return markdown.toString(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isPml(Path promptFile) {
+        String name = promptFile.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".xml") || name.endsWith(".pml");
+    }
+}
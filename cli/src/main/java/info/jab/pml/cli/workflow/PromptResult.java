@@ -0,0 +1,14 @@
+package info.jab.pml.cli.workflow;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The answer to one prompt of a workflow run.
+ *
+ * @param src the prompt file, as referenced by the workflow
+ * @param input the item bound to the prompt, if any
+ * @param model the model that answered
+ * @param response the model answer
+ * @param fallback whether the prompt ran as the fallback of a failed sequence
+ */
+public record PromptResult(String src, @Nullable String input, String model, String response, boolean fallback) {}
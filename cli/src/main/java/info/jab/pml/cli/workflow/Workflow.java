@@ -0,0 +1,75 @@
+package info.jab.pml.cli.workflow;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A parsed {@code pml-workflow} document.
+ *
+ * @param source the workflow file; prompt sources are resolved against its directory
+ * @param root the top level container of the workflow
+ */
+public record Workflow(Path source, Block root) {
+
+    /**
+     * Placeholder replaced by the bound item in prompts with {@code bindResultExp="$get()"}.
+     */
+    public static final String INPUT_PLACEHOLDER = "INPUT";
+
+    /**
+     * A container of the workflow: a sequence or a parallel block.
+     */
+    public sealed interface Block permits Sequence, Parallel {}
+
+    /**
+     * Prompts run one after the other against the same model.
+     *
+     * @param model the model the prompts are sent to
+     * @param repository the repository the model works on, if any
+     * @param timeout the deadline for the whole sequence, if any
+     * @param fallbackSrc the prompt run instead when the sequence fails or times out, if any
+     * @param prompts the prompts, in execution order
+     */
+    public record Sequence(
+        String model,
+        @Nullable String repository,
+        @Nullable Duration timeout,
+        @Nullable String fallbackSrc,
+        List<Prompt> prompts) implements Block {
+
+        /**
+         * Default model name when the sequence does not declare one.
+         */
+        public static final String DEFAULT_MODEL = "default";
+
+        public Sequence {
+            prompts = List.copyOf(prompts);
+        }
+    }
+
+    /**
+     * Runs a source prompt, splits its result into items, then runs every sequence once per item
+     * concurrently.
+     *
+     * @param src the prompt whose result drives the parallel branches
+     * @param bindResultType the JSON key holding the list of items in the result, if any; without
+     *     it the whole result is the single item
+     * @param sequences the sequences run for every item
+     */
+    public record Parallel(String src, @Nullable String bindResultType, List<Sequence> sequences) implements Block {
+
+        public Parallel {
+            sequences = List.copyOf(sequences);
+        }
+    }
+
+    /**
+     * A prompt reference.
+     *
+     * @param src the prompt file: PML ({@code .xml}, {@code .pml}), Markdown or plain text
+     * @param bindsInput whether the prompt receives the current item through {@code $get()}
+     */
+    public record Prompt(String src, boolean bindsInput) {}
+}
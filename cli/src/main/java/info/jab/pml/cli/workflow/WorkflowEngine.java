@@ -0,0 +1,317 @@
+package info.jab.pml.cli.workflow;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Executes workflows: sequences run their prompts in order and parallel blocks run every branch
+ * concurrently, each on its own virtual thread.
+ *
+ * <p>Branches are scoped to the run: when one fails, the others are cancelled and the run fails,
+ * and no thread outlives {@link #run(Workflow)}. A sequence {@code timeout} interrupts the prompt
+ * in flight; a sequence that fails or times out runs its {@code fallback-src} prompt instead, when
+ * it declares one.</p>
+ */
+public final class WorkflowEngine {
+
+    private final ModelClient modelClient;
+    private final PromptRenderer renderer;
+
+    /**
+     * Creates an engine.
+     *
+     * @param modelClient the client that answers the prompts
+     * @param renderer the renderer that turns prompt files into text
+     */
+    public WorkflowEngine(ModelClient modelClient, PromptRenderer renderer) {
+        this.modelClient = modelClient;
+        this.renderer = renderer;
+    }
+
+    /**
+     * Runs a workflow.
+     *
+     * @param workflow the workflow to run
+     * @return the answers, in workflow order: for a parallel block, the source prompt first and then
+     *     every branch by item and by sequence, whatever order they completed in
+     * @throws WorkflowException if a sequence without fallback fails
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public List<PromptResult> run(Workflow workflow) throws WorkflowException, InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Execution execution = new Execution(workflow.source().toAbsolutePath().getParent(), executor);
+            try {
+                return switch (workflow.root()) {
+                    case Workflow.Sequence sequence -> execution.sequence(sequence, null);
+                    case Workflow.Parallel parallel -> execution.parallel(parallel);
+                };
+            } catch (WorkflowException | InterruptedException | RuntimeException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Extracts the items bound to the parallel branches from the answer of the source prompt.
+     *
+     * <p>The list is read as a JSON array of strings, numbers and literals, so a quoted item may
+     * hold commas, brackets and escaped characters. Empty items are left out, and a trailing comma
+     * is tolerated.</p>
+     *
+     * @param response the answer of the source prompt
+     * @param bindResultType the JSON key holding the list of items, or {@code null} to bind the
+     *     whole answer as a single item
+     * @return the items, without surrounding quotes and with their escapes decoded
+     * @throws WorkflowException if the answer has no list under the key, or the list is malformed
+     */
+    static List<String> items(String response, @Nullable String bindResultType) throws WorkflowException {
+        if (bindResultType == null) {
+            return List.of(response.strip());
+        }
+        Matcher list = Pattern.compile("\"" + Pattern.quote(bindResultType) + "\"\\s*:\\s*\\[")
+            .matcher(response);
+        if (!list.find()) {
+            throw new WorkflowException("The answer has no \"" + bindResultType + "\" list to bind");
+        }
+        return new ItemReader(response, list.end(), bindResultType).read();
+    }
+
+    /**
+     * Reads the values of a JSON array, from just after its opening bracket.
+     */
+    private static final class ItemReader {
+
+        private final String text;
+        private final String key;
+        private int position;
+
+        ItemReader(String text, int position, String key) {
+            this.text = text;
+            this.position = position;
+            this.key = key;
+        }
+
+        List<String> read() throws WorkflowException {
+            List<String> items = new ArrayList<>();
+            skipWhitespace();
+            while (peek() != ']') {
+                String item = peek() == '"' ? string() : literal();
+                if (!item.isEmpty()) {
+                    items.add(item);
+                }
+                skipWhitespace();
+                char separator = next();
+                if (separator == ']') {
+                    return items;
+                }
+                if (separator != ',') {
+                    throw malformed("expected ',' or ']' at offset " + (position - 1));
+                }
+                skipWhitespace();
+            }
+            return items;
+        }
+
+        private String string() throws WorkflowException {
+            StringBuilder item = new StringBuilder();
+            position++;
+            for (char c = next(); c != '"'; c = next()) {
+                if (c != '\\') {
+                    item.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case '"', '\\', '/' -> item.append(escaped);
+                    case 'b' -> item.append('\b');
+                    case 'f' -> item.append('\f');
+                    case 'n' -> item.append('\n');
+                    case 'r' -> item.append('\r');
+                    case 't' -> item.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw malformed("unterminated list");
+                        }
+                        try {
+                            item.append((char) HexFormat.fromHexDigits(text, position, position + 4));
+                        } catch (IllegalArgumentException e) {
+                            throw malformed("invalid \\u escape at offset " + (position - 2));
+                        }
+                        position += 4;
+                    }
+                    default -> throw malformed("invalid escape at offset " + (position - 2));
+                }
+            }
+            return item.toString();
+        }
+
+        private String literal() throws WorkflowException {
+            int start = position;
+            char first = peek();
+            if (first == '[' || first == '{') {
+                throw malformed("items must be strings, numbers or literals, found '" + first + "' at offset " + start);
+            }
+            while (position < text.length() && ",]".indexOf(text.charAt(position)) < 0
+                && !Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            if (position == start) {
+                throw malformed("missing item at offset " + start);
+            }
+            return text.substring(start, position);
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private char peek() throws WorkflowException {
+            if (position >= text.length()) {
+                throw malformed("unterminated list");
+            }
+            return text.charAt(position);
+        }
+
+        private char next() throws WorkflowException {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        private WorkflowException malformed(String reason) {
+            return new WorkflowException("The \"" + key + "\" list of the answer is not a valid JSON array: " + reason);
+        }
+    }
+
+    private final class Execution {
+
+        private final Path baseDirectory;
+        private final ExecutorService executor;
+
+        Execution(Path baseDirectory, ExecutorService executor) {
+            this.baseDirectory = baseDirectory;
+            this.executor = executor;
+        }
+
+        List<PromptResult> parallel(Workflow.Parallel parallel) throws WorkflowException, InterruptedException {
+            PromptResult source = prompt(parallel.src(), Workflow.Sequence.DEFAULT_MODEL, null, null, false);
+            List<String> items = items(source.response(), parallel.bindResultType());
+
+            List<Workflow.Sequence> sequences = parallel.sequences();
+            List<List<PromptResult>> branches = new ArrayList<>();
+            Map<Future<List<PromptResult>>, Integer> futures = new HashMap<>();
+            CompletionService<List<PromptResult>> completion = new ExecutorCompletionService<>(executor);
+            for (String item : items) {
+                for (Workflow.Sequence sequence : sequences) {
+                    futures.put(completion.submit(() -> sequence(sequence, item)), branches.size());
+                    branches.add(List.of());
+                }
+            }
+            try {
+                for (int done = 0; done < futures.size(); done++) {
+                    Future<List<PromptResult>> branch = completion.take();
+                    branches.set(Objects.requireNonNull(futures.get(branch)), branch.get());
+                }
+            } catch (ExecutionException e) {
+                throw failure(e);
+            } finally {
+                // Stops the remaining branches on failure; a no-op once all completed
+                futures.keySet().forEach(future -> future.cancel(true));
+            }
+
+            List<PromptResult> results = new ArrayList<>();
+            results.add(source);
+            branches.forEach(results::addAll);
+            return results;
+        }
+
+        List<PromptResult> sequence(Workflow.Sequence sequence, @Nullable String input)
+            throws WorkflowException, InterruptedException {
+            Duration timeout = sequence.timeout();
+            WorkflowException failure;
+            if (timeout == null) {
+                try {
+                    return prompts(sequence, input);
+                } catch (WorkflowException e) {
+                    failure = e;
+                }
+            } else {
+                Future<List<PromptResult>> prompts = executor.submit(() -> prompts(sequence, input));
+                try {
+                    return prompts.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    failure = new WorkflowException("Sequence timed out after " + timeout, e);
+                } catch (ExecutionException e) {
+                    failure = failure(e);
+                } finally {
+                    prompts.cancel(true);
+                }
+            }
+            String fallbackSrc = sequence.fallbackSrc();
+            if (fallbackSrc == null) {
+                throw failure;
+            }
+            return List.of(prompt(fallbackSrc, sequence.model(), sequence.repository(), input, true));
+        }
+
+        private List<PromptResult> prompts(Workflow.Sequence sequence, @Nullable String input)
+            throws WorkflowException, InterruptedException {
+            List<PromptResult> results = new ArrayList<>();
+            for (Workflow.Prompt prompt : sequence.prompts()) {
+                String bound = prompt.bindsInput() ? input : null;
+                results.add(prompt(prompt.src(), sequence.model(), sequence.repository(), bound, false));
+            }
+            return results;
+        }
+
+        private PromptResult prompt(
+            String src, String model, @Nullable String repository, @Nullable String input, boolean fallback)
+            throws WorkflowException, InterruptedException {
+            String text;
+            try {
+                text = renderer.render(baseDirectory.resolve(src), input);
+            } catch (IOException e) {
+                throw new WorkflowException("Could not read prompt " + src + ": " + e.getMessage(), e);
+            }
+            try {
+                return new PromptResult(src, input, model, modelClient.complete(model, repository, text), fallback);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new WorkflowException("Model " + model + " failed on prompt " + src + ": " + e.getMessage(), e);
+            }
+        }
+
+        private static WorkflowException failure(ExecutionException e) throws InterruptedException {
+            Throwable cause = e.getCause();
+            if (cause instanceof WorkflowException workflowException) {
+                return workflowException;
+            }
+            if (cause instanceof InterruptedException interruptedException) {
+                throw interruptedException;
+            }
+            return new WorkflowException(String.valueOf(cause != null ? cause.getMessage() : e.getMessage()), e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package info.jab.pml.cli.workflow;
+
+/**
+ * Signals a workflow that cannot be parsed or whose execution failed.
+ */
+public final class WorkflowException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates an exception with a message.
+     *
+     * @param message the detail message
+     */
+    public WorkflowException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates an exception with a message and a cause.
+     *
+     * @param message the detail message
+     * @param cause the cause
+     */
+    public WorkflowException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,276 @@
+package info.jab.pml.cli.workflow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Append-only on-disk record of the prompts a workflow already completed, so that a run
+ * interrupted by a failure or a timeout resumes without sending them to the model again.
+ *
+ * <p>Each record holds the hash of a model call input, that is the model, the repository and the
+ * rendered prompt with its bound item, and the answer. A call whose input hash is in the journal
+ * is answered from it; a prompt whose file, bound item or upstream answer changed has a different
+ * input and is sent to the model again.</p>
+ *
+ * <p>Records are written as soon as a call completes, so they survive the process being killed.
+ * The journal is forced to the storage device in batches: every {@code syncRecords} records, on
+ * the first record written {@code syncInterval} after the previous sync, and on {@link #close()}.
+ * An operating system crash can lose the last batch, which is then recomputed. A record torn by a
+ * crash is discarded on the next open; a file that does not start with the journal header is
+ * never modified. Instances are thread-safe.</p>
+ */
+public final class WorkflowJournal implements Closeable {
+
+    /**
+     * Default number of records written between two syncs.
+     */
+    public static final int DEFAULT_SYNC_RECORDS = 16;
+
+    /**
+     * Default time after a sync from which the next record is synced at once.
+     */
+    public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofSeconds(1);
+
+    private static final String HEADER = "# PML workflow journal v1";
+    private static final int KEY_LENGTH = 64;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int syncRecords;
+    private final long syncIntervalNanos;
+    private final ConcurrentMap<String, String> answers = new ConcurrentHashMap<>();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+    private int unsynced;
+    private long lastSyncNanos = System.nanoTime();
+
+    private WorkflowJournal(Path file, FileChannel channel, int syncRecords, Duration syncInterval) {
+        this.file = file;
+        this.channel = channel;
+        this.syncRecords = syncRecords;
+        this.syncIntervalNanos = syncInterval.toNanos();
+    }
+
+    /**
+     * Opens a journal with the default sync batching, creating it if it does not exist yet.
+     *
+     * @param file the journal file
+     * @return the open journal
+     * @throws IOException if the file cannot be read or written, or is not a journal
+     */
+    public static WorkflowJournal open(Path file) throws IOException {
+        return open(file, DEFAULT_SYNC_RECORDS, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Opens a journal, creating it if it does not exist yet.
+     *
+     * @param file the journal file
+     * @param syncRecords the number of records written between two syncs, at least 1
+     * @param syncInterval the time after a sync from which the next record is synced at once
+     * @return the open journal
+     * @throws IOException if the file cannot be read or written, or is not a journal
+     */
+    public static WorkflowJournal open(Path file, int syncRecords, Duration syncInterval) throws IOException {
+        if (syncRecords < 1) {
+            throw new IllegalArgumentException("syncRecords must be at least 1: " + syncRecords);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            WorkflowJournal journal = new WorkflowJournal(file, channel, syncRecords, syncInterval);
+            journal.read();
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Computes the input hash of a model call.
+     *
+     * @param model the model the prompt is sent to
+     * @param repository the repository the model works on, if any
+     * @param prompt the rendered prompt
+     * @return the hex encoded SHA-256 hash
+     */
+    static String key(String model, @Nullable String repository, String prompt) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update(model.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        if (repository != null) {
+            digest.update((byte) 1);
+            digest.update(repository.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+        digest.update(prompt.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Wraps a model client so that calls recorded in this journal are answered from it and new
+     * answers are recorded.
+     *
+     * @param modelClient the client that answers the calls missing from the journal
+     * @return the journaled client
+     */
+    public ModelClient journaled(ModelClient modelClient) {
+        return (model, repository, prompt) -> {
+            String key = key(model, repository, prompt);
+            String answer = answers.get(key);
+            if (answer != null) {
+                replayed.increment();
+                return answer;
+            }
+            answer = modelClient.complete(model, repository, prompt);
+            record(key, answer);
+            return answer;
+        };
+    }
+
+    /**
+     * Returns the location of the journal.
+     *
+     * @return the journal file
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Returns the number of calls answered from the journal since it was opened.
+     *
+     * @return the replayed call count
+     */
+    public long replayed() {
+        return replayed.sum();
+    }
+
+    /**
+     * Returns the number of answers recorded since the journal was opened.
+     *
+     * @return the recorded call count
+     */
+    public long recorded() {
+        return recorded.sum();
+    }
+
+    /**
+     * Returns the number of answers in the journal.
+     *
+     * @return the record count
+     */
+    public int size() {
+        return answers.size();
+    }
+
+    /**
+     * Forces every record written so far to the storage device.
+     *
+     * @throws IOException if the journal cannot be synced
+     */
+    public synchronized void sync() throws IOException {
+        if (unsynced > 0) {
+            channel.force(false);
+            unsynced = 0;
+        }
+        lastSyncNanos = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private synchronized void record(String key, String answer) throws IOException {
+        if (answers.putIfAbsent(key, answer) != null) {
+            return;
+        }
+        String line = key + ' ' + Base64.getEncoder().encodeToString(answer.getBytes(StandardCharsets.UTF_8)) + '\n';
+        write(line);
+        recorded.increment();
+        unsynced++;
+        if (unsynced >= syncRecords || System.nanoTime() - lastSyncNanos >= syncIntervalNanos) {
+            sync();
+        }
+    }
+
+    private void read() throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        if (content.length == 0) {
+            write(HEADER + '\n');
+            channel.force(false);
+            return;
+        }
+        byte[] header = (HEADER + '\n').getBytes(StandardCharsets.UTF_8);
+        if (content.length < header.length
+            || !Arrays.equals(content, 0, header.length, header, 0, header.length)) {
+            // Leaves any other file untouched
+            throw new IOException("Not a workflow journal: " + file);
+        }
+        int end = content.length;
+        while (content[end - 1] != '\n') {
+            end--;
+        }
+        // A crash can leave the last record half written; drop it before appending after it
+        channel.truncate(end);
+        channel.position(end);
+
+        String text = new String(content, 0, end, StandardCharsets.UTF_8);
+        int lineStart = HEADER.length() + 1;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            readRecord(text.substring(lineStart, lineEnd));
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private void readRecord(String line) {
+        if (line.length() <= KEY_LENGTH || line.charAt(KEY_LENGTH) != ' ') {
+            return;
+        }
+        try {
+            byte[] answer = Base64.getDecoder().decode(line.substring(KEY_LENGTH + 1));
+            answers.put(line.substring(0, KEY_LENGTH), new String(answer, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            // Skips a damaged record; the call is made again
+        }
+    }
+
+    private void write(String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
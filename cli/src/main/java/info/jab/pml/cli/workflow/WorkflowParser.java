@@ -0,0 +1,144 @@
+package info.jab.pml.cli.workflow;
+
+import info.jab.pml.cli.xml.PmlUtils;
+import info.jab.pml.cli.xml.SchemaCache;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.transform.dom.DOMSource;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads {@code pml-workflow} documents validated against {@code pml-workflow.xsd}.
+ */
+public final class WorkflowParser {
+
+    private static final String BIND_GET = "$get()";
+
+    private final PmlUtils pmlUtils;
+
+    /**
+     * Creates a parser.
+     *
+     * @param pmlUtils the utils instance used to parse the workflow file
+     */
+    public WorkflowParser(PmlUtils pmlUtils) {
+        this.pmlUtils = pmlUtils;
+    }
+
+    /**
+     * Parses and validates a workflow file.
+     *
+     * @param workflowFile the workflow file
+     * @return the parsed workflow
+     * @throws IOException if the file cannot be read
+     * @throws WorkflowException if the file is not a valid workflow
+     */
+    public Workflow parse(Path workflowFile) throws IOException, WorkflowException {
+        Document document;
+        try {
+            document = pmlUtils.parse(workflowFile);
+            SchemaCache.validator(SchemaCache.PML_WORKFLOW_SCHEMA).validate(new DOMSource(document));
+        } catch (SAXException e) {
+            throw new WorkflowException("Invalid workflow " + workflowFile + ": " + e.getMessage(), e);
+        }
+        Element container = firstChildElement(document.getDocumentElement());
+        if (container == null) {
+            throw new WorkflowException("Empty workflow " + workflowFile);
+        }
+        Workflow.Block root = "parallel".equals(container.getLocalName())
+            ? parallel(container)
+            : sequence(container);
+        return new Workflow(workflowFile, root);
+    }
+
+    /**
+     * Parses a timeout such as {@code 500ms}, {@code 30s}, {@code 5m}, {@code 1h} or an ISO-8601
+     * duration such as {@code PT5M}.
+     *
+     * @param timeout the timeout text
+     * @return the parsed duration
+     * @throws WorkflowException if the text is not a positive duration
+     */
+    static Duration parseTimeout(String timeout) throws WorkflowException {
+        String text = timeout.strip().toLowerCase(Locale.ROOT);
+        try {
+            Duration duration;
+            if (text.startsWith("pt")) {
+                duration = Duration.parse(text);
+            } else if (text.endsWith("ms")) {
+                duration = Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+            } else if (text.endsWith("s")) {
+                duration = Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+            } else if (text.endsWith("m")) {
+                duration = Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+            } else if (text.endsWith("h")) {
+                duration = Duration.ofHours(Long.parseLong(text.substring(0, text.length() - 1)));
+            } else {
+                throw new WorkflowException("Invalid timeout '" + timeout + "', expected a value such as 30s, 5m or 1h");
+            }
+            if (duration.isNegative() || duration.isZero()) {
+                throw new WorkflowException("Invalid timeout '" + timeout + "', it must be positive");
+            }
+            return duration;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new WorkflowException("Invalid timeout '" + timeout + "', expected a value such as 30s, 5m or 1h", e);
+        }
+    }
+
+    private static Workflow.Parallel parallel(Element parallel) throws WorkflowException {
+        List<Workflow.Sequence> sequences = new ArrayList<>();
+        for (Element child = firstChildElement(parallel); child != null; child = nextSiblingElement(child)) {
+            sequences.add(sequence(child));
+        }
+        return new Workflow.Parallel(parallel.getAttribute("src"), attribute(parallel, "bindResultType"), sequences);
+    }
+
+    private static Workflow.Sequence sequence(Element sequence) throws WorkflowException {
+        List<Workflow.Prompt> prompts = new ArrayList<>();
+        for (Element child = firstChildElement(sequence); child != null; child = nextSiblingElement(child)) {
+            String bindResultExp = attribute(child, "bindResultExp");
+            if (bindResultExp != null && !BIND_GET.equals(bindResultExp.strip())) {
+                throw new WorkflowException("Unsupported bindResultExp '" + bindResultExp + "', only " + BIND_GET + " is supported");
+            }
+            prompts.add(new Workflow.Prompt(child.getAttribute("src"), bindResultExp != null));
+        }
+        String model = attribute(sequence, "model");
+        String timeout = attribute(sequence, "timeout");
+        return new Workflow.Sequence(
+            model != null ? model : Workflow.Sequence.DEFAULT_MODEL,
+            attribute(sequence, "repository"),
+            timeout != null ? parseTimeout(timeout) : null,
+            attribute(sequence, "fallback-src"),
+            prompts);
+    }
+
+    private static @Nullable String attribute(Element element, String name) {
+        return element.hasAttribute(name) ? element.getAttribute(name) : null;
+    }
+
+    private static @Nullable Element firstChildElement(Element parent) {
+        return elementFrom(parent.getFirstChild());
+    }
+
+    private static @Nullable Element nextSiblingElement(Element element) {
+        return elementFrom(element.getNextSibling());
+    }
+
+    private static @Nullable Element elementFrom(@Nullable Node start) {
+        for (Node node = start; node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                return (Element) node;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package info.jab.pml.cli.workflow;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The static plan of a workflow: every model call it makes, every distinct prompt file it reads,
+ * and the longest chain of model calls that must run one after the other.
+ *
+ * @param source the workflow file
+ * @param steps the model calls, in workflow order
+ * @param prompts the distinct prompt files, in order of first reference
+ * @param criticalPath the steps on the longest chain of dependent model calls, fallbacks excluded
+ * @param elapsedNanos the time spent validating and rendering the prompts
+ */
+public record WorkflowPlan(
+    Path source, List<Step> steps, List<PlannedPrompt> prompts, List<Step> criticalPath, long elapsedNanos) {
+
+    public WorkflowPlan {
+        steps = List.copyOf(steps);
+        prompts = List.copyOf(prompts);
+        criticalPath = List.copyOf(criticalPath);
+    }
+
+    /**
+     * A model call of the workflow.
+     *
+     * @param src the prompt file, as referenced by the workflow
+     * @param file the resolved prompt file
+     * @param model the model the prompt is sent to
+     * @param after the prompt whose answer must be available first, if any
+     * @param perItem whether the call runs once per item bound by a parallel block
+     * @param fallback whether the call only runs when its sequence fails or times out
+     */
+    public record Step(String src, Path file, String model, @Nullable String after, boolean perItem, boolean fallback) {}
+
+    /**
+     * A distinct prompt file, validated and rendered once however often it is referenced.
+     *
+     * @param src the prompt file, as first referenced by the workflow
+     * @param file the resolved prompt file
+     * @param references the number of steps that send it
+     * @param characters the length of the rendered text, or 0 if it failed
+     * @param error the reason it could not be rendered, if any
+     * @param elapsedNanos the time spent validating and rendering it
+     */
+    public record PlannedPrompt(
+        String src, Path file, int references, int characters, @Nullable String error, long elapsedNanos) {
+
+        public boolean valid() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Returns whether every prompt file was rendered.
+     *
+     * @return true if no prompt failed
+     */
+    public boolean valid() {
+        return prompts.stream().allMatch(PlannedPrompt::valid);
+    }
+
+    /**
+     * Prints one line per distinct prompt file followed by the totals.
+     *
+     * @param out the stream to print to
+     */
+    public void printPrompts(PrintStream out) {
+        long failed = prompts.stream().filter(prompt -> !prompt.valid()).count();
+        for (PlannedPrompt prompt : prompts) {
+            if (prompt.valid()) {
+                out.printf("OK      %s (%d ms, %d chars, referenced %dx)%n",
+                    prompt.src(), toMillis(prompt.elapsedNanos()), prompt.characters(), prompt.references());
+            } else {
+                out.printf("FAILED  %s: %s%n", prompt.src(), prompt.error());
+            }
+        }
+        out.printf("Checked %d distinct prompts (%d references) of %s in %d ms: %d succeeded, %d failed%n",
+            prompts.size(), steps.size(), source, toMillis(elapsedNanos), prompts.size() - failed, failed);
+    }
+
+    /**
+     * Prints the model calls in workflow order, then the critical path.
+     *
+     * @param out the stream to print to
+     */
+    public void printPlan(PrintStream out) {
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            StringBuilder line = new StringBuilder().append(i + 1).append(". ").append(step.src())
+                .append(" (model: ").append(step.model());
+            if (step.after() != null) {
+                line.append(", after ").append(step.after());
+            }
+            if (step.perItem()) {
+                line.append(", per item");
+            }
+            if (step.fallback()) {
+                line.append(", fallback");
+            }
+            out.println(line.append(')'));
+        }
+        long characters = 0;
+        StringBuilder path = new StringBuilder();
+        for (Step step : criticalPath) {
+            characters += characters(step.file());
+            path.append(path.isEmpty() ? "" : " -> ").append(step.src());
+        }
+        out.printf("Critical path: %s (%d model calls, %d chars)%n", path, criticalPath.size(), characters);
+    }
+
+    private int characters(Path file) {
+        for (PlannedPrompt prompt : prompts) {
+            if (prompt.file().equals(file)) {
+                return prompt.characters();
+            }
+        }
+        return 0;
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
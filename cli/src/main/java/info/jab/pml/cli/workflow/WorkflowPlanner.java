@@ -0,0 +1,155 @@
+package info.jab.pml.cli.workflow;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Plans a workflow without calling any model: lists its model calls, then validates and renders
+ * every distinct prompt file it references concurrently, each on its own virtual thread.
+ *
+ * <p>Prompt files are deduplicated by their resolved path, so a prompt referenced by many
+ * sequences, or as both a prompt and a {@code fallback-src}, is rendered once. A prompt that
+ * binds an item is rendered without one; the item only replaces a placeholder in the text.</p>
+ */
+public final class WorkflowPlanner {
+
+    private final PromptRenderer renderer;
+
+    /**
+     * Creates a planner.
+     *
+     * @param renderer the renderer that turns prompt files into text
+     */
+    public WorkflowPlanner(PromptRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Plans a workflow.
+     *
+     * @param workflow the workflow to plan
+     * @return the plan, with the outcome of every prompt file
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public WorkflowPlan plan(Workflow workflow) throws InterruptedException {
+        long start = System.nanoTime();
+        Path baseDirectory = workflow.source().toAbsolutePath().getParent();
+        List<WorkflowPlan.Step> steps = new ArrayList<>();
+        List<List<WorkflowPlan.Step>> chains = new ArrayList<>();
+        switch (workflow.root()) {
+            case Workflow.Sequence sequence -> chains.add(sequence(baseDirectory, sequence, null, false, steps));
+            case Workflow.Parallel parallel -> {
+                WorkflowPlan.Step source = step(baseDirectory, parallel.src(), Workflow.Sequence.DEFAULT_MODEL,
+                    null, false, false);
+                steps.add(source);
+                for (Workflow.Sequence sequence : parallel.sequences()) {
+                    List<WorkflowPlan.Step> chain = new ArrayList<>();
+                    chain.add(source);
+                    chain.addAll(sequence(baseDirectory, sequence, source.src(), true, steps));
+                    chains.add(chain);
+                }
+            }
+        }
+
+        Map<Path, WorkflowPlan.PlannedPrompt> prompts = render(steps);
+        List<WorkflowPlan.Step> criticalPath = List.of();
+        long criticalCharacters = -1;
+        for (List<WorkflowPlan.Step> chain : chains) {
+            long characters = 0;
+            for (WorkflowPlan.Step step : chain) {
+                WorkflowPlan.PlannedPrompt prompt = prompts.get(step.file());
+                characters += prompt != null ? prompt.characters() : 0;
+            }
+            if (chain.size() > criticalPath.size()
+                || (chain.size() == criticalPath.size() && characters > criticalCharacters)) {
+                criticalPath = chain;
+                criticalCharacters = characters;
+            }
+        }
+        return new WorkflowPlan(workflow.source(), steps, List.copyOf(prompts.values()), criticalPath,
+            System.nanoTime() - start);
+    }
+
+    private static List<WorkflowPlan.Step> sequence(
+        Path baseDirectory, Workflow.Sequence sequence, @Nullable String after, boolean perItem,
+        List<WorkflowPlan.Step> steps) {
+        List<WorkflowPlan.Step> chain = new ArrayList<>();
+        String previous = after;
+        for (Workflow.Prompt prompt : sequence.prompts()) {
+            WorkflowPlan.Step step = step(baseDirectory, prompt.src(), sequence.model(), previous, perItem, false);
+            steps.add(step);
+            chain.add(step);
+            previous = prompt.src();
+        }
+        String fallbackSrc = sequence.fallbackSrc();
+        if (fallbackSrc != null) {
+            steps.add(step(baseDirectory, fallbackSrc, sequence.model(), after, perItem, true));
+        }
+        return chain;
+    }
+
+    private static WorkflowPlan.Step step(
+        Path baseDirectory, String src, String model, @Nullable String after, boolean perItem, boolean fallback) {
+        return new WorkflowPlan.Step(src, baseDirectory.resolve(src).normalize(), model, after, perItem, fallback);
+    }
+
+    private Map<Path, WorkflowPlan.PlannedPrompt> render(List<WorkflowPlan.Step> steps) throws InterruptedException {
+        Map<Path, String> sources = new LinkedHashMap<>();
+        Map<Path, Integer> references = new LinkedHashMap<>();
+        for (WorkflowPlan.Step step : steps) {
+            sources.putIfAbsent(step.file(), step.src());
+            references.merge(step.file(), 1, Integer::sum);
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Map<Path, Future<WorkflowPlan.PlannedPrompt>> futures = new LinkedHashMap<>();
+            sources.forEach((file, src) -> futures.put(file, executor.submit(
+                () -> render(src, file, references.getOrDefault(file, 0)))));
+            Map<Path, WorkflowPlan.PlannedPrompt> prompts = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<Path, Future<WorkflowPlan.PlannedPrompt>> future : futures.entrySet()) {
+                    prompts.put(future.getKey(), outcome(future.getValue(), sources.getOrDefault(future.getKey(), ""),
+                        future.getKey(), references.getOrDefault(future.getKey(), 0)));
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+            return prompts;
+        }
+    }
+
+    private static WorkflowPlan.PlannedPrompt outcome(
+        Future<WorkflowPlan.PlannedPrompt> future, String src, Path file, int references) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            String message = String.valueOf(cause != null ? cause.getMessage() : e.getMessage());
+            return new WorkflowPlan.PlannedPrompt(src, file, references, 0, message, 0);
+        }
+    }
+
+    private WorkflowPlan.PlannedPrompt render(String src, Path file, int references) {
+        long start = System.nanoTime();
+        String error = null;
+        int characters = 0;
+        try {
+            characters = renderer.render(file, null).length();
+        } catch (IOException e) {
+            error = "Could not read prompt " + src + ": " + e.getMessage();
+        } catch (WorkflowException e) {
+            error = e.getMessage();
+        }
+        return new WorkflowPlan.PlannedPrompt(src, file, references, characters, error, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,208 @@
+package info.jab.pml.cli.xml;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A PML prompt validated and rendered to Markdown once, with slots left for template variables.
+ *
+ * <p>Each variable is replaced by an indexed marker before the document is validated and
+ * rendered, and the Markdown is then cut at the markers. Rendering the template is a single
+ * pass that appends the literal segments and the values of the slots between them, without
+ * parsing, templating or validating XML again.</p>
+ *
+ * <p>The structure of the output is fixed when the template is compiled: a section that the
+ * stylesheet only emits for non-blank content stays in place even if its value is empty.
+ * Where the stylesheet collapses whitespace around a variable, its value is trimmed and
+ * collapsed; elsewhere it is inserted as given.</p>
+ */
+public final class CompiledTemplate {
+
+    // Private use characters, which do not occur in PML documents in practice
+    private static final char MARKER_START = '\uE000';
+    private static final char MARKER_END = '\uE001';
+    // Two spaces between the index and the end of a marker come out as one where the stylesheet collapses whitespace
+    private static final String MARKER_PROBE = "  ";
+
+    private final List<String> variables;
+    private final String[] literals;
+    private final int[] slots;
+    private final boolean[] collapsed;
+
+    private CompiledTemplate(List<String> variables, List<String> literals, List<Integer> slots, List<Boolean> collapsed) {
+        this.variables = variables;
+        this.literals = literals.toArray(new String[0]);
+        this.slots = slots.stream().mapToInt(Integer::intValue).toArray();
+        this.collapsed = new boolean[collapsed.size()];
+        for (int i = 0; i < this.collapsed.length; i++) {
+            this.collapsed[i] = collapsed.get(i);
+        }
+    }
+
+    /**
+     * Returns the marker that stands for a variable in the document until it is rendered.
+     *
+     * @param index the position of the variable in the template
+     * @return the marker text
+     */
+    static String marker(int index) {
+        return new StringBuilder(8)
+            .append(MARKER_START)
+            .append(index)
+            .append(MARKER_PROBE)
+            .append(MARKER_END)
+            .toString();
+    }
+
+    /**
+     * Cuts rendered Markdown at the markers of the given variables.
+     *
+     * @param variables the variable names, in marker index order
+     * @param markdown the Markdown rendered from the document with markers
+     * @return the compiled template
+     */
+    static CompiledTemplate parse(List<String> variables, String markdown) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> collapsed = new ArrayList<>();
+        int literalStart = 0;
+        int i = markdown.indexOf(MARKER_START);
+        while (i >= 0) {
+            int digitsEnd = i + 1;
+            while (digitsEnd < markdown.length() && isAsciiDigit(markdown.charAt(digitsEnd))) {
+                digitsEnd++;
+            }
+            int end = markdown.indexOf(MARKER_END, digitsEnd);
+            int next = i + 1;
+            if (digitsEnd > i + 1 && digitsEnd - i <= 10 && end >= 0) {
+                int probe = end - digitsEnd;
+                int index = Integer.parseInt(markdown, i + 1, digitsEnd, 10);
+                if ((probe == 1 || probe == MARKER_PROBE.length()) && index < variables.size()
+                        && markdown.substring(digitsEnd, end).isBlank()) {
+                    literals.add(markdown.substring(literalStart, i));
+                    slots.add(index);
+                    collapsed.add(probe == 1);
+                    literalStart = end + 1;
+                    next = literalStart;
+                }
+            }
+            i = markdown.indexOf(MARKER_START, next);
+        }
+        literals.add(markdown.substring(literalStart));
+        return new CompiledTemplate(List.copyOf(variables), literals, slots, collapsed);
+    }
+
+    /**
+     * Checks that a list of variable names can be compiled.
+     *
+     * @param variables the variable names
+     * @throws IllegalArgumentException if a name is empty or repeated
+     */
+    static void checkVariables(List<String> variables) {
+        Set<String> seen = new HashSet<>();
+        for (String variable : variables) {
+            if (variable.isEmpty()) {
+                throw new IllegalArgumentException("Template variable names cannot be empty");
+            }
+            if (!seen.add(variable)) {
+                throw new IllegalArgumentException("Duplicate template variable: " + variable);
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the variables of this template.
+     *
+     * @return the variable names, in the order they were compiled
+     */
+    public List<String> variables() {
+        return variables;
+    }
+
+    /**
+     * Returns the number of places where variable values are inserted.
+     *
+     * @return the number of slots; a variable can fill several slots, or none
+     */
+    public int slotCount() {
+        return slots.length;
+    }
+
+    /**
+     * Renders the template with the given variable values.
+     *
+     * @param values the value of every variable of the template; other entries are ignored
+     * @return the Markdown document
+     * @throws IllegalArgumentException if a variable has no value
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder markdown = new StringBuilder(literalLength() + 64 * slots.length);
+        try {
+            render(values, markdown);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return markdown.toString();
+    }
+
+    /**
+     * Renders the template with the given variable values into an {@link Appendable}.
+     *
+     * @param values the value of every variable of the template; other entries are ignored
+     * @param output where the Markdown document is appended
+     * @throws IOException if the output cannot be written
+     * @throws IllegalArgumentException if a variable has no value
+     */
+    public void render(Map<String, String> values, Appendable output) throws IOException {
+        String[] resolved = new String[variables.size()];
+        for (int variable = 0; variable < resolved.length; variable++) {
+            String value = values.get(variables.get(variable));
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value for template variable: " + variables.get(variable));
+            }
+            resolved[variable] = value;
+        }
+        output.append(literals[0]);
+        for (int slot = 0; slot < slots.length; slot++) {
+            String value = resolved[slots[slot]];
+            output.append(collapsed[slot] ? normalizeSpace(value) : value).append(literals[slot + 1]);
+        }
+    }
+
+    private int literalLength() {
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        return length;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // XPath normalize-space(), as applied by the stylesheet to the text around the slot
+    private static String normalizeSpace(String value) {
+        StringBuilder normalized = new StringBuilder(value.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+}
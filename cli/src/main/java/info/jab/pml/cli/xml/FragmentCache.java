@@ -0,0 +1,202 @@
+package info.jab.pml.cli.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Bounded cache of the files pulled in by {@code xi:include}, shared by every document parsed in
+ * the same run so that a fragment included by many prompts is read from disk once.
+ *
+ * <p>Entries are keyed by absolute path and checked against the file's modification time and size
+ * on every lookup, so an edited fragment is read again. The least recently used fragments are
+ * evicted once the cached content exceeds the configured number of bytes.</p>
+ */
+public final class FragmentCache {
+
+    /**
+     * Size bound of the {@link #shared() shared} cache, in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final FragmentCache SHARED = new FragmentCache(DEFAULT_MAX_BYTES);
+
+    private final long maxBytes;
+    private final Map<Path, Fragment> fragments = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long cachedBytes;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxBytes the largest total size of cached fragments, in bytes
+     */
+    public FragmentCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the JVM-wide cache used by default, bounded to {@value #DEFAULT_MAX_BYTES} bytes.
+     *
+     * @return the shared cache
+     */
+    public static FragmentCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the current content of a file, reading it only if it is not cached or changed on
+     * disk since it was cached.
+     *
+     * @param file the file to read
+     * @return the fragment
+     * @throws IOException if the file cannot be read
+     */
+    public Fragment get(Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        synchronized (fragments) {
+            Fragment cached = fragments.get(path);
+            if (cached != null && cached.matches(attributes)) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        Fragment fragment = new Fragment(path, attributes.lastModifiedTime(), Files.readAllBytes(path));
+        if (fragment.size() <= maxBytes) {
+            put(fragment);
+        }
+        return fragment;
+    }
+
+    /**
+     * Returns the number of lookups served from the cache.
+     *
+     * @return the cache hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that read the file.
+     *
+     * @return the cache misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the total size of the cached fragments.
+     *
+     * @return the cached bytes
+     */
+    public long cachedBytes() {
+        synchronized (fragments) {
+            return cachedBytes;
+        }
+    }
+
+    private void put(Fragment fragment) {
+        synchronized (fragments) {
+            Fragment previous = fragments.put(fragment.path(), fragment);
+            if (previous != null) {
+                cachedBytes -= previous.size();
+            }
+            cachedBytes += fragment.size();
+            Iterator<Fragment> eldest = fragments.values().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * The content of a fragment file as it was when read.
+     */
+    public static final class Fragment {
+
+        private final Path path;
+        private final FileTime lastModified;
+        private final byte[] content;
+        private volatile @Nullable String hash;
+
+        Fragment(Path path, FileTime lastModified, byte[] content) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+
+        /**
+         * Returns the absolute path of the fragment.
+         *
+         * @return the path
+         */
+        public Path path() {
+            return path;
+        }
+
+        /**
+         * Returns the size of the fragment.
+         *
+         * @return the size in bytes
+         */
+        public long size() {
+            return content.length;
+        }
+
+        /**
+         * Opens a stream over the cached content.
+         *
+         * @return a new stream positioned at the start of the content
+         */
+        public InputStream newInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        /**
+         * Returns the SHA-256 hash of the content, as lowercase hexadecimal.
+         *
+         * @return the content hash
+         */
+        public String hash() {
+            String value = hash;
+            if (value == null) {
+                value = sha256(content);
+                hash = value;
+            }
+            return value;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return attributes.size() == content.length && attributes.lastModifiedTime().equals(lastModified);
+        }
+
+        private static String sha256(byte[] content) {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+}
@@ -1,63 +1,243 @@
 package info.jab.pml.cli.xml;
 
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.markdown.StaxMarkdownRenderer;
+import info.jab.pml.cli.metrics.Phase;
+import info.jab.pml.cli.metrics.PhaseMetrics;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
+import org.jspecify.annotations.Nullable;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
 /**
  * Utility class for PML file operations including validation and conversion.
+ *
+ * <p>Every parse, template, validate and transform step is timed through a {@link PhaseMetrics}
+ * instance, which emits JFR events by default.</p>
  */
 public class PmlUtils {
 
-    private static final String PML_XSD_SCHEMA = "pml.xsd";
-    private static final String XSLT_TRANSFORMATION = "xslt/pml-to-md.xsl";
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDERS =
+        ThreadLocal.withInitial(PmlUtils::newDocumentBuilder);
+    private static final ThreadLocal<DocumentBuilder> XINCLUDE_DOCUMENT_BUILDERS =
+        ThreadLocal.withInitial(PmlUtils::newXIncludeDocumentBuilder);
+
+    private static final String STRING_SOURCE = "<string>";
+    private static final String STREAM_SOURCE = "<stream>";
+    private static final String DOCUMENT_SOURCE = "<document>";
+
+    private final FragmentCache fragmentCache;
+    private final PhaseMetrics metrics;
+
+    /**
+     * Creates utils that read XIncluded fragments through the {@link FragmentCache#shared() shared}
+     * fragment cache.
+     */
+    public PmlUtils() {
+        this(FragmentCache.shared());
+    }
+
+    /**
+     * Creates utils that read XIncluded fragments through the given cache.
+     *
+     * @param fragmentCache the cache included files are read through
+     */
+    public PmlUtils(FragmentCache fragmentCache) {
+        this(fragmentCache, PhaseMetrics.jfr());
+    }
+
+    /**
+     * Creates utils that read XIncluded fragments through the given cache and record their
+     * phases to the given metrics.
+     *
+     * @param fragmentCache the cache included files are read through
+     * @param metrics the metrics every phase is recorded to
+     */
+    public PmlUtils(FragmentCache fragmentCache, PhaseMetrics metrics) {
+        this.fragmentCache = fragmentCache;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics the phases of these utils are recorded to.
+     *
+     * @return the phase metrics
+     */
+    public PhaseMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns utils that share this fragment cache but record their phases to other metrics.
+     *
+     * @param phaseMetrics the metrics to record to
+     * @return the new utils
+     */
+    public PmlUtils withMetrics(PhaseMetrics phaseMetrics) {
+        return new PmlUtils(fragmentCache, phaseMetrics);
+    }
+
+    /**
+     * Parses a PML file into a namespace-aware DOM that can be templated, validated and
+     * converted without being parsed again. {@code xi:include} elements are replaced by the
+     * content they include.
+     *
+     * @param pmlFile the path to the PML file to parse
+     * @return the parsed document
+     * @throws IOException if the file cannot be read
+     * @throws SAXException if the file is not well-formed XML or an include cannot be resolved
+     */
+    public Document parse(Path pmlFile) throws IOException, SAXException {
+        PhaseMetrics.Span span = metrics.start(Phase.PARSE, source(pmlFile));
+        boolean parsed = false;
+        try {
+            DocumentBuilder builder = documentBuilder(XINCLUDE_DOCUMENT_BUILDERS);
+            builder.setEntityResolver(XIncludeParsers.entityResolver(fragmentCache));
+            Document document = builder.parse(pmlFile.toFile());
+            parsed = true;
+            return document;
+        } finally {
+            span.end(pmlFile.toFile().length(), parsed);
+        }
+    }
+
+    /**
+     * Parses PML XML content into a namespace-aware DOM. The content has no location to resolve
+     * relative includes against, so {@code xi:include} elements are kept as they are.
+     *
+     * @param pmlContent the PML XML content as a stream
+     * @return the parsed document
+     * @throws IOException if the stream cannot be read
+     * @throws SAXException if the content is not well-formed XML
+     */
+    public Document parse(InputStream pmlContent) throws IOException, SAXException {
+        PhaseMetrics.Span span = metrics.start(Phase.PARSE, STREAM_SOURCE);
+        boolean parsed = false;
+        try {
+            Document document = documentBuilder(DOCUMENT_BUILDERS).parse(pmlContent);
+            parsed = true;
+            return document;
+        } finally {
+            span.end(0, parsed);
+        }
+    }
 
     /**
-     * Validates a PML file against the XSD schema.
+     * Validates a PML file against the XSD schema, after resolving its {@code xi:include} elements.
      *
      * @param pmlFile the path to the PML file to validate
      * @return true if validation succeeds, false otherwise
      */
     public boolean validate(Path pmlFile) {
-        try {
-            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        return printed(validationError(pmlFile));
+    }
 
-            // Load pml.xsd from resources (copied from schema module)
-            InputStream pmlXsdStream = getClass().getClassLoader()
-                .getResourceAsStream(PML_XSD_SCHEMA);
+    /**
+     * Validates a PML file against the XSD schema, after resolving its {@code xi:include} elements,
+     * without printing anything.
+     *
+     * @param pmlFile the path to the PML file to validate
+     * @return the reason the file is not valid, or {@code null} if it is valid
+     */
+    public @Nullable String validationError(Path pmlFile) {
+        PhaseMetrics.Span span = metrics.start(Phase.VALIDATE, source(pmlFile));
+        String error = null;
+        try {
+            // pml.xsd is compiled once per JVM (copied from schema module)
+            Validator validator = SchemaCache.validator(SchemaCache.PML_SCHEMA);
+            validator.validate(xincludeSource(pmlFile));
+        } catch (Exception e) {
+            error = String.valueOf(e.getMessage());
+        } finally {
+            span.end(pmlFile.toFile().length(), error == null);
+        }
+        return error;
+    }
 
-            if (pmlXsdStream == null) {
-                System.err.println("Error: Could not find " + PML_XSD_SCHEMA + " schema file in resources");
-                return false;
-            }
+    /**
+     * Validates a PML file against the XSD schema and collects every problem in a single pass,
+     * with the line and column where it was found. {@code xi:include} elements are resolved.
+     *
+     * <p>Nothing is printed: callers decide how to present the report.</p>
+     *
+     * @param pmlFile the path to the PML file to validate
+     * @param maxErrors the number of errors after which validation of the file stops, or 0 for no limit
+     * @return the validation report
+     */
+    public ValidationReport validationReport(Path pmlFile, int maxErrors) {
+        PhaseMetrics.Span span = metrics.start(Phase.VALIDATE, source(pmlFile));
+        ProblemCollector collector = new ProblemCollector(maxErrors);
+        try {
+            Validator validator = SchemaCache.validator(SchemaCache.PML_SCHEMA);
+            validator.setErrorHandler(collector);
+            validator.validate(xincludeSource(pmlFile));
+        } catch (Exception e) {
+            collector.failed(e);
+        }
+        ValidationReport report = collector.report(pmlFile);
+        span.end(pmlFile.toFile().length(), report.valid());
+        return report;
+    }
 
-            Schema schema = schemaFactory.newSchema(new StreamSource(pmlXsdStream, PML_XSD_SCHEMA));
-            Validator validator = schema.newValidator();
-            validator.validate(new StreamSource(pmlFile.toFile()));
-            return true;
+    /**
+     * Validates PML content read from a channel against the XSD schema.
+     *
+     * <p>The document is validated as it is read, through fixed-size parser buffers, so memory
+     * use does not depend on the size of the document. The channel is not closed. Content read
+     * from a channel has no location, so {@code xi:include} elements are not resolved.</p>
+     *
+     * @param pmlContent the channel to read the PML content from
+     * @return true if validation succeeds, false otherwise
+     */
+    public boolean validate(ReadableByteChannel pmlContent) {
+        PhaseMetrics.Span span = metrics.start(Phase.VALIDATE, STREAM_SOURCE);
+        boolean valid = false;
+        try {
+            Validator validator = SchemaCache.validator(SchemaCache.PML_SCHEMA);
+            // The parser closes its input when done
+            InputStream input = new FilterInputStream(Channels.newInputStream(pmlContent)) {
+                @Override
+                public void close() {
+                    // The caller owns the channel
+                }
+            };
+            validator.validate(new StreamSource(input));
+            valid = true;
         } catch (Exception e) {
             System.err.println("Validation failed: " + e.getMessage());
-            return false;
+        } finally {
+            span.end(0, valid);
         }
+        return valid;
     }
 
     /**
@@ -67,28 +247,56 @@ public class PmlUtils {
      * @return true if validation succeeds, false otherwise
      */
     public boolean validate(String pmlContent) {
+        PhaseMetrics.Span span = metrics.start(Phase.VALIDATE, STRING_SOURCE);
+        boolean valid = false;
         try {
-            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-
-            // Load pml.xsd from resources
-            InputStream pmlXsdStream = getClass().getClassLoader()
-                .getResourceAsStream(PML_XSD_SCHEMA);
+            Validator validator = SchemaCache.validator(SchemaCache.PML_SCHEMA);
+            // Read the characters in place instead of encoding a second copy of the document
+            validator.validate(new StreamSource(new StringReader(pmlContent)));
+            valid = true;
+        } catch (Exception e) {
+            System.err.println("Validation failed: " + e.getMessage());
+        } finally {
+            span.end(0, valid);
+        }
+        return valid;
+    }
 
-            if (pmlXsdStream == null) {
-                System.err.println("Error: Could not find " + PML_XSD_SCHEMA + " schema file in resources");
-                return false;
-            }
+    /**
+     * Validates a parsed PML document against the XSD schema.
+     *
+     * @param pmlDocument the parsed PML document
+     * @return true if validation succeeds, false otherwise
+     */
+    public boolean validate(Document pmlDocument) {
+        return printed(validationError(pmlDocument));
+    }
 
-            Schema schema = schemaFactory.newSchema(new StreamSource(pmlXsdStream, PML_XSD_SCHEMA));
-            Validator validator = schema.newValidator();
-            StreamSource xmlSource = new StreamSource(
-                new ByteArrayInputStream(pmlContent.getBytes(StandardCharsets.UTF_8)));
-            validator.validate(xmlSource);
-            return true;
+    /**
+     * Validates a parsed PML document against the XSD schema without printing anything.
+     *
+     * @param pmlDocument the parsed PML document
+     * @return the reason the document is not valid, or {@code null} if it is valid
+     */
+    public @Nullable String validationError(Document pmlDocument) {
+        PhaseMetrics.Span span = metrics.start(Phase.VALIDATE, source(pmlDocument));
+        String error = null;
+        try {
+            Validator validator = SchemaCache.validator(SchemaCache.PML_SCHEMA);
+            validator.validate(new DOMSource(pmlDocument, pmlDocument.getDocumentURI()));
         } catch (Exception e) {
-            System.err.println("Validation failed: " + e.getMessage());
-            return false;
+            error = String.valueOf(e.getMessage());
+        } finally {
+            span.end(0, error == null);
+        }
+        return error;
+    }
+
+    private static boolean printed(@Nullable String validationError) {
+        if (validationError != null) {
+            System.err.println("Validation failed: " + validationError);
         }
+        return validationError == null;
     }
 
     /**
@@ -105,23 +313,10 @@ public class PmlUtils {
         }
 
         // Parse XML
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(new ByteArrayInputStream(pmlContent.getBytes(StandardCharsets.UTF_8)));
+        Document doc = parse(new ByteArrayInputStream(pmlContent.getBytes(StandardCharsets.UTF_8)));
 
         // Apply template replacements
-        Element root = doc.getDocumentElement();
-        for (Map.Entry<String, String> entry : templateMap.entrySet()) {
-            String fieldName = entry.getKey();
-            String fieldValue = entry.getValue();
-
-            // First try to replace as an element name
-            replaceFieldValue(root, fieldName, fieldValue);
-
-            // Also replace text content patterns (e.g., "MESSAGE" in text nodes)
-            replaceTextContent(root, fieldName, fieldValue);
-        }
+        applyTemplates(doc, templateMap);
 
         // Convert back to string
         TransformerFactory transformerFactory = TransformerFactory.newInstance();
@@ -131,87 +326,321 @@ public class PmlUtils {
         return outputStream.toString(StandardCharsets.UTF_8);
     }
 
+    /**
+     * Applies template replacements in place to a parsed PML document.
+     *
+     * @param pmlDocument the parsed PML document to modify
+     * @param templateMap map of field names to replacement values
+     */
+    public void applyTemplates(Document pmlDocument, Map<String, String> templateMap) {
+        if (templateMap == null || templateMap.isEmpty()) {
+            return;
+        }
+
+        PhaseMetrics.Span span = metrics.start(Phase.TEMPLATE, source(pmlDocument));
+        boolean applied = false;
+        try {
+            // Every key is matched in a single walk of the document
+            applyTemplates(pmlDocument.getDocumentElement(), TemplateMatcher.compile(templateMap));
+            applied = true;
+        } finally {
+            span.end(0, applied);
+        }
+    }
+
+    /**
+     * Compiles a parsed PML document into a reusable Markdown template.
+     *
+     * <p>The document is templated, validated and rendered once, with a marker in place of each
+     * variable; the returned template then renders any number of documents by filling in the
+     * variable values. Variables are matched like the keys of
+     * {@link #applyTemplates(Document, Map)}, as element names or as text patterns. The document
+     * is modified in place.</p>
+     *
+     * @param pmlDocument the parsed PML document to compile
+     * @param templateMap fixed replacements, applied in the same pass as the variables
+     * @param variables the names of the variables left open in the template
+     * @param engine the engine used to render the document
+     * @return the compiled template, or {@code null} if the document is not valid or cannot be converted
+     * @throws IllegalArgumentException if a variable name is empty or repeated
+     */
+    public @Nullable CompiledTemplate compileTemplate(
+        Document pmlDocument, Map<String, String> templateMap, List<String> variables, RenderEngine engine) {
+        CompiledTemplate.checkVariables(variables);
+        Map<String, String> markers = new HashMap<>(templateMap);
+        for (int index = 0; index < variables.size(); index++) {
+            markers.put(variables.get(index), CompiledTemplate.marker(index));
+        }
+        applyTemplates(pmlDocument, markers);
+        if (!validate(pmlDocument)) {
+            return null;
+        }
+        ByteArrayOutputStream markdown = new ByteArrayOutputStream();
+        if (!convertToMarkdown(pmlDocument, markdown, engine)) {
+            return null;
+        }
+        return CompiledTemplate.parse(variables, markdown.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Computes the {@link RenderCache} key of a PML file converted with the given templates and
+     * engine. Files included through {@code xi:include} are read through the fragment cache of
+     * these utils and are part of the key.
+     *
+     * @param pmlFile the PML file
+     * @param templateMap the template replacements applied before rendering
+     * @param engine the engine used to render the file
+     * @return the cache key
+     * @throws IOException if a file cannot be read
+     * @throws SAXException if the file or an included file is not well-formed XML
+     */
+    public String renderKey(Path pmlFile, Map<String, String> templateMap, RenderEngine engine)
+        throws IOException, SAXException {
+        return RenderCache.key(pmlFile, fragmentCache, templateMap, engine);
+    }
+
     /**
      * Converts PML XML content to Markdown using XSLT transformation.
      *
      * @param pmlContent the PML XML content to convert
-     * @param output the PrintStream to write the Markdown output to
+     * @param output the stream to write the Markdown output to
      * @return true if conversion succeeds, false otherwise
      */
-    public boolean convertToMarkdown(String pmlContent, PrintStream output) {
-        try {
-            // Load XSLT from resources
-            InputStream xsltStream = getClass().getClassLoader()
-                .getResourceAsStream(XSLT_TRANSFORMATION);
+    public boolean convertToMarkdown(String pmlContent, OutputStream output) {
+        return transform(STRING_SOURCE, output, markdown -> {
+            // Create transformer from the stylesheet compiled once per JVM
+            Transformer transformer = StylesheetCache.newTransformer(StylesheetCache.PML_TO_MARKDOWN);
+
+            // Transform PML to Markdown and output to the provided stream
+            StreamSource xmlSource = new StreamSource(new StringReader(pmlContent));
+            StreamResult result = new StreamResult(markdown);
+            transformer.transform(xmlSource, result);
+        });
+    }
 
-            if (xsltStream == null) {
-                System.err.println("Error: Could not find " + XSLT_TRANSFORMATION + " transformation file");
-                return false;
+    /**
+     * Converts a parsed PML document to Markdown using XSLT transformation.
+     *
+     * @param pmlDocument the parsed PML document to convert
+     * @param output the stream to write the Markdown output to
+     * @return true if conversion succeeds, false otherwise
+     */
+    public boolean convertToMarkdown(Document pmlDocument, OutputStream output) {
+        return convertToMarkdown(pmlDocument, output, RenderEngine.XSLT);
+    }
+
+    /**
+     * Converts a parsed PML document to Markdown with the given engine.
+     *
+     * @param pmlDocument the parsed PML document to convert
+     * @param output the stream to write the Markdown output to
+     * @param engine the engine used to render the document
+     * @return true if conversion succeeds, false otherwise
+     */
+    public boolean convertToMarkdown(Document pmlDocument, OutputStream output, RenderEngine engine) {
+        return transform(source(pmlDocument), output, conversion(pmlDocument, engine));
+    }
+
+    /**
+     * Converts a PML file to Markdown with the given engine, after resolving its
+     * {@code xi:include} elements. The STAX engine streams the file without building a DOM.
+     *
+     * @param pmlFile the path to the PML file to convert
+     * @param output the stream to write the Markdown output to
+     * @param engine the engine used to render the file
+     * @return true if conversion succeeds, false otherwise
+     */
+    public boolean convertToMarkdown(Path pmlFile, OutputStream output, RenderEngine engine) {
+        return transform(source(pmlFile), output, conversion(pmlFile, engine));
+    }
+
+    /**
+     * Renders a PML file to Markdown: applies the template replacements, validates the processed
+     * document and converts it with the given engine. Without templates, the STAX engine validates
+     * and renders straight from the file without building a DOM.
+     *
+     * <p>Nothing is printed: the reason a file cannot be rendered is the message of the
+     * {@link RenderException}, so that callers can report it with the file.</p>
+     *
+     * @param pmlFile the path to the PML file to render
+     * @param templateMap map of field names to replacement values
+     * @param engine the engine used to render the file
+     * @param output the stream to write the Markdown output to
+     * @throws IOException if the file cannot be read
+     * @throws SAXException if the file is not well-formed XML
+     * @throws RenderException if the processed file is not valid or cannot be converted
+     */
+    public void render(Path pmlFile, Map<String, String> templateMap, RenderEngine engine, OutputStream output)
+        throws IOException, SAXException, RenderException {
+        if (engine == RenderEngine.STAX && templateMap.isEmpty()) {
+            // Nothing to rewrite: validate and render straight from the file without a DOM
+            String error = validationError(pmlFile);
+            if (error != null) {
+                throw new RenderException("The processed PML file is not valid: " + error);
+            }
+            error = transformError(source(pmlFile), output, conversion(pmlFile, engine));
+            if (error != null) {
+                throw new RenderException("Conversion failed: " + error);
             }
+            return;
+        }
 
-            // Create transformer
-            TransformerFactory factory = TransformerFactory.newInstance();
-            Transformer transformer = factory.newTransformer(new StreamSource(xsltStream));
+        // Parse the PML file once; templating, validation and conversion share the same DOM
+        Document pmlDocument = parse(pmlFile);
+        applyTemplates(pmlDocument, templateMap);
+        String error = validationError(pmlDocument);
+        if (error != null) {
+            throw new RenderException("The processed PML file is not valid: " + error);
+        }
+        error = transformError(source(pmlDocument), output, conversion(pmlDocument, engine));
+        if (error != null) {
+            throw new RenderException("Conversion failed: " + error);
+        }
+    }
 
-            // Transform PML to Markdown and output to the provided stream
-            StreamSource xmlSource = new StreamSource(
-                new ByteArrayInputStream(pmlContent.getBytes(StandardCharsets.UTF_8)));
-            StreamResult result = new StreamResult(output);
-            transformer.transform(xmlSource, result);
+    private static TransformStep conversion(Document pmlDocument, RenderEngine engine) {
+        return markdown -> {
+            if (engine == RenderEngine.XSLT) {
+                Transformer transformer = StylesheetCache.newTransformer(StylesheetCache.PML_TO_MARKDOWN);
+                transformer.transform(new DOMSource(pmlDocument, pmlDocument.getDocumentURI()), new StreamResult(markdown));
+            } else {
+                new StaxMarkdownRenderer().render(pmlDocument, markdown);
+            }
+        };
+    }
+
+    private TransformStep conversion(Path pmlFile, RenderEngine engine) {
+        return markdown -> {
+            if (engine == RenderEngine.XSLT) {
+                Transformer transformer = StylesheetCache.newTransformer(StylesheetCache.PML_TO_MARKDOWN);
+                transformer.transform(xincludeSource(pmlFile), new StreamResult(markdown));
+            } else {
+                new StaxMarkdownRenderer().render(
+                    XIncludeParsers.xmlReader(fragmentCache), new InputSource(pmlFile.toUri().toString()), markdown);
+            }
+        };
+    }
 
-            return true;
+    @FunctionalInterface
+    private interface TransformStep {
+        void writeTo(OutputStream markdown) throws Exception;
+    }
+
+    private boolean transform(String source, OutputStream output, TransformStep step) {
+        String error = transformError(source, output, step);
+        if (error != null) {
+            System.err.println("Conversion failed: " + error);
+        }
+        return error == null;
+    }
+
+    private @Nullable String transformError(String source, OutputStream output, TransformStep step) {
+        PhaseMetrics.Span span = metrics.start(Phase.TRANSFORM, source);
+        CountingOutputStream counted = new CountingOutputStream(output);
+        String error = null;
+        try {
+            step.writeTo(counted);
         } catch (Exception e) {
-            System.err.println("Conversion failed: " + e.getMessage());
-            return false;
+            error = String.valueOf(e.getMessage());
+        } finally {
+            span.end(counted.count(), error == null);
         }
+        return error;
     }
 
-    private void replaceFieldValue(Element element, String fieldName, String newValue) {
-        // If field is not found, skip it (no error thrown)
-        NodeList children = element.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
+    private static String source(Path pmlFile) {
+        return pmlFile.toAbsolutePath().normalize().toString();
+    }
+
+    private static String source(Document pmlDocument) {
+        String uri = pmlDocument.getDocumentURI();
+        if (uri == null) {
+            return DOCUMENT_SOURCE;
+        }
+        // Documents parsed from files report the same source as the files themselves
+        try {
+            return source(Path.of(URI.create(uri)));
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            return uri;
+        }
+    }
+
+    private static DocumentBuilder documentBuilder(ThreadLocal<DocumentBuilder> builders) {
+        DocumentBuilder builder = builders.get();
+        builder.reset();
+        return builder;
+    }
+
+    private SAXSource xincludeSource(Path pmlFile) throws SAXException {
+        return new SAXSource(XIncludeParsers.xmlReader(fragmentCache), new InputSource(pmlFile.toUri().toString()));
+    }
+
+    private static DocumentBuilder newDocumentBuilder() {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            return factory.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Could not create XML parser: " + e.getMessage(), e);
+        }
+    }
+
+    private static DocumentBuilder newXIncludeDocumentBuilder() {
+        try {
+            return XIncludeParsers.newDocumentBuilderFactory().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Could not create XML parser: " + e.getMessage(), e);
+        }
+    }
+
+    private void applyTemplates(Element element, TemplateMatcher matcher) {
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
             if (node.getNodeType() == Node.ELEMENT_NODE) {
                 Element childElement = (Element) node;
-                String tagName = childElement.getTagName();
-
-                // Check if this is the field we're looking for
-                if (fieldName.equals(tagName)) {
-                    // Replace all content (both text nodes and child elements)
-                    NodeList contentNodes = childElement.getChildNodes();
-                    // Remove all child nodes (both elements and text)
-                    for (int j = contentNodes.getLength() - 1; j >= 0; j--) {
-                        Node contentNode = contentNodes.item(j);
-                        childElement.removeChild(contentNode);
+                String newValue = matcher.elementValue(childElement.getTagName());
+                if (newValue != null) {
+                    // Replace all content (both text nodes and child elements); the new value is not scanned again
+                    while (childElement.getFirstChild() != null) {
+                        childElement.removeChild(childElement.getFirstChild());
                     }
-                    // Add new text content
                     childElement.appendChild(element.getOwnerDocument().createTextNode(newValue));
                 } else {
                     // Recursively search in nested elements (field not found yet, continue searching)
-                    replaceFieldValue(childElement, fieldName, newValue);
+                    applyTemplates(childElement, matcher);
+                }
+            } else if (node.getNodeType() == Node.TEXT_NODE) {
+                // Also replace text content patterns (e.g., "MESSAGE" in text nodes)
+                String text = node.getNodeValue();
+                String replaced = matcher.replace(text);
+                if (!replaced.equals(text)) {
+                    node.setNodeValue(replaced);
                 }
             }
         }
-        // If field is never found, it's silently skipped (no exception thrown)
     }
 
-    private void replaceTextContent(Node node, String pattern, String replacement) {
-        // Skip empty patterns to avoid unintended replacements
-        if (pattern == null || pattern.isEmpty()) {
-            return;
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream output) {
+            super(output);
         }
 
-        if (node.getNodeType() == Node.TEXT_NODE) {
-            String text = node.getTextContent();
-            if (text != null && text.contains(pattern)) {
-                node.setTextContent(text.replace(pattern, replacement));
-            }
-        } else if (node.getNodeType() == Node.ELEMENT_NODE) {
-            // Recursively process child nodes
-            NodeList children = node.getChildNodes();
-            for (int i = 0; i < children.getLength(); i++) {
-                replaceTextContent(children.item(i), pattern, replacement);
-            }
+        long count() {
+            return count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
         }
     }
 }
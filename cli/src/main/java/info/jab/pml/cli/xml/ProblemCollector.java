@@ -0,0 +1,94 @@
+package info.jab.pml.cli.xml;
+
+import info.jab.pml.cli.xml.ValidationReport.Problem;
+import info.jab.pml.cli.xml.ValidationReport.Severity;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Error handler that records every problem reported during a validation instead of stopping at
+ * the first one, until the error budget is exhausted.
+ */
+final class ProblemCollector implements ErrorHandler {
+
+    private final int maxErrors;
+    private final List<Problem> problems = new ArrayList<>();
+    private int errors;
+    private boolean truncated;
+
+    /**
+     * Creates a collector.
+     *
+     * @param maxErrors the number of errors after which validation stops, or 0 for no limit
+     */
+    ProblemCollector(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public void warning(SAXParseException exception) {
+        problems.add(problem(Severity.WARNING, exception));
+    }
+
+    @Override
+    public void error(SAXParseException exception) throws SAXException {
+        if (maxErrors > 0 && errors == maxErrors) {
+            // One error past the budget: the report is incomplete, stop reading the file
+            truncated = true;
+            throw new BudgetExhaustedException();
+        }
+        errors++;
+        problems.add(problem(Severity.ERROR, exception));
+    }
+
+    @Override
+    public void fatalError(SAXParseException exception) throws SAXException {
+        problems.add(problem(Severity.FATAL, exception));
+        throw exception;
+    }
+
+    /**
+     * Records a failure that stopped validation without going through this handler, such as a
+     * file that cannot be read.
+     *
+     * @param exception the failure
+     */
+    void failed(Exception exception) {
+        if (exception instanceof BudgetExhaustedException
+            || problems.stream().anyMatch(problem -> problem.severity() == Severity.FATAL)) {
+            return;
+        }
+        if (exception instanceof SAXParseException parseException) {
+            problems.add(problem(Severity.FATAL, parseException));
+        } else {
+            problems.add(new Problem(Severity.FATAL, null, -1, -1, message(exception)));
+        }
+    }
+
+    ValidationReport report(Path source) {
+        return new ValidationReport(source, problems, truncated);
+    }
+
+    private static Problem problem(Severity severity, SAXParseException exception) {
+        return new Problem(severity, exception.getSystemId(), exception.getLineNumber(), exception.getColumnNumber(),
+            message(exception));
+    }
+
+    private static String message(Exception exception) {
+        String message = exception.getMessage();
+        return message != null ? message : exception.toString();
+    }
+
+    private static final class BudgetExhaustedException extends SAXException {
+
+        private static final long serialVersionUID = 1L;
+
+        BudgetExhaustedException() {
+            super("Error budget exhausted");
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package info.jab.pml.cli.xml;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+import org.xml.sax.SAXException;
+
+/**
+ * Bounded cache of rendered Markdown, so that converting the same prompt with the same
+ * templates again does not parse, validate or transform it again.
+ *
+ * <p>Entries are keyed by a SHA-256 {@link #key(byte[], Map, RenderEngine) fingerprint} of the
+ * PML content (and of every file it includes, by its path relative to the including file, so
+ * that checkouts in other directories compute the same keys), the template map in key order, the
+ * rendering engine and the {@link ResourceVersion build and XSLT engine of the CLI}. The least
+ * recently used entries are evicted once the cached Markdown exceeds the configured number of
+ * bytes. An optional directory keeps every rendered document on disk as well, so later runs
+ * start warm; it is never pruned.</p>
+ *
+ * <p>Concurrent lookups of the same key are coalesced: one caller renders while the others wait
+ * for its result. Only successful renders are cached; when one fails, each waiting caller
+ * renders on its own so that it reports its own error. Instances are thread-safe.</p>
+ */
+public final class RenderCache {
+
+    /**
+     * Size bound of the in-memory tier used by default, in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final String FILE_SUFFIX = ".md";
+
+    private final long maxBytes;
+    private final @Nullable Path directory;
+    private final Map<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long cachedBytes;
+
+    /**
+     * Renders a document, or produces {@code null} if it cannot be rendered.
+     *
+     * @param <E> the exception thrown when rendering fails unexpectedly
+     */
+    @FunctionalInterface
+    public interface Renderer<E extends Exception> {
+
+        /**
+         * Renders the document.
+         *
+         * @return the Markdown, or {@code null} if the document is not valid or cannot be converted
+         * @throws E if rendering fails unexpectedly
+         */
+        byte @Nullable [] render() throws E;
+    }
+
+    /**
+     * Loads content that is always produced, or fails with an exception.
+     *
+     * @param <E> the exception thrown when loading fails
+     */
+    @FunctionalInterface
+    public interface Loader<E extends Exception> {
+
+        /**
+         * Loads the content.
+         *
+         * @return the content
+         * @throws E if loading fails
+         * @throws InterruptedException if the loading thread is interrupted
+         */
+        byte[] load() throws E, InterruptedException;
+    }
+
+    /**
+     * Creates a cache that only keeps entries in memory.
+     *
+     * @param maxBytes the largest total size of cached Markdown, in bytes
+     */
+    public RenderCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    /**
+     * Creates a cache that also keeps every rendered document in a directory.
+     *
+     * @param maxBytes the largest total size of Markdown cached in memory, in bytes
+     * @param directory the directory of the on-disk tier, created if needed, or {@code null} for none
+     */
+    public RenderCache(long maxBytes, @Nullable Path directory) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+    }
+
+    /**
+     * Computes the cache key of PML content that has no includes to resolve.
+     *
+     * @param pmlContent the PML document
+     * @param templateMap the template replacements applied before rendering
+     * @param engine the engine used to render the document
+     * @return the key, as lowercase hexadecimal
+     */
+    public static String key(byte[] pmlContent, Map<String, String> templateMap, RenderEngine engine) {
+        return key(pmlContent, templateMap, engine, ResourceVersion.current());
+    }
+
+    static String key(
+        byte[] pmlContent, Map<String, String> templateMap, RenderEngine engine, ResourceVersion version) {
+        MessageDigest digest = newDigest(templateMap, engine, version);
+        digest.update(pmlContent);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Computes the cache key of a PML file and of the files it includes through {@code xi:include}.
+     *
+     * @param pmlFile the PML file
+     * @param fragmentCache the cache the included files are read through
+     * @param templateMap the template replacements applied before rendering
+     * @param engine the engine used to render the file
+     * @return the key, as lowercase hexadecimal
+     * @throws IOException if a file cannot be read
+     * @throws SAXException if the file or an included file is not well-formed XML
+     */
+    public static String key(Path pmlFile, FragmentCache fragmentCache, Map<String, String> templateMap,
+                             RenderEngine engine) throws IOException, SAXException {
+        MessageDigest digest = newDigest(templateMap, engine, ResourceVersion.current());
+        try (InputStream content = new DigestInputStream(Files.newInputStream(pmlFile), digest)) {
+            content.transferTo(OutputStream.nullOutputStream());
+        }
+        Path baseDirectory = pmlFile.toAbsolutePath().normalize().getParent();
+        for (Path include : XIncludeParsers.includedFiles(pmlFile, fragmentCache)) {
+            // Missing files are part of the key: creating one changes the result
+            String includeHash = Files.isRegularFile(include) ? fragmentCache.get(include).hash() : "-";
+            update(digest, relative(baseDirectory, include));
+            update(digest, includeHash);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the Markdown cached for a key, rendering and caching it on a miss.
+     *
+     * @param <E> the exception thrown when rendering fails unexpectedly
+     * @param key the key of the document, see {@link #key(byte[], Map, RenderEngine)}
+     * @param renderer renders the document on a miss
+     * @return the Markdown, shared with the cache and not to be modified, or {@code null} if the
+     *         renderer could not render the document
+     * @throws E if rendering fails unexpectedly
+     */
+    public <E extends Exception> byte @Nullable [] get(String key, Renderer<E> renderer) throws E {
+        byte[] cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        CompletableFuture<byte[]> flight = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            try {
+                byte[] shared = running.join();
+                coalesced.increment();
+                return shared;
+            } catch (CancellationException | CompletionException e) {
+                // The render failed; render again so that this caller reports its own error
+                misses.increment();
+                return renderer.render();
+            }
+        }
+        try {
+            byte[] markdown = load(key, renderer);
+            if (markdown != null) {
+                flight.complete(markdown);
+            }
+            return markdown;
+        } finally {
+            // No effect once completed; otherwise wakes the waiting callers up
+            flight.cancel(false);
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Returns the content cached for a key, loading and caching it on a miss, for loads too
+     * expensive to repeat such as calls to a remote service.
+     *
+     * <p>Unlike {@link #get(String, Renderer)}, concurrent lookups of the same key share the
+     * outcome of the one load, failure included, so that a failing load is not repeated by every
+     * waiting caller. Waiting callers stay interruptible; when the loading caller is interrupted
+     * instead, the next waiting caller loads on its own. Failures are not cached.</p>
+     *
+     * @param <E> the exception thrown when loading fails
+     * @param key the key of the content
+     * @param loader loads the content on a miss
+     * @return the content, shared with the cache and not to be modified
+     * @throws E if loading fails, in this caller or in the concurrent caller it waited for
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public <E extends Exception> byte[] getShared(String key, Loader<E> loader) throws E, InterruptedException {
+        while (true) {
+            byte[] cached = lookup(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            CompletableFuture<byte[]> flight = new CompletableFuture<>();
+            CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, flight);
+            if (running == null) {
+                return loadShared(key, loader, flight);
+            }
+            try {
+                byte[] shared = running.get();
+                coalesced.increment();
+                return shared;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (!(cause instanceof InterruptedException)) {
+                    throw failure(cause != null ? cause : e, loader);
+                }
+                // The loading caller was interrupted, not this one: try again
+            } catch (CancellationException e) {
+                // Abandoned by a caller of get(String, Renderer); try again
+            }
+        }
+    }
+
+    /**
+     * Returns the number of lookups served from memory.
+     *
+     * @return the memory hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups served from the on-disk tier.
+     *
+     * @return the disk hits
+     */
+    public long diskHits() {
+        return diskHits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that rendered the document.
+     *
+     * @return the cache misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of lookups that waited for a concurrent render of the same key.
+     *
+     * @return the coalesced lookups
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted from memory to stay within the size bound.
+     *
+     * @return the evictions
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the total size of the Markdown cached in memory.
+     *
+     * @return the cached bytes
+     */
+    public long cachedBytes() {
+        synchronized (entries) {
+            return cachedBytes;
+        }
+    }
+
+    /**
+     * Renders the statistics as one line of plain text.
+     *
+     * @return the formatted statistics
+     */
+    public String format() {
+        int size;
+        long bytes;
+        synchronized (entries) {
+            size = entries.size();
+            bytes = cachedBytes;
+        }
+        return String.format(Locale.ROOT,
+            "render-cache hits=%d disk-hits=%d misses=%d coalesced=%d evictions=%d entries=%d bytes=%d%n",
+            hits(), diskHits(), misses(), coalesced(), evictions(), size, bytes);
+    }
+
+    private <E extends Exception> byte[] loadShared(String key, Loader<E> loader, CompletableFuture<byte[]> flight)
+        throws E, InterruptedException {
+        try {
+            byte[] content = lookup(key);
+            if (content != null) {
+                hits.increment();
+            } else {
+                content = readFromDisk(key);
+                if (content != null) {
+                    diskHits.increment();
+                    put(key, content);
+                } else {
+                    misses.increment();
+                    content = loader.load();
+                    put(key, content);
+                    writeToDisk(key, content);
+                }
+            }
+            flight.complete(content);
+            return content;
+        } catch (Throwable t) {
+            flight.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    // The loader only throws E or unchecked exceptions, so the cast cannot fail
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E failure(Throwable cause, Loader<E> loader) {
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return (E) cause;
+    }
+
+    private byte @Nullable [] lookup(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private <E extends Exception> byte @Nullable [] load(String key, Renderer<E> renderer) throws E {
+        // Another caller may have finished rendering between the lookup and joining the flight
+        byte[] markdown = lookup(key);
+        if (markdown != null) {
+            hits.increment();
+            return markdown;
+        }
+        markdown = readFromDisk(key);
+        if (markdown != null) {
+            diskHits.increment();
+            put(key, markdown);
+            return markdown;
+        }
+        misses.increment();
+        markdown = renderer.render();
+        if (markdown != null) {
+            put(key, markdown);
+            writeToDisk(key, markdown);
+        }
+        return markdown;
+    }
+
+    private void put(String key, byte[] markdown) {
+        if (markdown.length > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            byte[] previous = entries.put(key, markdown);
+            if (previous != null) {
+                cachedBytes -= previous.length;
+            }
+            cachedBytes += markdown.length;
+            Iterator<byte[]> eldest = entries.values().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().length;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private byte @Nullable [] readFromDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path entry = directory.resolve(key + FILE_SUFFIX);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(entry);
+        } catch (IOException e) {
+            // The disk tier is best effort: an entry that cannot be read is rendered again
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] markdown) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            // Readers never see a partially written entry
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            try {
+                Files.write(temporary, markdown);
+                Files.move(temporary, directory.resolve(key + FILE_SUFFIX),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Could not write render cache entry: " + e.getMessage());
+        }
+    }
+
+    private static MessageDigest newDigest(
+        Map<String, String> templateMap, RenderEngine engine, ResourceVersion version) {
+        MessageDigest digest = sha256();
+        version.update(digest);
+        update(digest, engine.name());
+        // Key order, so that maps with the same entries give the same key
+        for (Map.Entry<String, String> entry : new TreeMap<>(templateMap).entrySet()) {
+            update(digest, entry.getKey());
+            update(digest, entry.getValue());
+        }
+        return digest;
+    }
+
+    /**
+     * Locates an included file from the directory of the including file, so that a checkout moved
+     * elsewhere, or another checkout sharing the on-disk tier, computes the same keys.
+     */
+    private static String relative(@Nullable Path baseDirectory, Path include) {
+        Path absolute = include.toAbsolutePath().normalize();
+        if (baseDirectory == null || !Objects.equals(baseDirectory.getRoot(), absolute.getRoot())) {
+            return absolute.toString();
+        }
+        return baseDirectory.relativize(absolute).toString().replace(File.separatorChar, '/');
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        // Length prefixed, so that ("ab", "c") and ("a", "bc") differ
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
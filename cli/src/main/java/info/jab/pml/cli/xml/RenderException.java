@@ -0,0 +1,19 @@
+package info.jab.pml.cli.xml;
+
+/**
+ * Signals a PML file that cannot be rendered to Markdown because it is not valid once processed,
+ * or because its conversion failed. The message gives the reason.
+ */
+public final class RenderException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates an exception with a message.
+     *
+     * @param message the detail message
+     */
+    public RenderException(String message) {
+        super(message);
+    }
+}
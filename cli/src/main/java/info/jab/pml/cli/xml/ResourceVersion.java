@@ -0,0 +1,128 @@
+package info.jab.pml.cli.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Identity of everything that shapes the rendered Markdown besides the input, so that results
+ * recorded by the {@link RenderCache} or a build manifest under another one are not reused.
+ *
+ * <p>It covers the bundled schema and stylesheet, the build of the CLI (its version, and the
+ * class files of the renderers when they can be read, which they cannot in a native image), and
+ * the XSLT engine selected with {@value StylesheetCache#FACTORY_PROPERTY} and
+ * {@value StylesheetCache#TRANSLET_PROPERTY}. Upgrading the CLI or switching the XSLT engine
+ * therefore renders every document again.</p>
+ */
+public final class ResourceVersion {
+
+    private static final String BUILD_RESOURCE = "pml-build.properties";
+
+    // The code whose output ends up in the Markdown, read when the class files are available
+    private static final List<String> RENDERER_CLASSES = List.of(
+        "info.jab.pml.cli.markdown.MarkdownEventWriter",
+        "info.jab.pml.cli.markdown.MarkdownText",
+        "info.jab.pml.cli.markdown.StaxMarkdownRenderer",
+        "info.jab.pml.cli.xml.CompiledTemplate",
+        "info.jab.pml.cli.xml.PmlUtils",
+        "info.jab.pml.cli.xml.TemplateMatcher",
+        "info.jab.pml.cli.xml.XIncludeParsers");
+
+    private static final ResourceVersion CURRENT = new ResourceVersion(buildIdentity(),
+        System.getProperty(StylesheetCache.FACTORY_PROPERTY), System.getProperty(StylesheetCache.TRANSLET_PROPERTY));
+
+    private final byte[] hash;
+
+    private ResourceVersion(String buildIdentity, @Nullable String transformerFactory, @Nullable String translet) {
+        MessageDigest digest = sha256();
+        for (String resource : List.of(SchemaCache.PML_SCHEMA, StylesheetCache.PML_TO_MARKDOWN)) {
+            try (InputStream content = ResourceVersion.class.getClassLoader().getResourceAsStream(resource)) {
+                if (content == null) {
+                    throw new IllegalStateException("Could not find " + resource + " in resources");
+                }
+                digest.update(content.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        for (String part : new String[] {buildIdentity, String.valueOf(transformerFactory), String.valueOf(translet)}) {
+            digest.update((byte) 0);
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+        }
+        this.hash = digest.digest();
+    }
+
+    /**
+     * Returns the identity of this JVM: the running build of the CLI and the XSLT engine it uses.
+     *
+     * @return the current identity, computed once
+     */
+    public static ResourceVersion current() {
+        return CURRENT;
+    }
+
+    /**
+     * Returns the identity of another build or XSLT engine, for instance a previous version.
+     *
+     * @param buildIdentity the version and code of the build
+     * @param transformerFactory the value of {@value StylesheetCache#FACTORY_PROPERTY}, or {@code null}
+     * @param translet the value of {@value StylesheetCache#TRANSLET_PROPERTY}, or {@code null}
+     * @return the identity
+     */
+    public static ResourceVersion of(
+        String buildIdentity, @Nullable String transformerFactory, @Nullable String translet) {
+        return new ResourceVersion(buildIdentity, transformerFactory, translet);
+    }
+
+    /**
+     * Returns the identity of the running build: its version and the hash of its renderer classes.
+     *
+     * @return the build identity
+     */
+    public static String buildIdentity() {
+        Properties build = new Properties();
+        try (InputStream content = ResourceVersion.class.getClassLoader().getResourceAsStream(BUILD_RESOURCE)) {
+            if (content != null) {
+                build.load(content);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        MessageDigest classes = sha256();
+        for (String className : RENDERER_CLASSES) {
+            String resource = className.replace('.', '/') + ".class";
+            try (InputStream content = ResourceVersion.class.getClassLoader().getResourceAsStream(resource)) {
+                if (content != null) {
+                    classes.update(content.readAllBytes());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return build.getProperty("version", "unknown") + " " + HexFormat.of().formatHex(classes.digest());
+    }
+
+    /**
+     * Feeds the hash of this identity to a digest.
+     *
+     * @param digest the digest to update
+     */
+    public void update(MessageDigest digest) {
+        digest.update(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package info.jab.pml.cli.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import org.xml.sax.SAXException;
+
+/**
+ * JVM-wide cache of the XSD schemas bundled with the CLI.
+ *
+ * <p>A compiled {@link Schema} is immutable and thread-safe, so every schema is compiled
+ * lazily on first use and then shared by all callers. {@link Validator} instances are not
+ * thread-safe, so they are kept per thread and reset before being handed out again.</p>
+ */
+public final class SchemaCache {
+
+    public static final String PML_SCHEMA = "pml.xsd";
+    public static final String PML_WORKFLOW_SCHEMA = "pml-workflow.xsd";
+
+    private static final ConcurrentMap<String, Schema> SCHEMAS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<String, Validator>> VALIDATORS = ThreadLocal.withInitial(HashMap::new);
+
+    private SchemaCache() {
+        // Utility class
+    }
+
+    /**
+     * Returns the compiled schema for a classpath resource, compiling it on first access.
+     *
+     * @param schemaResource the classpath location of the XSD file
+     * @return the shared compiled schema
+     * @throws IllegalStateException if the resource is missing or is not a valid schema
+     */
+    public static Schema schema(String schemaResource) {
+        return SCHEMAS.computeIfAbsent(schemaResource, SchemaCache::compile);
+    }
+
+    /**
+     * Returns a validator for the given schema that is owned by the calling thread.
+     *
+     * <p>The validator is reset to its initial configuration on every call, so callers may
+     * install their own error handler without affecting later validations.</p>
+     *
+     * @param schemaResource the classpath location of the XSD file
+     * @return a validator that must not be shared with other threads
+     * @throws IllegalStateException if the resource is missing or is not a valid schema
+     */
+    public static Validator validator(String schemaResource) {
+        Map<String, Validator> validators = VALIDATORS.get();
+        Validator validator = validators.get(schemaResource);
+        if (validator == null) {
+            validator = schema(schemaResource).newValidator();
+            validators.put(schemaResource, validator);
+        } else {
+            validator.reset();
+        }
+        return validator;
+    }
+
+    private static Schema compile(String schemaResource) {
+        try (InputStream xsdStream = SchemaCache.class.getClassLoader().getResourceAsStream(schemaResource)) {
+            if (xsdStream == null) {
+                throw new IllegalStateException("Could not find " + schemaResource + " schema file in resources");
+            }
+            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            return schemaFactory.newSchema(new StreamSource(xsdStream, schemaResource));
+        } catch (IOException | SAXException e) {
+            throw new IllegalStateException("Could not compile " + schemaResource + " schema: " + e.getMessage(), e);
+        }
+    }
+}
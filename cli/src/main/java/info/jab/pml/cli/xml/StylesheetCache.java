@@ -0,0 +1,120 @@
+package info.jab.pml.cli.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.TransformerFactoryConfigurationError;
+import javax.xml.transform.stream.StreamSource;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * JVM-wide cache of the XSLT stylesheets bundled with the CLI.
+ *
+ * <p>Each stylesheet is compiled once into a thread-safe {@link Templates} object, so creating
+ * a {@link Transformer} per document is cheap. The XSLT engine can be swapped with system
+ * properties:</p>
+ * <ul>
+ *   <li>{@value #FACTORY_PROPERTY}: fully qualified {@link TransformerFactory} class name,
+ *       for example {@code net.sf.saxon.TransformerFactoryImpl}.</li>
+ *   <li>{@value #TRANSLET_PROPERTY}: fully qualified name of a translet precompiled with XSLTC;
+ *       when set, the translet is loaded from the classpath instead of compiling the stylesheet.
+ *       It requires the XSLTC factory of the JDK, the default one. Translets extend
+ *       {@code com.sun.org.apache.xalan.internal.xsltc.runtime.AbstractTranslet}, which
+ *       {@code java.xml} does not export, so the JVM must run with
+ *       {@code --add-exports java.xml/com.sun.org.apache.xalan.internal.xsltc.runtime=ALL-UNNAMED}
+ *       (plus any other XSLTC package the translet uses).</li>
+ * </ul>
+ */
+public final class StylesheetCache {
+
+    public static final String PML_TO_MARKDOWN = "xslt/pml-to-md.xsl";
+    public static final String FACTORY_PROPERTY = "pml.xslt.factory";
+    public static final String TRANSLET_PROPERTY = "pml.xslt.translet";
+
+    private static final ConcurrentMap<String, Templates> TEMPLATES = new ConcurrentHashMap<>();
+
+    private StylesheetCache() {
+        // Utility class
+    }
+
+    /**
+     * Returns the compiled stylesheet for a classpath resource, compiling it on first access.
+     *
+     * @param stylesheetResource the classpath location of the XSLT file
+     * @return the shared compiled stylesheet
+     * @throws IllegalStateException if the resource is missing or cannot be compiled
+     */
+    public static Templates templates(String stylesheetResource) {
+        return TEMPLATES.computeIfAbsent(stylesheetResource, StylesheetCache::compile);
+    }
+
+    /**
+     * Creates a new transformer from the cached compiled stylesheet.
+     *
+     * @param stylesheetResource the classpath location of the XSLT file
+     * @return a transformer owned by the caller
+     * @throws TransformerConfigurationException if the transformer cannot be created
+     */
+    public static Transformer newTransformer(String stylesheetResource) throws TransformerConfigurationException {
+        return templates(stylesheetResource).newTransformer();
+    }
+
+    private static Templates compile(String stylesheetResource) {
+        URL stylesheetUrl = StylesheetCache.class.getClassLoader().getResource(stylesheetResource);
+        if (stylesheetUrl == null) {
+            throw new IllegalStateException("Could not find " + stylesheetResource + " transformation file");
+        }
+        try (InputStream xsltStream = stylesheetUrl.openStream()) {
+            TransformerFactory factory = newTransformerFactory();
+            return factory.newTemplates(new StreamSource(xsltStream, stylesheetUrl.toExternalForm()));
+        } catch (IOException | TransformerConfigurationException e) {
+            throw new IllegalStateException("Could not compile " + stylesheetResource + " transformation: " + e.getMessage(), e);
+        }
+    }
+
+    private static TransformerFactory newTransformerFactory() {
+        return newTransformerFactory(System.getProperty(FACTORY_PROPERTY), System.getProperty(TRANSLET_PROPERTY));
+    }
+
+    /**
+     * Creates the factory selected by the values of {@value #FACTORY_PROPERTY} and
+     * {@value #TRANSLET_PROPERTY}.
+     *
+     * @param factoryClass the factory class name, or {@code null} for the default factory
+     * @param translet the translet class name, or {@code null} to compile the stylesheets
+     * @return the factory
+     * @throws IllegalStateException if the factory cannot be created or cannot load a translet
+     */
+    static TransformerFactory newTransformerFactory(@Nullable String factoryClass, @Nullable String translet) {
+        TransformerFactory factory;
+        try {
+            factory = (factoryClass == null || factoryClass.isBlank())
+                ? TransformerFactory.newInstance()
+                : TransformerFactory.newInstance(factoryClass, StylesheetCache.class.getClassLoader());
+        } catch (TransformerFactoryConfigurationError e) {
+            throw new IllegalStateException("Could not create XSLT factory " + factoryClass + ": " + e.getMessage(), e);
+        }
+
+        if (translet != null && !translet.isBlank()) {
+            // XSLTC specific attributes to load a precompiled translet from the classpath
+            int lastDot = translet.lastIndexOf('.');
+            try {
+                factory.setAttribute("use-classpath", Boolean.TRUE);
+                factory.setAttribute("translet-name", translet.substring(lastDot + 1));
+                if (lastDot > 0) {
+                    factory.setAttribute("package-name", translet.substring(0, lastDot));
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Translet " + translet + " requires an XSLTC factory, but "
+                    + factory.getClass().getName() + " is used: " + e.getMessage(), e);
+            }
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,194 @@
+package info.jab.pml.cli.xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Template replacements compiled once for a whole document.
+ *
+ * <p>Element names are resolved through a lookup table and text patterns through an
+ * Aho-Corasick automaton built over every key, so each text node is scanned once regardless of
+ * the number of templates. Text replacement is leftmost-longest and non-cascading: replacement
+ * values are never scanned again, so the result does not depend on the order of the map.</p>
+ */
+final class TemplateMatcher {
+
+    private static final int ROOT = 0;
+
+    private final Map<String, String> elementValues;
+
+    // Automaton, one entry per trie node; transitions are sorted by character
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    private final int[] depth;
+    private final int[] longestMatch;
+    private final @Nullable String[] replacements;
+
+    private TemplateMatcher(Map<String, String> elementValues, Trie trie) {
+        this.elementValues = elementValues;
+        int size = trie.edges.size();
+        this.edgeChars = new char[size][];
+        this.edgeTargets = new int[size][];
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> edges = trie.edges.get(node);
+            edgeChars[node] = new char[edges.size()];
+            edgeTargets[node] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[node][i] = edge.getKey();
+                edgeTargets[node][i] = edge.getValue();
+                i++;
+            }
+        }
+        this.depth = trie.depth.stream().mapToInt(Integer::intValue).toArray();
+        this.replacements = trie.replacements.toArray(new String[0]);
+        this.failure = new int[size];
+        this.longestMatch = new int[size];
+        linkFailures();
+    }
+
+    /**
+     * Compiles a template map.
+     *
+     * @param templateMap map of element names or text patterns to replacement values
+     * @return the compiled matcher
+     */
+    static TemplateMatcher compile(Map<String, String> templateMap) {
+        Trie trie = new Trie();
+        for (Map.Entry<String, String> entry : templateMap.entrySet()) {
+            // Empty patterns would match everywhere; they are only usable as element names
+            if (!entry.getKey().isEmpty()) {
+                trie.add(entry.getKey(), entry.getValue());
+            }
+        }
+        return new TemplateMatcher(Map.copyOf(templateMap), trie);
+    }
+
+    /**
+     * Returns the value that replaces the whole content of an element, if any.
+     *
+     * @param elementName the tag name of the element
+     * @return the replacement value, or {@code null} if the element is not templated
+     */
+    @Nullable String elementValue(String elementName) {
+        return elementValues.get(elementName);
+    }
+
+    /**
+     * Replaces every template key found in a text.
+     *
+     * @param text the text to scan
+     * @return the replaced text, or the same instance if no key occurs in it
+     */
+    String replace(String text) {
+        @Nullable StringBuilder result = null;
+        int copied = 0;
+        int state = ROOT;
+        // Leftmost match found so far, not yet written because a longer or earlier one may follow
+        int candidateStart = -1;
+        int candidateEnd = -1;
+        int candidateNode = ROOT;
+        int i = 0;
+        while (true) {
+            if (i < text.length()) {
+                state = next(state, text.charAt(i));
+                int match = longestMatch[state];
+                if (match != ROOT) {
+                    int start = i + 1 - depth[match];
+                    if (candidateStart < 0 || start <= candidateStart) {
+                        candidateStart = start;
+                        candidateEnd = i + 1;
+                        candidateNode = match;
+                    }
+                }
+                i++;
+                // No match in progress can start at or before the candidate any more
+                if (candidateStart < 0 || i - depth[state] <= candidateStart) {
+                    continue;
+                }
+            } else if (candidateStart < 0) {
+                break;
+            }
+            if (result == null) {
+                result = new StringBuilder(text.length() + 16);
+            }
+            result.append(text, copied, candidateStart).append(replacements[candidateNode]);
+            copied = candidateEnd;
+            // Matches never overlap: resume scanning right after the replaced key
+            i = candidateEnd;
+            state = ROOT;
+            candidateStart = -1;
+        }
+        if (result == null) {
+            return text;
+        }
+        return result.append(text, copied, text.length()).toString();
+    }
+
+    private int next(int state, char c) {
+        int node = state;
+        while (true) {
+            int index = Arrays.binarySearch(edgeChars[node], c);
+            if (index >= 0) {
+                return edgeTargets[node][index];
+            }
+            if (node == ROOT) {
+                return ROOT;
+            }
+            node = failure[node];
+        }
+    }
+
+    private void linkFailures() {
+        // Breadth-first, so the failure target of every node is complete before its children
+        int[] queue = new int[failure.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+        while (head < tail) {
+            int node = queue[head++];
+            longestMatch[node] = replacements[node] != null ? node : longestMatch[failure[node]];
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                int child = edgeTargets[node][i];
+                failure[child] = node == ROOT ? ROOT : next(failure[node], edgeChars[node][i]);
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    private static final class Trie {
+
+        private final List<Map<Character, Integer>> edges = new ArrayList<>();
+        private final List<Integer> depth = new ArrayList<>();
+        private final List<@Nullable String> replacements = new ArrayList<>();
+
+        Trie() {
+            addNode(0);
+        }
+
+        void add(String key, String value) {
+            int node = ROOT;
+            for (int i = 0; i < key.length(); i++) {
+                Integer child = edges.get(node).get(key.charAt(i));
+                if (child == null) {
+                    child = addNode(i + 1);
+                    edges.get(node).put(key.charAt(i), child);
+                }
+                node = child;
+            }
+            replacements.set(node, value);
+        }
+
+        private int addNode(int nodeDepth) {
+            edges.add(new TreeMap<>());
+            depth.add(nodeDepth);
+            replacements.add(null);
+            return edges.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package info.jab.pml.cli.xml;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Rows of template variable values read from a tab-separated file.
+ *
+ * <p>The first line names the variables and every following line holds one value per variable,
+ * separated by tabs. Values can contain {@code \t}, {@code \n}, {@code \r} and {@code \\}
+ * escapes. Empty lines are skipped. Rows are read one at a time, so files of any length can be
+ * rendered with bounded memory.</p>
+ */
+public final class TemplateValues implements Closeable {
+
+    private final Path file;
+    private final BufferedReader reader;
+    private final List<String> variables;
+    private int lineNumber;
+
+    private TemplateValues(Path file, BufferedReader reader) throws IOException {
+        this.file = file;
+        this.reader = reader;
+        String header = nextLine();
+        if (header == null) {
+            throw new IOException(file + ": missing header line with the template variable names");
+        }
+        this.variables = List.copyOf(cells(header));
+    }
+
+    /**
+     * Opens a values file and reads its header line.
+     *
+     * @param file the tab-separated values file
+     * @return the open values file
+     * @throws IOException if the file cannot be read or has no header line
+     */
+    public static TemplateValues open(Path file) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        try {
+            return new TemplateValues(file, reader);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the variable names declared by the header line.
+     *
+     * @return the variable names, in column order
+     */
+    public List<String> variables() {
+        return variables;
+    }
+
+    /**
+     * Reads the next row of values.
+     *
+     * @return the values by variable name, or {@code null} at the end of the file
+     * @throws IOException if the file cannot be read or the row does not have one value per variable
+     */
+    public @Nullable Map<String, String> nextRow() throws IOException {
+        String line = nextLine();
+        if (line == null) {
+            return null;
+        }
+        List<String> cells = cells(line);
+        if (cells.size() != variables.size()) {
+            throw new IOException(String.format(Locale.ROOT,
+                "%s:%d: expected %d values but found %d", file, lineNumber, variables.size(), cells.size()));
+        }
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < cells.size(); i++) {
+            row.put(variables.get(i), cells.get(i));
+        }
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private @Nullable String nextLine() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+        } while (line != null && line.isEmpty());
+        return line;
+    }
+
+    private List<String> cells(String line) throws IOException {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '\\') {
+                if (i + 1 == line.length()) {
+                    throw new IOException(String.format(Locale.ROOT,
+                        "%s:%d: incomplete escape at the end of the line", file, lineNumber));
+                }
+                i++;
+                cell.append(unescape(line.charAt(i)));
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private char unescape(char c) throws IOException {
+        return switch (c) {
+            case 't' -> '\t';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case '\\' -> '\\';
+            default -> throw new IOException(String.format(Locale.ROOT,
+                "%s:%d: unknown escape \\%c", file, lineNumber, c));
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package info.jab.pml.cli.xml;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Every problem found while validating a PML file in a single pass.
+ *
+ * @param source the validated file
+ * @param problems the problems in the order they were found
+ * @param truncated whether validation stopped early because the error budget was exhausted;
+ *                  the file has more errors than reported
+ */
+public record ValidationReport(Path source, List<Problem> problems, boolean truncated) {
+
+    /**
+     * How serious a problem is.
+     */
+    public enum Severity {
+
+        /**
+         * Reported by the parser, does not make the file invalid.
+         */
+        WARNING,
+
+        /**
+         * The file does not conform to the schema; validation continues.
+         */
+        ERROR,
+
+        /**
+         * The file cannot be read or is not well-formed XML; validation stops.
+         */
+        FATAL
+    }
+
+    /**
+     * A single validation problem.
+     *
+     * @param severity how serious the problem is
+     * @param location the file the problem was found in, which differs from the validated file
+     *                 for problems in included fragments, or {@code null} if unknown
+     * @param line the line number, or -1 if unknown
+     * @param column the column number, or -1 if unknown
+     * @param message the parser message
+     */
+    public record Problem(Severity severity, @Nullable String location, int line, int column, String message) {
+    }
+
+    public ValidationReport {
+        problems = List.copyOf(problems);
+    }
+
+    /**
+     * Tells whether the file is valid, that is it has no error or fatal problem.
+     *
+     * @return true if the file is valid
+     */
+    public boolean valid() {
+        return errorCount() == 0;
+    }
+
+    /**
+     * Returns the number of error and fatal problems.
+     *
+     * @return the error count
+     */
+    public long errorCount() {
+        return problems.stream().filter(problem -> problem.severity() != Severity.WARNING).count();
+    }
+}
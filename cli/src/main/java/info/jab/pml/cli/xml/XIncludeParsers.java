@@ -0,0 +1,198 @@
+package info.jab.pml.cli.xml;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.jspecify.annotations.Nullable;
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * XInclude-aware parsers whose included files are read through a {@link FragmentCache}.
+ *
+ * <p>Included content is merged as it is: the parsers do not add {@code xml:base} or
+ * {@code xml:lang} attributes to included elements, which {@code pml.xsd} would reject.</p>
+ */
+public final class XIncludeParsers {
+
+    /**
+     * Namespace of the {@code xi:include} element.
+     */
+    public static final String XINCLUDE_NAMESPACE = "http://www.w3.org/2001/XInclude";
+
+    private static final String FIXUP_BASE_URIS = "http://apache.org/xml/features/xinclude/fixup-base-uris";
+    private static final String FIXUP_LANGUAGE = "http://apache.org/xml/features/xinclude/fixup-language";
+
+    private static final ThreadLocal<SAXParser> SAX_PARSERS = ThreadLocal.withInitial(() -> newSaxParser(true));
+    private static final ThreadLocal<SAXParser> PLAIN_SAX_PARSERS = ThreadLocal.withInitial(() -> newSaxParser(false));
+
+    private XIncludeParsers() {
+        // Utility class
+    }
+
+    /**
+     * Returns this thread's XInclude-aware reader, reset and ready for a new document.
+     *
+     * @param fragmentCache the cache included files are read through
+     * @return the reader
+     * @throws SAXException if the reader cannot be configured
+     */
+    public static XMLReader xmlReader(FragmentCache fragmentCache) throws SAXException {
+        SAXParser parser = SAX_PARSERS.get();
+        parser.reset();
+        XMLReader reader = parser.getXMLReader();
+        reader.setEntityResolver(entityResolver(fragmentCache));
+        return reader;
+    }
+
+    /**
+     * Returns a resolver that serves local files from a cache and leaves other locations to the
+     * parser.
+     *
+     * @param fragmentCache the cache local files are read through
+     * @return the resolver
+     */
+    public static EntityResolver entityResolver(FragmentCache fragmentCache) {
+        return (publicId, systemId) -> resolve(fragmentCache, systemId);
+    }
+
+    /**
+     * Returns every local file a PML file includes, directly or through included fragments.
+     *
+     * <p>Includes inside {@code xi:fallback} elements and includes of missing files are listed
+     * too, so that callers tracking changes notice when a fallback stops being used.
+     * {@code xml:base} attributes are not taken into account.</p>
+     *
+     * @param pmlFile the PML file to scan
+     * @param fragmentCache the cache included files are read through
+     * @return the absolute paths of the included files, in the order they were found
+     * @throws IOException if a file cannot be read
+     * @throws SAXException if a file is not well-formed XML
+     */
+    public static List<Path> includedFiles(Path pmlFile, FragmentCache fragmentCache) throws IOException, SAXException {
+        Path root = pmlFile.toAbsolutePath().normalize();
+        Set<Path> files = new LinkedHashSet<>();
+        Deque<Path> pending = new ArrayDeque<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Path file = pending.removeFirst();
+            InputSource source = new InputSource(file.toUri().toString());
+            if (!file.equals(root)) {
+                source.setByteStream(fragmentCache.get(file).newInputStream());
+            }
+            // Each file is scanned to the end before its includes are read, so one parser is enough
+            IncludeCollector collector = new IncludeCollector(file);
+            SAXParser parser = PLAIN_SAX_PARSERS.get();
+            parser.reset();
+            parser.parse(source, collector);
+            for (Include include : collector.includes) {
+                if (!include.file().equals(root) && files.add(include.file())
+                    && include.xml() && Files.isRegularFile(include.file())) {
+                    pending.add(include.file());
+                }
+            }
+        }
+        return List.copyOf(files);
+    }
+
+    static DocumentBuilderFactory newDocumentBuilderFactory() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setXIncludeAware(true);
+        factory.setFeature(FIXUP_BASE_URIS, false);
+        factory.setFeature(FIXUP_LANGUAGE, false);
+        return factory;
+    }
+
+    private static @Nullable InputSource resolve(FragmentCache fragmentCache, @Nullable String systemId)
+        throws IOException {
+        Path file = localFile(systemId);
+        if (file == null) {
+            return null;
+        }
+        InputSource source = new InputSource(systemId);
+        source.setByteStream(fragmentCache.get(file).newInputStream());
+        return source;
+    }
+
+    private static @Nullable Path localFile(@Nullable String systemId) {
+        if (systemId == null || !systemId.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return Paths.get(new URI(systemId));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static SAXParser newSaxParser(boolean xincludeAware) {
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            if (xincludeAware) {
+                factory.setXIncludeAware(true);
+                factory.setFeature(FIXUP_BASE_URIS, false);
+                factory.setFeature(FIXUP_LANGUAGE, false);
+            }
+            return factory.newSAXParser();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IllegalStateException("Could not create XML parser: " + e.getMessage(), e);
+        }
+    }
+
+    private record Include(Path file, boolean xml) {
+    }
+
+    private static final class IncludeCollector extends DefaultHandler {
+
+        private final Path file;
+        private final List<Include> includes = new ArrayList<>();
+
+        IncludeCollector(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (!XINCLUDE_NAMESPACE.equals(uri) || !"include".equals(localName)) {
+                return;
+            }
+            String href = attributes.getValue("href");
+            if (href == null || href.isEmpty()) {
+                // Same-document includes do not read any other file
+                return;
+            }
+            Path target = href.startsWith("file:") || href.contains("://") ? localFile(href) : resolveSibling(href);
+            if (target != null) {
+                includes.add(new Include(target.toAbsolutePath().normalize(), !"text".equals(attributes.getValue("parse"))));
+            }
+        }
+
+        private @Nullable Path resolveSibling(String href) {
+            try {
+                return file.resolveSibling(href);
+            } catch (InvalidPathException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package info.jab.pml.cli;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Compares the native executable built by the {@code native} profile with the shaded jar.
+ *
+ * <p>Run with {@code ./mvnw -Pnative -pl cli -am verify}. Peak RSS is read from
+ * {@code /usr/bin/time}, so the comparison only runs where it is installed.</p>
+ */
+@DisplayName("Native image integration tests")
+class NativeImageIT {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 10;
+    private static final Path TIME = Paths.get("/usr/bin/time");
+
+    private List<String> nativeCommand;
+    private List<String> jvmCommand;
+    private Path helloWorld;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String executable = System.getProperty("pml.native.executable");
+        String jar = System.getProperty("pml.jar");
+        assumeTrue(executable != null && Files.isExecutable(Paths.get(executable)), "Native executable not built");
+        assumeTrue(jar != null && Files.isRegularFile(Paths.get(jar)), "Shaded jar not built");
+        String java = ProcessHandle.current().info().command().orElse("java");
+        nativeCommand = List.of(executable);
+        jvmCommand = List.of(java, "-jar", jar);
+        helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+    }
+
+    @Test
+    @DisplayName("Native executable should convert exactly like the jar")
+    void convert_withNativeExecutable_shouldMatchJar() throws Exception {
+        // When
+        Run nativeRun = run(nativeCommand, "convert", helloWorld.toString());
+        Run jvmRun = run(jvmCommand, "convert", helloWorld.toString());
+
+        // Then
+        assertThat(nativeRun.exitCode()).isEqualTo(0);
+        assertThat(jvmRun.exitCode()).isEqualTo(0);
+        assertThat(nativeRun.output()).isNotEmpty().isEqualTo(jvmRun.output());
+    }
+
+    @Test
+    @DisplayName("Native executable should validate faster and with less memory than the jar")
+    void validate_withNativeExecutable_shouldStartFasterAndUseLessMemory(@TempDir Path tempDir) throws Exception {
+        // Given
+        assumeTrue(Files.isExecutable(TIME), "/usr/bin/time is required to measure peak RSS");
+
+        // When
+        Measurement nativeMeasurement = measure(nativeCommand, tempDir.resolve("native-rss.txt"));
+        Measurement jvmMeasurement = measure(jvmCommand, tempDir.resolve("jvm-rss.txt"));
+
+        // Then
+        System.out.printf(Locale.ROOT, "pml validate   median wall   peak RSS%n");
+        System.out.printf(Locale.ROOT, "native         %8.1f ms  %7d KB%n", nativeMeasurement.medianMillis(), nativeMeasurement.maxRssKb());
+        System.out.printf(Locale.ROOT, "jvm            %8.1f ms  %7d KB%n", jvmMeasurement.medianMillis(), jvmMeasurement.maxRssKb());
+        assertThat(nativeMeasurement.medianMillis()).isLessThan(jvmMeasurement.medianMillis());
+        assertThat(nativeMeasurement.maxRssKb()).isLessThan(jvmMeasurement.maxRssKb());
+    }
+
+    private record Run(int exitCode, String output) {}
+
+    private record Measurement(double medianMillis, long maxRssKb) {}
+
+    private Measurement measure(List<String> command, Path rssFile) throws IOException, InterruptedException {
+        List<String> timed = new ArrayList<>(List.of(TIME.toString(), "-f", "%M", "-o", rssFile.toString()));
+        timed.addAll(command);
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(timed, "validate", helloWorld.toString());
+        }
+        double[] millis = new double[MEASURED_RUNS];
+        long maxRssKb = 0;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            Run run = run(timed, "validate", helloWorld.toString());
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+            assertThat(run.exitCode()).isEqualTo(0);
+            maxRssKb = Math.max(maxRssKb, Long.parseLong(Files.readString(rssFile, UTF_8).strip()));
+        }
+        Arrays.sort(millis);
+        return new Measurement(millis[MEASURED_RUNS / 2], maxRssKb);
+    }
+
+    private Run run(List<String> command, String... args) throws IOException, InterruptedException {
+        List<String> arguments = new ArrayList<>(command);
+        arguments.addAll(List.of(args));
+        Process process = new ProcessBuilder(arguments)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        String output = new String(process.getInputStream().readAllBytes(), UTF_8);
+        return new Run(process.waitFor(), output);
+    }
+}
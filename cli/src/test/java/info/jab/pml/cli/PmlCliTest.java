@@ -4,6 +4,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import info.jab.pml.cli.command.ConvertCommand;
+import info.jab.pml.cli.command.ServeCommand;
 import info.jab.pml.cli.command.ValidateCommand;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
@@ -88,4 +89,19 @@ class PmlCliTest {
         Object command = convertSubcommand.getCommand();
         assertThat(command).isInstanceOf(ConvertCommand.class);
     }
+
+    @Test
+    void main_withServeSubcommand_shouldExecuteServe() {
+        // Given
+        PmlCli cli = new PmlCli();
+        CommandLine cmd = new CommandLine(cli);
+
+        // When/Then
+        // Verify that serve subcommand is registered
+        assertThat(cmd.getSubcommands().containsKey("serve")).isTrue();
+        CommandLine serveSubcommand = cmd.getSubcommands().get("serve");
+        assertThat(serveSubcommand).isNotNull();
+        Object command = serveSubcommand.getCommand();
+        assertThat(command).isInstanceOf(ServeCommand.class);
+    }
 }
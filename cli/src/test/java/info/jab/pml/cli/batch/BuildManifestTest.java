@@ -0,0 +1,117 @@
+package info.jab.pml.cli.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import info.jab.pml.cli.xml.ResourceVersion;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("BuildManifest tests")
+class BuildManifestTest {
+
+    private static final String PROMPT = """
+        <prompt xmlns:xi="http://www.w3.org/2001/XInclude">
+          <xi:include href="fragments/goal.xml"/>
+        </prompt>
+        """;
+
+    private static final String GOAL = """
+        <goal xmlns:xi="http://www.w3.org/2001/XInclude"><xi:include href="goal.md" parse="text"/></goal>
+        """;
+
+    @Test
+    void isUpToDate_withRecordedFile_shouldSurviveReload(@TempDir Path root) throws Exception {
+        // Given
+        Path source = writePrompt(root);
+        Path output = Files.writeString(root.resolve("prompt.md"), "# Prompt");
+        Path manifestFile = root.resolve("out").resolve(BuildManifest.FILE_NAME);
+        BuildManifest manifest = BuildManifest.load(manifestFile, BuildManifest.context("convert"));
+        boolean upToDateBeforeRecord = manifest.isUpToDate(source, output);
+        manifest.record(source, output);
+        manifest.save();
+
+        // When
+        BuildManifest reloaded = BuildManifest.load(manifestFile, BuildManifest.context("convert"));
+
+        // Then
+        assertThat(upToDateBeforeRecord).isFalse();
+        assertThat(reloaded.isUpToDate(source, output)).isTrue();
+        assertThat(Files.readString(manifestFile)).contains("include ../fragments/goal.md");
+    }
+
+    @Test
+    void isUpToDate_withTransitivelyIncludedFileChanged_shouldReturnFalse(@TempDir Path root) throws Exception {
+        // Given
+        Path source = writePrompt(root);
+        BuildManifest manifest = BuildManifest.load(root.resolve(BuildManifest.FILE_NAME), BuildManifest.context("validate"));
+        manifest.record(source, null);
+
+        // When
+        Files.writeString(root.resolve("fragments/goal.md"), "Say hello to everyone");
+
+        // Then
+        assertThat(manifest.isUpToDate(source, null)).isFalse();
+    }
+
+    @Test
+    void isUpToDate_withChangedOutput_shouldReturnFalse(@TempDir Path root) throws Exception {
+        // Given
+        Path source = writePrompt(root);
+        Path output = Files.writeString(root.resolve("prompt.md"), "# Prompt");
+        BuildManifest manifest = BuildManifest.load(root.resolve(BuildManifest.FILE_NAME), BuildManifest.context("convert"));
+        manifest.record(source, output);
+
+        // When
+        Files.delete(output);
+
+        // Then
+        assertThat(manifest.isUpToDate(source, output)).isFalse();
+    }
+
+    @Test
+    void isUpToDate_withDifferentContext_shouldReturnFalse(@TempDir Path root) throws Exception {
+        // Given
+        Path source = writePrompt(root);
+        Path manifestFile = root.resolve(BuildManifest.FILE_NAME);
+        BuildManifest manifest = BuildManifest.load(manifestFile, BuildManifest.context("convert", "XSLT"));
+        manifest.record(source, null);
+        manifest.save();
+
+        // When
+        BuildManifest reloaded = BuildManifest.load(manifestFile, BuildManifest.context("convert", "STAX"));
+
+        // Then
+        assertThat(reloaded.isUpToDate(source, null)).isFalse();
+    }
+
+    @Test
+    void isUpToDate_withOtherBuildIdentity_shouldReturnFalse(@TempDir Path root) throws Exception {
+        // Given
+        Path source = writePrompt(root);
+        Path output = Files.writeString(root.resolve("prompt.md"), "# Prompt");
+        Path manifestFile = root.resolve(BuildManifest.FILE_NAME);
+        BuildManifest manifest = BuildManifest.load(manifestFile,
+            BuildManifest.context(ResourceVersion.of("0.8.0 renderer", null, null), "convert", "STAX"));
+        manifest.record(source, output);
+        manifest.save();
+
+        // When
+        BuildManifest upgraded = BuildManifest.load(manifestFile,
+            BuildManifest.context(ResourceVersion.of("0.9.0 renderer", null, null), "convert", "STAX"));
+
+        // Then
+        assertThat(upgraded.isUpToDate(source, output)).isFalse();
+        assertThat(BuildManifest.context("convert", "STAX"))
+            .isEqualTo(BuildManifest.context(ResourceVersion.current(), "convert", "STAX"));
+    }
+
+    private static Path writePrompt(Path root) throws Exception {
+        Files.createDirectories(root.resolve("fragments"));
+        Files.writeString(root.resolve("fragments/goal.xml"), GOAL);
+        Files.writeString(root.resolve("fragments/goal.md"), "Say hello");
+        return Files.writeString(root.resolve("prompt.xml"), PROMPT);
+    }
+}
@@ -0,0 +1,77 @@
+package info.jab.pml.cli.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("PmlFileResolver tests")
+class PmlFileResolverTest {
+
+    @TempDir
+    @SuppressWarnings("NullAway.Init")
+    Path root;
+
+    @BeforeEach
+    void createTree() throws Exception {
+        Files.createDirectories(root.resolve("nested/deeper"));
+        Files.writeString(root.resolve("a.xml"), "<prompt/>");
+        Files.writeString(root.resolve("notes.md"), "# notes");
+        Files.writeString(root.resolve("nested/b.xml"), "<prompt/>");
+        Files.writeString(root.resolve("nested/deeper/c.xml"), "<prompt/>");
+    }
+
+    @Test
+    void resolve_withDirectory_shouldFindXmlFilesRecursively() throws Exception {
+        // When
+        List<InputFile> files = PmlFileResolver.resolve(List.of(root.toString()));
+
+        // Then
+        assertThat(files).extracting(InputFile::relativePath)
+            .containsExactly(Paths.get("a.xml"), Paths.get("nested/b.xml"), Paths.get("nested/deeper/c.xml"));
+    }
+
+    @Test
+    void resolve_withGlob_shouldOnlyReturnMatchingFiles() throws Exception {
+        // When
+        List<InputFile> files = PmlFileResolver.resolve(List.of(root + "/nested/**.xml"));
+
+        // Then
+        assertThat(files).extracting(InputFile::relativePath)
+            .containsExactly(Paths.get("b.xml"), Paths.get("deeper/c.xml"));
+    }
+
+    @Test
+    void resolve_withOverlappingInputs_shouldReturnEachFileOnce() throws Exception {
+        // When
+        List<InputFile> files = PmlFileResolver.resolve(List.of(root.resolve("a.xml").toString(), root.toString()));
+
+        // Then
+        assertThat(files).hasSize(3);
+        assertThat(files.getFirst().source()).isEqualTo(root.resolve("a.xml"));
+    }
+
+    @Test
+    void resolve_withMissingFile_shouldFail() {
+        // When
+        // Then
+        assertThatThrownBy(() -> PmlFileResolver.resolve(List.of(root.resolve("missing.xml").toString())))
+            .isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void resolve_withGlobMatchingNothing_shouldFail() {
+        // When
+        // Then
+        assertThatThrownBy(() -> PmlFileResolver.resolve(List.of(root + "/*.txt")))
+            .isInstanceOf(NoSuchFileException.class);
+    }
+}
@@ -5,12 +5,15 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import picocli.CommandLine;
 
 @DisplayName("ConvertCommand tests")
@@ -445,4 +448,371 @@ class ConvertCommandTest {
         assertThat(output).doesNotContain("First value");
         assertThat(output).doesNotContain("Second value");
     }
+
+    // ========== BATCH TEST CASES ==========
+
+    @Test
+    void convert_withMultipleFilesAndOutputDir_shouldWriteOneMarkdownFilePerInput(@TempDir Path outputDir) throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path multipleFields = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        ConvertCommand command = new ConvertCommand();
+        CommandLine cmd = new CommandLine(command);
+        String[] args = {
+            helloWorld.toString(), multipleFields.toString(),
+            "--output-dir", outputDir.toString(), "--jobs", "2"
+        };
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(Files.readString(outputDir.resolve("pml-hello-world.md"), UTF_8)).contains("Hello World");
+        assertThat(Files.readString(outputDir.resolve("pml-with-multiple-fields.md"), UTF_8)).contains("Test Title");
+        assertThat(outContent.toString(UTF_8)).contains("2 succeeded, 0 failed");
+    }
+
+    @Test
+    void convert_withDirectoryContainingInvalidFile_shouldReturnFailure(@TempDir Path outputDir) throws Exception {
+        // Given
+        Path pmlDirectory = Paths.get(getClass().getResource("/pml").toURI());
+        ConvertCommand command = new ConvertCommand();
+        CommandLine cmd = new CommandLine(command);
+        String[] args = {pmlDirectory.toString(), "--output-dir", outputDir.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(outContent.toString(UTF_8)).contains("FAILED  " + pmlDirectory.resolve("invalid-pml.xml"));
+        assertThat(outputDir.resolve("pml-hello-world.md")).exists();
+    }
+
+    @Test
+    void convert_withInvalidFileAndOutputDir_shouldKeepPreviousMarkdownAndReportReason(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path invalidPmlFile = Paths.get(getClass().getResource("/pml/invalid-pml.xml").toURI());
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path outputDir = tempDir.resolve("markdown");
+        Files.createDirectories(outputDir);
+        Files.writeString(outputDir.resolve("invalid-pml.md"), "previous", UTF_8);
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {invalidPmlFile.toString(), helloWorld.toString(), "--output-dir", outputDir.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(outContent.toString(UTF_8))
+            .contains("FAILED  " + invalidPmlFile + ": The processed PML file is not valid: ");
+        assertThat(outputDir.resolve("invalid-pml.md")).hasContent("previous");
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                .containsExactlyInAnyOrder("invalid-pml.md", "pml-hello-world.md");
+        }
+    }
+
+    @Test
+    void convert_withManifest_shouldSkipUnchangedFilesOnNextRun(@TempDir Path outputDir) throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path multipleFields = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        Path manifest = outputDir.resolve(".pml-manifest");
+        String[] args = {
+            helloWorld.toString(), multipleFields.toString(),
+            "--output-dir", outputDir.toString(), "--manifest", manifest.toString()
+        };
+        assertThat(new CommandLine(new ConvertCommand()).execute(args)).isEqualTo(0);
+        Files.delete(outputDir.resolve("pml-hello-world.md"));
+        outContent.reset();
+
+        // When
+        int exitCode = new CommandLine(new ConvertCommand()).execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(outputDir.resolve("pml-hello-world.md")).exists();
+        assertThat(outContent.toString(UTF_8)).contains("Skipped 1 unchanged files");
+    }
+
+    @Test
+    void convert_withManifestWithoutOutputDir_shouldFail() throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {helloWorld.toString(), "--manifest", "build.manifest"};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("--output-dir is required with --manifest");
+    }
+
+    @Test
+    void convert_withMultipleFilesWithoutOutputDir_shouldFail() throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path multipleFields = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        ConvertCommand command = new ConvertCommand();
+        CommandLine cmd = new CommandLine(command);
+        String[] args = {helloWorld.toString(), multipleFields.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("--output-dir is required");
+    }
+
+    @Test
+    void convert_withOutputFile_shouldWriteMarkdownToFile(@TempDir Path outputDir) throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path markdown = outputDir.resolve("nested/hello.md");
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {helloWorld.toString(), "-o", markdown.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(Files.readString(markdown, UTF_8)).contains("Hello World");
+        assertThat(outContent.toString(UTF_8)).isEmpty();
+    }
+
+    @Test
+    void convert_withInvalidFileAndExistingOutputFile_shouldLeaveOutputFileUnchanged(@TempDir Path outputDir) throws Exception {
+        // Given
+        Path invalidPmlFile = Paths.get(getClass().getResource("/pml/invalid-pml.xml").toURI());
+        Path markdown = Files.writeString(outputDir.resolve("prompt.md"), "previous", UTF_8);
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {invalidPmlFile.toString(), "-o", markdown.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("not valid");
+        assertThat(markdown).hasContent("previous");
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(markdown);
+        }
+    }
+
+    @Test
+    void convert_withTemplateValuesMissingAValueAndExistingOutputFile_shouldLeaveOutputFileUnchanged(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path validPmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        Path values = Files.writeString(tempDir.resolve("values.tsv"), "role\tMESSAGE\nFirst role\tHello\nOnly a role\n", UTF_8);
+        Path markdown = Files.writeString(tempDir.resolve("prompts.md"), "previous", UTF_8);
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {validPmlFile.toString(), "--template-values", values.toString(), "-o", markdown.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains(values + ":3: expected 2 values but found 1");
+        assertThat(markdown).hasContent("previous");
+    }
+
+    @Test
+    void convert_withMultipleFilesAndOutputFile_shouldConcatenateInInputOrder(@TempDir Path outputDir) throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path multipleFields = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        Path markdown = outputDir.resolve("bundle.md");
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {
+            multipleFields.toString(), helloWorld.toString(),
+            "--output", markdown.toString(), "--jobs", "2"
+        };
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        String bundle = Files.readString(markdown, UTF_8);
+        assertThat(bundle.indexOf("Test Title")).isGreaterThanOrEqualTo(0);
+        assertThat(bundle.indexOf("Hello World")).isGreaterThan(bundle.indexOf("Test Title"));
+        assertThat(outContent.toString(UTF_8)).contains("Wrote 2 documents to " + markdown);
+        try (Stream<Path> files = Files.list(outputDir)) {
+            assertThat(files).containsExactly(markdown);
+        }
+    }
+
+    @Test
+    void convert_withMultipleFilesToStdout_shouldKeepLogsOnStderr() throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path multipleFields = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {helloWorld.toString(), multipleFields.toString(), "-o", "-"};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(outContent.toString(UTF_8)).contains("Hello World", "Test Title").doesNotContain("succeeded");
+        assertThat(errContent.toString(UTF_8)).contains("2 succeeded, 0 failed");
+    }
+
+    @Test
+    void convert_withOutputAndOutputDir_shouldFail(@TempDir Path outputDir) throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {helloWorld.toString(), "-o", "hello.md", "--output-dir", outputDir.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("--output and --output-dir cannot be used together");
+    }
+
+    @Test
+    void convert_withStaxEngine_shouldMatchXsltOutput() throws Exception {
+        // Given
+        Path validPmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        new CommandLine(new ConvertCommand()).execute(validPmlFile.toString());
+        String xsltOutput = outContent.toString(UTF_8);
+        outContent.reset();
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {validPmlFile.toString(), "--engine", "STAX"};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(outContent.toString(UTF_8)).isEqualTo(xsltOutput);
+    }
+
+    @Test
+    void convert_withStaxEngineAndTemplate_shouldReplaceFieldValue() throws Exception {
+        // Given
+        Path validPmlFile = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {validPmlFile.toString(), "--engine", "STAX", "--template", "goal", "Streamed goal"};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(outContent.toString(UTF_8)).contains("Streamed goal");
+    }
+
+    @Test
+    void convert_withStaxEngineAndInvalidFile_shouldReturnFailure() throws Exception {
+        // Given
+        Path invalidPmlFile = Paths.get(getClass().getResource("/pml/invalid-pml.xml").toURI());
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {invalidPmlFile.toString(), "--engine", "STAX"};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("not valid");
+    }
+
+    @Test
+    void convert_withTemplateValues_shouldRenderOneDocumentPerRow(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path validPmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        Path values = tempDir.resolve("values.tsv");
+        Files.writeString(values, "role\tMESSAGE\nFirst role\tHello\n\nSecond\\trole\tBye\n", UTF_8);
+        new CommandLine(new ConvertCommand()).execute(validPmlFile.toString(), "--template", "role", "First role", "MESSAGE", "Hello");
+        String firstDocument = outContent.toString(UTF_8);
+        outContent.reset();
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {validPmlFile.toString(), "--template", "title", "Fixed title", "--template-values", values.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        String output = outContent.toString(UTF_8);
+        assertThat(output).startsWith(firstDocument.replace("Test Title", "Fixed title"));
+        assertThat(output).contains("## Role\n\nSecond role", "\"Bye\" in the console");
+        assertThat(errContent.toString(UTF_8)).contains("Rendered 2 documents from " + values);
+    }
+
+    @Test
+    void convert_withTemplateValuesMissingAValue_shouldFail(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path validPmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        Path values = tempDir.resolve("values.tsv");
+        Files.writeString(values, "role\tMESSAGE\nOnly a role\n", UTF_8);
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {validPmlFile.toString(), "--template-values", values.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains(values + ":2: expected 2 values but found 1");
+    }
+
+    @Test
+    void convert_withCacheDir_shouldReuseMarkdownOfPreviousRun(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path multipleFields = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        Path cacheDir = tempDir.resolve("cache");
+        String[] args = {
+            helloWorld.toString(), multipleFields.toString(),
+            "--output-dir", tempDir.resolve("markdown").toString(), "--cache-dir", cacheDir.toString()
+        };
+        new CommandLine(new ConvertCommand()).execute(args);
+        String firstRun = outContent.toString(UTF_8);
+        outContent.reset();
+
+        // When
+        int exitCode = new CommandLine(new ConvertCommand()).execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(firstRun).contains("render-cache hits=0 disk-hits=0 misses=2");
+        assertThat(outContent.toString(UTF_8)).contains("render-cache hits=0 disk-hits=2 misses=0");
+        assertThat(Files.readString(tempDir.resolve("markdown/pml-hello-world.md"), UTF_8)).contains("Hello World");
+        try (Stream<Path> entries = Files.list(cacheDir)) {
+            assertThat(entries).hasSize(2);
+        }
+    }
+
+    @Test
+    void convert_withStats_shouldPrintPhaseBreakdownToStderr() throws Exception {
+        // Given
+        Path validPmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        CommandLine cmd = new CommandLine(new ConvertCommand());
+        String[] args = {validPmlFile.toString(), "--template", "title", "Timed", "--stats"};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(outContent.toString(UTF_8)).contains("Timed").doesNotContain("phase");
+        assertThat(errContent.toString(UTF_8))
+            .contains("phase", "parse", "template", "validate", "transform", "slowest documents:")
+            .contains(validPmlFile.toAbsolutePath().normalize().toString());
+    }
 }
@@ -5,17 +5,31 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import picocli.CommandLine;
 
 @DisplayName("ValidateCommand tests")
 class ValidateCommandTest {
 
+    private static final String SEVERAL_ERRORS = """
+        <prompt>
+          <goal>Say hello</goal>
+          <unexpected/>
+          <steps>
+            <step number="1">
+              <not-a-title/>
+            </step>
+          </steps>
+        </prompt>
+        """;
+
     private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
     private final ByteArrayOutputStream errContent = new ByteArrayOutputStream();
     private final PrintStream originalOut = System.out;
@@ -93,4 +107,111 @@ class ValidateCommandTest {
         assertThat(exitCode).isNotEqualTo(0);
         assertThat(errContent.toString(UTF_8)).contains("Missing required parameter");
     }
+
+    @Test
+    void validate_withDirectory_shouldValidateAllFilesAndReportFailures() throws Exception {
+        // Given
+        Path pmlDirectory = Paths.get(getClass().getResource("/pml").toURI());
+        ValidateCommand command = new ValidateCommand();
+        CommandLine cmd = new CommandLine(command);
+        String[] args = {pmlDirectory.toString(), "--jobs", "2"};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        String output = outContent.toString(UTF_8);
+        assertThat(output).contains("FAILED  " + pmlDirectory.resolve("invalid-pml.xml"));
+        assertThat(output).contains("OK      " + pmlDirectory.resolve("pml-hello-world.xml"));
+        assertThat(output).contains("Processed 5 files");
+    }
+
+    @Test
+    void validate_withMultipleValidFiles_shouldReturnSuccess() throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path multipleFields = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        ValidateCommand command = new ValidateCommand();
+        CommandLine cmd = new CommandLine(command);
+        String[] args = {helloWorld.toString(), multipleFields.toString()};
+
+        // When
+        int exitCode = cmd.execute(args);
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(outContent.toString(UTF_8)).contains("2 succeeded, 0 failed");
+    }
+
+    @Test
+    void validate_withSeveralErrors_shouldReportEachWithLineAndColumn(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path pmlFile = Files.writeString(tempDir.resolve("several-errors.xml"), SEVERAL_ERRORS);
+        CommandLine cmd = new CommandLine(new ValidateCommand());
+
+        // When
+        int exitCode = cmd.execute(pmlFile.toString());
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8))
+            .contains("Validation failed")
+            .contains("several-errors.xml:3:16: error: cvc-complex-type.2.4.a")
+            .contains("several-errors.xml:6:21: error: cvc-complex-type.2.4.a");
+    }
+
+    @Test
+    void validate_withMaxErrors_shouldStopAfterBudget(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path pmlFile = Files.writeString(tempDir.resolve("several-errors.xml"), SEVERAL_ERRORS);
+        CommandLine cmd = new CommandLine(new ValidateCommand());
+
+        // When
+        int exitCode = cmd.execute(pmlFile.toString(), "--max-errors", "1");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8))
+            .contains("several-errors.xml:3:16: error")
+            .doesNotContain("several-errors.xml:6:21")
+            .contains("validation stopped after 1 errors");
+    }
+
+    @Test
+    void validate_withJsonFormat_shouldWriteOnlyTheReportToStdout(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path helloWorld = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path invalid = Files.writeString(tempDir.resolve("several-errors.xml"), SEVERAL_ERRORS);
+        CommandLine cmd = new CommandLine(new ValidateCommand());
+
+        // When
+        int exitCode = cmd.execute(helloWorld.toString(), invalid.toString(), "--format", "JSON");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(outContent.toString(UTF_8))
+            .startsWith("{\"valid\":false,\"files\":[")
+            .contains("\"valid\":true,\"truncated\":false,\"problems\":[]")
+            .contains("\"severity\":\"error\"")
+            .contains("\"line\":6,\"column\":21")
+            .doesNotContain("Processed 2 files");
+    }
+
+    @Test
+    void validate_withSarifFormat_shouldWriteSarifLog(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path invalid = Files.writeString(tempDir.resolve("several-errors.xml"), SEVERAL_ERRORS);
+        CommandLine cmd = new CommandLine(new ValidateCommand());
+
+        // When
+        int exitCode = cmd.execute(invalid.toString(), "--format", "SARIF");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(outContent.toString(UTF_8))
+            .contains("\"version\":\"2.1.0\"")
+            .contains("\"ruleId\":\"pml-schema\",\"level\":\"error\"")
+            .contains("\"region\":{\"startLine\":3,\"startColumn\":16}");
+    }
 }
@@ -0,0 +1,65 @@
+package info.jab.pml.cli.command;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+@DisplayName("WorkflowPlanCommand tests")
+class WorkflowPlanCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    void plan_withParallelSample_shouldPrintCriticalPath() throws Exception {
+        // Given
+        Path workflowFile = Paths.get(getClass().getResource("/samples/pml-workflow/cis194/workflow-cis194.xml").toURI());
+        CommandLine cmd = new CommandLine(new WorkflowPlanCommand());
+
+        // When
+        int exitCode = cmd.execute(workflowFile.toString());
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(outContent.toString(UTF_8))
+            .contains("OK      prompt-toc.xml")
+            .contains("2. prompt2.xml (model: default, after prompt-toc.xml, per item)")
+            .contains("Critical path: prompt-toc.xml -> prompt2.xml (2 model calls");
+    }
+
+    @Test
+    void plan_withNonExistentFile_shouldReturnFailure() {
+        // Given
+        CommandLine cmd = new CommandLine(new WorkflowPlanCommand());
+
+        // When
+        int exitCode = cmd.execute("/nonexistent/workflow.xml");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("File not found");
+    }
+}
@@ -0,0 +1,160 @@
+package info.jab.pml.cli.command;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import info.jab.pml.cli.workflow.ModelClient;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+@DisplayName("WorkflowRunCommand tests")
+class WorkflowRunCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    void run_withSequenceWorkflow_shouldPrintEveryAnswer() throws Exception {
+        // Given
+        Path workflowFile = Paths.get(getClass().getResource("/samples/pml-workflow/pi/workflow-pi.xml").toURI());
+        ModelClient modelClient = (model, repository, prompt) -> "answer from " + model;
+        CommandLine cmd = new CommandLine(new WorkflowRunCommand(new PmlUtils(), modelClient));
+
+        // When
+        int exitCode = cmd.execute(workflowFile.toString());
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        String output = outContent.toString(UTF_8);
+        assertThat(output)
+            .contains("==> prompt1.xml (model: default)")
+            .contains("==> prompt4.xml (model: default)")
+            .contains("answer from default");
+        assertThat(errContent.toString(UTF_8)).contains("model-cache calls=4 hits=0");
+    }
+
+    @Test
+    void run_withFailingWorkflow_shouldReturnFailure() throws Exception {
+        // Given
+        // prompt2.md and fallback-prompt.xml are not part of the sample
+        Path workflowFile = Paths.get(
+            getClass().getResource("/samples/pml-workflow/hello-world/workflow-hello-world.xml").toURI());
+        CommandLine cmd = new CommandLine(new WorkflowRunCommand(new PmlUtils(), ModelClient.echo()));
+
+        // When
+        int exitCode = cmd.execute(workflowFile.toString());
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("Could not read prompt fallback-prompt.xml");
+    }
+
+    @Test
+    void run_withNonExistentFile_shouldReturnFailure() {
+        // Given
+        CommandLine cmd = new CommandLine(new WorkflowRunCommand());
+
+        // When
+        int exitCode = cmd.execute("/nonexistent/workflow.xml");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("File not found");
+    }
+
+    @Test
+    void run_withJournal_shouldReplayRecordedAnswers(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path workflowFile = Paths.get(getClass().getResource("/samples/pml-workflow/pi/workflow-pi.xml").toURI());
+        Path journalFile = tempDir.resolve("pi.journal");
+        AtomicInteger calls = new AtomicInteger();
+        ModelClient modelClient = (model, repository, prompt) -> "answer " + calls.incrementAndGet();
+        new CommandLine(new WorkflowRunCommand(new PmlUtils(), modelClient))
+            .execute(workflowFile.toString(), "--journal", journalFile.toString());
+
+        // When
+        int exitCode = new CommandLine(new WorkflowRunCommand(new PmlUtils(), modelClient))
+            .execute(workflowFile.toString(), "--journal", journalFile.toString());
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(calls).hasValue(4);
+        assertThat(outContent.toString(UTF_8)).contains("answer 4").doesNotContain("answer 5");
+        assertThat(errContent.toString(UTF_8)).contains("Replayed 4 prompts and recorded 0 answers");
+    }
+
+    @Test
+    void run_withCacheDir_shouldAnswerTheNextRunFromTheCache(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path workflowFile = Paths.get(getClass().getResource("/samples/pml-workflow/pi/workflow-pi.xml").toURI());
+        Path cacheDir = tempDir.resolve("answers");
+        AtomicInteger calls = new AtomicInteger();
+        ModelClient modelClient = (model, repository, prompt) -> "answer " + calls.incrementAndGet();
+        new CommandLine(new WorkflowRunCommand(new PmlUtils(), modelClient))
+            .execute(workflowFile.toString(), "--cache-dir", cacheDir.toString());
+
+        // When
+        int exitCode = new CommandLine(new WorkflowRunCommand(new PmlUtils(), modelClient))
+            .execute(workflowFile.toString(), "--cache-dir", cacheDir.toString());
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(calls).hasValue(4);
+        assertThat(errContent.toString(UTF_8))
+            .contains("model-cache calls=4 hits=0 (memory=0 disk=0 coalesced=0) misses=4 hit-rate=0.0%")
+            .contains("model-cache calls=4 hits=4 (memory=0 disk=4 coalesced=0) misses=0 hit-rate=100.0%");
+    }
+
+    @Test
+    void run_withModelConcurrency_shouldReportSchedulerStatistics() throws Exception {
+        // Given
+        Path workflowFile = Paths.get(getClass().getResource("/samples/pml-workflow/pi/workflow-pi.xml").toURI());
+        CommandLine cmd = new CommandLine(new WorkflowRunCommand(new PmlUtils(), ModelClient.echo()));
+
+        // When
+        int exitCode = cmd.execute(workflowFile.toString(), "--model-concurrency", "default=1", "--rate-limit", "100");
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(errContent.toString(UTF_8))
+            .contains("model-scheduler model=default max-concurrency=1 calls-per-second=100.00 calls=4 queued=0");
+    }
+
+    @Test
+    void run_withNegativeMaxConcurrency_shouldReturnFailure() throws Exception {
+        // Given
+        Path workflowFile = Paths.get(getClass().getResource("/samples/pml-workflow/pi/workflow-pi.xml").toURI());
+        CommandLine cmd = new CommandLine(new WorkflowRunCommand());
+
+        // When
+        int exitCode = cmd.execute(workflowFile.toString(), "--max-concurrency", "-1");
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("maxConcurrency must not be negative");
+    }
+}
@@ -0,0 +1,87 @@
+package info.jab.pml.cli.command;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+@DisplayName("WorkflowValidateCommand tests")
+class WorkflowValidateCommandTest {
+
+    private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+
+    @BeforeEach
+    void setUpStreams() {
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    void validate_withSequenceSample_shouldCheckEveryPrompt() throws Exception {
+        // Given
+        Path workflowFile = Paths.get(getClass().getResource("/samples/pml-workflow/pi/workflow-pi.xml").toURI());
+        CommandLine cmd = new CommandLine(new WorkflowValidateCommand());
+
+        // When
+        int exitCode = cmd.execute(workflowFile.toString());
+
+        // Then
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(outContent.toString(UTF_8))
+            .contains("OK      prompt1.xml")
+            .contains("OK      prompt4.xml")
+            .contains("Checked 4 distinct prompts (4 references)");
+    }
+
+    @Test
+    void validate_withMissingPrompts_shouldReturnFailure() throws Exception {
+        // Given
+        // prompt2.md and fallback-prompt.xml are not part of the sample
+        Path workflowFile = Paths.get(
+            getClass().getResource("/samples/pml-workflow/hello-world/workflow-hello-world.xml").toURI());
+        CommandLine cmd = new CommandLine(new WorkflowValidateCommand());
+
+        // When
+        int exitCode = cmd.execute(workflowFile.toString());
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(outContent.toString(UTF_8))
+            .contains("FAILED  prompt2.md")
+            .contains("FAILED  fallback-prompt.xml")
+            .contains("1 succeeded, 2 failed");
+    }
+
+    @Test
+    void validate_withInvalidWorkflow_shouldReturnFailure(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path workflowFile = Files.writeString(tempDir.resolve("workflow.xml"), "<pml-workflow><prompt src=\"a.md\"/></pml-workflow>");
+        CommandLine cmd = new CommandLine(new WorkflowValidateCommand());
+
+        // When
+        int exitCode = cmd.execute(workflowFile.toString());
+
+        // Then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(errContent.toString(UTF_8)).contains("Invalid workflow");
+    }
+}
@@ -0,0 +1,141 @@
+package info.jab.pml.cli.markdown;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import info.jab.pml.cli.xml.FragmentCache;
+import info.jab.pml.cli.xml.PmlUtils;
+import info.jab.pml.cli.xml.XIncludeParsers;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.xml.sax.InputSource;
+
+@DisplayName("StaxMarkdownRenderer tests")
+class StaxMarkdownRendererTest {
+
+    private final PmlUtils pmlUtils = new PmlUtils();
+    private final StaxMarkdownRenderer renderer = new StaxMarkdownRenderer();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "/pml/pml-hello-world.xml",
+        "/pml/pml-with-multiple-fields.xml",
+        "/samples/pml/pml-hello-world-java.xml",
+        "/samples/pml/pml-java25-installation.xml",
+        "/samples/pml/pml-java25-installation-v2.xml",
+        "/samples/pml/pml-java25-installation-v3.xml",
+        "/samples/pml/pml-java25-installation-v4.xml",
+        "/samples/pml/pml-java25-installation-v5.xml",
+        "/samples/pml/pml-multiple-authors.xml",
+        "/samples/pml/pml-tdd-example.xml"})
+    void render_fromStream_shouldMatchXsltOutput(String resource) throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource(resource).toURI());
+        String expected = renderWithXslt(pmlFile);
+
+        // When
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try (InputStream input = Files.newInputStream(pmlFile)) {
+            renderer.render(input, actual);
+        }
+
+        // Then
+        assertThat(actual.toString(UTF_8)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "/pml/pml-with-multiple-fields.xml",
+        "/samples/pml/pml-java25-installation-v5.xml",
+        "/samples/pml/pml-tdd-example.xml"})
+    void render_fromDocument_shouldMatchXsltOutput(String resource) throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource(resource).toURI());
+        String expected = renderWithXslt(pmlFile);
+
+        // When
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        renderer.render(pmlUtils.parse(pmlFile), actual);
+
+        // Then
+        assertThat(actual.toString(UTF_8)).isEqualTo(expected);
+    }
+
+    @Test
+    void render_fromXIncludeReader_shouldMatchXsltOutput() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/samples/pml/113-java-maven-documentation.xml").toURI());
+        String expected = renderWithXslt(pmlFile);
+
+        // When
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        renderer.render(
+            XIncludeParsers.xmlReader(FragmentCache.shared()), new InputSource(pmlFile.toUri().toString()), actual);
+
+        // Then
+        assertThat(actual.toString(UTF_8))
+            .isEqualTo(expected)
+            .contains("# Essential Maven Goals:");
+    }
+
+    @Test
+    void render_withCommentsAndCdata_shouldMatchXsltOutput() throws Exception {
+        // Given
+        String pml = """
+            <prompt>
+              <title>Edge <![CDATA[cases]]></title>
+              <goal>
+                First line
+                  <!-- ignored --> second &amp; line
+              </goal>
+              <steps>
+                <step number="1">
+                  <step-title>Fenced</step-title>
+                  <step-content>
+                    ```bash
+                      indented
+                    ```
+                  </step-content>
+                </step>
+              </steps>
+              <safeguards>  <!-- first text node --> after comment</safeguards>
+            </prompt>
+            """;
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        pmlUtils.convertToMarkdown(pmlUtils.parse(new ByteArrayInputStream(pml.getBytes(UTF_8))), expected);
+
+        // When
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        renderer.render(new ByteArrayInputStream(pml.getBytes(UTF_8)), actual);
+
+        // Then
+        assertThat(actual.toString(UTF_8)).isEqualTo(expected.toString(UTF_8));
+    }
+
+    @Test
+    void render_withMalformedXml_shouldFail() {
+        // Given
+        byte[] pml = "<prompt><goal>unclosed</prompt>".getBytes(UTF_8);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> renderer.render(new ByteArrayInputStream(pml), new ByteArrayOutputStream()))
+            .isInstanceOf(XMLStreamException.class);
+    }
+
+    private String renderWithXslt(Path pmlFile) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertThat(pmlUtils.convertToMarkdown(pmlUtils.parse(pmlFile), output)).isTrue();
+        return output.toString(UTF_8);
+    }
+}
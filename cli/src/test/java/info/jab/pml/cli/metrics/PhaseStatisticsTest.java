@@ -0,0 +1,69 @@
+package info.jab.pml.cli.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PhaseStatistics tests")
+class PhaseStatisticsTest {
+
+    @Test
+    @DisplayName("Should aggregate count, errors and bytes per phase")
+    void record_shouldAggregatePerPhase() {
+        // Given
+        PhaseStatistics statistics = new PhaseStatistics();
+
+        // When
+        statistics.record(Phase.PARSE, "a.xml", 2_000_000, 100, true);
+        statistics.record(Phase.PARSE, "b.xml", 1_000_000, 50, true);
+        statistics.record(Phase.VALIDATE, "b.xml", 3_000_000, 0, false);
+
+        // Then
+        assertThat(statistics.count(Phase.PARSE)).isEqualTo(2);
+        assertThat(statistics.bytes(Phase.PARSE)).isEqualTo(150);
+        assertThat(statistics.errors(Phase.PARSE)).isZero();
+        assertThat(statistics.errors(Phase.VALIDATE)).isEqualTo(1);
+        assertThat(statistics.count(Phase.TRANSFORM)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should list phases and the slowest documents first")
+    void format_shouldPrintBreakdownAndSlowestDocuments() {
+        // Given
+        PhaseStatistics statistics = new PhaseStatistics();
+        statistics.record(Phase.PARSE, "fast.xml", 1_000_000, 10, true);
+        statistics.record(Phase.PARSE, "slow.xml", 2_000_000, 10, true);
+        statistics.record(Phase.TRANSFORM, "slow.xml", 5_000_000, 20, true);
+        statistics.record(Phase.TRANSFORM, "other.xml", 2_000_000, 20, true);
+
+        // When
+        String report = statistics.format(2);
+
+        // Then
+        assertThat(report)
+            .contains("parse             2       0       3.000     1.500     2.000  30.0%           20")
+            .contains("transform         2       0       7.000     3.500     5.000  70.0%           40")
+            .contains("      7.000 ms  slow.xml")
+            .contains("      2.000 ms  other.xml")
+            .doesNotContain("fast.xml");
+    }
+
+    @Test
+    @DisplayName("Should end the spans of both combined metrics")
+    void and_shouldRecordToBothMetrics() {
+        // Given
+        PhaseStatistics statistics = new PhaseStatistics();
+        List<String> ended = new ArrayList<>();
+        PhaseMetrics recording = (phase, source) -> (bytes, success) -> ended.add(phase.label() + " " + source + " " + bytes);
+
+        // When
+        recording.and(statistics).start(Phase.TEMPLATE, "prompt.xml").end(12, true);
+
+        // Then
+        assertThat(ended).containsExactly("template prompt.xml 12");
+        assertThat(statistics.count(Phase.TEMPLATE)).isEqualTo(1);
+    }
+}
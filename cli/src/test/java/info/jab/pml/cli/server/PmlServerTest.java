@@ -0,0 +1,179 @@
+package info.jab.pml.cli.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import info.jab.pml.cli.xml.PmlUtils;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PmlServer tests")
+class PmlServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private PmlServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new PmlServer(0, new PmlUtils());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+        client.close();
+    }
+
+    @Test
+    @DisplayName("Should report a valid PML document as valid")
+    void validate_withValidPml_shouldReturnOk() throws Exception {
+        // Given
+        byte[] pml = readResource("/pml/pml-hello-world.xml");
+
+        // When
+        HttpResponse<String> response = post("/validate", pml);
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("{\"valid\":true}");
+    }
+
+    @Test
+    @DisplayName("Should report the schema error of an invalid PML document")
+    void validate_withInvalidPml_shouldReturnUnprocessable() throws Exception {
+        // Given
+        byte[] pml = readResource("/pml/invalid-pml.xml");
+
+        // When
+        HttpResponse<String> response = post("/validate", pml);
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(422);
+        assertThat(response.body()).startsWith("{\"valid\":false,\"error\":\"");
+    }
+
+    @Test
+    @DisplayName("Should reject requests that are not POST")
+    void validate_withGet_shouldReturnMethodNotAllowed() throws Exception {
+        // When
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(uri("/validate")).GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(405);
+    }
+
+    @Test
+    @DisplayName("Should convert with both engines and apply templates from the query")
+    void convert_withEnginesAndTemplates_shouldReturnMarkdown() throws Exception {
+        // Given
+        byte[] pml = readResource("/pml/pml-hello-world.xml");
+
+        // When
+        HttpResponse<String> xslt = post("/convert?template.goal=Hello%20Server", pml);
+        HttpResponse<String> stax = post("/convert?engine=stax&template.goal=Hello%20Server", pml);
+
+        // Then
+        assertThat(xslt.statusCode()).isEqualTo(200);
+        assertThat(xslt.headers().firstValue("Content-Type")).hasValue("text/markdown; charset=utf-8");
+        assertThat(xslt.body()).contains("Hello Server").doesNotContain("Hello World");
+        assertThat(stax.statusCode()).isEqualTo(200);
+        assertThat(stax.body()).isEqualTo(xslt.body());
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown rendering engine")
+    void convert_withUnknownEngine_shouldReturnBadRequest() throws Exception {
+        // Given
+        byte[] pml = readResource("/pml/pml-hello-world.xml");
+
+        // When
+        HttpResponse<String> response = post("/convert?engine=unknown", pml);
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("Unknown engine: unknown");
+    }
+
+    @Test
+    @DisplayName("Should count requests per endpoint in the metrics")
+    void metrics_afterRequests_shouldCountEachEndpoint() throws Exception {
+        // Given
+        byte[] pml = readResource("/pml/pml-hello-world.xml");
+        post("/validate", pml);
+        post("/validate", pml);
+        post("/convert", pml);
+
+        // When
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(uri("/metrics")).GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(server.metrics().count("validate")).isEqualTo(2);
+        assertThat(server.metrics().count("convert")).isEqualTo(1);
+        assertThat(response.body())
+            .contains("convert count=1 errors=0")
+            .contains("validate count=2 errors=0");
+    }
+
+    @Test
+    @DisplayName("Should serve a repeated conversion from the render cache")
+    void convert_twice_shouldHitRenderCache() throws Exception {
+        // Given
+        byte[] pml = readResource("/pml/pml-hello-world.xml");
+        HttpResponse<String> first = post("/convert?template.goal=Cached", pml);
+
+        // When
+        HttpResponse<String> second = post("/convert?template.goal=Cached", pml);
+        HttpResponse<String> metrics = client.send(
+            HttpRequest.newBuilder(uri("/metrics")).GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(second.statusCode()).isEqualTo(200);
+        assertThat(second.body()).isEqualTo(first.body()).contains("Cached");
+        assertThat(server.renderCache().misses()).isEqualTo(1);
+        assertThat(server.renderCache().hits()).isEqualTo(1);
+        assertThat(metrics.body()).contains("render-cache hits=1 disk-hits=0 misses=1");
+    }
+
+    @Test
+    @DisplayName("Should not cache the conversion of an invalid document")
+    void convert_invalidTwice_shouldReportErrorBothTimes() throws Exception {
+        // Given
+        byte[] pml = readResource("/pml/invalid-pml.xml");
+        post("/convert", pml);
+
+        // When
+        HttpResponse<String> response = post("/convert", pml);
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(422);
+        assertThat(response.body()).startsWith("The processed PML document is not valid: ");
+        assertThat(server.renderCache().misses()).isEqualTo(2);
+    }
+
+    private HttpResponse<String> post(String path, byte[] body) throws Exception {
+        return client.send(
+            HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofByteArray(body)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.port() + path);
+    }
+
+    private byte[] readResource(String resource) throws Exception {
+        Path path = Paths.get(getClass().getResource(resource).toURI());
+        return Files.readAllBytes(path);
+    }
+}
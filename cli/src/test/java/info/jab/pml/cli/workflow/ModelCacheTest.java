@@ -0,0 +1,183 @@
+package info.jab.pml.cli.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("ModelCache tests")
+class ModelCacheTest {
+
+    private final WorkflowParser parser = new WorkflowParser(new PmlUtils());
+    private final PromptRenderer renderer = new PromptRenderer(RenderEngine.STAX);
+
+    @Test
+    @DisplayName("Should send identical prompts of concurrent parallel branches to the model once")
+    void cached_withRepeatedItems_shouldCallTheModelOncePerDistinctPrompt(@TempDir Path tempDir) throws Exception {
+        // Given
+        Files.writeString(tempDir.resolve("items.txt"), "{\"items\": [\"a\", \"a\", \"b\", \"a\"]}");
+        Files.writeString(tempDir.resolve("branch.md"), "Process INPUT");
+        Workflow workflow = parser.parse(Files.writeString(tempDir.resolve("workflow.xml"), """
+            <pml-workflow>
+                <parallel src="items.txt" bindResultType="items">
+                    <sequence><prompt src="branch.md" bindResultExp="$get()"/></sequence>
+                </parallel>
+            </pml-workflow>
+            """));
+        AtomicInteger calls = new AtomicInteger();
+        // Holds the first answer until the branches of both items are in flight
+        CountDownLatch inFlight = new CountDownLatch(2);
+        ModelCache cache = new ModelCache(1024);
+        ModelClient modelClient = (model, repository, prompt) -> {
+            calls.incrementAndGet();
+            if (!prompt.startsWith("Process")) {
+                return prompt;
+            }
+            inFlight.countDown();
+            assertThat(inFlight.await(10, TimeUnit.SECONDS)).isTrue();
+            return prompt.toUpperCase(Locale.ROOT);
+        };
+
+        // When
+        List<PromptResult> results = new WorkflowEngine(cache.cached(modelClient), renderer).run(workflow);
+
+        // Then
+        assertThat(results).extracting(PromptResult::response)
+            .containsExactly("{\"items\": [\"a\", \"a\", \"b\", \"a\"]}", "PROCESS A", "PROCESS A", "PROCESS B", "PROCESS A");
+        assertThat(calls).hasValue(3);
+        assertThat(cache.hits()).isEqualTo(2);
+        assertThat(cache.format()).contains("calls=5", "hit-rate=40.0%");
+    }
+
+    @Test
+    @DisplayName("Should answer from the cache directory of a previous run")
+    void cached_withCacheDirectory_shouldNotCallTheModelAgain(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path directory = tempDir.resolve("answers");
+        new ModelCache(1024, directory).cached((model, repository, prompt) -> "# Answer")
+            .complete("default", null, "Question");
+        ModelCache cache = new ModelCache(1024, directory);
+
+        // When
+        String sameModel = cache.cached((model, repository, prompt) -> "# Other").complete("default", null, "Question");
+        String otherModel = cache.cached((model, repository, prompt) -> "# Other").complete("large", null, "Question");
+
+        // Then
+        assertThat(sameModel).isEqualTo("# Answer");
+        assertThat(otherModel).isEqualTo("# Other");
+        assertThat(cache.format()).startsWith("model-cache calls=2 hits=1 (memory=0 disk=1 coalesced=0) misses=1");
+    }
+
+    @Test
+    @DisplayName("Should not cache failed calls")
+    void cached_whenTheModelFails_shouldCallItAgain() throws Exception {
+        // Given
+        ModelCache cache = new ModelCache(1024);
+        assertThatThrownBy(() -> cache.cached((model, repository, prompt) -> {
+            throw new IOException("Connection reset");
+        }).complete("default", null, "Question")).isInstanceOf(IOException.class);
+
+        // When
+        String answer = cache.cached((model, repository, prompt) -> "# Answer").complete("default", null, "Question");
+
+        // Then
+        assertThat(answer).isEqualTo("# Answer");
+        assertThat(cache.misses()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for a concurrent identical call when the waiting branch times out")
+    void cached_withTimedOutFollower_shouldReturnPromptly() throws Exception {
+        // Given
+        ModelCache cache = new ModelCache(1024);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch leaderCalling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ModelClient modelClient = cache.cached((model, repository, prompt) -> {
+            calls.incrementAndGet();
+            leaderCalling.countDown();
+            assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+            return "# Answer";
+        });
+        CountDownLatch followerDone = new CountDownLatch(1);
+        AtomicReference<Throwable> followerFailure = new AtomicReference<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> modelClient.complete("default", null, "Question"));
+            assertThat(leaderCalling.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<String> follower = executor.submit(() -> {
+                try {
+                    return modelClient.complete("default", null, "Question");
+                } catch (Exception e) {
+                    followerFailure.set(e);
+                    throw e;
+                } finally {
+                    followerDone.countDown();
+                }
+            });
+
+            // When
+            // The way WorkflowEngine enforces a sequence timeout
+            assertThatThrownBy(() -> follower.get(100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            follower.cancel(true);
+
+            // Then
+            assertThat(followerDone.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(followerFailure.get()).isInstanceOf(InterruptedException.class);
+            assertThat(leader.isDone()).isFalse();
+            release.countDown();
+            assertThat(leader.get()).isEqualTo("# Answer");
+        }
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should give the failure of a call to the concurrent identical calls instead of repeating it")
+    void cached_whenTheLeaderFails_shouldShareTheFailure() throws Exception {
+        // Given
+        ModelCache cache = new ModelCache(1024);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ModelClient modelClient = cache.cached((model, repository, prompt) -> {
+            calls.incrementAndGet();
+            assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+            throw new IOException("Connection reset");
+        });
+        List<Future<String>> answers = new ArrayList<>();
+
+        // When
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 4; i++) {
+                answers.add(executor.submit(() -> modelClient.complete("default", null, "Question")));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> answer : answers) {
+                assertThatThrownBy(answer::get).hasRootCauseInstanceOf(IOException.class)
+                    .hasRootCauseMessage("Connection reset");
+            }
+        }
+
+        // Then
+        assertThat(calls).hasValue(1);
+        assertThat(cache.misses()).isEqualTo(1);
+    }
+}
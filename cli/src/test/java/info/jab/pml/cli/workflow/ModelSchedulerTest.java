@@ -0,0 +1,104 @@
+package info.jab.pml.cli.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("ModelScheduler tests")
+class ModelSchedulerTest {
+
+    @Test
+    @DisplayName("Should keep the calls in flight to a model within its concurrency limit")
+    void scheduled_withMaxConcurrency_shouldQueueTheOtherCalls() throws Exception {
+        // Given
+        ModelScheduler scheduler = new ModelScheduler(
+            ModelScheduler.Limits.UNLIMITED, Map.of("local", new ModelScheduler.Limits(2, 0)));
+        AtomicInteger inFlight = new AtomicInteger();
+        LongAccumulator maxInFlight = new LongAccumulator(Math::max, 0);
+        ModelClient modelClient = scheduler.scheduled((model, repository, prompt) -> {
+            maxInFlight.accumulate(inFlight.incrementAndGet());
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            return prompt;
+        });
+
+        // When
+        List<Future<String>> answers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                String prompt = "Prompt " + i;
+                answers.add(executor.submit(() -> modelClient.complete("local", null, prompt)));
+            }
+        }
+
+        // Then
+        assertThat(answers).allMatch(Future::isDone);
+        assertThat(maxInFlight.get()).isEqualTo(2);
+        assertThat(scheduler.calls("local")).isEqualTo(8);
+        assertThat(scheduler.maxQueueDepth("local")).isPositive();
+        assertThat(scheduler.queueDepth("local")).isZero();
+        assertThat(scheduler.waitNanos("local")).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should spread calls beyond the burst at the configured rate")
+    void scheduled_withRateLimit_shouldDelayCallsBeyondTheBurst() throws Exception {
+        // Given
+        ModelScheduler scheduler = new ModelScheduler(new ModelScheduler.Limits(0, 20), Map.of());
+        ModelClient modelClient = scheduler.scheduled((model, repository, prompt) -> prompt);
+
+        // When
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 30; i++) {
+                executor.submit(() -> modelClient.complete("remote", null, "Prompt"));
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Then
+        // 20 calls fit the burst, the other 10 take half a second at 20 calls per second
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(400));
+        assertThat(scheduler.calls("remote")).isEqualTo(30);
+        assertThat(scheduler.format()).startsWith("model-scheduler model=remote max-concurrency=0 calls-per-second=20.00 calls=30");
+    }
+
+    @Test
+    @DisplayName("Should not queue calls to models without limits")
+    void scheduled_withoutLimits_shouldNotWait() throws Exception {
+        // Given
+        ModelScheduler scheduler = new ModelScheduler(
+            ModelScheduler.Limits.UNLIMITED, Map.of("local", new ModelScheduler.Limits(1, 0)));
+
+        // When
+        String answer = scheduler.scheduled((model, repository, prompt) -> "# Answer").complete("remote", null, "Prompt");
+
+        // Then
+        assertThat(answer).isEqualTo("# Answer");
+        assertThat(scheduler.limited()).isTrue();
+        assertThat(scheduler.maxQueueDepth("remote")).isZero();
+        assertThat(scheduler.calls("local")).isZero();
+    }
+
+    @Test
+    void limits_withNegativeValues_shouldFail() {
+        // When / Then
+        assertThatThrownBy(() -> new ModelScheduler.Limits(-1, 0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxConcurrency must not be negative: -1");
+        assertThatThrownBy(() -> new ModelScheduler.Limits(0, Double.NaN))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("callsPerSecond");
+    }
+}
@@ -0,0 +1,179 @@
+package info.jab.pml.cli.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("WorkflowEngine tests")
+class WorkflowEngineTest {
+
+    private final WorkflowParser parser = new WorkflowParser(new PmlUtils());
+    private final PromptRenderer renderer = new PromptRenderer(RenderEngine.STAX);
+
+    @Test
+    @DisplayName("Should run the prompts of a sequence in order")
+    void run_withSequenceSample_shouldAnswerEveryPromptInOrder() throws Exception {
+        // Given
+        Workflow workflow = parser.parse(sample("/samples/pml-workflow/pi/workflow-pi.xml"));
+        WorkflowEngine engine = new WorkflowEngine(ModelClient.echo(), renderer);
+
+        // When
+        List<PromptResult> results = engine.run(workflow);
+
+        // Then
+        assertThat(results).extracting(PromptResult::src)
+            .containsExactly("prompt1.xml", "prompt2.xml", "prompt3.xml", "prompt4.xml");
+        assertThat(results.getFirst().response()).contains("## Goal");
+    }
+
+    @Test
+    @DisplayName("Should bind every listed item to a parallel branch")
+    void run_withParallelSample_shouldBindItems() throws Exception {
+        // Given
+        Workflow workflow = parser.parse(sample("/samples/pml-workflow/cis194/workflow-cis194.xml"));
+        WorkflowEngine engine = new WorkflowEngine((model, repository, prompt) ->
+            prompt.contains("Homework number") ? prompt : "{\"List_Integer\": [1, 2, 3, 4]}", renderer);
+
+        // When
+        List<PromptResult> results = engine.run(workflow);
+
+        // Then
+        assertThat(results).extracting(PromptResult::src)
+            .containsExactly("prompt-toc.xml", "prompt2.xml", "prompt2.xml", "prompt2.xml", "prompt2.xml");
+        assertThat(results).extracting(PromptResult::input).containsExactly(null, "1", "2", "3", "4");
+        assertThat(results.get(3).response()).contains("<input>3</input>");
+    }
+
+    @Test
+    @DisplayName("Should run parallel branches concurrently")
+    void run_withParallelBranches_shouldOverlapModelCalls(@TempDir Path tempDir) throws Exception {
+        // Given
+        Files.writeString(tempDir.resolve("items.txt"), "{\"items\": [\"a\", \"b\", \"c\"]}");
+        Files.writeString(tempDir.resolve("branch.md"), "Process INPUT");
+        Workflow workflow = parser.parse(Files.writeString(tempDir.resolve("workflow.xml"), """
+            <pml-workflow>
+                <parallel src="items.txt" bindResultType="items">
+                    <sequence><prompt src="branch.md" bindResultExp="$get()"/></sequence>
+                </parallel>
+            </pml-workflow>
+            """));
+        // Every branch waits until all three are in flight
+        CountDownLatch inFlight = new CountDownLatch(3);
+        WorkflowEngine engine = new WorkflowEngine((model, repository, prompt) -> {
+            if (!prompt.startsWith("Process")) {
+                return prompt;
+            }
+            inFlight.countDown();
+            assertThat(inFlight.await(10, TimeUnit.SECONDS)).isTrue();
+            return prompt.toUpperCase(Locale.ROOT);
+        }, renderer);
+
+        // When
+        List<PromptResult> results = engine.run(workflow);
+
+        // Then
+        assertThat(results).extracting(PromptResult::response)
+            .containsExactly("{\"items\": [\"a\", \"b\", \"c\"]}", "PROCESS A", "PROCESS B", "PROCESS C");
+    }
+
+    @Test
+    @DisplayName("Should run the fallback prompt when a sequence times out")
+    void run_withTimedOutSequence_shouldRunFallback(@TempDir Path tempDir) throws Exception {
+        // Given
+        Files.writeString(tempDir.resolve("slow.md"), "slow");
+        Files.writeString(tempDir.resolve("fallback.md"), "fallback");
+        Workflow workflow = parser.parse(Files.writeString(tempDir.resolve("workflow.xml"), """
+            <pml-workflow>
+                <sequence timeout="100ms" fallback-src="fallback.md"><prompt src="slow.md"/></sequence>
+            </pml-workflow>
+            """));
+        Set<String> interrupted = ConcurrentHashMap.newKeySet();
+        WorkflowEngine engine = new WorkflowEngine((model, repository, prompt) -> {
+            if ("slow".equals(prompt)) {
+                try {
+                    Thread.sleep(Duration.ofSeconds(30));
+                } catch (InterruptedException e) {
+                    interrupted.add(prompt);
+                    throw e;
+                }
+            }
+            return prompt;
+        }, renderer);
+
+        // When
+        List<PromptResult> results = engine.run(workflow);
+
+        // Then
+        assertThat(results).containsExactly(new PromptResult("fallback.md", null, "default", "fallback", true));
+        assertThat(interrupted).containsExactly("slow");
+    }
+
+    @Test
+    @DisplayName("Should fail the run when a sequence without fallback fails")
+    void run_withMissingPromptAndNoFallback_shouldThrow(@TempDir Path tempDir) throws Exception {
+        // Given
+        Workflow workflow = parser.parse(Files.writeString(tempDir.resolve("workflow.xml"), """
+            <pml-workflow>
+                <sequence><prompt src="missing.md"/></sequence>
+            </pml-workflow>
+            """));
+        WorkflowEngine engine = new WorkflowEngine(ModelClient.echo(), renderer);
+
+        // When / Then
+        assertThatThrownBy(() -> engine.run(workflow))
+            .isInstanceOf(WorkflowException.class)
+            .hasMessageContaining("Could not read prompt missing.md");
+    }
+
+    @Test
+    @DisplayName("Should extract quoted and unquoted items from the bound list")
+    void items_withJsonList_shouldStripQuotes() throws Exception {
+        // When
+        List<String> items = WorkflowEngine.items("<result>{\"List_Integer\": [1, \"two\" , 3]}</result>", "List_Integer");
+
+        // Then
+        assertThat(items).containsExactly("1", "two", "3");
+    }
+
+    @Test
+    @DisplayName("Should keep commas and brackets inside quoted items and decode their escapes")
+    void items_withQuotedSeparators_shouldKeepThemInTheItem() throws Exception {
+        // When
+        List<String> items = WorkflowEngine.items(
+            "{\"Files\": [\"a, b.java\", \"c[] d.java\", \"say \\\"hi\\\"\\u0021\"], \"Other\": [1]}", "Files");
+
+        // Then
+        assertThat(items).containsExactly("a, b.java", "c[] d.java", "say \"hi\"!");
+    }
+
+    @Test
+    @DisplayName("Should reject a bound list that is not a valid JSON array")
+    void items_withMalformedList_shouldThrow() {
+        // When / Then
+        assertThatThrownBy(() -> WorkflowEngine.items("{\"Files\": [\"a.java\" \"b.java\"]}", "Files"))
+            .isInstanceOf(WorkflowException.class)
+            .hasMessageContaining("\"Files\" list of the answer is not a valid JSON array");
+        assertThatThrownBy(() -> WorkflowEngine.items("{\"Files\": [\"a.java\", ", "Files"))
+            .isInstanceOf(WorkflowException.class)
+            .hasMessageContaining("unterminated list");
+    }
+
+    private Path sample(String resource) throws Exception {
+        return Paths.get(getClass().getResource(resource).toURI());
+    }
+}
@@ -0,0 +1,133 @@
+package info.jab.pml.cli.workflow;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("WorkflowJournal tests")
+class WorkflowJournalTest {
+
+    private final WorkflowParser parser = new WorkflowParser(new PmlUtils());
+    private final PromptRenderer renderer = new PromptRenderer(RenderEngine.STAX);
+
+    @Test
+    @DisplayName("Should resume a failed run without calling the model for completed prompts")
+    void journaled_afterFailedRun_shouldOnlyCallTheModelForMissingAnswers(@TempDir Path tempDir) throws Exception {
+        // Given
+        Workflow workflow = parser.parse(
+            Paths.get(getClass().getResource("/samples/pml-workflow/pi/workflow-pi.xml").toURI()));
+        Path journalFile = tempDir.resolve("run.journal");
+        AtomicInteger calls = new AtomicInteger();
+        ModelClient flaky = (model, repository, prompt) -> {
+            if (calls.incrementAndGet() == 4) {
+                throw new IOException("Connection reset");
+            }
+            return "answer " + prompt.length();
+        };
+        try (WorkflowJournal journal = WorkflowJournal.open(journalFile)) {
+            WorkflowEngine engine = new WorkflowEngine(journal.journaled(flaky), renderer);
+            assertThatThrownBy(() -> engine.run(workflow)).isInstanceOf(WorkflowException.class);
+        }
+
+        // When
+        List<PromptResult> results;
+        long replayed;
+        try (WorkflowJournal journal = WorkflowJournal.open(journalFile)) {
+            results = new WorkflowEngine(journal.journaled(flaky), renderer).run(workflow);
+            replayed = journal.replayed();
+        }
+
+        // Then
+        assertThat(results).hasSize(4);
+        assertThat(replayed).isEqualTo(3);
+        assertThat(calls).hasValue(5);
+    }
+
+    @Test
+    @DisplayName("Should call the model again when the rendered input changes")
+    void journaled_withChangedInput_shouldNotReplay(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path journalFile = tempDir.resolve("run.journal");
+        try (WorkflowJournal journal = WorkflowJournal.open(journalFile)) {
+            journal.journaled((model, repository, prompt) -> "first").complete("default", null, "Process 1");
+        }
+
+        // When
+        String sameInput;
+        String otherItem;
+        String otherRepository;
+        try (WorkflowJournal journal = WorkflowJournal.open(journalFile)) {
+            ModelClient client = journal.journaled((model, repository, prompt) -> "second");
+            sameInput = client.complete("default", null, "Process 1");
+            otherItem = client.complete("default", null, "Process 2");
+            otherRepository = client.complete("default", "https://github.com/jabrena/pml", "Process 1");
+        }
+
+        // Then
+        assertThat(sameInput).isEqualTo("first");
+        assertThat(otherItem).isEqualTo("second");
+        assertThat(otherRepository).isEqualTo("second");
+    }
+
+    @Test
+    @DisplayName("Should drop a record torn by a crash and keep appending after the last complete one")
+    void open_withTornRecord_shouldDiscardIt(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path journalFile = tempDir.resolve("run.journal");
+        try (WorkflowJournal journal = WorkflowJournal.open(journalFile, 1, WorkflowJournal.DEFAULT_SYNC_INTERVAL)) {
+            journal.journaled((model, repository, prompt) -> "kept\nanswer").complete("default", null, "one");
+        }
+        Files.writeString(journalFile, "0123456789abcdef", UTF_8, StandardOpenOption.APPEND);
+
+        // When
+        String answer;
+        try (WorkflowJournal journal = WorkflowJournal.open(journalFile)) {
+            answer = journal.journaled((model, repository, prompt) -> "recomputed").complete("default", null, "one");
+            journal.journaled((model, repository, prompt) -> "new").complete("default", null, "two");
+        }
+
+        // Then
+        assertThat(answer).isEqualTo("kept\nanswer");
+        try (WorkflowJournal journal = WorkflowJournal.open(journalFile)) {
+            assertThat(journal.size()).isEqualTo(2);
+        }
+        assertThat(Files.readAllLines(journalFile, UTF_8)).hasSize(3).doesNotContain("0123456789abcdef");
+    }
+
+    @Test
+    void open_withOtherFile_shouldFail(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("notes.txt"), "Not a journal\nLast line without newline");
+
+        // When / Then
+        assertThatThrownBy(() -> WorkflowJournal.open(file))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Not a workflow journal");
+        assertThat(Files.readString(file, UTF_8)).isEqualTo("Not a journal\nLast line without newline");
+    }
+
+    @Test
+    void open_withOtherFileWithoutNewline_shouldLeaveItUnchanged(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("settings.json"), "{\"model\": \"default\"}");
+
+        // When / Then
+        assertThatThrownBy(() -> WorkflowJournal.open(file))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Not a workflow journal");
+        assertThat(Files.readString(file, UTF_8)).isEqualTo("{\"model\": \"default\"}");
+    }
+}
@@ -0,0 +1,112 @@
+package info.jab.pml.cli.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import info.jab.pml.cli.xml.PmlUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+@DisplayName("WorkflowParser tests")
+class WorkflowParserTest {
+
+    private final WorkflowParser parser = new WorkflowParser(new PmlUtils());
+
+    @Test
+    @DisplayName("Should parse a sequence with its timeout and fallback")
+    void parse_withSequenceSample_shouldReadAttributes() throws Exception {
+        // Given
+        Path workflowFile = sample("/samples/pml-workflow/hello-world/workflow-hello-world.xml");
+
+        // When
+        Workflow workflow = parser.parse(workflowFile);
+
+        // Then
+        assertThat(workflow.root()).isInstanceOf(Workflow.Sequence.class);
+        Workflow.Sequence sequence = (Workflow.Sequence) workflow.root();
+        assertThat(sequence.model()).isEqualTo("default");
+        assertThat(sequence.repository()).isEqualTo("https://github.com/jabrena/wjax25-demos");
+        assertThat(sequence.timeout()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(sequence.fallbackSrc()).isEqualTo("fallback-prompt.xml");
+        assertThat(sequence.prompts()).extracting(Workflow.Prompt::src).containsExactly("prompt1.xml", "prompt2.md");
+    }
+
+    @Test
+    @DisplayName("Should parse a parallel block with its bound sequences")
+    void parse_withParallelSample_shouldReadBranches() throws Exception {
+        // Given
+        Path workflowFile = sample("/samples/pml-workflow/cis194/workflow-cis194.xml");
+
+        // When
+        Workflow workflow = parser.parse(workflowFile);
+
+        // Then
+        assertThat(workflow.root()).isInstanceOf(Workflow.Parallel.class);
+        Workflow.Parallel parallel = (Workflow.Parallel) workflow.root();
+        assertThat(parallel.src()).isEqualTo("prompt-toc.xml");
+        assertThat(parallel.bindResultType()).isEqualTo("List_Integer");
+        assertThat(parallel.sequences()).hasSize(1);
+        assertThat(parallel.sequences().getFirst().prompts())
+            .containsExactly(new Workflow.Prompt("prompt2.xml", true));
+    }
+
+    @Test
+    @DisplayName("Should reject a document that is not a valid workflow")
+    void parse_withInvalidWorkflow_shouldThrow(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path workflowFile = Files.writeString(tempDir.resolve("workflow.xml"),
+            "<pml-workflow><sequence/></pml-workflow>");
+
+        // When / Then
+        assertThatThrownBy(() -> parser.parse(workflowFile))
+            .isInstanceOf(WorkflowException.class)
+            .hasMessageContaining("Invalid workflow");
+    }
+
+    @Test
+    @DisplayName("Should reject binding expressions other than $get()")
+    void parse_withUnsupportedBindExpression_shouldThrow(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path workflowFile = Files.writeString(tempDir.resolve("workflow.xml"), """
+            <pml-workflow>
+                <sequence><prompt src="prompt.md" bindResultExp="$first()"/></sequence>
+            </pml-workflow>
+            """);
+
+        // When / Then
+        assertThatThrownBy(() -> parser.parse(workflowFile))
+            .isInstanceOf(WorkflowException.class)
+            .hasMessageContaining("Unsupported bindResultExp");
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource({"500ms, PT0.5S", "30s, PT30S", "5m, PT5M", "1h, PT1H", "PT2M, PT2M"})
+    @DisplayName("Should parse timeouts with units and ISO-8601 durations")
+    void parseTimeout_withSupportedFormats_shouldReturnDuration(String timeout, String expected) throws Exception {
+        // When
+        Duration duration = WorkflowParser.parseTimeout(timeout);
+
+        // Then
+        assertThat(duration).isEqualTo(Duration.parse(expected));
+    }
+
+    @Test
+    @DisplayName("Should reject timeouts without a unit")
+    void parseTimeout_withoutUnit_shouldThrow() {
+        // When / Then
+        assertThatThrownBy(() -> WorkflowParser.parseTimeout("5"))
+            .isInstanceOf(WorkflowException.class)
+            .hasMessageContaining("Invalid timeout '5'");
+    }
+
+    private Path sample(String resource) throws Exception {
+        return Paths.get(getClass().getResource(resource).toURI());
+    }
+}
@@ -0,0 +1,96 @@
+package info.jab.pml.cli.workflow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("WorkflowPlanner tests")
+class WorkflowPlannerTest {
+
+    private final WorkflowParser parser = new WorkflowParser(new PmlUtils());
+    private final WorkflowPlanner planner = new WorkflowPlanner(new PromptRenderer(RenderEngine.STAX));
+
+    @Test
+    @DisplayName("Should render every prompt of a parallel sample and put the source first on the critical path")
+    void plan_withParallelSample_shouldRenderEveryPrompt() throws Exception {
+        // Given
+        Workflow workflow = parser.parse(
+            Paths.get(getClass().getResource("/samples/pml-workflow/cis194/workflow-cis194.xml").toURI()));
+
+        // When
+        WorkflowPlan plan = planner.plan(workflow);
+
+        // Then
+        assertThat(plan.valid()).isTrue();
+        assertThat(plan.prompts()).extracting(WorkflowPlan.PlannedPrompt::src)
+            .containsExactly("prompt-toc.xml", "prompt2.xml");
+        assertThat(plan.prompts()).allMatch(prompt -> prompt.characters() > 0);
+        assertThat(plan.steps().get(1)).isEqualTo(new WorkflowPlan.Step("prompt2.xml",
+            plan.prompts().get(1).file(), "default", "prompt-toc.xml", true, false));
+        assertThat(plan.criticalPath()).extracting(WorkflowPlan.Step::src)
+            .containsExactly("prompt-toc.xml", "prompt2.xml");
+    }
+
+    @Test
+    @DisplayName("Should render a prompt referenced many times once and pick the longest branch")
+    void plan_withRepeatedPrompts_shouldDeduplicate(@TempDir Path tempDir) throws Exception {
+        // Given
+        Files.writeString(tempDir.resolve("items.txt"), "{\"items\": [\"a\"]}");
+        Files.writeString(tempDir.resolve("review.md"), "Review INPUT");
+        Files.writeString(tempDir.resolve("fix.md"), "Fix INPUT");
+        Workflow workflow = parser.parse(Files.writeString(tempDir.resolve("workflow.xml"), """
+            <pml-workflow>
+                <parallel src="items.txt" bindResultType="items">
+                    <sequence model="fast"><prompt src="review.md"/></sequence>
+                    <sequence model="slow" fallback-src="./review.md">
+                        <prompt src="review.md"/>
+                        <prompt src="fix.md" bindResultExp="$get()"/>
+                    </sequence>
+                </parallel>
+            </pml-workflow>
+            """));
+
+        // When
+        WorkflowPlan plan = planner.plan(workflow);
+
+        // Then
+        assertThat(plan.steps()).hasSize(5);
+        assertThat(plan.prompts()).extracting(WorkflowPlan.PlannedPrompt::src, WorkflowPlan.PlannedPrompt::references)
+            .containsExactly(
+                tuple("items.txt", 1),
+                tuple("review.md", 3),
+                tuple("fix.md", 1));
+        assertThat(plan.criticalPath()).extracting(WorkflowPlan.Step::src, WorkflowPlan.Step::model)
+            .containsExactly(
+                tuple("items.txt", "default"),
+                tuple("review.md", "slow"),
+                tuple("fix.md", "slow"));
+    }
+
+    @Test
+    @DisplayName("Should report every missing or invalid prompt instead of stopping at the first")
+    void plan_withMissingPrompts_shouldReportEachFailure() throws Exception {
+        // Given
+        // prompt2.md and fallback-prompt.xml are not part of the sample
+        Workflow workflow = parser.parse(
+            Paths.get(getClass().getResource("/samples/pml-workflow/hello-world/workflow-hello-world.xml").toURI()));
+
+        // When
+        WorkflowPlan plan = planner.plan(workflow);
+
+        // Then
+        assertThat(plan.valid()).isFalse();
+        assertThat(plan.prompts()).filteredOn(prompt -> !prompt.valid())
+            .extracting(WorkflowPlan.PlannedPrompt::src)
+            .containsExactly("prompt2.md", "fallback-prompt.xml");
+        assertThat(plan.steps().getLast().fallback()).isTrue();
+    }
+}
@@ -0,0 +1,101 @@
+package info.jab.pml.cli.xml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.w3c.dom.Document;
+
+@DisplayName("CompiledTemplate tests")
+class CompiledTemplateTest {
+
+    private final PmlUtils pmlUtils = new PmlUtils();
+
+    @ParameterizedTest
+    @EnumSource(RenderEngine.class)
+    void render_shouldMatchTemplatingTheDocument(RenderEngine engine) throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        List<String> variables = List.of("title", "role", "MESSAGE");
+        CompiledTemplate template = pmlUtils.compileTemplate(pmlUtils.parse(pmlFile), Map.of(), variables, engine);
+        List<Map<String, String>> rows = List.of(
+            Map.of("title", "New   Title", "role", "  A\n  reviewer ", "MESSAGE", "Hello  World"),
+            Map.of("title", "T", "role", "r & <b>", "MESSAGE", ""));
+
+        // When / Then
+        assertThat(template).isNotNull();
+        assertThat(template.slotCount()).isEqualTo(3);
+        for (Map<String, String> row : rows) {
+            Document pmlDocument = pmlUtils.parse(pmlFile);
+            pmlUtils.applyTemplates(pmlDocument, row);
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            pmlUtils.convertToMarkdown(pmlDocument, expected, engine);
+            assertThat(template.render(row)).isEqualTo(expected.toString(UTF_8));
+        }
+    }
+
+    @Test
+    void compileTemplate_withFixedValues_shouldApplyThemOnce() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/pml-hello-world-template-multiple.xml").toURI());
+
+        // When
+        CompiledTemplate template = pmlUtils.compileTemplate(
+            pmlUtils.parse(pmlFile), Map.of("CHANNEL", "Console"), List.of("MESSAGE"), RenderEngine.XSLT);
+
+        // Then
+        assertThat(template).isNotNull();
+        assertThat(template.variables()).containsExactly("MESSAGE");
+        assertThat(template.render(Map.of("MESSAGE", "CHANNEL text", "CHANNEL", "ignored")))
+            .contains("Print CHANNEL text in the Console");
+    }
+
+    @Test
+    void compileTemplate_withInvalidDocument_shouldReturnNull() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/invalid-pml.xml").toURI());
+
+        // When
+        CompiledTemplate template = pmlUtils.compileTemplate(
+            pmlUtils.parse(pmlFile), Map.of(), List.of("goal"), RenderEngine.XSLT);
+
+        // Then
+        assertThat(template).isNull();
+    }
+
+    @Test
+    void render_withMissingValue_shouldFail() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        CompiledTemplate template = Objects.requireNonNull(pmlUtils.compileTemplate(
+            pmlUtils.parse(pmlFile), Map.of(), List.of("role", "title"), RenderEngine.STAX));
+
+        // When / Then
+        assertThatThrownBy(() -> template.render(Map.of("role", "assistant")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Missing value for template variable: title");
+    }
+
+    @Test
+    void compileTemplate_withDuplicateVariable_shouldFail() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        Document pmlDocument = pmlUtils.parse(pmlFile);
+
+        // When / Then
+        assertThatThrownBy(() -> pmlUtils.compileTemplate(pmlDocument, Map.of(), List.of("role", "role"), RenderEngine.XSLT))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Duplicate template variable: role");
+    }
+}
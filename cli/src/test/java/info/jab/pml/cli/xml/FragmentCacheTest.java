@@ -0,0 +1,90 @@
+package info.jab.pml.cli.xml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("FragmentCache tests")
+class FragmentCacheTest {
+
+    @Test
+    @DisplayName("Should read a fragment once and serve it from the cache afterwards")
+    void get_twice_shouldReadFileOnce(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("fragment.md"), "content");
+        FragmentCache cache = new FragmentCache(1024);
+
+        // When
+        FragmentCache.Fragment first = cache.get(file);
+        FragmentCache.Fragment second = cache.get(tempDir.resolve(".").resolve("fragment.md"));
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(cache.misses()).isEqualTo(1);
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(first.newInputStream().readAllBytes()).isEqualTo("content".getBytes(UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should read a fragment again once it changed on disk")
+    void get_afterModification_shouldReadFileAgain(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("fragment.md"), "before");
+        FragmentCache cache = new FragmentCache(1024);
+        String before = cache.get(file).hash();
+
+        // When
+        Files.writeString(file, "after!");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+        FragmentCache.Fragment fragment = cache.get(file);
+
+        // Then
+        assertThat(new String(fragment.newInputStream().readAllBytes(), UTF_8)).isEqualTo("after!");
+        assertThat(fragment.hash()).isNotEqualTo(before).hasSize(64);
+        assertThat(cache.misses()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used fragments beyond the size bound")
+    void get_beyondMaxBytes_shouldEvictLeastRecentlyUsed(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path first = Files.writeString(tempDir.resolve("first.md"), "12345");
+        Path second = Files.writeString(tempDir.resolve("second.md"), "12345");
+        Path third = Files.writeString(tempDir.resolve("third.md"), "12345");
+        FragmentCache cache = new FragmentCache(10);
+
+        // When
+        cache.get(first);
+        cache.get(second);
+        cache.get(first);
+        cache.get(third);
+        cache.get(first);
+        cache.get(second);
+
+        // Then
+        assertThat(cache.cachedBytes()).isEqualTo(10);
+        // Reading third evicted second, the least recently used one, so reading second again missed
+        assertThat(cache.hits()).isEqualTo(2);
+        assertThat(cache.misses()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should report missing fragments")
+    void get_withMissingFile_shouldThrow(@TempDir Path tempDir) {
+        // Given
+        FragmentCache cache = new FragmentCache(1024);
+
+        // When / Then
+        assertThatThrownBy(() -> cache.get(tempDir.resolve("missing.md")))
+            .isInstanceOf(NoSuchFileException.class);
+    }
+}
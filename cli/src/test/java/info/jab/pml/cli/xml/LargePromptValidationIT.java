@@ -0,0 +1,82 @@
+package info.jab.pml.cli.xml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Validates a generated few-shot prompt of {@value #PROMPT_BYTES} bytes.
+ *
+ * <p>Failsafe only runs this test with the {@code large-prompt} profile, with a heap much smaller
+ * than the prompt, so it fails with an {@link OutOfMemoryError} if validation ever buffers the
+ * whole document.</p>
+ */
+@DisplayName("Large prompt validation integration tests")
+class LargePromptValidationIT {
+
+    private static final long PROMPT_BYTES = 500L * 1024 * 1024;
+
+    @Test
+    @DisplayName("A 500 MB prompt should validate from a file and from a channel with a small heap")
+    void validate_withHugePrompt_shouldUseBoundedMemory(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path prompt = writeFewShotPrompt(tempDir.resolve("few-shot.xml"), PROMPT_BYTES);
+        PmlUtils pmlUtils = new PmlUtils();
+
+        // When
+        boolean validFromFile = pmlUtils.validate(prompt);
+        boolean validFromChannel;
+        try (FileChannel channel = FileChannel.open(prompt)) {
+            validFromChannel = pmlUtils.validate(channel);
+        }
+
+        // Then
+        assertThat(Runtime.getRuntime().maxMemory()).isLessThan(Files.size(prompt));
+        assertThat(validFromFile).isTrue();
+        assertThat(validFromChannel).isTrue();
+    }
+
+    private static Path writeFewShotPrompt(Path file, long bytes) throws IOException {
+        String codeBlock = "            log(\"few-shot example line\");\n".repeat(40);
+        try (Writer writer = Files.newBufferedWriter(file, UTF_8)) {
+            writer.write("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <prompt>
+                  <goal>Answer like the examples</goal>
+                  <examples>
+                """);
+            long written = 0;
+            for (int number = 1; written < bytes; number++) {
+                String example = String.format(Locale.ROOT, """
+                        <example number="%d">
+                          <example-header>
+                            <example-title>Example %d</example-title>
+                          </example-header>
+                          <code-examples>
+                            <good-example>
+                              <code-block language="java">
+                    %s          </code-block>
+                            </good-example>
+                          </code-examples>
+                        </example>
+                    """, number, number, codeBlock);
+                writer.write(example);
+                written += example.length();
+            }
+            writer.write("""
+                  </examples>
+                </prompt>
+                """);
+        }
+        return file;
+    }
+}
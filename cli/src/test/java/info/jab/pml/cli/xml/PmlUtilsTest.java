@@ -0,0 +1,210 @@
+package info.jab.pml.cli.xml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import info.jab.pml.cli.metrics.Phase;
+import info.jab.pml.cli.metrics.PhaseStatistics;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+
+@DisplayName("PmlUtils tests")
+class PmlUtilsTest {
+
+    private final PmlUtils pmlUtils = new PmlUtils();
+
+    @Test
+    void convertToMarkdown_withParsedDocument_shouldMatchStringPipeline() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        Map<String, String> templateMap = Map.of("title", "New Title", "goal", "New Goal");
+        String processedPml = pmlUtils.applyTemplates(Files.readString(pmlFile, UTF_8), templateMap);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        pmlUtils.convertToMarkdown(processedPml, new PrintStream(expected, true, UTF_8));
+
+        // When
+        Document pmlDocument = pmlUtils.parse(pmlFile);
+        pmlUtils.applyTemplates(pmlDocument, templateMap);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        boolean converted = pmlUtils.convertToMarkdown(pmlDocument, actual);
+
+        // Then
+        assertThat(converted).isTrue();
+        assertThat(actual.toString(UTF_8)).isEqualTo(expected.toString(UTF_8));
+        assertThat(actual.toString(UTF_8)).contains("New Title").contains("New Goal");
+    }
+
+    @Test
+    void validate_withParsedValidDocument_shouldReturnTrue() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+
+        // When
+        boolean valid = pmlUtils.validate(pmlUtils.parse(pmlFile));
+
+        // Then
+        assertThat(valid).isTrue();
+    }
+
+    @Test
+    void validate_withParsedInvalidDocument_shouldReturnFalse() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/invalid-pml.xml").toURI());
+
+        // When
+        boolean valid = pmlUtils.validate(pmlUtils.parse(pmlFile));
+
+        // Then
+        assertThat(valid).isFalse();
+    }
+
+    @Test
+    void validate_withChannel_shouldValidateAndLeaveChannelOpen() throws Exception {
+        // Given
+        Path validFile = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path invalidFile = Paths.get(getClass().getResource("/pml/invalid-pml.xml").toURI());
+
+        // When
+        try (FileChannel validChannel = FileChannel.open(validFile);
+             FileChannel invalidChannel = FileChannel.open(invalidFile)) {
+            boolean valid = pmlUtils.validate(validChannel);
+            boolean invalid = pmlUtils.validate(invalidChannel);
+
+            // Then
+            assertThat(valid).isTrue();
+            assertThat(invalid).isFalse();
+            assertThat(validChannel.isOpen()).isTrue();
+        }
+    }
+
+    @Test
+    void applyTemplates_withElementAndTextKeys_shouldNotRescanReplacedValues() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/pml-hello-world-template-multiple.xml").toURI());
+        Document pmlDocument = pmlUtils.parse(pmlFile);
+        Map<String, String> templateMap = Map.of("MESSAGE", "CHANNEL message", "CHANNEL", "Console");
+
+        // When
+        pmlUtils.applyTemplates(pmlDocument, templateMap);
+
+        // Then
+        assertThat(pmlDocument.getDocumentElement().getTextContent())
+            .contains("Print CHANNEL message in the Console");
+    }
+
+    @Test
+    void parse_withXInclude_shouldEmbedFragmentReadOnceThroughCache(@TempDir Path tempDir) throws Exception {
+        // Given
+        Files.createDirectories(tempDir.resolve("fragments"));
+        Files.writeString(tempDir.resolve("fragments/goal.md"), "Shared goal");
+        String pml = """
+            <prompt xmlns:xi="http://www.w3.org/2001/XInclude">
+                <title>Prompt %d</title>
+                <goal><xi:include href="fragments/goal.md" parse="text"/></goal>
+            </prompt>
+            """;
+        Path first = Files.writeString(tempDir.resolve("first.xml"), pml.formatted(1));
+        Path second = Files.writeString(tempDir.resolve("second.xml"), pml.formatted(2));
+        FragmentCache fragmentCache = new FragmentCache(FragmentCache.DEFAULT_MAX_BYTES);
+        PmlUtils cachedUtils = new PmlUtils(fragmentCache);
+
+        // When
+        Document firstDocument = cachedUtils.parse(first);
+        Document secondDocument = cachedUtils.parse(second);
+
+        // Then
+        assertThat(firstDocument.getDocumentElement().getTextContent()).contains("Shared goal");
+        assertThat(secondDocument.getDocumentElement().getTextContent()).contains("Shared goal");
+        assertThat(fragmentCache.misses()).isEqualTo(1);
+        assertThat(fragmentCache.hits()).isEqualTo(1);
+    }
+
+    @Test
+    void convertToMarkdown_withXIncludeSample_shouldRenderFragmentWithBothEngines() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/samples/pml/113-java-maven-documentation.xml").toURI());
+        ByteArrayOutputStream xslt = new ByteArrayOutputStream();
+        ByteArrayOutputStream stax = new ByteArrayOutputStream();
+
+        // When
+        boolean valid = pmlUtils.validate(pmlFile);
+        boolean xsltConverted = pmlUtils.convertToMarkdown(pmlFile, xslt, RenderEngine.XSLT);
+        boolean staxConverted = pmlUtils.convertToMarkdown(pmlFile, stax, RenderEngine.STAX);
+
+        // Then
+        assertThat(valid).isTrue();
+        assertThat(xsltConverted).isTrue();
+        assertThat(staxConverted).isTrue();
+        assertThat(xslt.toString(UTF_8)).contains("./mvnw dependency:tree");
+        assertThat(stax.toString(UTF_8)).isEqualTo(xslt.toString(UTF_8));
+    }
+
+    @Test
+    void convertToMarkdown_withPhaseMetrics_shouldRecordEveryPhaseOfTheFile() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/pml-with-multiple-fields.xml").toURI());
+        PhaseStatistics statistics = new PhaseStatistics();
+        PmlUtils measured = pmlUtils.withMetrics(statistics);
+        ByteArrayOutputStream markdown = new ByteArrayOutputStream();
+
+        // When
+        Document pmlDocument = measured.parse(pmlFile);
+        measured.applyTemplates(pmlDocument, Map.of("title", "Measured"));
+        boolean valid = measured.validate(pmlDocument);
+        boolean converted = measured.convertToMarkdown(pmlDocument, markdown, RenderEngine.STAX);
+
+        // Then
+        assertThat(valid).isTrue();
+        assertThat(converted).isTrue();
+        assertThat(statistics.count(Phase.PARSE)).isEqualTo(1);
+        assertThat(statistics.bytes(Phase.PARSE)).isEqualTo(Files.size(pmlFile));
+        assertThat(statistics.count(Phase.TEMPLATE)).isEqualTo(1);
+        assertThat(statistics.count(Phase.VALIDATE)).isEqualTo(1);
+        assertThat(statistics.bytes(Phase.TRANSFORM)).isEqualTo(markdown.size());
+        assertThat(statistics.format(1)).contains(pmlFile.toAbsolutePath().normalize().toString());
+    }
+
+    @Test
+    void validate_withPhaseMetricsAndInvalidFile_shouldCountError() throws Exception {
+        // Given
+        Path pmlFile = Paths.get(getClass().getResource("/pml/invalid-pml.xml").toURI());
+        PhaseStatistics statistics = new PhaseStatistics();
+
+        // When
+        boolean valid = pmlUtils.withMetrics(statistics).validate(pmlFile);
+
+        // Then
+        assertThat(valid).isFalse();
+        assertThat(statistics.errors(Phase.VALIDATE)).isEqualTo(1);
+    }
+
+    @Test
+    void validationReport_withPhaseMetrics_shouldRecordValidatePhase() throws Exception {
+        // Given
+        Path validFile = Paths.get(getClass().getResource("/pml/pml-hello-world.xml").toURI());
+        Path invalidFile = Paths.get(getClass().getResource("/pml/invalid-pml.xml").toURI());
+        PhaseStatistics statistics = new PhaseStatistics();
+        PmlUtils measured = pmlUtils.withMetrics(statistics);
+
+        // When
+        ValidationReport valid = measured.validationReport(validFile, 0);
+        ValidationReport invalid = measured.validationReport(invalidFile, 0);
+
+        // Then
+        assertThat(valid.valid()).isTrue();
+        assertThat(invalid.valid()).isFalse();
+        assertThat(statistics.count(Phase.VALIDATE)).isEqualTo(2);
+        assertThat(statistics.errors(Phase.VALIDATE)).isEqualTo(1);
+        assertThat(statistics.bytes(Phase.VALIDATE)).isEqualTo(Files.size(validFile) + Files.size(invalidFile));
+    }
+}
@@ -0,0 +1,202 @@
+package info.jab.pml.cli.xml;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("RenderCache tests")
+class RenderCacheTest {
+
+    @Test
+    @DisplayName("Should key by content, template entries in any order and engine")
+    void key_shouldNormalizeTemplateOrder() {
+        // Given
+        byte[] pml = "<prompt/>".getBytes(UTF_8);
+
+        // When
+        String key = RenderCache.key(pml, Map.of("role", "assistant", "goal", "Ship"), RenderEngine.XSLT);
+
+        // Then
+        assertThat(key).hasSize(64);
+        assertThat(RenderCache.key(pml, new TreeMap<>(Map.of("goal", "Ship", "role", "assistant")), RenderEngine.XSLT))
+            .isEqualTo(key);
+        assertThat(RenderCache.key(pml, Map.of("role", "assistant", "goal", "Ship"), RenderEngine.STAX))
+            .isNotEqualTo(key);
+        assertThat(RenderCache.key(pml, Map.of("role", "assistantgoal", "", "Ship"), RenderEngine.XSLT))
+            .isNotEqualTo(key);
+        assertThat(RenderCache.key("<prompt />".getBytes(UTF_8), Map.of("role", "assistant", "goal", "Ship"), RenderEngine.XSLT))
+            .isNotEqualTo(key);
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent lookups of the same key into one render")
+    void get_concurrently_shouldRenderOnce() throws Exception {
+        // Given
+        RenderCache cache = new RenderCache(1024);
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<byte[]>> results = new ArrayList<>();
+
+        // When
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get("key", () -> {
+                    renders.incrementAndGet();
+                    assertThat(release.await(10, TimeUnit.SECONDS)).isTrue();
+                    return "# Markdown".getBytes(UTF_8);
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<byte[]> result : results) {
+                assertThat(result.get()).isEqualTo("# Markdown".getBytes(UTF_8));
+            }
+        }
+
+        // Then
+        assertThat(renders).hasValue(1);
+        assertThat(cache.misses()).isEqualTo(1);
+        assertThat(cache.hits() + cache.coalesced()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entries beyond the size bound")
+    void get_beyondMaxBytes_shouldEvictLeastRecentlyUsed() {
+        // Given
+        RenderCache cache = new RenderCache(10);
+        cache.get("first", () -> "12345".getBytes(UTF_8));
+        cache.get("second", () -> "12345".getBytes(UTF_8));
+        cache.get("first", () -> "other".getBytes(UTF_8));
+
+        // When
+        cache.get("third", () -> "12345".getBytes(UTF_8));
+
+        // Then
+        assertThat(cache.get("first", () -> "other".getBytes(UTF_8))).isEqualTo("12345".getBytes(UTF_8));
+        assertThat(cache.get("second", () -> "again".getBytes(UTF_8))).isEqualTo("again".getBytes(UTF_8));
+        assertThat(cache.evictions()).isEqualTo(2);
+        assertThat(cache.cachedBytes()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should not cache failed renders")
+    void get_whenRenderFails_shouldRenderAgainNextTime() {
+        // Given
+        RenderCache cache = new RenderCache(1024);
+        cache.get("key", () -> null);
+
+        // When
+        byte[] markdown = cache.get("key", () -> "# Fixed".getBytes(UTF_8));
+
+        // Then
+        assertThat(markdown).isEqualTo("# Fixed".getBytes(UTF_8));
+        assertThat(cache.misses()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should serve documents rendered by another instance from the cache directory")
+    void get_withCacheDirectory_shouldServeFromDisk(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path directory = tempDir.resolve("cache");
+        new RenderCache(1024, directory).get("key", () -> "# On disk".getBytes(UTF_8));
+        RenderCache cache = new RenderCache(1024, directory);
+
+        // When
+        byte[] markdown = cache.get("key", () -> null);
+
+        // Then
+        assertThat(markdown).isEqualTo("# On disk".getBytes(UTF_8));
+        assertThat(cache.diskHits()).isEqualTo(1);
+        assertThat(cache.misses()).isZero();
+        assertThat(Files.readString(directory.resolve("key.md"), UTF_8)).isEqualTo("# On disk");
+        assertThat(cache.format()).startsWith("render-cache hits=0 disk-hits=1 misses=0");
+    }
+
+    @Test
+    @DisplayName("Should change the key of a file when a file it includes changes")
+    void key_withInclude_shouldDependOnIncludedFile(@TempDir Path tempDir) throws Exception {
+        // Given
+        Path fragment = Files.writeString(tempDir.resolve("goal.md"), "Before");
+        Path pmlFile = Files.writeString(tempDir.resolve("prompt.xml"), """
+            <prompt xmlns:xi="http://www.w3.org/2001/XInclude">
+              <goal><xi:include href="goal.md" parse="text"/></goal>
+            </prompt>
+            """);
+        String before = RenderCache.key(pmlFile, new FragmentCache(1024), Map.of(), RenderEngine.XSLT);
+
+        // When
+        Files.writeString(fragment, "After!");
+        String after = RenderCache.key(pmlFile, new FragmentCache(1024), Map.of(), RenderEngine.XSLT);
+
+        // Then
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("Should give the same key to the same files in another checkout")
+    void key_withIncludeInAnotherDirectory_shouldNotDependOnLocation(@TempDir Path tempDir) throws Exception {
+        // Given
+        String prompt = """
+            <prompt xmlns:xi="http://www.w3.org/2001/XInclude">
+              <goal><xi:include href="fragments/goal.md" parse="text"/></goal>
+            </prompt>
+            """;
+        for (String checkout : List.of("first", "second")) {
+            Files.createDirectories(tempDir.resolve(checkout).resolve("fragments"));
+            Files.writeString(tempDir.resolve(checkout).resolve("fragments/goal.md"), "Goal");
+            Files.writeString(tempDir.resolve(checkout).resolve("prompt.xml"), prompt);
+        }
+
+        // When
+        String first = RenderCache.key(tempDir.resolve("first/prompt.xml"), new FragmentCache(1024), Map.of(),
+            RenderEngine.XSLT);
+        String second = RenderCache.key(tempDir.resolve("second/prompt.xml"), new FragmentCache(1024), Map.of(),
+            RenderEngine.XSLT);
+
+        // Then
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    @DisplayName("Should not serve documents rendered by another build or XSLT engine from the cache directory")
+    void get_withOtherResourceVersion_shouldMissTheCacheDirectory(@TempDir Path tempDir) throws Exception {
+        // Given
+        byte[] pml = "<prompt><goal>Hello</goal></prompt>".getBytes(UTF_8);
+        ResourceVersion previous = ResourceVersion.of("0.8.0 renderer", null, null);
+        Path directory = tempDir.resolve("cache");
+        new RenderCache(1024, directory).get(RenderCache.key(pml, Map.of(), RenderEngine.STAX, previous),
+            () -> "# Old renderer".getBytes(UTF_8));
+        RenderCache cache = new RenderCache(1024, directory);
+
+        // When
+        byte[] upgraded = cache.get(RenderCache.key(pml, Map.of(), RenderEngine.STAX,
+            ResourceVersion.of("0.9.0 renderer", null, null)), () -> "# New renderer".getBytes(UTF_8));
+        byte[] otherEngine = cache.get(RenderCache.key(pml, Map.of(), RenderEngine.STAX,
+            ResourceVersion.of("0.8.0 renderer", "net.sf.saxon.TransformerFactoryImpl", null)),
+            () -> "# Saxon".getBytes(UTF_8));
+
+        // Then
+        assertThat(upgraded).isEqualTo("# New renderer".getBytes(UTF_8));
+        assertThat(otherEngine).isEqualTo("# Saxon".getBytes(UTF_8));
+        assertThat(cache.diskHits()).isZero();
+        assertThat(cache.misses()).isEqualTo(2);
+        assertThat(RenderCache.key(pml, Map.of(), RenderEngine.STAX))
+            .isEqualTo(RenderCache.key(pml, Map.of(), RenderEngine.STAX, ResourceVersion.current()));
+    }
+}
@@ -0,0 +1,76 @@
+package info.jab.pml.cli.xml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("SchemaCache tests")
+class SchemaCacheTest {
+
+    @Test
+    void schema_calledTwice_shouldReturnSameCompiledSchema() {
+        // Given
+        Schema first = SchemaCache.schema(SchemaCache.PML_SCHEMA);
+
+        // When
+        Schema second = SchemaCache.schema(SchemaCache.PML_SCHEMA);
+
+        // Then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void schema_withWorkflowSchema_shouldCompileIndependently() {
+        // When
+        Schema pml = SchemaCache.schema(SchemaCache.PML_SCHEMA);
+        Schema workflow = SchemaCache.schema(SchemaCache.PML_WORKFLOW_SCHEMA);
+
+        // Then
+        assertThat(workflow).isNotNull();
+        assertThat(workflow).isNotSameAs(pml);
+    }
+
+    @Test
+    void validator_onSameThread_shouldBeReused() {
+        // Given
+        Validator first = SchemaCache.validator(SchemaCache.PML_SCHEMA);
+
+        // When
+        Validator second = SchemaCache.validator(SchemaCache.PML_SCHEMA);
+
+        // Then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void validator_onDifferentThreads_shouldNotBeShared() throws Exception {
+        // Given
+        Validator local = SchemaCache.validator(SchemaCache.PML_SCHEMA);
+
+        // When
+        Validator other;
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<Validator> future = executor.submit(() -> SchemaCache.validator(SchemaCache.PML_SCHEMA));
+            other = future.get();
+        }
+
+        // Then
+        assertThat(other).isNotSameAs(local);
+    }
+
+    @Test
+    void schema_withMissingResource_shouldFail() {
+        // When
+        // Then
+        assertThatThrownBy(() -> SchemaCache.schema("missing.xsd"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Could not find missing.xsd");
+    }
+}
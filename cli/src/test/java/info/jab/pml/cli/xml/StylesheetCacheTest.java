@@ -0,0 +1,156 @@
+package info.jab.pml.cli.xml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import javax.xml.transform.ErrorListener;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("StylesheetCache tests")
+class StylesheetCacheTest {
+
+    @Test
+    void templates_calledTwice_shouldReturnSameCompiledStylesheet() {
+        // Given
+        Templates first = StylesheetCache.templates(StylesheetCache.PML_TO_MARKDOWN);
+
+        // When
+        Templates second = StylesheetCache.templates(StylesheetCache.PML_TO_MARKDOWN);
+
+        // Then
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void newTransformer_calledTwice_shouldCreateIndependentTransformers() throws Exception {
+        // When
+        Transformer first = StylesheetCache.newTransformer(StylesheetCache.PML_TO_MARKDOWN);
+        Transformer second = StylesheetCache.newTransformer(StylesheetCache.PML_TO_MARKDOWN);
+
+        // Then
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    void templates_withCustomStylesheet_shouldCompile() {
+        // When
+        Templates templates = StylesheetCache.templates("xslt/custom-test.xsl");
+
+        // Then
+        assertThat(templates).isNotNull();
+    }
+
+    @Test
+    void templates_withMissingResource_shouldFail() {
+        // When
+        // Then
+        assertThatThrownBy(() -> StylesheetCache.templates("xslt/missing.xsl"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Could not find xslt/missing.xsl");
+    }
+
+    @Test
+    void newTransformerFactory_withFactoryProperty_shouldUseThatFactory() {
+        // When
+        TransformerFactory factory = StylesheetCache.newTransformerFactory(AttributeRejectingFactory.class.getName(), null);
+
+        // Then
+        assertThat(factory).isInstanceOf(AttributeRejectingFactory.class);
+    }
+
+    @Test
+    void newTransformerFactory_withUnknownFactory_shouldFail() {
+        // When
+        // Then
+        assertThatThrownBy(() -> StylesheetCache.newTransformerFactory("com.example.MissingFactory", null))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Could not create XSLT factory com.example.MissingFactory");
+    }
+
+    @Test
+    void newTransformerFactory_withTransletAndDefaultFactory_shouldConfigureXsltc() {
+        // When
+        TransformerFactory factory = StylesheetCache.newTransformerFactory(null, "com.example.translets.PmlToMarkdown");
+
+        // Then
+        assertThat(factory.getAttribute("translet-name")).isEqualTo("PmlToMarkdown");
+    }
+
+    @Test
+    void newTransformerFactory_withTransletAndOtherFactory_shouldRequireXsltc() {
+        // When
+        // Then
+        assertThatThrownBy(() -> StylesheetCache.newTransformerFactory(
+            AttributeRejectingFactory.class.getName(), "com.example.translets.PmlToMarkdown"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Translet com.example.translets.PmlToMarkdown requires an XSLTC factory, but "
+                + AttributeRejectingFactory.class.getName() + " is used");
+    }
+
+    // Like most factories other than XSLTC, it knows none of the translet attributes
+    public static final class AttributeRejectingFactory extends TransformerFactory {
+
+        @Override
+        public Transformer newTransformer(Source source) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Transformer newTransformer() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Templates newTemplates(Source source) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Source getAssociatedStylesheet(Source source, String media, String title, String charset) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setURIResolver(URIResolver resolver) {
+        }
+
+        @Override
+        public URIResolver getURIResolver() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setFeature(String name, boolean value) {
+        }
+
+        @Override
+        public boolean getFeature(String name) {
+            return false;
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            throw new IllegalArgumentException("Unknown attribute " + name);
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            throw new IllegalArgumentException("Unknown attribute " + name);
+        }
+
+        @Override
+        public void setErrorListener(ErrorListener listener) {
+        }
+
+        @Override
+        public ErrorListener getErrorListener() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
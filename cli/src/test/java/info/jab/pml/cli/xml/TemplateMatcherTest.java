@@ -0,0 +1,83 @@
+package info.jab.pml.cli.xml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("TemplateMatcher tests")
+class TemplateMatcherTest {
+
+    @Test
+    void replace_withSeveralKeys_shouldReplaceAllInOnePass() {
+        // Given
+        TemplateMatcher matcher = TemplateMatcher.compile(Map.of("MESSAGE", "Hello World", "CHANNEL", "Console"));
+
+        // When
+        String replaced = matcher.replace("Print MESSAGE in the CHANNEL, then MESSAGE again");
+
+        // Then
+        assertThat(replaced).isEqualTo("Print Hello World in the Console, then Hello World again");
+    }
+
+    @Test
+    void replace_withOverlappingKeys_shouldPreferLeftmostLongestMatch() {
+        // Given
+        TemplateMatcher matcher = TemplateMatcher.compile(Map.of("MESS", "short", "MESSAGE", "long", "AGE", "age"));
+
+        // When
+        String replaced = matcher.replace("MESSAGE MESSY PAGE");
+
+        // Then
+        assertThat(replaced).isEqualTo("long shortY Page");
+    }
+
+    @Test
+    void replace_withValueContainingAnotherKey_shouldNotCascade() {
+        // Given
+        TemplateMatcher matcher = TemplateMatcher.compile(Map.of("GREETING", "Hello NAME", "NAME", "World"));
+
+        // When
+        String replaced = matcher.replace("GREETING from NAME");
+
+        // Then
+        assertThat(replaced).isEqualTo("Hello NAME from World");
+    }
+
+    @Test
+    void replace_withoutMatches_shouldReturnSameInstance() {
+        // Given
+        TemplateMatcher matcher = TemplateMatcher.compile(Map.of("MESSAGE", "Hello World"));
+        String text = "Nothing to replace";
+
+        // When
+        String replaced = matcher.replace(text);
+
+        // Then
+        assertThat(replaced).isSameAs(text);
+    }
+
+    @Test
+    void replace_withEmptyKey_shouldIgnoreIt() {
+        // Given
+        TemplateMatcher matcher = TemplateMatcher.compile(Map.of("", "Some value"));
+
+        // When
+        String replaced = matcher.replace("Unchanged text");
+
+        // Then
+        assertThat(replaced).isEqualTo("Unchanged text");
+    }
+
+    @Test
+    void elementValue_shouldResolveTemplatedElementNames() {
+        // Given
+        TemplateMatcher matcher = TemplateMatcher.compile(Map.of("goal", "New goal"));
+
+        // When
+        // Then
+        assertThat(matcher.elementValue("goal")).isEqualTo("New goal");
+        assertThat(matcher.elementValue("role")).isNull();
+    }
+}
@@ -0,0 +1,208 @@
+package info.jab.pml.maven;
+
+import info.jab.pml.cli.batch.BatchRunner;
+import info.jab.pml.cli.batch.BuildManifest;
+import info.jab.pml.cli.batch.InputFile;
+import info.jab.pml.cli.batch.PmlFileResolver;
+import info.jab.pml.cli.xml.PmlUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Base of the goals that process the PML files of a project in-process.
+ *
+ * <p>Files are processed concurrently by a {@link BatchRunner}. The compiled schema and stylesheet
+ * are kept in JVM-wide caches of the CLI, and Maven reuses the plugin class realm for every module
+ * of a reactor build that uses the same plugin version and dependencies, so they are compiled
+ * once per build rather than once per module.</p>
+ */
+public abstract class AbstractPmlMojo extends AbstractMojo {
+
+    /**
+     * Directory searched recursively for PML files.
+     */
+    @Parameter(property = "pml.sourceDirectory", defaultValue = "${project.basedir}/src/main/pml", required = true)
+    @SuppressWarnings("NullAway.Init")
+    File sourceDirectory;
+
+    /**
+     * Glob patterns, relative to {@link #sourceDirectory}, of the files to process.
+     */
+    @Parameter
+    List<String> includes = new ArrayList<>(List.of("**.xml"));
+
+    /**
+     * Glob patterns, relative to {@link #sourceDirectory}, of the files to leave out.
+     */
+    @Parameter
+    List<String> excludes = new ArrayList<>();
+
+    /**
+     * Number of files processed concurrently. When 0, the thread count of a parallel build
+     * ({@code -T}) is used, or the number of CPUs when the build is not parallel.
+     */
+    @Parameter(property = "pml.threads", defaultValue = "0")
+    int threads;
+
+    /**
+     * Only process the files whose sources or includes changed since the previous build.
+     */
+    @Parameter(property = "pml.incremental", defaultValue = "true")
+    boolean incremental = true;
+
+    /**
+     * Fail the build when a file cannot be processed.
+     */
+    @Parameter(property = "pml.failOnError", defaultValue = "true")
+    boolean failOnError = true;
+
+    /**
+     * Skip the goal.
+     */
+    @Parameter(property = "pml.skip", defaultValue = "false")
+    boolean skip;
+
+    @Parameter(defaultValue = "${session.request.degreeOfConcurrency}", readonly = true)
+    int mavenThreads = 1;
+
+    final PmlUtils pmlUtils = new PmlUtils();
+
+    /**
+     * The work performed on each selected file.
+     */
+    @FunctionalInterface
+    interface PmlTask {
+
+        /**
+         * Processes one file.
+         *
+         * @param file the file to process
+         * @param manifest the manifest of an incremental build, or {@code null}
+         * @param skipped incremented when the file is up to date
+         * @return true if the file was processed successfully
+         * @throws Exception if processing fails
+         */
+        boolean process(InputFile file, @Nullable BuildManifest manifest, LongAdder skipped) throws Exception;
+    }
+
+    /**
+     * Returns the name used in log messages, such as {@code validated}.
+     *
+     * @return the past participle describing the goal
+     */
+    abstract String action();
+
+    /**
+     * Returns the manifest file of incremental builds.
+     *
+     * @return the manifest location
+     */
+    abstract File manifestFile();
+
+    /**
+     * Returns the manifest context of this goal, see {@link BuildManifest#context(String...)}.
+     *
+     * @return the context hash
+     */
+    abstract String manifestContext();
+
+    /**
+     * Returns the work to perform on each file.
+     *
+     * @return the task
+     */
+    abstract PmlTask task();
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping PML " + action());
+            return;
+        }
+        List<InputFile> files = selectFiles();
+        if (files.isEmpty()) {
+            getLog().info("No PML files found in " + sourceDirectory);
+            return;
+        }
+
+        BuildManifest manifest;
+        try {
+            manifest = incremental ? BuildManifest.load(manifestFile().toPath(), manifestContext()) : null;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read " + manifestFile() + ": " + e.getMessage(), e);
+        }
+        LongAdder skipped = new LongAdder();
+        PmlTask task = task();
+        BatchRunner.Summary summary = new BatchRunner(workers())
+            .run(files, file -> task.process(file, manifest, skipped));
+        if (manifest != null) {
+            try {
+                manifest.save();
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not write " + manifestFile() + ": " + e.getMessage(), e);
+            }
+        }
+
+        long failed = 0;
+        for (BatchRunner.FileResult result : summary.results()) {
+            if (result.success()) {
+                getLog().debug("OK " + result.file().source());
+            } else {
+                failed++;
+                String message = result.message();
+                getLog().error("FAILED " + result.file().source() + (message != null ? ": " + message : ""));
+            }
+        }
+        getLog().info(String.format(Locale.ROOT, "%s %d PML files (%d unchanged, %d failed) in %d ms",
+            capitalize(action()), files.size() - skipped.sum() - failed, skipped.sum(), failed,
+            TimeUnit.NANOSECONDS.toMillis(summary.elapsedNanos())));
+        if (failed > 0 && failOnError) {
+            throw new MojoFailureException(failed + " PML files could not be " + action());
+        }
+    }
+
+    int workers() {
+        if (threads > 0) {
+            return threads;
+        }
+        return mavenThreads > 1 ? mavenThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    List<InputFile> selectFiles() throws MojoExecutionException {
+        if (!sourceDirectory.isDirectory()) {
+            return List.of();
+        }
+        List<InputFile> files;
+        try {
+            files = PmlFileResolver.resolve(List.of(sourceDirectory.getPath()));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not list " + sourceDirectory + ": " + e.getMessage(), e);
+        }
+        FileSystem fileSystem = FileSystems.getDefault();
+        List<PathMatcher> included = includes.stream().map(pattern -> fileSystem.getPathMatcher("glob:" + pattern)).toList();
+        List<PathMatcher> excluded = excludes.stream().map(pattern -> fileSystem.getPathMatcher("glob:" + pattern)).toList();
+        return files.stream()
+            .filter(file -> Files.isRegularFile(file.source()))
+            .filter(file -> included.stream().anyMatch(matcher -> matcher.matches(file.relativePath())))
+            .filter(file -> excluded.stream().noneMatch(matcher -> matcher.matches(file.relativePath())))
+            .toList();
+    }
+
+    private static String capitalize(String text) {
+        return text.isEmpty() ? text : Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
@@ -0,0 +1,105 @@
+package info.jab.pml.maven;
+
+import info.jab.pml.cli.batch.BuildManifest;
+import info.jab.pml.cli.batch.MarkdownOutput;
+import info.jab.pml.cli.markdown.RenderEngine;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Renders the PML files of a project to Markdown, one file per input, mirroring the layout of
+ * the source directory.
+ *
+ * <p>Files are rendered like {@code convert --output-dir} does: each is written once it rendered
+ * completely, and the reason a file failed is logged with it. The output directory is added to
+ * the resource directories of the project, so the Markdown files are packaged.</p>
+ */
+@Mojo(name = "render", defaultPhase = LifecyclePhase.GENERATE_RESOURCES, threadSafe = true)
+public class RenderMojo extends AbstractPmlMojo {
+
+    /**
+     * Directory where the Markdown files are written.
+     */
+    @Parameter(property = "pml.outputDirectory", defaultValue = "${project.build.directory}/generated-resources/pml", required = true)
+    @SuppressWarnings("NullAway.Init")
+    File outputDirectory;
+
+    /**
+     * Rendering engine: {@code XSLT} or {@code STAX}.
+     */
+    @Parameter(property = "pml.engine", defaultValue = "XSLT")
+    RenderEngine engine = RenderEngine.XSLT;
+
+    /**
+     * Template replacements applied before rendering, as with {@code convert --template}.
+     */
+    @Parameter
+    Map<String, String> templates = new LinkedHashMap<>();
+
+    /**
+     * Manifest recording the rendered files, used by incremental builds.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/pml/render.manifest", required = true)
+    @SuppressWarnings("NullAway.Init")
+    File manifestFile;
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    @Nullable MavenProject project;
+
+    @Override
+    String action() {
+        return "rendered";
+    }
+
+    @Override
+    File manifestFile() {
+        return manifestFile;
+    }
+
+    @Override
+    String manifestContext() {
+        return BuildManifest.context("render", engine.name(), new TreeMap<>(templates).toString());
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        super.execute();
+        addResource();
+    }
+
+    @Override
+    PmlTask task() {
+        return (file, manifest, skipped) -> {
+            MarkdownOutput.write(file, outputDirectory.toPath(), manifest, skipped,
+                output -> pmlUtils.render(file.source(), templates, engine, output));
+            return true;
+        };
+    }
+
+    /**
+     * Registers the output directory as a resource directory of the project, so that the
+     * Markdown files are copied to the build output and packaged with the other resources.
+     */
+    private void addResource() {
+        MavenProject currentProject = project;
+        if (skip || currentProject == null) {
+            return;
+        }
+        String directory = outputDirectory.getPath();
+        if (currentProject.getResources().stream().noneMatch(resource -> directory.equals(resource.getDirectory()))) {
+            Resource resource = new Resource();
+            resource.setDirectory(directory);
+            currentProject.addResource(resource);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package info.jab.pml.maven;
+
+import info.jab.pml.cli.batch.BuildManifest;
+import java.io.File;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Validates the PML files of a project against the PML schema.
+ */
+@Mojo(name = "validate", defaultPhase = LifecyclePhase.VALIDATE, threadSafe = true)
+public class ValidateMojo extends AbstractPmlMojo {
+
+    /**
+     * Manifest recording the files found valid, used by incremental builds.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/pml/validate.manifest", required = true)
+    @SuppressWarnings("NullAway.Init")
+    File manifestFile;
+
+    @Override
+    String action() {
+        return "validated";
+    }
+
+    @Override
+    File manifestFile() {
+        return manifestFile;
+    }
+
+    @Override
+    String manifestContext() {
+        return BuildManifest.context("validate");
+    }
+
+    @Override
+    PmlTask task() {
+        return (file, manifest, skipped) -> {
+            if (manifest != null && manifest.isUpToDate(file.source(), null)) {
+                skipped.increment();
+                return true;
+            }
+            boolean valid = pmlUtils.validate(file.source());
+            if (manifest != null) {
+                if (valid) {
+                    manifest.record(file.source(), null);
+                } else {
+                    manifest.forget(file.source());
+                }
+            }
+            return valid;
+        };
+    }
+}
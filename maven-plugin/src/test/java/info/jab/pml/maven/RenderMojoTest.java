@@ -0,0 +1,165 @@
+package info.jab.pml.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import info.jab.pml.cli.markdown.RenderEngine;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("RenderMojo tests")
+class RenderMojoTest {
+
+    static final String HELLO_WORLD = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <prompt>
+            <goal>Print "Hello World" in the console</goal>
+        </prompt>
+        """;
+
+    @Test
+    void execute_withSourceDirectory_shouldMirrorLayoutInOutputDirectory(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src/nested"));
+        Files.writeString(root.resolve("src/hello.xml"), HELLO_WORLD);
+        Files.writeString(root.resolve("src/nested/hello.xml"), HELLO_WORLD);
+        RenderMojo mojo = newMojo(root);
+
+        // When
+        mojo.execute();
+
+        // Then
+        assertThat(Files.readString(root.resolve("out/hello.md"))).contains("Hello World");
+        assertThat(Files.readString(root.resolve("out/nested/hello.md"))).contains("Hello World");
+    }
+
+    @Test
+    void execute_withStaxEngineAndTemplates_shouldReplaceFieldValue(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src/hello.xml"), HELLO_WORLD);
+        RenderMojo mojo = newMojo(root);
+        mojo.engine = RenderEngine.STAX;
+        mojo.templates = Map.of("goal", "Print a greeting");
+
+        // When
+        mojo.execute();
+
+        // Then
+        assertThat(Files.readString(root.resolve("out/hello.md"))).contains("Print a greeting");
+    }
+
+    @Test
+    void execute_twice_shouldRenderAgainWhenSourceOrOutputChanged(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src/hello.xml"), HELLO_WORLD);
+        Files.writeString(root.resolve("src/other.xml"), HELLO_WORLD);
+        newMojo(root).execute();
+        Files.writeString(root.resolve("out/hello.md"), "stale");
+        Files.writeString(root.resolve("out/other.md"), "edited by hand, but the source did not change");
+        Files.writeString(root.resolve("src/other.xml"), HELLO_WORLD.replace("Hello World", "Hello Maven"));
+
+        // When
+        newMojo(root).execute();
+
+        // Then
+        assertThat(Files.readString(root.resolve("out/hello.md"))).contains("Hello World");
+        assertThat(Files.readString(root.resolve("out/other.md"))).contains("Hello Maven");
+    }
+
+    @Test
+    void execute_withInvalidFile_shouldFailTheBuild(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src/hello.xml"), HELLO_WORLD);
+        Files.writeString(root.resolve("src/invalid.xml"), "<prompt><unknown/></prompt>");
+        RenderMojo mojo = newMojo(root);
+
+        // When / Then
+        assertThatThrownBy(mojo::execute)
+            .isInstanceOf(MojoFailureException.class)
+            .hasMessageContaining("1 PML files could not be rendered");
+        assertThat(root.resolve("out/hello.md")).exists();
+    }
+
+    @Test
+    void execute_withInvalidFile_shouldKeepPreviousMarkdownAndLogReason(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src"));
+        Files.createDirectories(root.resolve("out"));
+        Files.writeString(root.resolve("src/invalid.xml"), "<prompt><unknown/></prompt>");
+        Files.writeString(root.resolve("out/invalid.md"), "previous");
+        List<String> errors = new ArrayList<>();
+        RenderMojo mojo = newMojo(root);
+        mojo.failOnError = false;
+        mojo.setLog(new SystemStreamLog() {
+            @Override
+            public void error(CharSequence content) {
+                errors.add(content.toString());
+            }
+        });
+
+        // When
+        mojo.execute();
+
+        // Then
+        assertThat(root.resolve("out/invalid.md")).hasContent("previous");
+        assertThat(errors).singleElement().asString()
+            .startsWith("FAILED " + root.resolve("src/invalid.xml") + ": The processed PML file is not valid: ");
+    }
+
+    @Test
+    void execute_withProject_shouldAddOutputDirectoryAsResourceOnce(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src/hello.xml"), HELLO_WORLD);
+        MavenProject project = new MavenProject();
+        RenderMojo mojo = newMojo(root);
+        mojo.project = project;
+
+        // When
+        mojo.execute();
+        mojo.execute();
+
+        // Then
+        assertThat(project.getResources()).extracting(Resource::getDirectory)
+            .containsExactly(root.resolve("out").toString());
+    }
+
+    @Test
+    void execute_withExcludes_shouldLeaveMatchingFilesOut(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src/drafts"));
+        Files.writeString(root.resolve("src/hello.xml"), HELLO_WORLD);
+        Files.writeString(root.resolve("src/drafts/invalid.xml"), "<prompt><unknown/></prompt>");
+        RenderMojo mojo = newMojo(root);
+        mojo.excludes = List.of("drafts/**");
+
+        // When
+        mojo.execute();
+
+        // Then
+        assertThat(root.resolve("out/hello.md")).exists();
+        assertThat(root.resolve("out/drafts")).doesNotExist();
+    }
+
+    private static RenderMojo newMojo(Path root) {
+        RenderMojo mojo = new RenderMojo();
+        mojo.sourceDirectory = root.resolve("src").toFile();
+        mojo.outputDirectory = root.resolve("out").toFile();
+        mojo.manifestFile = root.resolve("target/pml/render.manifest").toFile();
+        mojo.threads = 2;
+        return mojo;
+    }
+}
@@ -0,0 +1,86 @@
+package info.jab.pml.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("ValidateMojo tests")
+class ValidateMojoTest {
+
+    @Test
+    void execute_withValidFiles_shouldRecordThemInManifest(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src/hello.xml"), RenderMojoTest.HELLO_WORLD);
+        ValidateMojo mojo = newMojo(root);
+
+        // When
+        mojo.execute();
+
+        // Then
+        assertThat(Files.readString(root.resolve("target/pml/validate.manifest"))).contains("hello.xml");
+    }
+
+    @Test
+    void execute_withInvalidFileAndFailOnErrorDisabled_shouldNotFail(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src/invalid.xml"), "<prompt><unknown/></prompt>");
+        ValidateMojo mojo = newMojo(root);
+        mojo.failOnError = false;
+
+        // When / Then
+        assertThatCode(mojo::execute).doesNotThrowAnyException();
+    }
+
+    @Test
+    void execute_withInvalidFile_shouldFailTheBuild(@TempDir Path root) throws Exception {
+        // Given
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src/invalid.xml"), "<prompt><unknown/></prompt>");
+        ValidateMojo mojo = newMojo(root);
+
+        // When / Then
+        assertThatThrownBy(mojo::execute)
+            .isInstanceOf(MojoFailureException.class)
+            .hasMessageContaining("could not be validated");
+    }
+
+    @Test
+    void execute_withMissingSourceDirectory_shouldDoNothing(@TempDir Path root) {
+        // Given
+        ValidateMojo mojo = newMojo(root);
+
+        // When / Then
+        assertThatCode(mojo::execute).doesNotThrowAnyException();
+        assertThat(root.resolve("target")).doesNotExist();
+    }
+
+    @Test
+    void workers_withoutThreads_shouldUseMavenThreadCount(@TempDir Path root) {
+        // Given
+        ValidateMojo mojo = newMojo(root);
+        mojo.threads = 0;
+        mojo.mavenThreads = 3;
+
+        // When
+        int workers = mojo.workers();
+
+        // Then
+        assertThat(workers).isEqualTo(3);
+    }
+
+    private static ValidateMojo newMojo(Path root) {
+        ValidateMojo mojo = new ValidateMojo();
+        mojo.sourceDirectory = root.resolve("src").toFile();
+        mojo.manifestFile = root.resolve("target/pml/validate.manifest").toFile();
+        return mojo;
+    }
+}
@@ -0,0 +1,765 @@
+package info.jab.pml.model;
+
+import jakarta.xml.bind.JAXBElement;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Reads and writes {@link Prompt} documents with StAX, without a {@code JAXBContext}.
+ *
+ * <p>The codec walks the model directly, so it avoids creating a JAXB context and the reflective
+ * (un)marshalling of JAXB. It follows the same mapping: elements the model has no place for are
+ * skipped, text inside mixed content is kept as it is, and markup inside mixed content such as
+ * {@link Goal} is read into DOM {@link Element}s, as JAXB does with unknown elements. Documents
+ * are read as they are: {@code xi:include} elements are not resolved.</p>
+ *
+ * <p>The methods are thread-safe.</p>
+ */
+public final class PromptCodec {
+
+    private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = newOutputFactory();
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = newDocumentBuilderFactory();
+
+    private static final String ENCODING = StandardCharsets.UTF_8.name();
+
+    // Owner of the DOM elements read from mixed content, created on first use
+    private Document document;
+
+    private PromptCodec() {}
+
+    /**
+     * Reads a prompt from an XML document.
+     *
+     * @param input the document, encoded as declared in its XML declaration
+     * @return the prompt
+     * @throws XMLStreamException if the document is not well-formed or its root is not {@code prompt}
+     */
+    public static Prompt read(InputStream input) throws XMLStreamException {
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(input);
+        try {
+            return new PromptCodec().readDocument(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads a prompt from an XML document.
+     *
+     * @param input the document
+     * @return the prompt
+     * @throws XMLStreamException if the document is not well-formed or its root is not {@code prompt}
+     */
+    public static Prompt read(Reader input) throws XMLStreamException {
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(input);
+        try {
+            return new PromptCodec().readDocument(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Writes a prompt as a UTF-8 encoded XML document. The stream is not closed.
+     *
+     * @param prompt the prompt, such as the result of {@link PromptBuilder#build()}
+     * @param output the stream to write to
+     * @throws XMLStreamException if the document cannot be written
+     */
+    public static void write(Prompt prompt, OutputStream output) throws XMLStreamException {
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(output, ENCODING);
+        try {
+            writeDocument(prompt, writer, ENCODING);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes a prompt as an XML document. The writer is not closed.
+     *
+     * @param prompt the prompt, such as the result of {@link PromptBuilder#build()}
+     * @param output the writer to write to
+     * @throws XMLStreamException if the document cannot be written
+     */
+    public static void write(Prompt prompt, Writer output) throws XMLStreamException {
+        XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(output);
+        try {
+            writeDocument(prompt, writer, null);
+        } finally {
+            writer.close();
+        }
+    }
+
+    // Reading
+
+    private Prompt readDocument(XMLStreamReader reader) throws XMLStreamException {
+        if (!nextChild(reader) || !"prompt".equals(reader.getLocalName())) {
+            String found = reader.isStartElement() ? "<" + reader.getLocalName() + ">" : "no element";
+            throw new XMLStreamException("Expected <prompt> but found " + found, reader.getLocation());
+        }
+        return readPrompt(reader);
+    }
+
+    private Prompt readPrompt(XMLStreamReader reader) throws XMLStreamException {
+        Prompt prompt = new Prompt();
+        prompt.setId(attribute(reader, "id"));
+        prompt.setInteractive(attribute(reader, "interactive"));
+        while (nextChild(reader)) {
+            switch (reader.getLocalName()) {
+                case "metadata" -> prompt.setMetadata(readMetadata(reader));
+                case "title" -> prompt.setTitle(reader.getElementText());
+                case "role" -> prompt.setRole(reader.getElementText());
+                case "tone" -> prompt.setTone(reader.getElementText());
+                case "context" -> prompt.setContext(reader.getElementText());
+                case "goal" -> {
+                    Goal goal = new Goal();
+                    readMixed(reader, goal.getContent());
+                    prompt.setGoal(goal);
+                }
+                case "constraints" -> prompt.setConstraints(readConstraints(reader));
+                case "steps" -> prompt.setSteps(readSteps(reader));
+                case "examples" -> prompt.setExamples(readExamples(reader));
+                case "output-format" -> {
+                    OutputFormat outputFormat = new OutputFormat();
+                    readMixed(reader, outputFormat.getContent());
+                    prompt.setOutputFormat(outputFormat);
+                }
+                case "safeguards" -> {
+                    Safeguards safeguards = new Safeguards();
+                    readMixed(reader, safeguards.getContent());
+                    prompt.setSafeguards(safeguards);
+                }
+                case "acceptance-criteria" -> prompt.setAcceptanceCriteria(readAcceptanceCriteria(reader));
+                case "references" -> prompt.setReferences(readReferences(reader));
+                default -> skip(reader);
+            }
+        }
+        return prompt;
+    }
+
+    private static Metadata readMetadata(XMLStreamReader reader) throws XMLStreamException {
+        Metadata metadata = new Metadata();
+        while (nextChild(reader)) {
+            switch (reader.getLocalName()) {
+                case "authors" -> {
+                    Authors authors = new Authors();
+                    readTextList(reader, "author", authors.getAuthor());
+                    metadata.setAuthors(authors);
+                }
+                case "version" -> metadata.setVersion(reader.getElementText());
+                case "license" -> metadata.setLicense(reader.getElementText());
+                case "title" -> metadata.setTitle(reader.getElementText());
+                case "description" -> metadata.setDescription(reader.getElementText());
+                default -> skip(reader);
+            }
+        }
+        return metadata;
+    }
+
+    private static Constraints readConstraints(XMLStreamReader reader) throws XMLStreamException {
+        Constraints constraints = new Constraints();
+        while (nextChild(reader)) {
+            switch (reader.getLocalName()) {
+                case "constraints-description" -> constraints.setConstraintsDescription(reader.getElementText());
+                case "constraint-list" -> {
+                    ConstraintList constraintList = new ConstraintList();
+                    readTextList(reader, "constraint", constraintList.getConstraint());
+                    constraints.setConstraintList(constraintList);
+                }
+                default -> skip(reader);
+            }
+        }
+        return constraints;
+    }
+
+    private Steps readSteps(XMLStreamReader reader) throws XMLStreamException {
+        Steps steps = new Steps();
+        while (nextChild(reader)) {
+            if ("step".equals(reader.getLocalName())) {
+                steps.getStep().add(readStep(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return steps;
+    }
+
+    private Step readStep(XMLStreamReader reader) throws XMLStreamException {
+        Step step = new Step();
+        step.setNumber(attribute(reader, "number"));
+        while (nextChild(reader)) {
+            switch (reader.getLocalName()) {
+                case "step-title" -> step.setStepTitle(reader.getElementText());
+                case "step-content" -> {
+                    StepContent stepContent = new StepContent();
+                    readMixed(reader, stepContent.getContent());
+                    step.setStepContent(stepContent);
+                }
+                case "step-constraints" -> step.setStepConstraints(readStepConstraints(reader));
+                default -> skip(reader);
+            }
+        }
+        return step;
+    }
+
+    private static StepConstraints readStepConstraints(XMLStreamReader reader) throws XMLStreamException {
+        StepConstraints stepConstraints = new StepConstraints();
+        while (nextChild(reader)) {
+            if ("step-constraint-list".equals(reader.getLocalName())) {
+                StepConstraintList stepConstraintList = new StepConstraintList();
+                readTextList(reader, "step-constraint", stepConstraintList.getStepConstraint());
+                stepConstraints.setStepConstraintList(stepConstraintList);
+            } else {
+                skip(reader);
+            }
+        }
+        return stepConstraints;
+    }
+
+    private static Examples readExamples(XMLStreamReader reader) throws XMLStreamException {
+        Examples examples = new Examples();
+        while (nextChild(reader)) {
+            switch (reader.getLocalName()) {
+                case "toc" -> {
+                    Toc toc = new Toc();
+                    toc.setAutoGenerate(attribute(reader, "auto-generate"));
+                    toc.setSource(attribute(reader, "source"));
+                    toc.setIncludeSubtitles(attribute(reader, "include-subtitles"));
+                    skip(reader);
+                    examples.setToc(toc);
+                }
+                case "example" -> examples.getExample().add(readExample(reader));
+                default -> skip(reader);
+            }
+        }
+        return examples;
+    }
+
+    private static Example readExample(XMLStreamReader reader) throws XMLStreamException {
+        Example example = new Example();
+        example.setType(attribute(reader, "type"));
+        example.setNumber(attribute(reader, "number"));
+        example.setId(attribute(reader, "id"));
+        while (nextChild(reader)) {
+            switch (reader.getLocalName()) {
+                case "example-header" -> example.setExampleHeader(readExampleHeader(reader));
+                case "example-description" -> example.setExampleDescription(reader.getElementText());
+                case "code-examples" -> example.setCodeExamples(readCodeExamples(reader));
+                default -> skip(reader);
+            }
+        }
+        return example;
+    }
+
+    private static ExampleHeader readExampleHeader(XMLStreamReader reader) throws XMLStreamException {
+        ExampleHeader exampleHeader = new ExampleHeader();
+        while (nextChild(reader)) {
+            switch (reader.getLocalName()) {
+                case "example-title" -> exampleHeader.setExampleTitle(reader.getElementText());
+                case "example-subtitle" -> exampleHeader.setExampleSubtitle(reader.getElementText());
+                default -> skip(reader);
+            }
+        }
+        return exampleHeader;
+    }
+
+    private static CodeExamples readCodeExamples(XMLStreamReader reader) throws XMLStreamException {
+        CodeExamples codeExamples = new CodeExamples();
+        while (nextChild(reader)) {
+            switch (reader.getLocalName()) {
+                case "good-example" -> {
+                    GoodExample goodExample = new GoodExample();
+                    goodExample.setLastItem(booleanAttribute(reader, "last-item"));
+                    goodExample.setCodeBlock(readCodeBlockOf(reader));
+                    codeExamples.getGoodExample().add(goodExample);
+                }
+                case "bad-example" -> {
+                    BadExample badExample = new BadExample();
+                    badExample.setLastItem(booleanAttribute(reader, "last-item"));
+                    badExample.setCodeBlock(readCodeBlockOf(reader));
+                    codeExamples.getBadExample().add(badExample);
+                }
+                default -> skip(reader);
+            }
+        }
+        return codeExamples;
+    }
+
+    private static CodeBlock readCodeBlockOf(XMLStreamReader reader) throws XMLStreamException {
+        CodeBlock codeBlock = null;
+        while (nextChild(reader)) {
+            if ("code-block".equals(reader.getLocalName())) {
+                codeBlock = new CodeBlock();
+                codeBlock.setLanguage(attribute(reader, "language"));
+                codeBlock.setValue(reader.getElementText());
+            } else {
+                skip(reader);
+            }
+        }
+        return codeBlock;
+    }
+
+    private static AcceptanceCriteria readAcceptanceCriteria(XMLStreamReader reader) throws XMLStreamException {
+        AcceptanceCriteria acceptanceCriteria = new AcceptanceCriteria();
+        while (nextChild(reader)) {
+            if ("acceptance-criteria-list".equals(reader.getLocalName())) {
+                AcceptanceCriteriaList list = new AcceptanceCriteriaList();
+                readTextList(reader, "acceptance-criteria-item", list.getAcceptanceCriteriaItem());
+                acceptanceCriteria.setAcceptanceCriteriaList(list);
+            } else {
+                skip(reader);
+            }
+        }
+        return acceptanceCriteria;
+    }
+
+    private static References readReferences(XMLStreamReader reader) throws XMLStreamException {
+        References references = new References();
+        while (nextChild(reader)) {
+            if ("reference-list".equals(reader.getLocalName())) {
+                ReferenceList referenceList = new ReferenceList();
+                readTextList(reader, "reference", referenceList.getReference());
+                references.setReferenceList(referenceList);
+            } else {
+                skip(reader);
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Reads the content of a mixed element: text is kept as strings, the output format and
+     * safeguards lists are read into the model and any other element into DOM.
+     */
+    private void readMixed(XMLStreamReader reader, List<Object> content) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                case XMLStreamConstants.START_ELEMENT -> {
+                    flushText(text, content);
+                    switch (reader.getLocalName()) {
+                        case "output-format-list" -> {
+                            OutputFormatList list = new OutputFormatList();
+                            readTextList(reader, "output-format-item", list.getOutputFormatItem());
+                            content.add(list);
+                        }
+                        case "safeguards-list" -> {
+                            SafeguardsList list = new SafeguardsList();
+                            readTextList(reader, "safeguards-item", list.getSafeguardsItem());
+                            content.add(list);
+                        }
+                        default -> content.add(readElement(reader, document()));
+                    }
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    flushText(text, content);
+                    return;
+                }
+                default -> {
+                    // Comments and processing instructions are not part of the model
+                }
+            }
+        }
+    }
+
+    private static void flushText(StringBuilder text, List<Object> content) {
+        if (!text.isEmpty()) {
+            content.add(text.toString());
+            text.setLength(0);
+        }
+    }
+
+    private static Element readElement(XMLStreamReader reader, Document document) throws XMLStreamException {
+        Element element = document.createElementNS(namespace(reader.getNamespaceURI()),
+            qualifiedName(reader.getPrefix(), reader.getLocalName()));
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                prefix == null || prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix,
+                reader.getNamespaceURI(i));
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            QName name = reader.getAttributeName(i);
+            element.setAttributeNS(namespace(name.getNamespaceURI()),
+                qualifiedName(name.getPrefix(), name.getLocalPart()), reader.getAttributeValue(i));
+        }
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                    element.appendChild(document.createTextNode(reader.getText()));
+                case XMLStreamConstants.START_ELEMENT -> element.appendChild(readElement(reader, document));
+                case XMLStreamConstants.END_ELEMENT -> {
+                    return element;
+                }
+                default -> {
+                    // Comments and processing instructions are dropped, as JAXB does
+                }
+            }
+        }
+        throw new XMLStreamException("Unexpected end of document in <" + element.getTagName() + ">");
+    }
+
+    private Document document() throws XMLStreamException {
+        if (document == null) {
+            try {
+                document = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder().newDocument();
+            } catch (ParserConfigurationException e) {
+                throw new XMLStreamException("Could not create a DOM document", e);
+            }
+        }
+        return document;
+    }
+
+    private static void readTextList(XMLStreamReader reader, String itemName, List<String> items)
+        throws XMLStreamException {
+        while (nextChild(reader)) {
+            if (itemName.equals(reader.getLocalName())) {
+                items.add(reader.getElementText());
+            } else {
+                skip(reader);
+            }
+        }
+    }
+
+    /**
+     * Moves to the next child element of the current element.
+     *
+     * @return true when positioned on the start of a child, false on the end of the current element
+     */
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    private static Boolean booleanAttribute(XMLStreamReader reader, String name) throws XMLStreamException {
+        String value = attribute(reader, name);
+        if (value == null) {
+            return null;
+        }
+        // xs:boolean lexical space
+        return switch (value.strip()) {
+            case "true", "1" -> Boolean.TRUE;
+            case "false", "0" -> Boolean.FALSE;
+            default -> throw new XMLStreamException("Invalid boolean '" + value + "' in @" + name, reader.getLocation());
+        };
+    }
+
+    private static String namespace(String namespaceUri) {
+        return namespaceUri == null || namespaceUri.isEmpty() ? null : namespaceUri;
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    // Writing
+
+    private static void writeDocument(Prompt prompt, XMLStreamWriter writer, String encoding) throws XMLStreamException {
+        if (encoding != null) {
+            writer.writeStartDocument(encoding, "1.0");
+        } else {
+            writer.writeStartDocument("1.0");
+        }
+        writer.writeStartElement("prompt");
+        writeAttribute(writer, "id", prompt.getId());
+        writeAttribute(writer, "interactive", prompt.getInteractive());
+        if (prompt.getMetadata() != null) {
+            writeMetadata(writer, prompt.getMetadata());
+        }
+        writeText(writer, "title", prompt.getTitle());
+        writeText(writer, "role", prompt.getRole());
+        writeText(writer, "tone", prompt.getTone());
+        writeText(writer, "context", prompt.getContext());
+        if (prompt.getGoal() != null) {
+            writeMixed(writer, "goal", prompt.getGoal().getContent());
+        }
+        if (prompt.getConstraints() != null) {
+            writeConstraints(writer, prompt.getConstraints());
+        }
+        if (prompt.getSteps() != null) {
+            writeSteps(writer, prompt.getSteps());
+        }
+        if (prompt.getExamples() != null) {
+            writeExamples(writer, prompt.getExamples());
+        }
+        if (prompt.getOutputFormat() != null) {
+            writeMixed(writer, "output-format", prompt.getOutputFormat().getContent());
+        }
+        if (prompt.getSafeguards() != null) {
+            writeMixed(writer, "safeguards", prompt.getSafeguards().getContent());
+        }
+        if (prompt.getAcceptanceCriteria() != null) {
+            writer.writeStartElement("acceptance-criteria");
+            AcceptanceCriteriaList list = prompt.getAcceptanceCriteria().getAcceptanceCriteriaList();
+            if (list != null) {
+                writeTextList(writer, "acceptance-criteria-list", "acceptance-criteria-item", list.getAcceptanceCriteriaItem());
+            }
+            writer.writeEndElement();
+        }
+        if (prompt.getReferences() != null) {
+            writer.writeStartElement("references");
+            ReferenceList referenceList = prompt.getReferences().getReferenceList();
+            if (referenceList != null) {
+                writeTextList(writer, "reference-list", "reference", referenceList.getReference());
+            }
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+        writer.writeEndDocument();
+    }
+
+    private static void writeMetadata(XMLStreamWriter writer, Metadata metadata) throws XMLStreamException {
+        writer.writeStartElement("metadata");
+        if (metadata.getAuthors() != null) {
+            writeTextList(writer, "authors", "author", metadata.getAuthors().getAuthor());
+        }
+        writeText(writer, "version", metadata.getVersion());
+        writeText(writer, "license", metadata.getLicense());
+        writeText(writer, "title", metadata.getTitle());
+        writeText(writer, "description", metadata.getDescription());
+        writer.writeEndElement();
+    }
+
+    private static void writeConstraints(XMLStreamWriter writer, Constraints constraints) throws XMLStreamException {
+        writer.writeStartElement("constraints");
+        writeText(writer, "constraints-description", constraints.getConstraintsDescription());
+        if (constraints.getConstraintList() != null) {
+            writeTextList(writer, "constraint-list", "constraint", constraints.getConstraintList().getConstraint());
+        }
+        writer.writeEndElement();
+    }
+
+    private static void writeSteps(XMLStreamWriter writer, Steps steps) throws XMLStreamException {
+        writer.writeStartElement("steps");
+        for (Step step : steps.getStep()) {
+            writer.writeStartElement("step");
+            writeAttribute(writer, "number", step.getNumber());
+            writeText(writer, "step-title", step.getStepTitle());
+            if (step.getStepContent() != null) {
+                writeMixed(writer, "step-content", step.getStepContent().getContent());
+            }
+            StepConstraints stepConstraints = step.getStepConstraints();
+            if (stepConstraints != null) {
+                writer.writeStartElement("step-constraints");
+                if (stepConstraints.getStepConstraintList() != null) {
+                    writeTextList(writer, "step-constraint-list", "step-constraint",
+                        stepConstraints.getStepConstraintList().getStepConstraint());
+                }
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private static void writeExamples(XMLStreamWriter writer, Examples examples) throws XMLStreamException {
+        writer.writeStartElement("examples");
+        Toc toc = examples.getToc();
+        if (toc != null) {
+            writer.writeStartElement("toc");
+            // Fields rather than getters: the getters return the schema defaults of absent attributes
+            writeAttribute(writer, "auto-generate", toc.autoGenerate);
+            writeAttribute(writer, "source", toc.source);
+            writeAttribute(writer, "include-subtitles", toc.includeSubtitles);
+            writer.writeEndElement();
+        }
+        for (Example example : examples.getExample()) {
+            writer.writeStartElement("example");
+            writeAttribute(writer, "type", example.getType());
+            writeAttribute(writer, "number", example.getNumber());
+            writeAttribute(writer, "id", example.getId());
+            ExampleHeader header = example.getExampleHeader();
+            if (header != null) {
+                writer.writeStartElement("example-header");
+                writeText(writer, "example-title", header.getExampleTitle());
+                writeText(writer, "example-subtitle", header.getExampleSubtitle());
+                writer.writeEndElement();
+            }
+            writeText(writer, "example-description", example.getExampleDescription());
+            CodeExamples codeExamples = example.getCodeExamples();
+            if (codeExamples != null) {
+                writer.writeStartElement("code-examples");
+                for (GoodExample goodExample : codeExamples.getGoodExample()) {
+                    writeCodeExample(writer, "good-example", goodExample.lastItem, goodExample.getCodeBlock());
+                }
+                for (BadExample badExample : codeExamples.getBadExample()) {
+                    writeCodeExample(writer, "bad-example", badExample.lastItem, badExample.getCodeBlock());
+                }
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private static void writeCodeExample(XMLStreamWriter writer, String name, Boolean lastItem, CodeBlock codeBlock)
+        throws XMLStreamException {
+        writer.writeStartElement(name);
+        if (lastItem != null) {
+            writer.writeAttribute("last-item", lastItem.toString());
+        }
+        if (codeBlock != null) {
+            writer.writeStartElement("code-block");
+            writeAttribute(writer, "language", codeBlock.getLanguage());
+            if (codeBlock.getValue() != null) {
+                writer.writeCharacters(codeBlock.getValue());
+            }
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private static void writeMixed(XMLStreamWriter writer, String name, List<Object> content) throws XMLStreamException {
+        writer.writeStartElement(name);
+        for (Object item : content) {
+            switch (item) {
+                case String text -> writer.writeCharacters(text);
+                case Element element -> writeElement(writer, element);
+                case OutputFormatList list ->
+                    writeTextList(writer, "output-format-list", "output-format-item", list.getOutputFormatItem());
+                case SafeguardsList list ->
+                    writeTextList(writer, "safeguards-list", "safeguards-item", list.getSafeguardsItem());
+                case JAXBElement<?> element when element.getValue() == null || element.getValue() instanceof String -> {
+                    // Known string elements, as JAXB reads them from lax mixed content
+                    QName elementName = element.getName();
+                    writer.writeStartElement(elementName.getPrefix(), elementName.getLocalPart(), elementName.getNamespaceURI());
+                    if (element.getValue() != null) {
+                        writer.writeCharacters((String) element.getValue());
+                    }
+                    writer.writeEndElement();
+                }
+                default -> throw new XMLStreamException("Unsupported content in <" + name + ">: " + item.getClass().getName());
+            }
+        }
+        writer.writeEndElement();
+    }
+
+    private static void writeElement(XMLStreamWriter writer, Element element) throws XMLStreamException {
+        String localName = element.getLocalName() != null ? element.getLocalName() : element.getTagName();
+        if (element.getNamespaceURI() == null) {
+            writer.writeStartElement(localName);
+        } else {
+            // The writer repairs namespaces: declarations are added where the names need them
+            writer.writeStartElement(element.getPrefix() != null ? element.getPrefix() : "", localName,
+                element.getNamespaceURI());
+        }
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                continue;
+            }
+            if (attribute.getNamespaceURI() == null) {
+                writer.writeAttribute(attribute.getLocalName() != null ? attribute.getLocalName() : attribute.getName(),
+                    attribute.getValue());
+            } else {
+                writer.writeAttribute(attribute.getPrefix() != null ? attribute.getPrefix() : "",
+                    attribute.getNamespaceURI(), attribute.getLocalName(), attribute.getValue());
+            }
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+                case Node.ELEMENT_NODE -> writeElement(writer, (Element) child);
+                case Node.TEXT_NODE, Node.CDATA_SECTION_NODE -> writer.writeCharacters(child.getNodeValue());
+                default -> {
+                    // Comments and processing instructions are not part of the model
+                }
+            }
+        }
+        writer.writeEndElement();
+    }
+
+    private static void writeTextList(XMLStreamWriter writer, String name, String itemName, List<String> items)
+        throws XMLStreamException {
+        writer.writeStartElement(name);
+        for (String item : items) {
+            writeText(writer, itemName, item);
+        }
+        writer.writeEndElement();
+    }
+
+    private static void writeText(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        if (value != null) {
+            writer.writeStartElement(name);
+            writer.writeCharacters(value);
+            writer.writeEndElement();
+        }
+    }
+
+    private static void writeAttribute(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        if (value != null) {
+            writer.writeAttribute(name, value);
+        }
+    }
+
+    // Factories
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newDefaultFactory();
+        // Prompts are self-contained: no DTDs and no external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private static XMLOutputFactory newOutputFactory() {
+        XMLOutputFactory factory = XMLOutputFactory.newDefaultFactory();
+        factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+        return factory;
+    }
+
+    private static DocumentBuilderFactory newDocumentBuilderFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory;
+    }
+}
@@ -0,0 +1,396 @@
+package info.jab.pml.model;
+
+import jakarta.xml.bind.JAXBElement;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import org.w3c.dom.Element;
+
+/**
+ * Renders a {@link Prompt} to Markdown by walking the model, without going through XML.
+ *
+ * <p>The output is the one of the CLI stylesheet {@code xslt/pml-to-md.xsl} applied to the
+ * marshalled prompt, including its trimming and indentation rules: titles and list items are
+ * space-normalized, the goal and step contents lose one leading and one trailing newline and
+ * the indentation of their lines (unless a step contains a code fence), and code blocks lose
+ * the trailing spaces of their lines. Text is appended straight to the target, so no XML, DOM
+ * or intermediate copies of the prompt are created. Elements included with {@code xi:include}
+ * are not resolved, since the model holds the unresolved element.</p>
+ *
+ * <p>The methods are thread-safe.</p>
+ */
+public final class PromptMarkdownRenderer {
+
+    private static final String CODE_FENCE = "```";
+
+    private PromptMarkdownRenderer() {}
+
+    /**
+     * Renders a prompt to a string.
+     *
+     * @param prompt the prompt, such as the result of {@link PromptBuilder#build()}
+     * @return the Markdown
+     */
+    public static String render(Prompt prompt) {
+        StringBuilder out = new StringBuilder(1024);
+        try {
+            render(prompt, out);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Renders a prompt.
+     *
+     * @param prompt the prompt, such as the result of {@link PromptBuilder#build()}
+     * @param out where the Markdown is appended
+     * @throws IOException if appending fails
+     */
+    public static void render(Prompt prompt, Appendable out) throws IOException {
+        writeHeader(prompt, out);
+        if (prompt.getSteps() != null) {
+            writeSteps(prompt.getSteps(), out);
+        }
+        if (prompt.getExamples() != null) {
+            writeExamples(prompt.getExamples(), out);
+        }
+        if (prompt.getOutputFormat() != null) {
+            out.append("\n## Output Format\n\n");
+            writeListOrText(prompt.getOutputFormat().getContent(), true, out);
+        }
+        if (prompt.getSafeguards() != null) {
+            out.append("\n## Safeguards\n\n");
+            writeListOrText(prompt.getSafeguards().getContent(), false, out);
+        }
+        AcceptanceCriteria acceptanceCriteria = prompt.getAcceptanceCriteria();
+        if (acceptanceCriteria != null) {
+            out.append("\n## Acceptance Criteria\n\n")
+                .append("The goal will be achieved if the following criteria are met:\n\n");
+            if (acceptanceCriteria.getAcceptanceCriteriaList() != null) {
+                writeItems(acceptanceCriteria.getAcceptanceCriteriaList().getAcceptanceCriteriaItem(), out);
+            }
+        }
+    }
+
+    private static void writeHeader(Prompt prompt, Appendable out) throws IOException {
+        Metadata metadata = prompt.getMetadata();
+        // The stylesheet reads metadata/author, which the schema nests in authors: only the version is written
+        if (metadata != null && hasText(metadata.getVersion())) {
+            out.append("---\nversion: ");
+            appendNormalized(out, metadata.getVersion());
+            out.append("\n---\n");
+        }
+        String title = metadata != null && hasText(metadata.getTitle()) ? metadata.getTitle() : prompt.getTitle();
+        if (hasText(title)) {
+            out.append("# ");
+            appendNormalized(out, title);
+            out.append("\n\n");
+        }
+        if (hasText(prompt.getRole())) {
+            out.append("## Role\n\n");
+            appendNormalized(out, prompt.getRole());
+        }
+        if (prompt.getTone() != null) {
+            out.append("\n\n## Tone\n\n");
+            appendNormalized(out, prompt.getTone());
+        }
+        if (prompt.getGoal() != null) {
+            out.append("\n\n## Goal\n\n");
+            String goal = textOf(prompt.getGoal().getContent());
+            appendWithoutIndentation(out, goal, trimStart(goal, 0, goal.length()), trimEnd(goal, 0, goal.length()));
+            out.append('\n');
+        }
+        Constraints constraints = prompt.getConstraints();
+        if (constraints != null) {
+            out.append("\n## Constraints\n\n");
+            if (constraints.getConstraintsDescription() != null) {
+                appendNormalized(out, constraints.getConstraintsDescription());
+                out.append("\n\n");
+            }
+            if (constraints.getConstraintList() != null) {
+                writeItems(constraints.getConstraintList().getConstraint(), out);
+            }
+        }
+        Examples examples = prompt.getExamples();
+        // The raw attribute: the stylesheet does not apply the schema default of auto-generate
+        if (examples != null && examples.getToc() != null && "true".equals(examples.getToc().autoGenerate)) {
+            out.append("\n## Examples\n\n### Table of contents\n\n");
+            for (Example example : examples.getExample()) {
+                out.append("- Example ");
+                appendNumber(out, example.getNumber());
+                out.append(": ");
+                appendNormalized(out, exampleTitle(example));
+                out.append('\n');
+            }
+        }
+    }
+
+    private static void writeSteps(Steps steps, Appendable out) throws IOException {
+        out.append("\n## Steps\n\n");
+        for (Step step : steps.getStep()) {
+            out.append("### Step ");
+            if (step.getNumber() != null) {
+                out.append(step.getNumber()).append(": ");
+            }
+            appendNormalized(out, step.getStepTitle());
+            out.append("\n\n");
+            String content = step.getStepContent() != null ? textOf(step.getStepContent().getContent()) : "";
+            int start = trimStart(content, 0, content.length());
+            int end = trimEnd(content, 0, content.length());
+            int fence = content.indexOf(CODE_FENCE, start);
+            if (fence >= 0 && fence + CODE_FENCE.length() <= end) {
+                // Code fences keep their indentation; the stylesheet trims the newlines a second time
+                out.append(content, trimStart(content, start, end), trimEnd(content, start, end));
+            } else {
+                appendWithoutIndentation(out, content, start, end);
+            }
+            StepConstraints stepConstraints = step.getStepConstraints();
+            if (stepConstraints != null) {
+                out.append("\n#### Step Constraints\n\n");
+                if (stepConstraints.getStepConstraintList() != null) {
+                    writeItems(stepConstraints.getStepConstraintList().getStepConstraint(), out);
+                }
+                out.append('\n');
+            }
+        }
+    }
+
+    private static void writeExamples(Examples examples, Appendable out) throws IOException {
+        List<Example> list = examples.getExample();
+        for (int i = 0; i < list.size(); i++) {
+            Example example = list.get(i);
+            out.append("\n### Example ");
+            appendNumber(out, example.getNumber());
+            out.append(": ");
+            appendNormalized(out, exampleTitle(example));
+            out.append("\n\nTitle: ");
+            appendNormalized(out, example.getExampleHeader() != null ? example.getExampleHeader().getExampleSubtitle() : null);
+            out.append("\nDescription: ");
+            appendNormalized(out, example.getExampleDescription());
+            CodeExamples codeExamples = example.getCodeExamples();
+            if (codeExamples != null && !codeExamples.getGoodExample().isEmpty()) {
+                out.append("\n\n**Good example:**\n\n");
+                List<GoodExample> goodExamples = codeExamples.getGoodExample();
+                String language = null;
+                CodeBlock codeBlock = null;
+                boolean lastItem = false;
+                for (GoodExample goodExample : goodExamples) {
+                    CodeBlock block = goodExample.getCodeBlock();
+                    if (block != null) {
+                        codeBlock = codeBlock != null ? codeBlock : block;
+                        language = language != null ? language : block.getLanguage();
+                    }
+                    lastItem |= Boolean.TRUE.equals(goodExample.lastItem);
+                }
+                writeCodeExample(out, language, codeBlock, lastItem);
+            }
+            if (codeExamples != null && !codeExamples.getBadExample().isEmpty()) {
+                out.append("\n\n**Bad example:**\n\n");
+                List<BadExample> badExamples = codeExamples.getBadExample();
+                String language = null;
+                CodeBlock codeBlock = null;
+                boolean lastItem = false;
+                for (BadExample badExample : badExamples) {
+                    CodeBlock block = badExample.getCodeBlock();
+                    if (block != null) {
+                        codeBlock = codeBlock != null ? codeBlock : block;
+                        language = language != null ? language : block.getLanguage();
+                    }
+                    lastItem |= Boolean.TRUE.equals(badExample.lastItem);
+                }
+                writeCodeExample(out, language, codeBlock, lastItem);
+            }
+            if (i < list.size() - 1) {
+                out.append('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes a code example: the language and code of the first code block, with the trailing
+     * spaces of every line removed.
+     */
+    private static void writeCodeExample(Appendable out, String language, CodeBlock codeBlock, boolean lastItem)
+        throws IOException {
+        out.append(CODE_FENCE);
+        if (language != null) {
+            out.append(language);
+        }
+        out.append('\n');
+        String code = codeBlock != null && codeBlock.getValue() != null ? codeBlock.getValue() : "";
+        int end = trimEnd(code, 0, code.length());
+        int lineStart = trimStart(code, 0, code.length());
+        while (true) {
+            int lineEnd = code.indexOf('\n', lineStart);
+            int contentEnd = lineEnd < 0 || lineEnd > end ? end : lineEnd;
+            int trimmedEnd = contentEnd;
+            while (trimmedEnd > lineStart && code.charAt(trimmedEnd - 1) == ' ') {
+                trimmedEnd--;
+            }
+            out.append(code, lineStart, trimmedEnd);
+            if (contentEnd == end) {
+                break;
+            }
+            out.append('\n');
+            lineStart = contentEnd + 1;
+        }
+        out.append('\n').append(CODE_FENCE);
+        if (lastItem) {
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Writes the items of the output format or safeguards list, or else the first text of the
+     * section. The stylesheet strips whitespace-only text from output-format but not from safeguards.
+     */
+    private static void writeListOrText(List<Object> content, boolean stripBlankText, Appendable out) throws IOException {
+        boolean hasList = false;
+        for (Object item : content) {
+            if (item instanceof OutputFormatList list) {
+                hasList = true;
+                writeItems(list.getOutputFormatItem(), out);
+            } else if (item instanceof SafeguardsList list) {
+                hasList = true;
+                writeItems(list.getSafeguardsItem(), out);
+            }
+        }
+        if (hasList) {
+            return;
+        }
+        for (Object item : content) {
+            if (item instanceof String text && !(stripBlankText && !hasText(text))) {
+                appendNormalized(out, text);
+                break;
+            }
+        }
+        out.append('\n');
+    }
+
+    private static void writeItems(List<String> items, Appendable out) throws IOException {
+        for (String item : items) {
+            out.append("- ");
+            appendNormalized(out, item);
+            out.append('\n');
+        }
+    }
+
+    private static String exampleTitle(Example example) {
+        return example.getExampleHeader() != null ? example.getExampleHeader().getExampleTitle() : null;
+    }
+
+    private static void appendNumber(Appendable out, String number) throws IOException {
+        if (number != null) {
+            out.append(number);
+        }
+    }
+
+    /**
+     * XPath {@code string()} of mixed content: the text of every item, markup included.
+     */
+    private static String textOf(List<Object> content) {
+        if (content.size() == 1 && content.getFirst() instanceof String text) {
+            return text;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Object item : content) {
+            switch (item) {
+                case String string -> text.append(string);
+                case Element element -> text.append(element.getTextContent());
+                case JAXBElement<?> element when element.getValue() != null -> text.append(element.getValue());
+                default -> {
+                    // No text
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * XPath {@code normalize-space()}: trims and collapses runs of XML whitespace to one space.
+     */
+    private static void appendNormalized(Appendable out, String text) throws IOException {
+        if (text == null) {
+            return;
+        }
+        boolean pendingSpace = false;
+        boolean started = false;
+        int runStart = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isXmlWhitespace(c)) {
+                if (started && !pendingSpace) {
+                    out.append(text, runStart, i);
+                    pendingSpace = true;
+                }
+            } else {
+                if (pendingSpace) {
+                    out.append(' ');
+                    pendingSpace = false;
+                    runStart = i;
+                } else if (!started) {
+                    runStart = i;
+                }
+                started = true;
+            }
+        }
+        if (started && !pendingSpace) {
+            out.append(text, runStart, text.length());
+        }
+    }
+
+    /**
+     * Appends the lines of {@code text} between {@code start} and {@code end} without their
+     * leading spaces.
+     */
+    private static void appendWithoutIndentation(Appendable out, String text, int start, int end) throws IOException {
+        int lineStart = start;
+        while (true) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            int contentEnd = lineEnd < 0 || lineEnd > end ? end : lineEnd;
+            int contentStart = lineStart;
+            while (contentStart < contentEnd && text.charAt(contentStart) == ' ') {
+                contentStart++;
+            }
+            out.append(text, contentStart, contentEnd);
+            if (contentEnd == end) {
+                return;
+            }
+            out.append('\n');
+            lineStart = contentEnd + 1;
+        }
+    }
+
+    /**
+     * Start of the range once one leading newline is dropped.
+     */
+    private static int trimStart(String text, int start, int end) {
+        return start < end && text.charAt(start) == '\n' ? start + 1 : start;
+    }
+
+    /**
+     * End of the range once one leading and one trailing newline are dropped.
+     */
+    private static int trimEnd(String text, int start, int end) {
+        return end > trimStart(text, start, end) && text.charAt(end - 1) == '\n' ? end - 1 : end;
+    }
+
+    private static boolean hasText(String text) {
+        if (text == null) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!isXmlWhitespace(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isXmlWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
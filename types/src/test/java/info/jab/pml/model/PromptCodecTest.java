@@ -0,0 +1,192 @@
+package info.jab.pml.model;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("PromptCodec round trips, compared with JAXB")
+class PromptCodecTest {
+
+    private static JAXBContext context;
+
+    @BeforeAll
+    static void createContext() throws JAXBException {
+        context = JAXBContext.newInstance(Prompt.class);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {
+        "pml-hello-world.xml",
+        "pml-hello-world-java.xml",
+        "pml-multiple-authors.xml",
+        "pml-java25-installation.xml",
+        "pml-tdd-example.xml"
+    })
+    void read_shouldMatchJaxbUnmarshalling(String fileName) throws Exception {
+        // Given
+        byte[] document;
+        try (InputStream input = getClass().getResourceAsStream("/pml/" + fileName)) {
+            assertThat(input).isNotNull();
+            document = input.readAllBytes();
+        }
+        Prompt expected = (Prompt) context.createUnmarshaller().unmarshal(new ByteArrayInputStream(document));
+
+        // When
+        Prompt prompt = PromptCodec.read(new ByteArrayInputStream(document));
+
+        // Then
+        assertThat(marshal(prompt)).isEqualTo(marshal(expected));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {
+        "pml-hello-world.xml",
+        "pml-hello-world-java.xml",
+        "pml-multiple-authors.xml",
+        "pml-java25-installation.xml",
+        "pml-tdd-example.xml"
+    })
+    void write_shouldBeReadBackByJaxb(String fileName) throws Exception {
+        // Given
+        Prompt prompt;
+        try (InputStream input = getClass().getResourceAsStream("/pml/" + fileName)) {
+            assertThat(input).isNotNull();
+            prompt = (Prompt) context.createUnmarshaller().unmarshal(input);
+        }
+
+        // When
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PromptCodec.write(prompt, output);
+
+        // Then
+        Prompt readBack = (Prompt) context.createUnmarshaller().unmarshal(new ByteArrayInputStream(output.toByteArray()));
+        assertThat(marshal(readBack)).isEqualTo(marshal(prompt));
+    }
+
+    @Test
+    void roundTrip_withEveryElementAndMixedMarkup_shouldMatchJaxb() throws Exception {
+        // Given
+        String document = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <prompt id="all" interactive="true">
+              <metadata>
+                <authors><author>Ada</author><author>Grace</author></authors>
+                <version>1.0</version>
+                <license>Apache-2.0</license>
+                <title>Metadata title</title>
+                <description>Every element of the schema</description>
+              </metadata>
+              <title>All elements</title>
+              <role>Reviewer &amp; mentor</role>
+              <tone>Friendly</tone>
+              <context>A &lt;small&gt; project</context>
+              <goal>Keep <b class="strong">bold <i>and italic</i></b> markup<!-- dropped --> and <![CDATA[<raw> text]]></goal>
+              <constraints>
+                <constraints-description>Rules</constraints-description>
+                <constraint-list><constraint>One</constraint><constraint>Two</constraint></constraint-list>
+              </constraints>
+              <steps>
+                <step number="1">
+                  <step-title>First</step-title>
+                  <step-content>Run <code>mvn verify</code></step-content>
+                  <step-constraints><step-constraint-list><step-constraint>Fast</step-constraint></step-constraint-list></step-constraints>
+                </step>
+              </steps>
+              <examples>
+                <toc include-subtitles="true"/>
+                <example type="code" number="1" id="first">
+                  <example-header><example-title>Title</example-title><example-subtitle>Subtitle</example-subtitle></example-header>
+                  <example-description>Description</example-description>
+                  <code-examples>
+                    <good-example last-item="1"><code-block language="java">if (a &lt; b) { }</code-block></good-example>
+                    <bad-example><code-block>goto</code-block></bad-example>
+                  </code-examples>
+                </example>
+              </examples>
+              <output-format>Answer with <output-format-list><output-format-item>A list</output-format-item></output-format-list></output-format>
+              <safeguards>Check <safeguards-list><safeguards-item>Tests pass</safeguards-item></safeguards-list></safeguards>
+              <acceptance-criteria><acceptance-criteria-list><acceptance-criteria-item>Done</acceptance-criteria-item></acceptance-criteria-list></acceptance-criteria>
+              <references><reference-list><reference>https://www.promptml.org/</reference></reference-list></references>
+            </prompt>
+            """;
+        Prompt expected = (Prompt) context.createUnmarshaller().unmarshal(new StringReader(document));
+
+        // When
+        Prompt prompt = PromptCodec.read(new StringReader(document));
+        StringWriter written = new StringWriter();
+        PromptCodec.write(prompt, written);
+        Prompt readBack = (Prompt) context.createUnmarshaller().unmarshal(new StringReader(written.toString()));
+
+        // Then
+        assertThat(marshal(prompt)).isEqualTo(marshal(expected));
+        assertThat(marshal(readBack)).isEqualTo(marshal(expected));
+        assertThat(prompt.getExamples().getToc().getAutoGenerate()).isEqualTo("true");
+        assertThat(written.toString()).doesNotContain("auto-generate");
+    }
+
+    @Test
+    void write_withBuiltPrompt_shouldNotNeedJaxb() throws Exception {
+        // Given
+        Goal goal = new Goal();
+        goal.getContent().add("Ship <fast> & safe");
+        Prompt prompt = PromptBuilder.create()
+            .withRole("assistant")
+            .withGoal(goal)
+            .build();
+
+        // When
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PromptCodec.write(prompt, output);
+
+        // Then
+        assertThat(output.toString(UTF_8))
+            .startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+            .endsWith("<prompt><role>assistant</role><goal>Ship &lt;fast&gt; &amp; safe</goal></prompt>");
+    }
+
+    @Test
+    void read_withAnotherRootElement_shouldFail() {
+        // Given
+        String document = "<steps/>";
+
+        // When / Then
+        assertThatThrownBy(() -> PromptCodec.read(new StringReader(document)))
+            .isInstanceOf(XMLStreamException.class)
+            .hasMessageContaining("Expected <prompt> but found <steps>");
+    }
+
+    @Test
+    void read_withExternalEntity_shouldFail() {
+        // Given
+        String document = """
+            <!DOCTYPE prompt [<!ENTITY secret SYSTEM "file:///etc/passwd">]>
+            <prompt><role>&secret;</role><goal>Leak</goal></prompt>
+            """;
+
+        // When / Then
+        assertThatThrownBy(() -> PromptCodec.read(new StringReader(document)))
+            .isInstanceOf(XMLStreamException.class);
+    }
+
+    private static String marshal(Prompt prompt) throws JAXBException {
+        StringWriter output = new StringWriter();
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.marshal(prompt, output);
+        return output.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package info.jab.pml.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("PromptMarkdownRenderer output, compared with pml-to-md.xsl")
+class PromptMarkdownRendererTest {
+
+    private static JAXBContext context;
+    private static Templates stylesheet;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        context = JAXBContext.newInstance(Prompt.class);
+        try (InputStream xsl = PromptMarkdownRendererTest.class.getResourceAsStream("/xslt/pml-to-md.xsl")) {
+            assertThat(xsl).isNotNull();
+            stylesheet = TransformerFactory.newInstance().newTemplates(new StreamSource(xsl));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {
+        "113-java-maven-documentation.xml",
+        "pml-hello-world.xml",
+        "pml-hello-world-java.xml",
+        "pml-java25-installation.xml",
+        "pml-java25-installation-v2.xml",
+        "pml-java25-installation-v3.xml",
+        "pml-java25-installation-v4.xml",
+        "pml-java25-installation-v5.xml",
+        "pml-multiple-authors.xml",
+        "pml-tdd-example.xml"
+    })
+    void render_shouldMatchStylesheet(String fileName) throws Exception {
+        // Given
+        byte[] document;
+        try (InputStream input = getClass().getResourceAsStream("/pml/" + fileName)) {
+            assertThat(input).isNotNull();
+            document = input.readAllBytes();
+        }
+        String expected = transform(new StreamSource(new ByteArrayInputStream(document)));
+
+        // When
+        String fromJaxb = PromptMarkdownRenderer.render(unmarshal(new StreamSource(new ByteArrayInputStream(document))));
+        String fromCodec = PromptMarkdownRenderer.render(PromptCodec.read(new ByteArrayInputStream(document)));
+
+        // Then
+        assertThat(fromJaxb).isEqualTo(expected);
+        assertThat(fromCodec).isEqualTo(expected);
+    }
+
+    @Test
+    void render_withEveryElement_shouldMatchStylesheet() throws Exception {
+        // Given
+        String document = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <prompt id="all">
+              <metadata>
+                <authors><author>Ada</author></authors>
+                <version> 1.0 </version>
+                <title>  Metadata   title </title>
+              </metadata>
+              <title>Ignored title</title>
+              <role>Reviewer &amp; mentor</role>
+              <tone>  Friendly
+                 and calm </tone>
+              <goal>
+                Keep <b>bold <i>and italic</i></b> markup and <![CDATA[<raw> text]]>
+                  indented
+              </goal>
+              <constraints>
+                <constraints-description>  Rules
+                here </constraints-description>
+                <constraint-list><constraint>One</constraint><constraint>  Two
+                lines</constraint></constraint-list>
+              </constraints>
+              <steps>
+                <step number="1">
+                  <step-title>First</step-title>
+                  <step-content>Run <code>mvn verify</code></step-content>
+                  <step-constraints><step-constraint-list><step-constraint>Fast</step-constraint></step-constraint-list></step-constraints>
+                </step>
+                <step>
+                  <step-title>Second</step-title>
+                  <step-content>
+
+                    ```java
+                        code();
+                    ```
+
+                  </step-content>
+                </step>
+              </steps>
+              <examples>
+                <toc auto-generate="true"/>
+                <example number="1">
+                  <example-header><example-title>Title</example-title><example-subtitle>Subtitle</example-subtitle></example-header>
+                  <example-description>Description</example-description>
+                  <code-examples>
+                    <good-example><code-block>
+               first   \s
+               second  \s
+            </code-block></good-example>
+                    <good-example last-item="true"><code-block language="java">if (a &lt; b) { }</code-block></good-example>
+                    <bad-example last-item="true"><code-block language="c">goto</code-block></bad-example>
+                  </code-examples>
+                </example>
+                <example number="2">
+                  <example-header><example-title>Second</example-title></example-header>
+                </example>
+              </examples>
+              <output-format>
+                 Plain   text format
+              </output-format>
+              <safeguards>Check <safeguards-list><safeguards-item>Tests pass</safeguards-item></safeguards-list></safeguards>
+              <acceptance-criteria><acceptance-criteria-list><acceptance-criteria-item>Done</acceptance-criteria-item></acceptance-criteria-list></acceptance-criteria>
+            </prompt>
+            """;
+        String expected = transform(new StreamSource(new StringReader(document)));
+
+        // When
+        String markdown = PromptMarkdownRenderer.render(PromptCodec.read(new StringReader(document)));
+
+        // Then
+        assertThat(markdown).isEqualTo(expected);
+    }
+
+    @Test
+    void render_withBuiltPrompt_shouldWriteMarkdownToAppendable() throws Exception {
+        // Given
+        Goal goal = new Goal();
+        goal.getContent().add("""
+
+                Ship the feature
+                  with tests
+            """);
+        ConstraintList constraintList = new ConstraintList();
+        constraintList.getConstraint().add("  Keep it   small ");
+        Constraints constraints = new Constraints();
+        constraints.setConstraintList(constraintList);
+        Prompt prompt = PromptBuilder.create()
+            .withRole("assistant")
+            .withTone("direct")
+            .withGoal(goal)
+            .withConstraints(constraints)
+            .build();
+        StringBuilder markdown = new StringBuilder("<before>");
+
+        // When
+        PromptMarkdownRenderer.render(prompt, markdown);
+
+        // Then
+        assertThat(markdown.toString()).isEqualTo("""
+            <before>## Role
+
+            assistant
+
+            ## Tone
+
+            direct
+
+            ## Goal
+
+            Ship the feature
+            with tests
+
+            ## Constraints
+
+            - Keep it small
+            """);
+    }
+
+    private static Prompt unmarshal(StreamSource source) throws JAXBException {
+        return (Prompt) context.createUnmarshaller().unmarshal(source);
+    }
+
+    private static String transform(StreamSource source) throws Exception {
+        StringWriter markdown = new StringWriter();
+        stylesheet.newTransformer().transform(source, new StreamResult(markdown));
+        return markdown.toString();
+    }
+}